@@ -0,0 +1,35 @@
+package uk.gov.ons.ctp.integration.mock;
+
+import java.util.EnumMap;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/** Names of typical data files, used by the benchmarks to select captured responses. */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class BenchmarkData {
+  private static final Map<RequestType, String> SAMPLE_NAMES = new EnumMap<>(RequestType.class);
+
+  static {
+    SAMPLE_NAMES.put(RequestType.AI_RH_POSTCODE, "cf32tw");
+    SAMPLE_NAMES.put(RequestType.AI_PARTIAL, "treganna");
+    SAMPLE_NAMES.put(RequestType.AI_POSTCODE, "ex24lu");
+    SAMPLE_NAMES.put(RequestType.AI_RH_UPRN, "10013745617");
+    SAMPLE_NAMES.put(RequestType.AI_EQ, "holbeche");
+    SAMPLE_NAMES.put(RequestType.AI_EQ_POSTCODE, "ex24l");
+    SAMPLE_NAMES.put(RequestType.CASE_REF, "124124009");
+    SAMPLE_NAMES.put(RequestType.CASE_QID, "77346443-64ae-422e-9b93-d5250f48a27a");
+    SAMPLE_NAMES.put(RequestType.CASE_ID, "77346443-64ae-422e-9b93-d5250f48a27a");
+  }
+
+  /**
+   * Returns the name of a data file which is held for a request type.
+   *
+   * @param requestType is the type of request.
+   * @return the name of a captured response.
+   */
+  public static String sampleName(RequestType requestType) {
+    return SAMPLE_NAMES.get(requestType);
+  }
+}
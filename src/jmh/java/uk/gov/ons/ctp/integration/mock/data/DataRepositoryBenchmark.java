@@ -0,0 +1,64 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.ons.ctp.integration.mock.BenchmarkData;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/** Measures lookups of captured data, for both held and missing names. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DataRepositoryBenchmark {
+
+  @Param({
+    "AI_RH_POSTCODE",
+    "AI_PARTIAL",
+    "AI_POSTCODE",
+    "AI_RH_UPRN",
+    "AI_EQ",
+    "AI_EQ_POSTCODE",
+    "CASE_REF",
+    "CASE_QID",
+    "CASE_ID"
+  })
+  public RequestType requestType;
+
+  private String name;
+
+  @Setup
+  public void setup() throws IOException {
+    DataRepository.load();
+    name = BenchmarkData.sampleName(requestType);
+  }
+
+  @Benchmark
+  public String read() {
+    return DataRepository.read(requestType, name);
+  }
+
+  @Benchmark
+  public String readMissing() {
+    return DataRepository.read(requestType, "not held");
+  }
+
+  @Benchmark
+  public List<String> list() {
+    return DataRepository.list(requestType);
+  }
+}
@@ -0,0 +1,51 @@
+package uk.gov.ons.ctp.integration.mock.endpoint;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import uk.gov.ons.ctp.integration.mock.BenchmarkData;
+import uk.gov.ons.ctp.integration.mock.data.DataRepository;
+
+/** Measures counting the results held in a data file, and building the data help text. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HelpEndpointBenchmark {
+
+  @Param({"AI_RH_POSTCODE", "AI_PARTIAL", "AI_POSTCODE", "AI_RH_UPRN", "AI_EQ", "AI_EQ_POSTCODE"})
+  public RequestType requestType;
+
+  private HelpEndpoint helpEndpoint;
+  private String name;
+
+  @Setup
+  public void setup() throws IOException {
+    DataRepository.load();
+    helpEndpoint = new HelpEndpoint();
+    name = BenchmarkData.sampleName(requestType);
+  }
+
+  @Benchmark
+  public int count() throws Exception {
+    return helpEndpoint.count(name, requestType);
+  }
+
+  @Benchmark
+  public ResponseEntity<String> addressDataHelp() throws Exception {
+    return helpEndpoint.addressDataHelp();
+  }
+}
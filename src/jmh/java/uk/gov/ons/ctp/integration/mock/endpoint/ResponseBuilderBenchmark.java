@@ -0,0 +1,74 @@
+package uk.gov.ons.ctp.integration.mock.endpoint;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import uk.gov.ons.ctp.common.error.CTPException;
+import uk.gov.ons.ctp.integration.mock.BenchmarkData;
+import uk.gov.ons.ctp.integration.mock.data.DataRepository;
+
+/**
+ * Measures building a response for every request type. The page parameter is the offset and limit
+ * requested, which only affects the paged address types.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ResponseBuilderBenchmark {
+
+  @Param({
+    "AI_RH_POSTCODE",
+    "AI_PARTIAL",
+    "AI_POSTCODE",
+    "AI_RH_UPRN",
+    "AI_EQ",
+    "AI_EQ_POSTCODE",
+    "CASE_REF",
+    "CASE_QID",
+    "CASE_ID"
+  })
+  public RequestType requestType;
+
+  @Param({"0,10", "0,100", "500,100"})
+  public String page;
+
+  private String name;
+  private int offset;
+  private int limit;
+  private Map<String, Object> requestParams;
+
+  @Setup
+  public void setup() throws IOException {
+    DataRepository.load();
+    name = BenchmarkData.sampleName(requestType);
+    String[] pageParams = page.split(",");
+    offset = Integer.parseInt(pageParams[0]);
+    limit = Integer.parseInt(pageParams[1]);
+    requestParams = Map.of("caseEvents", false);
+  }
+
+  @Benchmark
+  public ResponseEntity<Object> respond() throws IOException, CTPException {
+    return ResponseBuilder.respond(requestType, requestParams, name, offset, limit);
+  }
+
+  @Benchmark
+  public ResponseEntity<Object> respondNotFound() throws IOException, CTPException {
+    return ResponseBuilder.respond(requestType, requestParams, "not held", offset, limit);
+  }
+}
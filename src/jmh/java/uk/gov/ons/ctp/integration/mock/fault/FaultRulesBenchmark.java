@@ -0,0 +1,120 @@
+package uk.gov.ons.ctp.integration.mock.fault;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+import uk.gov.ons.ctp.integration.mock.filter.FaultFilter;
+import uk.gov.ons.ctp.integration.mock.filter.RequestClassifier;
+
+/**
+ * Measures the fault lookup made for each request by the fault filter, with the default rules which
+ * fail case requests whose key starts with an error status. The key is found in the request URI as
+ * the filter finds it. Run with '-prof gc' to confirm that classifying a request, and the lookups
+ * which don't fail, allocate nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FaultRulesBenchmark {
+  private String passingUri = "/cases/77346443-64ae-422e-9b93-d5250f48a27a";
+  private String failingUri = "/cases/500e937-6fb1-4ce1-9d4c-077f147789ab";
+
+  private FaultRules rules;
+  private HttpServletRequest passingRequest;
+  private HttpServletRequest failingRequest;
+
+  @Setup
+  public void setup() {
+    List<FaultRule> defaults = new ArrayList<>();
+    for (int status : new int[] {400, 401, 404, 500}) {
+      FaultRule rule = new FaultRule();
+      rule.setName("case-" + status);
+      rule.setRequestTypes(
+          EnumSet.of(RequestType.CASE_ID, RequestType.CASE_QID, RequestType.CASE_REF));
+      rule.setKeyPattern(status + ".*");
+      rule.setStatus(status);
+      defaults.add(rule);
+    }
+    rules = FaultRules.compile(defaults);
+
+    passingRequest = request(passingUri);
+    failingRequest = request(failingUri);
+  }
+
+  // Only the URI and headers of a request are read, and no attributes are held, so each request is
+  // classified afresh
+  private static HttpServletRequest request(String uri) {
+    HttpServletRequest unused =
+        (HttpServletRequest)
+            Proxy.newProxyInstance(
+                HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] {HttpServletRequest.class},
+                (proxy, method, args) -> {
+                  throw new UnsupportedOperationException(method.getName());
+                });
+    return new HttpServletRequestWrapper(unused) {
+      @Override
+      public String getRequestURI() {
+        return uri;
+      }
+
+      @Override
+      public String getContextPath() {
+        return "";
+      }
+
+      @Override
+      public String getHeader(String name) {
+        return null;
+      }
+
+      @Override
+      public Object getAttribute(String name) {
+        return null;
+      }
+
+      @Override
+      public void setAttribute(String name, Object o) {}
+    };
+  }
+
+  @Benchmark
+  public Object classify() {
+    return RequestClassifier.classify(passingRequest);
+  }
+
+  @Benchmark
+  public Object noRules() {
+    return rules.hasRules(RequestType.AI_RH_POSTCODE)
+        ? FaultFilter.find(rules, RequestType.AI_RH_POSTCODE, passingRequest)
+        : null;
+  }
+
+  @Benchmark
+  public Object noFault() {
+    return FaultFilter.find(rules, RequestType.CASE_ID, passingRequest);
+  }
+
+  @Benchmark
+  public Object fault() {
+    return FaultFilter.find(rules, RequestType.CASE_ID, failingRequest);
+  }
+}
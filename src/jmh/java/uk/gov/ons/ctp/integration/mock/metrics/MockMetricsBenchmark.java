@@ -0,0 +1,96 @@
+package uk.gov.ons.ctp.integration.mock.metrics;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * Measures the metrics recorded for each request: the outcome set by the response builder, and
+ * the timer updated by the metrics filter. This should be well under a microsecond. The meters are
+ * registered with a Prometheus registry, as the mock publishes them, and the outcome is set on a
+ * request bound to the benchmark thread, as Spring binds it. Run with '-prof gc' to confirm that
+ * neither allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MockMetricsBenchmark {
+  private MockMetrics metrics;
+  private long nanos;
+
+  @Setup
+  public void setup() {
+    metrics = new MockMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request()));
+  }
+
+  @TearDown
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  // Only the attributes of a request are used, which are held in a map as the container holds them
+  private static HttpServletRequest request() {
+    HttpServletRequest unused =
+        (HttpServletRequest)
+            Proxy.newProxyInstance(
+                HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] {HttpServletRequest.class},
+                (proxy, method, args) -> {
+                  throw new UnsupportedOperationException(method.getName());
+                });
+    Map<String, Object> attributes = new HashMap<>();
+    return new HttpServletRequestWrapper(unused) {
+      @Override
+      public Object getAttribute(String name) {
+        return attributes.get(name);
+      }
+
+      @Override
+      public void setAttribute(String name, Object o) {
+        attributes.put(name, o);
+      }
+    };
+  }
+
+  @Benchmark
+  public void setCurrent() {
+    RequestOutcome.HIT.setCurrent();
+  }
+
+  @Benchmark
+  public void recordRequest() {
+    // Vary the time recorded, so that it lands in different histogram buckets
+    nanos = (nanos + 37_501) & 0xFFFFFF;
+    metrics.recordRequest(RequestType.AI_RH_POSTCODE, RequestOutcome.HIT, nanos);
+  }
+
+  @Benchmark
+  public void recordRequestWithOutcome() {
+    RequestOutcome.HIT.setCurrent();
+    nanos = (nanos + 37_501) & 0xFFFFFF;
+    metrics.recordRequest(RequestType.AI_RH_POSTCODE, RequestOutcome.HIT, nanos);
+  }
+}
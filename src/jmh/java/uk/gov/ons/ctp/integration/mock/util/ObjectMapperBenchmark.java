@@ -0,0 +1,80 @@
+package uk.gov.ons.ctp.integration.mock.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.ons.ctp.integration.mock.BenchmarkData;
+import uk.gov.ons.ctp.integration.mock.data.DataRepository;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * Compares the cost of a Jackson round trip of a captured response using a freshly built mapper
+ * (as each request used to do) against the shared readers and writers of the registry, with and
+ * without the Blackbird module.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ObjectMapperBenchmark {
+
+  @Param({
+    "AI_RH_POSTCODE",
+    "AI_PARTIAL",
+    "AI_POSTCODE",
+    "AI_RH_UPRN",
+    "AI_EQ",
+    "AI_EQ_POSTCODE",
+    "CASE_REF",
+    "CASE_ID"
+  })
+  public RequestType requestType;
+
+  private Class<?> responseClass;
+  private String json;
+  private ObjectMapperRegistry reflective;
+  private ObjectMapperRegistry blackbird;
+
+  @Setup
+  public void setup() {
+    responseClass = requestType.getResponseClass();
+    json = DataRepository.read(requestType, BenchmarkData.sampleName(requestType));
+    reflective = new ObjectMapperRegistry(false);
+    blackbird = new ObjectMapperRegistry(true);
+  }
+
+  @Benchmark
+  public byte[] mapperPerRequest() throws IOException {
+    ObjectMapper mapper = ObjectMapperFactory.objectMapper();
+    Object response = mapper.readerFor(responseClass).readValue(json);
+    return mapper.writeValueAsBytes(response);
+  }
+
+  @Benchmark
+  public byte[] sharedReaderWriter() throws IOException {
+    return roundTrip(reflective);
+  }
+
+  @Benchmark
+  public byte[] sharedReaderWriterBlackbird() throws IOException {
+    return roundTrip(blackbird);
+  }
+
+  private byte[] roundTrip(ObjectMapperRegistry registry) throws IOException {
+    Object response = registry.reader(responseClass).readValue(json);
+    return registry.writer(responseClass).writeValueAsBytes(response);
+  }
+}
@@ -1,9 +1,15 @@
 package uk.gov.ons.ctp.integration.mock;
 
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import javax.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
@@ -16,8 +22,22 @@ import uk.gov.ons.ctp.common.error.RestExceptionHandler;
 import uk.gov.ons.ctp.common.rest.RestClient;
 import uk.gov.ons.ctp.common.rest.RestClientConfig;
 import uk.gov.ons.ctp.integration.mock.ai.AddressIndexClient;
+import uk.gov.ons.ctp.integration.mock.capture.AddressCapturer;
+import uk.gov.ons.ctp.integration.mock.capture.CaptureJobs;
+import uk.gov.ons.ctp.integration.mock.capture.ReadThroughCapture;
+import uk.gov.ons.ctp.integration.mock.capture.ReadThroughConfig;
 import uk.gov.ons.ctp.integration.mock.config.AppConfig;
-import uk.gov.ons.ctp.integration.mock.util.ObjectMapperFactory;
+import uk.gov.ons.ctp.integration.mock.data.CaptureFileWriter;
+import uk.gov.ons.ctp.integration.mock.data.DataRepository;
+import uk.gov.ons.ctp.integration.mock.endpoint.ResponseBuilder;
+import uk.gov.ons.ctp.integration.mock.latency.CapturedLatencies;
+import uk.gov.ons.ctp.integration.mock.logging.RequestLogConfig;
+import uk.gov.ons.ctp.integration.mock.logging.RequestLogSampler;
+import uk.gov.ons.ctp.integration.mock.metrics.MockMetrics;
+import uk.gov.ons.ctp.integration.mock.miss.MissConfig;
+import uk.gov.ons.ctp.integration.mock.miss.MissTracker;
+import uk.gov.ons.ctp.integration.mock.scenario.ScenarioEngine;
+import uk.gov.ons.ctp.integration.mock.util.ObjectMapperRegistry;
 
 /** The 'main' entry point for the Mock Service SpringBoot Application. */
 @Slf4j
@@ -30,6 +50,13 @@ public class MockServiceApplication {
     SpringApplication.run(MockServiceApplication.class, args);
   }
 
+  @PostConstruct
+  public void loadCapturedData() throws IOException {
+    // Load all captured data before any requests are served
+    DataRepository.load();
+    CapturedLatencies.load();
+  }
+
   @Bean
   public RestExceptionHandler restExceptionHandler() {
     return new RestExceptionHandler();
@@ -44,7 +71,84 @@ public class MockServiceApplication {
         new RestClient(clientConfig, statusMapping, HttpStatus.INTERNAL_SERVER_ERROR);
 
     String aiToken = appConfig.getAddressIndex().getToken();
-    return new AddressIndexClient(restClient, aiToken);
+    int captureParallelism = appConfig.getAddressIndex().getCaptureParallelism();
+    double requestsPerSecond = appConfig.getAddressIndex().getRequestsPerSecond();
+    return new AddressIndexClient(restClient, aiToken, captureParallelism, requestsPerSecond);
+  }
+
+  @Bean
+  public CaptureFileWriter captureFileWriter(MeterRegistry meterRegistry) {
+    CaptureFileWriter writer = new CaptureFileWriter();
+    FunctionCounter.builder("mock.capture.dropped.writes", writer, CaptureFileWriter::droppedWrites)
+        .description("Captured data writes dropped as the writer was behind")
+        .register(meterRegistry);
+    return writer;
+  }
+
+  @Bean
+  public AddressCapturer addressCapturer(
+      AddressIndexClient addressIndexClient, CaptureFileWriter captureFileWriter) {
+    return new AddressCapturer(addressIndexClient, captureFileWriter);
+  }
+
+  @Bean
+  public CaptureJobs captureJobs(AddressCapturer addressCapturer) {
+    return new CaptureJobs(addressCapturer, appConfig.getCaptureJobs());
+  }
+
+  @Bean
+  public ReadThroughCapture readThroughCapture(AddressCapturer addressCapturer) {
+    ReadThroughConfig config = appConfig.getReadThrough();
+    ReadThroughCapture readThrough = new ReadThroughCapture(addressCapturer, config);
+
+    // Requests which haven't been captured are only captured on the fly when asked for
+    log.info("Read through capture", kv("enabled", config.isEnabled()));
+    ResponseBuilder.setReadThrough(config.isEnabled() ? readThrough : null);
+    return readThrough;
+  }
+
+  @Bean
+  public ScenarioEngine scenarioEngine() {
+    ScenarioEngine scenarios = new ScenarioEngine(appConfig.getScenarios());
+    log.info("Scenarios", kv("scenarios", scenarios.definitions().size()));
+    ResponseBuilder.setScenarios(scenarios);
+    return scenarios;
+  }
+
+  @Bean
+  public MissTracker missTracker() {
+    MissConfig config = appConfig.getMisses();
+    MissTracker misses = new MissTracker(config);
+    log.info(
+        "Miss tracking",
+        kv("enabled", config.isEnabled()),
+        kv("topKeys", config.getTopKeys()),
+        kv("sketchWidth", config.getSketchWidth()));
+    ResponseBuilder.setMisses(config.isEnabled() ? misses : null);
+    return misses;
+  }
+
+  @Bean
+  public RequestLogSampler requestLogSampler() {
+    RequestLogConfig config = appConfig.getRequestLog();
+    RequestLogSampler sampler = new RequestLogSampler(config);
+    log.info(
+        "Request logging",
+        kv("sampleRate", config.getSampleRate()),
+        kv("sampleRates", config.getSampleRates()),
+        kv("summarySeconds", config.getSummarySeconds()));
+    RequestLogSampler.setCurrent(sampler);
+    if (config.getSummarySeconds() > 0) {
+      sampler.scheduleSummaries(config.getSummarySeconds());
+    }
+    return sampler;
+  }
+
+  @Bean
+  public MockMetrics mockMetrics(MeterRegistry meterRegistry) {
+    MockMetrics metrics = new MockMetrics(meterRegistry);
+    ResponseBuilder.setMetrics(metrics);
+    return metrics;
   }
 
   private Map<HttpStatus, HttpStatus> clientErrorMapping() {
@@ -57,6 +161,7 @@ public class MockServiceApplication {
 
   @Bean
   public ObjectMapper defaultMapper() {
-    return ObjectMapperFactory.objectMapper();
+    // Share the mapper whose readers and writers are used for replay and capture
+    return ObjectMapperRegistry.get().mapper();
   }
 }
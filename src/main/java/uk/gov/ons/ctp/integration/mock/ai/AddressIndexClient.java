@@ -2,9 +2,13 @@ package uk.gov.ons.ctp.integration.mock.ai;
 
 import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
 
-import java.util.ArrayList;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -12,13 +16,9 @@ import uk.gov.ons.ctp.common.error.CTPException;
 import uk.gov.ons.ctp.common.error.CTPException.Fault;
 import uk.gov.ons.ctp.common.rest.RestClient;
 import uk.gov.ons.ctp.integration.mock.Constants;
-import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexPartialAddressDTO;
-import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexPartialResultsDTO;
-import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexPostcodeAddressDTO;
-import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexPostcodeResultsDTO;
-import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexRhPostcodeAddressDTO;
-import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexRhPostcodeResultsDTO;
 import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+import uk.gov.ons.ctp.integration.mock.latency.CapturedLatency;
+import uk.gov.ons.ctp.integration.mock.util.ObjectMapperRegistry;
 
 /**
  * This class is responsible for talking to Address Index.
@@ -29,117 +29,85 @@ import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
 public class AddressIndexClient {
   private RestClient restClient;
   private String aiToken;
+  private AddressPager pager;
+  private RequestPacer pacer;
 
-  public AddressIndexClient(RestClient restClient, String aiToken) throws CTPException {
+  /**
+   * Constructor.
+   *
+   * @param restClient is used to call AI.
+   * @param aiToken is the AI security token.
+   * @param captureParallelism is the maximum number of pages of a single search which are fetched
+   *     from AI at once.
+   * @param requestsPerSecond is the maximum rate at which requests are made to AI, or zero for no
+   *     limit.
+   * @throws CTPException never.
+   */
+  public AddressIndexClient(
+      RestClient restClient, String aiToken, int captureParallelism, double requestsPerSecond)
+      throws CTPException {
     this.restClient = restClient;
     this.aiToken = aiToken.trim();
+    this.pacer = new RequestPacer(requestsPerSecond);
+
+    int threads = Math.max(captureParallelism, 1);
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            threads,
+            runnable -> {
+              Thread thread = new Thread(runnable, "ai-capture");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.pager =
+        new AddressPager(
+            executor,
+            ObjectMapperRegistry.get().mapper(),
+            threads,
+            Constants.CAPTURE_MAXIMUM_RESULTS);
   }
 
   /**
    * Get AI address data by postcode. RH version.
    *
-   * @throws CTPException
+   * @param postcode is the postcode to search for.
+   * @param out is where the combined results of all pages are written to.
+   * @param latency records how long AI took to answer each page.
+   * @return the number of addresses written.
+   * @throws CTPException if AI could not be called.
+   * @throws IOException if the results could not be written.
    */
-  public Object getAddressesRhPostcode(String postcode) throws CTPException {
-    ArrayList<AddressIndexRhPostcodeResultsDTO> results = new ArrayList<>();
-    int offset = 0;
-    int batchSize = 100;
-
-    while (offset < Constants.CAPTURE_MAXIMUM_RESULTS) {
-      AddressIndexRhPostcodeResultsDTO response =
-          (AddressIndexRhPostcodeResultsDTO)
-              invokeAI(RequestType.AI_RH_POSTCODE, null, offset, batchSize, postcode);
-      results.add(response);
-
-      int numFound = response.getResponse().getAddresses().size();
-      if (numFound == 0) {
-        break;
-      }
-
-      offset += numFound;
-    }
-
-    // Amalgamate all results into single data set
-    ArrayList<AddressIndexRhPostcodeAddressDTO> allResponses = new ArrayList<>();
-    for (AddressIndexRhPostcodeResultsDTO r : results) {
-      allResponses.addAll(r.getResponse().getAddresses());
-    }
-
-    AddressIndexRhPostcodeResultsDTO result = results.get(0);
-    result.getResponse().setAddresses(allResponses);
-    result.getResponse().setLimit(-1);
-
-    return result;
+  public int getAddressesRhPostcode(String postcode, OutputStream out, CapturedLatency latency)
+      throws CTPException, IOException {
+    return capture(
+        RequestType.AI_RH_POSTCODE,
+        (offset, limit) ->
+            invokeAI(RequestType.AI_RH_POSTCODE, latency, null, offset, limit, postcode),
+        out);
   }
 
-  public AddressIndexPartialResultsDTO getAddressesPartial(String input) throws CTPException {
-    ArrayList<AddressIndexPartialResultsDTO> results = new ArrayList<>();
-    int offset = 0;
-    int batchSize = 100;
-
-    while (offset < Constants.CAPTURE_MAXIMUM_RESULTS) {
-      MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<String, String>();
-      queryParams.add("input", input);
-
-      AddressIndexPartialResultsDTO response =
-          (AddressIndexPartialResultsDTO)
-              invokeAI(RequestType.AI_PARTIAL, queryParams, offset, batchSize, input);
-      results.add(response);
-
-      int numFound = response.getResponse().getAddresses().size();
-      if (numFound == 0) {
-        break;
-      }
-
-      offset += numFound;
-    }
-
-    // Amalgamate all results into single data set
-    ArrayList<AddressIndexPartialAddressDTO> allResponses = new ArrayList<>();
-    for (AddressIndexPartialResultsDTO r : results) {
-      allResponses.addAll(r.getResponse().getAddresses());
-    }
-
-    AddressIndexPartialResultsDTO result = results.get(0);
-    result.getResponse().setAddresses(allResponses);
-    result.getResponse().setLimit(-1);
-
-    return result;
+  public int getAddressesPartial(String input, OutputStream out, CapturedLatency latency)
+      throws CTPException, IOException {
+    return capture(
+        RequestType.AI_PARTIAL,
+        (offset, limit) -> {
+          MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<String, String>();
+          queryParams.add("input", input);
+          return invokeAI(RequestType.AI_PARTIAL, latency, queryParams, offset, limit, input);
+        },
+        out);
   }
 
-  public AddressIndexPostcodeResultsDTO getAddressesPostcode(String postcode) throws CTPException {
-    ArrayList<AddressIndexPostcodeResultsDTO> results = new ArrayList<>();
-    int offset = 0;
-    int batchSize = 100;
-
-    while (offset < Constants.CAPTURE_MAXIMUM_RESULTS) {
-      AddressIndexPostcodeResultsDTO response =
-          (AddressIndexPostcodeResultsDTO)
-              invokeAI(RequestType.AI_POSTCODE, null, offset, batchSize, postcode);
-      results.add(response);
-
-      int numFound = response.getResponse().getAddresses().size();
-      if (numFound == 0) {
-        break;
-      }
-
-      offset += numFound;
-    }
-
-    // Amalgamate all results into single data set
-    ArrayList<AddressIndexPostcodeAddressDTO> allResponses = new ArrayList<>();
-    for (AddressIndexPostcodeResultsDTO r : results) {
-      allResponses.addAll(r.getResponse().getAddresses());
-    }
-
-    AddressIndexPostcodeResultsDTO result = results.get(0);
-    result.getResponse().setAddresses(allResponses);
-    result.getResponse().setLimit(-1);
-
-    return result;
+  public int getAddressesPostcode(String postcode, OutputStream out, CapturedLatency latency)
+      throws CTPException, IOException {
+    return capture(
+        RequestType.AI_POSTCODE,
+        (offset, limit) ->
+            invokeAI(RequestType.AI_POSTCODE, latency, null, offset, limit, postcode),
+        out);
   }
 
-  public Object getAddressesEq(String input) throws CTPException {
+  public Object getAddressesEq(String input, CapturedLatency latency) throws CTPException {
     MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<String, String>();
     queryParams.add("input", input);
 
@@ -149,19 +117,33 @@ public class AddressIndexClient {
     RequestType requestType =
         isPostcodeBasedSearch ? RequestType.AI_EQ_POSTCODE : RequestType.AI_EQ;
 
-    Object response = invokeAI(requestType, queryParams, 0, limit, (String) null);
+    Object response = invokeAI(requestType, latency, queryParams, 0, limit, (String) null);
 
     return response;
   }
 
-  public Object getAddressesRhUprn(String uprn) throws CTPException {
+  public Object getAddressesRhUprn(String uprn, CapturedLatency latency) throws CTPException {
     int offset = -1;
     int limit = -1;
-    return invokeAI(RequestType.AI_RH_UPRN, null, offset, limit, uprn);
+    return invokeAI(RequestType.AI_RH_UPRN, latency, null, offset, limit, uprn);
+  }
+
+  private int capture(RequestType requestType, AddressPager.PageFetcher fetcher, OutputStream out)
+      throws CTPException, IOException {
+    long startTime = System.nanoTime();
+    ObjectWriter writer = ObjectMapperRegistry.get().prettyWriter(requestType.getResponseClass());
+    int count = pager.capture(fetcher, writer, out);
+    log.info(
+        "Captured AI results",
+        kv("requestType", requestType.name()),
+        kv("addresses", count),
+        kv("elapsedMillis", (System.nanoTime() - startTime) / 1_000_000));
+    return count;
   }
 
   private Object invokeAI(
       RequestType requestType,
+      CapturedLatency latency,
       MultiValueMap<String, String> queryParams,
       int offset,
       int limit,
@@ -183,6 +165,16 @@ public class AddressIndexClient {
     Map<String, String> headerParams = new HashMap<String, String>();
     headerParams.put("Authorization: ", "Bearer " + aiToken);
 
+    // Keep to the rate AI can be called at, however many captures are running
+    try {
+      pacer.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CTPException(Fault.SYSTEM_ERROR, e, "Interrupted while waiting to call AI");
+    }
+
+    // Time AI's answer alone, without the wait for the pacer
+    long startTime = System.nanoTime();
     Object response =
         restClient.getResource(
             requestType.getUrl(),
@@ -190,6 +182,7 @@ public class AddressIndexClient {
             headerParams,
             queryParams,
             (Object[]) pathParams);
+    latency.recordPage(offset, (System.nanoTime() - startTime) / 1_000_000);
 
     return response;
   }
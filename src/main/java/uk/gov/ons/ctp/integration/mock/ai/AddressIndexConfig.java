@@ -6,5 +6,12 @@ import uk.gov.ons.ctp.common.rest.RestClientConfig;
 @Data
 public class AddressIndexConfig {
   private String token;
+
+  /** The maximum number of pages of a single search which are fetched at once when capturing. */
+  private int captureParallelism = 4;
+
+  /** The maximum number of requests made to AI per second, or zero for no limit. */
+  private double requestsPerSecond;
+
   private RestClientConfig restClientConfig;
 }
@@ -0,0 +1,188 @@
+package uk.gov.ons.ctp.integration.mock.ai;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import uk.gov.ons.ctp.common.error.CTPException;
+import uk.gov.ons.ctp.common.error.CTPException.Fault;
+
+/**
+ * Fetches every page of an AI address search, and streams the addresses to a single JSON response
+ * as they arrive.
+ *
+ * <p>Paging is as it always was: each page starts where the addresses of the one before it ended,
+ * and paging stops at the first empty page, or once the maximum number of results is reached. The
+ * first page is fetched on its own, as its total says how many more pages there are likely to be.
+ * The pages after it are then fetched ahead concurrently, assuming each is full, with no more than
+ * {@code parallelism} pages in flight or waiting to be written, so that memory is bounded however
+ * many results there are. Pages are written in offset order, and should AI return a page which
+ * isn't full before the end, the pages fetched ahead of it are dropped and fetched again from where
+ * it ended.
+ *
+ * <p>The response written is the first page, with the addresses of every page in place of its own
+ * and a limit of -1, which is the form the mock serves captured results in.
+ */
+final class AddressPager {
+  static final int PAGE_SIZE = 100;
+
+  private static final String RESPONSE_FIELD = "response";
+  private static final String ADDRESSES_FIELD = "addresses";
+
+  /** Fetches a single page of results. */
+  @FunctionalInterface
+  interface PageFetcher {
+    Object fetch(int offset, int limit) throws CTPException;
+  }
+
+  private final ExecutorService executor;
+  private final ObjectMapper mapper;
+  private final int parallelism;
+  private final int maximumResults;
+
+  /**
+   * Constructor.
+   *
+   * @param executor runs the page fetches.
+   * @param mapper converts each page to a tree.
+   * @param parallelism is the maximum number of pages of a search which are fetched at once.
+   * @param maximumResults is the maximum number of addresses to fetch.
+   */
+  AddressPager(
+      ExecutorService executor, ObjectMapper mapper, int parallelism, int maximumResults) {
+    this.executor = executor;
+    this.mapper = mapper;
+    this.parallelism = Math.max(parallelism, 1);
+    this.maximumResults = maximumResults;
+  }
+
+  /**
+   * Fetches all pages of a search and writes them as a single response.
+   *
+   * @param fetcher fetches a page. This is called concurrently.
+   * @param writer is the writer for the response class, which decides how the JSON is formatted.
+   * @param out is where the response is written to. This isn't closed.
+   * @return the number of addresses written.
+   * @throws CTPException if a page could not be fetched.
+   * @throws IOException if the response could not be written.
+   */
+  int capture(PageFetcher fetcher, ObjectWriter writer, OutputStream out)
+      throws CTPException, IOException {
+    ObjectNode first = mapper.valueToTree(fetcher.fetch(0, PAGE_SIZE));
+    ObjectNode body = (ObjectNode) first.get(RESPONSE_FIELD);
+    int total = body.path("total").asInt();
+    int end = total > 0 ? Math.min(total, maximumResults) : maximumResults;
+    body.put("limit", -1);
+
+    int count = 0;
+    try (JsonGenerator generator = writer.createGenerator(out)) {
+      generator.writeStartObject();
+      for (Iterator<Map.Entry<String, JsonNode>> fields = first.fields(); fields.hasNext(); ) {
+        Map.Entry<String, JsonNode> field = fields.next();
+        generator.writeFieldName(field.getKey());
+        if (field.getValue() != body) {
+          generator.writeTree(field.getValue());
+          continue;
+        }
+        generator.writeStartObject();
+        for (Iterator<Map.Entry<String, JsonNode>> bodyFields = body.fields();
+            bodyFields.hasNext(); ) {
+          Map.Entry<String, JsonNode> bodyField = bodyFields.next();
+          generator.writeFieldName(bodyField.getKey());
+          if (bodyField.getKey().equals(ADDRESSES_FIELD)) {
+            count = writeAddresses(fetcher, bodyField.getValue(), end, generator);
+          } else {
+            generator.writeTree(bodyField.getValue());
+          }
+        }
+        generator.writeEndObject();
+      }
+      generator.writeEndObject();
+    }
+    return count;
+  }
+
+  private int writeAddresses(
+      PageFetcher fetcher, JsonNode firstAddresses, int end, JsonGenerator generator)
+      throws CTPException, IOException {
+    generator.writeStartArray();
+    int found = writePage(firstAddresses, generator);
+    int count = found;
+    int offset = found;
+
+    Deque<Future<JsonNode>> pending = new ArrayDeque<>();
+    int nextOffset = offset;
+    try {
+      while (found > 0 && offset < maximumResults) {
+        // Past the total only the page which confirms the end is fetched
+        while (pending.size() < parallelism
+            && nextOffset < maximumResults
+            && (nextOffset < end || pending.isEmpty())) {
+          int pageOffset = nextOffset;
+          pending.add(executor.submit(() -> fetchAddresses(fetcher, pageOffset)));
+          nextOffset += PAGE_SIZE;
+        }
+        found = writePage(await(pending.remove()), generator);
+        count += found;
+        offset += found;
+        if (found > 0 && found < PAGE_SIZE) {
+          // The pages fetched ahead assumed this one was full
+          cancel(pending);
+          nextOffset = offset;
+        }
+      }
+    } finally {
+      // Anything still pending is past the end of the results, or there was a failure
+      cancel(pending);
+    }
+    generator.writeEndArray();
+    return count;
+  }
+
+  private JsonNode fetchAddresses(PageFetcher fetcher, int offset) throws CTPException {
+    JsonNode page = mapper.valueToTree(fetcher.fetch(offset, PAGE_SIZE));
+    return page.path(RESPONSE_FIELD).path(ADDRESSES_FIELD);
+  }
+
+  private static void cancel(Deque<Future<JsonNode>> pending) {
+    for (Future<JsonNode> page : pending) {
+      page.cancel(true);
+    }
+    pending.clear();
+  }
+
+  private static int writePage(JsonNode addresses, JsonGenerator generator) throws IOException {
+    for (JsonNode address : addresses) {
+      generator.writeTree(address);
+    }
+    return addresses.size();
+  }
+
+  private static JsonNode await(Future<JsonNode> page) throws CTPException {
+    try {
+      return page.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CTPException(Fault.SYSTEM_ERROR, e, "Interrupted while fetching AI results");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof CTPException) {
+        throw (CTPException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new CTPException(Fault.SYSTEM_ERROR, cause, "Failed to fetch AI results");
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package uk.gov.ons.ctp.integration.mock.ai;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces out the requests made to a host so that they don't exceed a rate.
+ *
+ * <p>Each request reserves the next free slot, which is one interval after the previous one (or
+ * now, if the host has been idle), and then waits for it. No burst is allowed beyond a single
+ * request after an idle period, so AI sees a steady rate however many threads are capturing.
+ */
+final class RequestPacer {
+  private final long intervalNanos;
+  private long nextFreeNanos;
+
+  /**
+   * Constructor.
+   *
+   * @param requestsPerSecond is the maximum rate. Zero, or less, leaves requests unpaced.
+   */
+  RequestPacer(double requestsPerSecond) {
+    this.intervalNanos =
+        requestsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond) : 0;
+    this.nextFreeNanos = System.nanoTime();
+  }
+
+  /**
+   * Waits until the next request can be made.
+   *
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  void acquire() throws InterruptedException {
+    if (intervalNanos == 0) {
+      return;
+    }
+    long waitNanos;
+    synchronized (this) {
+      long now = System.nanoTime();
+      long slot = Math.max(now, nextFreeNanos);
+      nextFreeNanos = slot + intervalNanos;
+      waitNanos = slot - now;
+    }
+    if (waitNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package uk.gov.ons.ctp.integration.mock.capture;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import uk.gov.ons.ctp.common.error.CTPException;
+import uk.gov.ons.ctp.common.error.CTPException.Fault;
+import uk.gov.ons.ctp.integration.mock.ai.AddressIndexClient;
+import uk.gov.ons.ctp.integration.mock.data.CaptureFileWriter;
+import uk.gov.ons.ctp.integration.mock.data.CapturedResponse;
+import uk.gov.ons.ctp.integration.mock.data.DataRepository;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+import uk.gov.ons.ctp.integration.mock.jfr.CaptureEvent;
+import uk.gov.ons.ctp.integration.mock.latency.CapturedLatencies;
+import uk.gov.ons.ctp.integration.mock.latency.CapturedLatency;
+import uk.gov.ons.ctp.integration.mock.util.ObjectMapperRegistry;
+
+/**
+ * Captures the AI response for a single address request, saving it so that the mock serves it from
+ * then on. This is shared by the capture endpoints, capture jobs and read through capture.
+ *
+ * <p>How long AI took to answer is saved beside the response (see {@link CapturedLatency}), so
+ * that replay can reproduce it.
+ */
+public class AddressCapturer {
+  private final AddressIndexClient client;
+  private final CaptureFileWriter fileWriter;
+
+  public AddressCapturer(AddressIndexClient client, CaptureFileWriter fileWriter) {
+    this.client = client;
+    this.fileWriter = fileWriter;
+  }
+
+  /**
+   * Captures a response, saving it to file before it is served.
+   *
+   * @param requestType is the type of request. For type ahead searches this is always {@link
+   *     RequestType#AI_EQ}, as the client decides whether the input is a postcode.
+   * @param input is the postcode, UPRN or search input.
+   * @return the captured response text.
+   * @throws CTPException if the request type can't be captured, or AI couldn't be called.
+   * @throws IOException if the response couldn't be saved.
+   */
+  public String capture(RequestType requestType, String input) throws CTPException, IOException {
+    return capture(requestType, input, true);
+  }
+
+  /**
+   * Captures a response to file, as {@link #capture} does, but leaves it to the caller to add it
+   * to the {@link DataRepository}, so that a batch of captures can be added at once.
+   *
+   * @param requestType is the type of request, as for {@link #capture}.
+   * @param input is the postcode, UPRN or search input.
+   * @return the captured response text, which is held under {@link #nameOf}.
+   * @throws CTPException if the request type can't be captured, or AI couldn't be called.
+   * @throws IOException if the response couldn't be saved.
+   */
+  public String captureUnsaved(RequestType requestType, String input)
+      throws CTPException, IOException {
+    return capture(requestType, input, false);
+  }
+
+  /**
+   * Captures a response, making it available to the mock straight away and saving it to file in
+   * the background.
+   *
+   * @param requestType is the type of request, as for {@link #capture}.
+   * @param input is the postcode, UPRN or search input.
+   * @throws CTPException if the request type can't be captured, or AI couldn't be called.
+   * @throws IOException if the response couldn't be rendered.
+   */
+  public void captureBehind(RequestType requestType, String input)
+      throws CTPException, IOException {
+    CaptureEvent event = new CaptureEvent();
+    event.begin();
+    String name = nameOf(requestType, input);
+    CapturedLatency latency = new CapturedLatency();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    fetch(requestType, name, out, latency);
+    String json = out.toString(StandardCharsets.UTF_8);
+
+    saveLatency(requestType, name, latency);
+    DataRepository.save(requestType, name, json);
+    fileWriter.saveBehind(requestType, name, json);
+    commit(event, requestType, name, json);
+  }
+
+  /**
+   * @param requestType is the type of request.
+   * @param input is the postcode, UPRN or search input.
+   * @return the name the response to the input is captured under.
+   */
+  public static String nameOf(RequestType requestType, String input) {
+    switch (requestType) {
+      case AI_RH_POSTCODE:
+      case AI_POSTCODE:
+        return input.replaceAll("\\s", "");
+      default:
+        return input;
+    }
+  }
+
+  private String capture(RequestType requestType, String input, boolean save)
+      throws CTPException, IOException {
+    CaptureEvent event = new CaptureEvent();
+    event.begin();
+    String name = nameOf(requestType, input);
+    CapturedLatency latency = new CapturedLatency();
+    String json =
+        fileWriter.write(requestType, name, out -> fetch(requestType, name, out, latency));
+    if (save) {
+      DataRepository.save(requestType, name, json);
+    }
+    saveLatency(requestType, name, latency);
+    commit(event, requestType, name, json);
+    return json;
+  }
+
+  private void fetch(
+      RequestType requestType, String name, OutputStream out, CapturedLatency latency)
+      throws CTPException, IOException {
+    long startTime = System.nanoTime();
+    switch (requestType) {
+      case AI_RH_POSTCODE:
+        client.getAddressesRhPostcode(name, out, latency);
+        break;
+      case AI_PARTIAL:
+        client.getAddressesPartial(name, out, latency);
+        break;
+      case AI_POSTCODE:
+        client.getAddressesPostcode(name, out, latency);
+        break;
+      case AI_RH_UPRN:
+        write(client.getAddressesRhUprn(name, latency), out);
+        break;
+      case AI_EQ:
+        write(client.getAddressesEq(name, latency), out);
+        break;
+      default:
+        throw new CTPException(Fault.BAD_REQUEST, "Can't capture " + requestType.name());
+    }
+    latency.complete((System.nanoTime() - startTime) / 1_000_000);
+  }
+
+  private static void commit(
+      CaptureEvent event, RequestType requestType, String name, String json) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.setRequest(requestType, name);
+      event.setPayloadBytes(json.length());
+      CapturedResponse captured = DataRepository.find(requestType, name);
+      if (captured != null) {
+        event.setAddresses(captured.addressCount());
+      }
+      event.commit();
+    }
+  }
+
+  private void saveLatency(RequestType requestType, String name, CapturedLatency latency)
+      throws IOException {
+    CapturedLatencies.put(requestType, name, latency);
+    String json =
+        ObjectMapperRegistry.get().prettyWriter(CapturedLatency.class).writeValueAsString(latency);
+    fileWriter.saveBehind(requestType, name, CapturedLatency.FILE_SUFFIX, json);
+  }
+
+  private static void write(Object response, OutputStream out) throws IOException {
+    ObjectWriter writer = ObjectMapperRegistry.get().prettyWriter(response.getClass());
+    writer.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(out, response);
+  }
+}
@@ -0,0 +1,161 @@
+package uk.gov.ons.ctp.integration.mock.capture;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.ctp.integration.mock.data.DataRepository;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * A set of inputs being captured, and the progress made. The inputs are captured concurrently, so
+ * progress is only ever counted up.
+ *
+ * <p>Each response is saved to file as it is captured, but they are added to the {@link
+ * DataRepository} in batches, as adding a response copies the data held. So a captured response is
+ * served once its batch is full, or the job has finished.
+ */
+@Slf4j
+final class CaptureJob {
+  private static final int MAX_FAILURES = 100;
+  private static final int SAVE_BATCH_SIZE = 100;
+
+  private final long id;
+  private final Instant startTime = Instant.now();
+  private final long startNanos = System.nanoTime();
+  private final int total;
+  private final AtomicInteger completed = new AtomicInteger();
+  private final AtomicInteger failed = new AtomicInteger();
+  private final List<CaptureJobStatusDTO.Failure> failures = new ArrayList<>();
+  // Captured responses waiting to be added to the repository, by request type and name
+  private final Map<RequestType, Map<String, String>> unsaved = new EnumMap<>(RequestType.class);
+  private int unsavedCount;
+  private volatile long elapsedNanos = -1;
+
+  CaptureJob(long id, int total) {
+    this.id = id;
+    this.total = total;
+    if (total == 0) {
+      elapsedNanos = 0;
+    }
+  }
+
+  long getId() {
+    return id;
+  }
+
+  /** @return true once every input has been captured, or has failed. */
+  boolean isFinished() {
+    return elapsedNanos >= 0;
+  }
+
+  /**
+   * Captures an input of this job, and records the outcome.
+   *
+   * @param capturer does the capture.
+   * @param item is the input to capture.
+   */
+  void capture(AddressCapturer capturer, Item item) {
+    try {
+      RequestType requestType = item.getRequestType();
+      String json = capturer.captureUnsaved(requestType, item.getInput());
+      hold(requestType, AddressCapturer.nameOf(requestType, item.getInput()), json);
+    } catch (Exception e) {
+      failed.incrementAndGet();
+      log.warn(
+          "Capture failed",
+          kv("job", id),
+          kv("requestType", item.getRequestType().name()),
+          kv("input", item.getInput()),
+          kv("error", e.getMessage()));
+      synchronized (failures) {
+        if (failures.size() < MAX_FAILURES) {
+          CaptureJobStatusDTO.Failure failure = new CaptureJobStatusDTO.Failure();
+          failure.setRequestType(item.getRequestType().name());
+          failure.setInput(item.getInput());
+          failure.setError(e.getMessage());
+          failures.add(failure);
+        }
+      }
+    } finally {
+      if (completed.incrementAndGet() == total) {
+        saveHeld();
+        elapsedNanos = System.nanoTime() - startNanos;
+        log.info(
+            "Capture job finished",
+            kv("job", id),
+            kv("total", total),
+            kv("failed", failed.get()),
+            kv("elapsedMillis", elapsedNanos / 1_000_000));
+      }
+    }
+  }
+
+  private void hold(RequestType requestType, String name, String json) {
+    boolean full;
+    synchronized (unsaved) {
+      unsaved.computeIfAbsent(requestType, type -> new HashMap<>()).put(name, json);
+      full = ++unsavedCount >= SAVE_BATCH_SIZE;
+    }
+    if (full) {
+      saveHeld();
+    }
+  }
+
+  private void saveHeld() {
+    Map<RequestType, Map<String, String>> batch;
+    synchronized (unsaved) {
+      batch = new EnumMap<>(unsaved);
+      unsaved.clear();
+      unsavedCount = 0;
+    }
+    for (Map.Entry<RequestType, Map<String, String>> held : batch.entrySet()) {
+      try {
+        DataRepository.saveAll(held.getKey(), held.getValue());
+      } catch (RuntimeException e) {
+        log.error(
+            "Failed to add captured responses",
+            kv("job", id),
+            kv("requestType", held.getKey().name()),
+            kv("responses", held.getValue().size()),
+            kv("error", e.getMessage()));
+      }
+    }
+  }
+
+  /** @return the progress of the job so far. */
+  CaptureJobStatusDTO status() {
+    long elapsed = isFinished() ? elapsedNanos : System.nanoTime() - startNanos;
+    int done = completed.get();
+
+    CaptureJobStatusDTO status = new CaptureJobStatusDTO();
+    status.setId(id);
+    status.setState(isFinished() ? "FINISHED" : "RUNNING");
+    status.setStartTime(startTime.toString());
+    status.setTotal(total);
+    status.setCompleted(done);
+    status.setFailed(failed.get());
+    status.setElapsedMillis(elapsed / 1_000_000);
+    status.setCapturesPerSecond(elapsed > 0 ? done * 1e9 / elapsed : 0);
+    synchronized (failures) {
+      status.setFailures(new ArrayList<>(failures));
+    }
+    return status;
+  }
+
+  /** A single input to capture. */
+  @Getter
+  @AllArgsConstructor
+  static final class Item {
+    private final RequestType requestType;
+    private final String input;
+  }
+}
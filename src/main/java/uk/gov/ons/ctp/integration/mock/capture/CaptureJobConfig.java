@@ -0,0 +1,12 @@
+package uk.gov.ons.ctp.integration.mock.capture;
+
+import lombok.Data;
+
+@Data
+public class CaptureJobConfig {
+  /** The number of captures which capture jobs run at once, across all jobs. */
+  private int workers = 4;
+
+  /** The number of finished jobs whose status is kept. */
+  private int retainedJobs = 20;
+}
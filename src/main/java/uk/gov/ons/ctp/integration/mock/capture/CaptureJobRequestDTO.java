@@ -0,0 +1,15 @@
+package uk.gov.ons.ctp.integration.mock.capture;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+
+/** The inputs to capture in a capture job, by the type of AI request to capture them with. */
+@Data
+public class CaptureJobRequestDTO {
+  private List<String> rhPostcodes = new ArrayList<>();
+  private List<String> postcodes = new ArrayList<>();
+  private List<String> partials = new ArrayList<>();
+  private List<String> eqs = new ArrayList<>();
+  private List<String> uprns = new ArrayList<>();
+}
@@ -0,0 +1,29 @@
+package uk.gov.ons.ctp.integration.mock.capture;
+
+import java.util.List;
+import lombok.Data;
+
+/** The progress of a capture job. */
+@Data
+public class CaptureJobStatusDTO {
+  private long id;
+  private String state;
+  private String startTime;
+  private int total;
+
+  /** The number of inputs which have been captured, or have failed. */
+  private int completed;
+
+  private int failed;
+  private long elapsedMillis;
+  private double capturesPerSecond;
+  /** The first failures of the job. */
+  private List<Failure> failures;
+
+  @Data
+  public static class Failure {
+    private String requestType;
+    private String input;
+    private String error;
+  }
+}
@@ -0,0 +1,153 @@
+package uk.gov.ons.ctp.integration.mock.capture;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.ctp.integration.mock.data.DataRepository;
+import uk.gov.ons.ctp.integration.mock.data.DataSummary;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * Runs capture jobs, which capture many inputs in the background.
+ *
+ * <p>The inputs of every job are captured by a single pool of workers, so the number of captures
+ * running at once is bounded however many jobs there are. The rate at which AI is called is bounded
+ * separately by the {@link uk.gov.ons.ctp.integration.mock.ai.AddressIndexClient}. The status of
+ * running jobs, and of the most recently finished ones, is held in memory.
+ */
+@Slf4j
+public class CaptureJobs implements AutoCloseable {
+  // The request types that are captured when refreshing, in the order they are captured
+  private static final RequestType[] REFRESH_TYPES = {
+    RequestType.AI_RH_POSTCODE,
+    RequestType.AI_POSTCODE,
+    RequestType.AI_PARTIAL,
+    RequestType.AI_EQ,
+    RequestType.AI_RH_UPRN
+  };
+
+  private final AddressCapturer capturer;
+  private final ExecutorService workers;
+  private final AtomicLong nextId = new AtomicLong(1);
+  private final int retainedJobs;
+  private final Map<Long, CaptureJob> jobs = new LinkedHashMap<>();
+
+  public CaptureJobs(AddressCapturer capturer, CaptureJobConfig config) {
+    this.capturer = capturer;
+    this.workers =
+        Executors.newFixedThreadPool(
+            Math.max(config.getWorkers(), 1),
+            runnable -> {
+              Thread thread = new Thread(runnable, "capture-job");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.retainedJobs = config.getRetainedJobs();
+  }
+
+  /**
+   * Starts a job.
+   *
+   * @param request holds the inputs to capture.
+   * @return the initial status of the job.
+   */
+  public CaptureJobStatusDTO start(CaptureJobRequestDTO request) {
+    List<CaptureJob.Item> items = new ArrayList<>();
+    addItems(items, RequestType.AI_RH_POSTCODE, request.getRhPostcodes());
+    addItems(items, RequestType.AI_POSTCODE, request.getPostcodes());
+    addItems(items, RequestType.AI_PARTIAL, request.getPartials());
+    addItems(items, RequestType.AI_EQ, request.getEqs());
+    addItems(items, RequestType.AI_RH_UPRN, request.getUprns());
+    return start(items);
+  }
+
+  /**
+   * Starts a job which captures every address response the mock currently holds again, so that
+   * they hold the latest responses from AI.
+   *
+   * @return the initial status of the job.
+   */
+  public CaptureJobStatusDTO refresh() {
+    DataSummary summary = DataRepository.summary();
+    List<CaptureJob.Item> items = new ArrayList<>();
+    for (RequestType requestType : REFRESH_TYPES) {
+      for (DataSummary.Entry entry : summary.entries(requestType)) {
+        items.add(new CaptureJob.Item(requestType, entry.getName()));
+      }
+    }
+    return start(items);
+  }
+
+  /**
+   * @param id identifies the job.
+   * @return the status of the job, or null if no such job is held.
+   */
+  public CaptureJobStatusDTO status(long id) {
+    CaptureJob job;
+    synchronized (jobs) {
+      job = jobs.get(id);
+    }
+    return job == null ? null : job.status();
+  }
+
+  /** @return the status of every job held, oldest first. */
+  public List<CaptureJobStatusDTO> statuses() {
+    List<CaptureJob> held;
+    synchronized (jobs) {
+      held = new ArrayList<>(jobs.values());
+    }
+    List<CaptureJobStatusDTO> statuses = new ArrayList<>();
+    for (CaptureJob job : held) {
+      statuses.add(job.status());
+    }
+    return statuses;
+  }
+
+  /** Abandons any captures which haven't started. */
+  @Override
+  public void close() {
+    workers.shutdownNow();
+  }
+
+  private CaptureJobStatusDTO start(List<CaptureJob.Item> items) {
+    CaptureJob job = new CaptureJob(nextId.getAndIncrement(), items.size());
+    synchronized (jobs) {
+      jobs.put(job.getId(), job);
+      evictFinishedJobs();
+    }
+    log.info("Starting capture job", kv("job", job.getId()), kv("total", items.size()));
+    for (CaptureJob.Item item : items) {
+      workers.execute(() -> job.capture(capturer, item));
+    }
+    return job.status();
+  }
+
+  // Running jobs are always held, so only the oldest finished jobs beyond those retained go
+  private void evictFinishedJobs() {
+    Iterator<CaptureJob> held = jobs.values().iterator();
+    while (jobs.size() > retainedJobs && held.hasNext()) {
+      if (held.next().isFinished()) {
+        held.remove();
+      }
+    }
+  }
+
+  private static void addItems(
+      List<CaptureJob.Item> items, RequestType requestType, List<String> inputs) {
+    if (inputs != null) {
+      for (String input : inputs) {
+        if (input != null && !input.isBlank()) {
+          items.add(new CaptureJob.Item(requestType, input.trim()));
+        }
+      }
+    }
+  }
+}
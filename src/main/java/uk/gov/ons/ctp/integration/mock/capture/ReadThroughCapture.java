@@ -0,0 +1,172 @@
+package uk.gov.ons.ctp.integration.mock.capture;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.ctp.integration.mock.data.DataRepository;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * Captures address responses from AI as they are first requested, so the mock can be run against
+ * inputs which haven't been captured yet.
+ *
+ * <p>A captured response is added to the {@link DataRepository} as soon as it arrives, so that it
+ * can be served straight away, and is saved to file behind. Concurrent requests for the same input
+ * share a single call to AI: the first request starts the fetch on a pool of capture workers, and
+ * every request, the first included, waits for it for no longer than the timeout.
+ *
+ * <p>An input whose capture fails is remembered for a while, and isn't fetched again until then, so
+ * that a client retrying an input which AI rejects, or retrying while AI is down, doesn't make a
+ * call to AI for every request. The failures are held in a map of when each expires, which is
+ * bounded: once full, the expired failures are dropped, and then if need be any other.
+ */
+@Slf4j
+public class ReadThroughCapture implements AutoCloseable {
+  private static final Set<RequestType> CAPTURED_TYPES =
+      EnumSet.of(
+          RequestType.AI_RH_POSTCODE,
+          RequestType.AI_PARTIAL,
+          RequestType.AI_POSTCODE,
+          RequestType.AI_RH_UPRN,
+          RequestType.AI_EQ,
+          RequestType.AI_EQ_POSTCODE);
+
+  private final AddressCapturer capturer;
+  private final long timeoutMillis;
+  private final long failedKeyExpiryNanos;
+  private final int maxFailedKeys;
+  private final ExecutorService workers;
+  private final ConcurrentHashMap<String, CompletableFuture<Void>> inFlight =
+      new ConcurrentHashMap<>();
+  // When the failure of each input expires, as a System.nanoTime()
+  private final ConcurrentHashMap<String, Long> failedKeys = new ConcurrentHashMap<>();
+
+  public ReadThroughCapture(AddressCapturer capturer, ReadThroughConfig config) {
+    this.capturer = capturer;
+    this.timeoutMillis = config.getTimeoutMillis();
+    this.failedKeyExpiryNanos = TimeUnit.SECONDS.toNanos(config.getFailedKeyExpirySeconds());
+    this.maxFailedKeys = Math.max(config.getMaxFailedKeys(), 1);
+    this.workers =
+        Executors.newFixedThreadPool(
+            Math.max(config.getWorkers(), 1),
+            runnable -> {
+              Thread thread = new Thread(runnable, "read-through-capture");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Captures the response to a request which has no captured response.
+   *
+   * @param requestType is the type of request.
+   * @param name is the name the response would be held under.
+   * @return true if the response is now held by the {@link DataRepository}, or false if the
+   *     request type isn't captured, AI couldn't be called in time, or the capture of the input
+   *     failed recently.
+   */
+  public boolean capture(RequestType requestType, String name) {
+    if (!CAPTURED_TYPES.contains(requestType)) {
+      return false;
+    }
+    // The client decides whether a type ahead search is for a postcode
+    RequestType captureType =
+        requestType == RequestType.AI_EQ_POSTCODE ? RequestType.AI_EQ : requestType;
+    String captureName = AddressCapturer.nameOf(captureType, name);
+    String key = captureType.getPath() + "/" + DataRepository.normaliseFileName(captureName);
+    if (failedRecently(key)) {
+      return false;
+    }
+
+    CompletableFuture<Void> fetch = new CompletableFuture<>();
+    CompletableFuture<Void> existing = inFlight.putIfAbsent(key, fetch);
+    if (existing == null) {
+      CompletableFuture<Void> started = fetch;
+      try {
+        workers.execute(() -> fetch(captureType, captureName, key, started));
+      } catch (RejectedExecutionException e) {
+        // Shutting down
+        inFlight.remove(key, fetch);
+        fetch.completeExceptionally(e);
+        return false;
+      }
+    } else {
+      fetch = existing;
+    }
+
+    try {
+      fetch.get(timeoutMillis, TimeUnit.MILLISECONDS);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException | TimeoutException e) {
+      Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+      log.warn(
+          "Failed to capture AI response on read",
+          kv("requestType", captureType.name()),
+          kv("name", captureName),
+          kv("error", String.valueOf(cause.getMessage())));
+      return false;
+    }
+  }
+
+  @Override
+  public void close() {
+    workers.shutdownNow();
+  }
+
+  private void fetch(
+      RequestType captureType, String captureName, String key, CompletableFuture<Void> fetch) {
+    try {
+      capturer.captureBehind(captureType, captureName);
+      log.info(
+          "Captured AI response on read",
+          kv("requestType", captureType.name()),
+          kv("name", captureName));
+      fetch.complete(null);
+    } catch (Exception e) {
+      rememberFailure(key);
+      fetch.completeExceptionally(e);
+    } finally {
+      inFlight.remove(key, fetch);
+    }
+  }
+
+  private boolean failedRecently(String key) {
+    Long expiry = failedKeys.get(key);
+    if (expiry == null) {
+      return false;
+    }
+    if (System.nanoTime() - expiry < 0) {
+      return true;
+    }
+    failedKeys.remove(key, expiry);
+    return false;
+  }
+
+  // Racing failures can each find room, so the map may briefly hold a few more than the most
+  private void rememberFailure(String key) {
+    long now = System.nanoTime();
+    if (failedKeys.size() >= maxFailedKeys) {
+      failedKeys.values().removeIf(expiry -> now - expiry >= 0);
+      Iterator<String> keys = failedKeys.keySet().iterator();
+      while (failedKeys.size() >= maxFailedKeys && keys.hasNext()) {
+        keys.next();
+        keys.remove();
+      }
+    }
+    failedKeys.put(key, now + failedKeyExpiryNanos);
+  }
+}
@@ -0,0 +1,27 @@
+package uk.gov.ons.ctp.integration.mock.capture;
+
+import lombok.Data;
+
+@Data
+public class ReadThroughConfig {
+  /** Whether address requests which haven't been captured are captured from AI as they arrive. */
+  private boolean enabled;
+
+  /**
+   * How long a request waits for the capture of its input, whether started by it or by another
+   * request, before it is answered as though read through were off. The capture carries on.
+   */
+  private long timeoutMillis = 30000;
+
+  /** The number of captures which read through runs at once. */
+  private int workers = 4;
+
+  /**
+   * How long an input whose capture failed is answered as though read through were off, before AI
+   * is called for it again.
+   */
+  private long failedKeyExpirySeconds = 60;
+
+  /** The most inputs whose failed capture is remembered. */
+  private int maxFailedKeys = 10_000;
+}
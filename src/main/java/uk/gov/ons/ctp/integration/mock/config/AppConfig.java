@@ -5,6 +5,16 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.validation.annotation.Validated;
 import uk.gov.ons.ctp.integration.mock.ai.AddressIndexConfig;
+import uk.gov.ons.ctp.integration.mock.capture.CaptureJobConfig;
+import uk.gov.ons.ctp.integration.mock.capture.ReadThroughConfig;
+import uk.gov.ons.ctp.integration.mock.fault.FaultConfig;
+import uk.gov.ons.ctp.integration.mock.journal.JournalConfig;
+import uk.gov.ons.ctp.integration.mock.latency.LatencyConfig;
+import uk.gov.ons.ctp.integration.mock.logging.RequestLogConfig;
+import uk.gov.ons.ctp.integration.mock.metrics.AllocationConfig;
+import uk.gov.ons.ctp.integration.mock.miss.MissConfig;
+import uk.gov.ons.ctp.integration.mock.ratelimit.RateLimitConfig;
+import uk.gov.ons.ctp.integration.mock.scenario.ScenarioConfig;
 
 /** Application Config bean */
 @Validated
@@ -13,4 +23,14 @@ import uk.gov.ons.ctp.integration.mock.ai.AddressIndexConfig;
 @Data
 public class AppConfig {
   private AddressIndexConfig addressIndex;
+  private CaptureJobConfig captureJobs;
+  private ReadThroughConfig readThrough;
+  private LatencyConfig latency;
+  private FaultConfig faults;
+  private ScenarioConfig scenarios;
+  private RateLimitConfig rateLimit;
+  private AllocationConfig allocation;
+  private JournalConfig journal;
+  private MissConfig misses;
+  private RequestLogConfig requestLog;
 }
@@ -0,0 +1,168 @@
+package uk.gov.ons.ctp.integration.mock.config;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.DispatcherType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.gov.ons.ctp.integration.mock.fault.FaultConfig;
+import uk.gov.ons.ctp.integration.mock.fault.FaultInjector;
+import uk.gov.ons.ctp.integration.mock.filter.AllocationFilter;
+import uk.gov.ons.ctp.integration.mock.filter.FaultFilter;
+import uk.gov.ons.ctp.integration.mock.filter.FilterOrder;
+import uk.gov.ons.ctp.integration.mock.filter.JournalFilter;
+import uk.gov.ons.ctp.integration.mock.filter.LatencyFilter;
+import uk.gov.ons.ctp.integration.mock.filter.MetricsFilter;
+import uk.gov.ons.ctp.integration.mock.filter.RateLimitFilter;
+import uk.gov.ons.ctp.integration.mock.journal.JournalConfig;
+import uk.gov.ons.ctp.integration.mock.journal.RequestJournal;
+import uk.gov.ons.ctp.integration.mock.latency.LatencyConfig;
+import uk.gov.ons.ctp.integration.mock.metrics.AllocationRecorder;
+import uk.gov.ons.ctp.integration.mock.metrics.MockMetrics;
+import uk.gov.ons.ctp.integration.mock.ratelimit.RateLimitConfig;
+import uk.gov.ons.ctp.integration.mock.ratelimit.RateLimiter;
+
+/** Registers the servlet filters which change how the mock endpoints respond. */
+@Slf4j
+@Configuration
+public class FilterConfig {
+  private static final long RATE_LIMIT_EXPIRY_SECONDS = 10;
+
+  @Autowired private AppConfig appConfig;
+
+  @Bean(destroyMethod = "shutdownNow")
+  public ScheduledExecutorService filterScheduler() {
+    return Executors.newSingleThreadScheduledExecutor(
+        runnable -> {
+          Thread thread = new Thread(runnable, "filter-scheduler");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  @Bean
+  public RequestJournal requestJournal() {
+    JournalConfig config = appConfig.getJournal();
+    RequestJournal journal = new RequestJournal(config.getCapacity());
+    log.info(
+        "Request journal",
+        kv("enabled", config.isEnabled()),
+        kv("capacity", journal.capacity()));
+    return journal;
+  }
+
+  @Bean
+  public FilterRegistrationBean<JournalFilter> journalFilter(RequestJournal requestJournal) {
+    FilterRegistrationBean<JournalFilter> registration =
+        new FilterRegistrationBean<>(new JournalFilter(requestJournal));
+    registration.setEnabled(appConfig.getJournal().isEnabled());
+    registration.setAsyncSupported(true);
+    registration.setOrder(FilterOrder.JOURNAL);
+    return registration;
+  }
+
+  @Bean
+  public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(
+      ScheduledExecutorService filterScheduler) {
+    RateLimitConfig config = appConfig.getRateLimit();
+    log.info(
+        "Rate limiting",
+        kv("enabled", config.isEnabled()),
+        kv("limits", config.getLimits().size()));
+
+    RateLimiter limiter = new RateLimiter(config.getLimits());
+    if (config.isEnabled()) {
+      // Drop the buckets of clients which have stopped calling
+      filterScheduler.scheduleWithFixedDelay(
+          limiter::expireFull,
+          RATE_LIMIT_EXPIRY_SECONDS,
+          RATE_LIMIT_EXPIRY_SECONDS,
+          TimeUnit.SECONDS);
+    }
+
+    FilterRegistrationBean<RateLimitFilter> registration =
+        new FilterRegistrationBean<>(new RateLimitFilter(limiter));
+    registration.setEnabled(config.isEnabled());
+    registration.setAsyncSupported(true);
+    registration.setOrder(FilterOrder.RATE_LIMIT);
+    return registration;
+  }
+
+  @Bean
+  public FilterRegistrationBean<LatencyFilter> latencyFilter(
+      ScheduledExecutorService filterScheduler) {
+    LatencyConfig config = appConfig.getLatency();
+    log.info(
+        "Simulated latency",
+        kv("enabled", config.isEnabled()),
+        kv("requestTypes", config.getProfiles().keySet()),
+        kv("replayCaptured", config.isReplayCaptured()),
+        kv("replayScale", config.getReplayScale()));
+
+    FilterRegistrationBean<LatencyFilter> registration =
+        new FilterRegistrationBean<>(new LatencyFilter(config, filterScheduler));
+    registration.setEnabled(config.isEnabled());
+    registration.setAsyncSupported(true);
+    registration.setOrder(FilterOrder.LATENCY);
+    return registration;
+  }
+
+  @Bean
+  public FilterRegistrationBean<MetricsFilter> metricsFilter(MockMetrics mockMetrics) {
+    FilterRegistrationBean<MetricsFilter> registration =
+        new FilterRegistrationBean<>(new MetricsFilter(mockMetrics));
+    registration.setAsyncSupported(true);
+    // Delayed requests reach the endpoints through an async dispatch
+    registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+    registration.setOrder(FilterOrder.METRICS);
+    return registration;
+  }
+
+  @Bean
+  public FilterRegistrationBean<AllocationFilter> allocationFilter(MeterRegistry meterRegistry) {
+    boolean supported = AllocationRecorder.isSupported();
+    boolean enabled = appConfig.getAllocation().isEnabled() && supported;
+    log.info("Allocation metrics", kv("enabled", enabled), kv("supported", supported));
+
+    // The summaries are only registered if they will be recorded
+    AllocationRecorder recorder = enabled ? new AllocationRecorder(meterRegistry) : null;
+    FilterRegistrationBean<AllocationFilter> registration =
+        new FilterRegistrationBean<>(new AllocationFilter(recorder));
+    registration.setEnabled(enabled);
+    registration.setAsyncSupported(true);
+    // Delayed requests reach the endpoints through an async dispatch
+    registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+    registration.setOrder(FilterOrder.ALLOCATION);
+    return registration;
+  }
+
+  @Bean
+  public FaultInjector faultInjector() {
+    FaultConfig config = appConfig.getFaults();
+    log.info(
+        "Fault injection",
+        kv("enabled", config.isEnabled()),
+        kv("rules", config.getRules().size()));
+    return new FaultInjector(config.isEnabled(), config.getRules());
+  }
+
+  @Bean
+  public FilterRegistrationBean<FaultFilter> faultFilter(
+      FaultInjector faultInjector, ScheduledExecutorService filterScheduler) {
+    FilterRegistrationBean<FaultFilter> registration =
+        new FilterRegistrationBean<>(new FaultFilter(faultInjector, filterScheduler));
+    registration.setEnabled(appConfig.getFaults().isEnabled());
+    registration.setAsyncSupported(true);
+    // Delayed requests reach the endpoints through an async dispatch
+    registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+    registration.setOrder(FilterOrder.FAULTS);
+    return registration;
+  }
+}
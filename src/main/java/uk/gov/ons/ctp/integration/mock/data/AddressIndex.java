@@ -0,0 +1,610 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import uk.gov.ons.ctp.integration.mock.Constants;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexAddressCensusDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexEqAddressDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexEqPostcodeAddressDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexHighlights;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexPartialAddressDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexPostcodeAddressDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexRhPostcodeAddressDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexUprnAddressDTO;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+import uk.gov.ons.ctp.integration.mock.util.ObjectMapperRegistry;
+
+/**
+ * Answers AI requests which have no captured response of their own, from the addresses held in all
+ * of the captured responses.
+ *
+ * <p>A type ahead (AI_EQ) search is answered from a {@link TypeAheadTrie}, and a type ahead search
+ * for a postcode (AI_EQ_POSTCODE) from the {@link PostcodeGroups}. An RH UPRN request (AI_RH_UPRN)
+ * is answered for any address from a {@link UprnIndex}, and a postcode search (AI_POSTCODE and
+ * AI_RH_POSTCODE) for any postcode from a {@link PostcodeIndex}, and a partial search (AI_PARTIAL)
+ * for any input from an {@link InvertedIndex}. Responses are rendered into the
+ * envelope of a captured response of the same type, so only types with at least one capture can
+ * be answered.
+ *
+ * <p>Every address is pre-rendered in the form each request type returns it, and the address table
+ * is dropped once the index is built, so the heap held is the rendered JSON plus the primitive
+ * arrays of the indexes.
+ */
+final class AddressIndex {
+  // AI reports a confidence score which is five times the underlying score
+  private static final int CONFIDENCE_PER_SCORE = 5;
+  private static final String CONFIDENCE = "CONFIDENCE";
+  private static final String UNDERLYING = "UNDERLYING";
+
+  private final int addressCount;
+  private final TypeAheadTrie typeAhead;
+  private final byte[][] eqFragments;
+  private final ResponseEnvelope eqEnvelope;
+  private final PostcodeGroups postcodeGroups;
+  private final ResponseEnvelope eqPostcodeEnvelope;
+  private final UprnIndex uprns;
+  private final byte[][] uprnFragments;
+  private final JsonTemplate uprnEnvelope;
+  private final PostcodeIndex postcodes;
+  private final byte[][] postcodeFragments;
+  private final ResponseEnvelope postcodeEnvelope;
+  private final byte[][] rhPostcodeHeads;
+  private final byte[][] rhPostcodeTails;
+  private final ResponseEnvelope rhPostcodeEnvelope;
+  private final InvertedIndex partialSearch;
+  private final JsonTemplate[] partialFragments;
+  private final ResponseEnvelope partialEnvelope;
+
+  private AddressIndex(
+      int addressCount,
+      TypeAheadTrie typeAhead,
+      byte[][] eqFragments,
+      ResponseEnvelope eqEnvelope,
+      PostcodeGroups postcodeGroups,
+      ResponseEnvelope eqPostcodeEnvelope,
+      UprnIndex uprns,
+      byte[][] uprnFragments,
+      JsonTemplate uprnEnvelope,
+      PostcodeIndex postcodes,
+      byte[][] postcodeFragments,
+      ResponseEnvelope postcodeEnvelope,
+      byte[][] rhPostcodeHeads,
+      byte[][] rhPostcodeTails,
+      ResponseEnvelope rhPostcodeEnvelope,
+      InvertedIndex partialSearch,
+      JsonTemplate[] partialFragments,
+      ResponseEnvelope partialEnvelope) {
+    this.addressCount = addressCount;
+    this.typeAhead = typeAhead;
+    this.eqFragments = eqFragments;
+    this.eqEnvelope = eqEnvelope;
+    this.postcodeGroups = postcodeGroups;
+    this.eqPostcodeEnvelope = eqPostcodeEnvelope;
+    this.uprns = uprns;
+    this.uprnFragments = uprnFragments;
+    this.uprnEnvelope = uprnEnvelope;
+    this.postcodes = postcodes;
+    this.postcodeFragments = postcodeFragments;
+    this.postcodeEnvelope = postcodeEnvelope;
+    this.rhPostcodeHeads = rhPostcodeHeads;
+    this.rhPostcodeTails = rhPostcodeTails;
+    this.rhPostcodeEnvelope = rhPostcodeEnvelope;
+    this.partialSearch = partialSearch;
+    this.partialFragments = partialFragments;
+    this.partialEnvelope = partialEnvelope;
+  }
+
+  /**
+   * Builds the index from every captured address response in a snapshot.
+   *
+   * @param store is the snapshot to index.
+   * @return the index.
+   * @throws JsonProcessingException if rendering fails.
+   */
+  static AddressIndex build(DataStore store) throws JsonProcessingException {
+    ObjectMapperRegistry json = ObjectMapperRegistry.get();
+    AddressTable table = AddressTable.build(store, json.mapper());
+
+    List<List<String>> tokens = new ArrayList<>(table.size());
+    byte[][] eqFragments = new byte[table.size()][];
+    UprnIndex uprns = new UprnIndex(table.size());
+    byte[][] uprnFragments = new byte[table.size()][];
+    byte[][] postcodeFragments = new byte[table.size()][];
+    byte[][] rhPostcodeHeads = new byte[table.size()][];
+    byte[][] rhPostcodeTails = new byte[table.size()][];
+    List<List<String>> partialTokens = new ArrayList<>(table.size());
+    JsonTemplate[] partialFragments = new JsonTemplate[table.size()];
+    ObjectWriter postcodeWriter = json.writer(AddressIndexPostcodeAddressDTO.class);
+    for (int id = 0; id < table.size(); id++) {
+      AddressRecord record = table.get(id);
+      tokens.add(AddressText.tokens(record.getBestMatchAddress()));
+      AddressIndexPartialAddressDTO partial = partialAddress(record, json.mapper());
+      partialTokens.add(partialTokens(partial));
+      partialFragments[id] = splitAtScores(partial, json.mapper());
+      eqFragments[id] = json.writer(AddressIndexEqAddressDTO.class).writeValueAsBytes(eq(record));
+      uprns.put(record.getUprn(), id);
+      uprnFragments[id] =
+          json.writer(AddressIndexUprnAddressDTO.class).writeValueAsBytes(uprnAddress(record));
+      if (record.getPostcode() != null) {
+        postcodeFragments[id] =
+            postcodeWriter.writeValueAsBytes(postcodeAddress(partial, json.mapper()));
+        JsonTemplate rh = splitAtConfidence(rhPostcodeAddress(record), json.mapper());
+        rhPostcodeHeads[id] = rh.segment(0);
+        rhPostcodeTails[id] = rh.segment(1);
+      }
+    }
+    TypeAheadTrie typeAhead = TypeAheadTrie.build(tokens);
+    PostcodeGroups postcodeGroups =
+        PostcodeGroups.build(table, json.writer(AddressIndexEqPostcodeAddressDTO.class));
+
+    return new AddressIndex(
+        table.size(),
+        typeAhead,
+        eqFragments,
+        envelope(store, RequestType.AI_EQ, "input", "addresses", json),
+        postcodeGroups,
+        envelope(store, RequestType.AI_EQ_POSTCODE, "partpostcode", "postcodes", json),
+        uprns,
+        uprnFragments,
+        uprnEnvelope(store, json),
+        PostcodeIndex.build(table),
+        postcodeFragments,
+        envelope(store, RequestType.AI_POSTCODE, "postcode", "addresses", json),
+        rhPostcodeHeads,
+        rhPostcodeTails,
+        envelope(store, RequestType.AI_RH_POSTCODE, "postcode", "addresses", json),
+        InvertedIndex.build(partialTokens),
+        partialFragments,
+        envelope(store, RequestType.AI_PARTIAL, "input", "addresses", json));
+  }
+
+  /**
+   * Builds a response to a request.
+   *
+   * @param requestType is the type of request.
+   * @param input is the search input, as it was given.
+   * @param offset is the index of the first result to return.
+   * @param limit is the maximum number of results to return.
+   * @return the UTF-8 response body, or null if the request can't be answered from the index.
+   */
+  byte[] respond(RequestType requestType, String input, int offset, int limit) {
+    switch (requestType) {
+      case AI_EQ:
+        return typeAhead(input);
+      case AI_EQ_POSTCODE:
+        return postcodeTypeAhead(input);
+      case AI_RH_UPRN:
+        return uprn(input);
+      case AI_PARTIAL:
+        return partial(input, offset, limit);
+      case AI_POSTCODE:
+        return postcode(postcodeEnvelope, postcodeFragments, null, input, offset, limit);
+      case AI_RH_POSTCODE:
+        return postcode(
+            rhPostcodeEnvelope, rhPostcodeHeads, rhPostcodeTails, input, offset, limit);
+      default:
+        return null;
+    }
+  }
+
+  /** @return the number of addresses held. */
+  int addressCount() {
+    return addressCount;
+  }
+
+  /** @return the number of nodes in the type ahead trie. */
+  int typeAheadNodeCount() {
+    return typeAhead.nodeCount();
+  }
+
+  /** @return the number of postcode groups held. */
+  int postcodeGroupCount() {
+    return postcodeGroups.size();
+  }
+
+  /** @return the number of distinct postcodes held. */
+  int postcodeCount() {
+    return postcodes.size();
+  }
+
+  /** @return the number of distinct tokens in the partial search index. */
+  int partialTermCount() {
+    return partialSearch.termCount();
+  }
+
+  /** @return the number of bytes of compressed postings in the partial search index. */
+  int partialPostingBytes() {
+    return partialSearch.postingBytes();
+  }
+
+  /** @return the number of bytes of heap held by the UPRN index, excluding its responses. */
+  long uprnIndexBytes() {
+    return uprns.heapBytes();
+  }
+
+  /**
+   * Estimates the heap held by the indexes and pre-rendered results.
+   *
+   * @return the approximate number of bytes held.
+   */
+  long heapBytes() {
+    long bytes =
+        typeAhead.heapBytes()
+            + postcodeGroups.heapBytes()
+            + uprns.heapBytes()
+            + postcodes.heapBytes()
+            + partialSearch.heapBytes();
+    for (byte[][] fragments :
+        List.of(eqFragments, uprnFragments, postcodeFragments, rhPostcodeHeads, rhPostcodeTails)) {
+      bytes += 16 + 4L * fragments.length;
+      for (byte[] fragment : fragments) {
+        bytes += fragment == null ? 0 : 16 + fragment.length;
+      }
+    }
+    for (JsonTemplate fragment : partialFragments) {
+      bytes += 64 + fragment.fixedLength();
+    }
+    if (uprnEnvelope != null) {
+      bytes += uprnEnvelope.fixedLength();
+    }
+    for (ResponseEnvelope envelope :
+        new ResponseEnvelope[] {
+          eqEnvelope, eqPostcodeEnvelope, postcodeEnvelope, rhPostcodeEnvelope, partialEnvelope
+        }) {
+      bytes += envelope == null ? 0 : envelope.heapBytes();
+    }
+    return bytes;
+  }
+
+  private byte[] typeAhead(String input) {
+    List<String> tokens = AddressText.queryTokens(input);
+    if (eqEnvelope == null || tokens.isEmpty()) {
+      return null;
+    }
+    int[] ids = new int[eqEnvelope.defaultLimit()];
+    int total = typeAhead.search(tokens, ids);
+    if (total == 0) {
+      return null;
+    }
+    int count = Math.min(total, ids.length);
+    return eqEnvelope.render(input, eqFragments, ids, 0, count, total, ids.length, 0);
+  }
+
+  private byte[] postcodeTypeAhead(String input) {
+    String compact = AddressText.compactPostcode(input);
+    if (eqPostcodeEnvelope == null || compact.isEmpty()) {
+      return null;
+    }
+    int[] ordinals = new int[eqPostcodeEnvelope.defaultLimit()];
+    int total = postcodeGroups.search(compact, ordinals);
+    if (total == 0) {
+      return null;
+    }
+    int count = Math.min(total, ordinals.length);
+    return eqPostcodeEnvelope.render(
+        AddressText.formatPartPostcode(input),
+        postcodeGroups.fragments(),
+        ordinals,
+        0,
+        count,
+        total,
+        ordinals.length,
+        0);
+  }
+
+  // Doesn't allocate, other than for the response
+  private byte[] uprn(String input) {
+    int id = uprns.get(UprnIndex.parseUprn(input));
+    if (uprnEnvelope == null || id < 0) {
+      return null;
+    }
+    byte[] address = uprnFragments[id];
+    byte[] out = new byte[uprnEnvelope.fixedLength() + address.length];
+    int pos = JsonTemplate.put(out, 0, uprnEnvelope.segment(0));
+    pos = JsonTemplate.put(out, pos, address);
+    JsonTemplate.put(out, pos, uprnEnvelope.segment(1));
+    return out;
+  }
+
+  private byte[] partial(String input, int offset, int limit) {
+    List<String> tokens = AddressText.queryTokens(input);
+    if (partialEnvelope == null || tokens.isEmpty()) {
+      return null;
+    }
+    long[] ranked = partialSearch.search(tokens);
+    if (ranked.length == 0) {
+      return null;
+    }
+
+    // Slice the page in the same way as a captured response
+    int from = 0;
+    int to = 0;
+    if (offset >= 0 && offset <= ranked.length) {
+      from = offset;
+      to = (int) Math.min((long) offset + Math.max(limit, 0), ranked.length);
+    }
+
+    int itemsLength = 2 + Math.max(to - from - 1, 0);
+    for (int i = from; i < to; i++) {
+      int score = InvertedIndex.scoreOf(ranked[i]);
+      itemsLength +=
+          partialFragments[InvertedIndex.idOf(ranked[i])].fixedLength()
+              + JsonTemplate.digitCount((long) score * CONFIDENCE_PER_SCORE)
+              + JsonTemplate.digitCount(score);
+    }
+    byte[] items = new byte[itemsLength];
+    int pos = 0;
+    items[pos++] = '[';
+    for (int i = from; i < to; i++) {
+      if (i > from) {
+        items[pos++] = ',';
+      }
+      JsonTemplate fragment = partialFragments[InvertedIndex.idOf(ranked[i])];
+      int score = InvertedIndex.scoreOf(ranked[i]);
+      for (int s = 0; s < fragment.slotCount(); s++) {
+        pos = JsonTemplate.put(items, pos, fragment.segment(s));
+        long value = fragment.slot(s) == 0 ? (long) score * CONFIDENCE_PER_SCORE : score;
+        pos = JsonTemplate.putDigits(items, pos, value);
+      }
+      pos = JsonTemplate.put(items, pos, fragment.segment(fragment.slotCount()));
+    }
+    items[pos] = ']';
+    return partialEnvelope.render(input, items, ranked.length, limit, offset);
+  }
+
+  private byte[] postcode(
+      ResponseEnvelope envelope,
+      byte[][] heads,
+      byte[][] tails,
+      String input,
+      int offset,
+      int limit) {
+    int ordinal = postcodes.find(AddressText.compactPostcode(input));
+    if (envelope == null || ordinal < 0) {
+      return null;
+    }
+
+    // Slice the page in the same way as a captured response
+    int total = postcodes.to(ordinal) - postcodes.from(ordinal);
+    int from = postcodes.from(ordinal);
+    int to = from;
+    if (offset >= 0 && offset <= total) {
+      from += offset;
+      to = (int) Math.min((long) from + Math.max(limit, 0), postcodes.to(ordinal));
+    }
+    return envelope.render(input, heads, tails, postcodes.ids(), from, to, total, limit, offset);
+  }
+
+  private static AddressIndexEqAddressDTO eq(AddressRecord record) {
+    if (record.getEq() != null) {
+      return record.getEq();
+    }
+    AddressIndexEqAddressDTO eq = new AddressIndexEqAddressDTO();
+    eq.setUprn(Long.toString(record.getUprn()));
+    eq.setBestMatchAddress(record.getBestMatchAddress());
+    eq.setBestMatchAddressType(record.getBestMatchAddressType());
+    return eq;
+  }
+
+  private static AddressIndexUprnAddressDTO uprnAddress(AddressRecord record) {
+    if (record.getUprnAddress() != null) {
+      return record.getUprnAddress();
+    }
+    String[] lines = AddressText.addressLines(record.getBestMatchAddress());
+    AddressIndexUprnAddressDTO address = new AddressIndexUprnAddressDTO();
+    address.setUprn(Long.toString(record.getUprn()));
+    address.setFormattedAddress(record.getBestMatchAddress());
+    address.setAddressLine1(lines[0]);
+    address.setAddressLine2(lines[1]);
+    address.setAddressLine3(lines[2]);
+    address.setTownName(emptyIfNull(record.getTownName()));
+    address.setPostcode(emptyIfNull(record.getPostcode()));
+    address.setFoundAddressType(record.getBestMatchAddressType());
+    address.setOrganisationName("");
+    AddressIndexAddressCensusDTO census = census(record);
+    if (census != null) {
+      address.setCensusAddressType(census.getAddressType());
+      address.setCensusEstabType(census.getEstabType());
+      address.setCountryCode(census.getCountryCode());
+    }
+    return address;
+  }
+
+  /**
+   * Returns the full detail of an address, as a partial search returns it. This is a copy of any
+   * captured detail, so that it can be modified, or else is derived from the other views.
+   */
+  private static AddressIndexPartialAddressDTO partialAddress(
+      AddressRecord record, ObjectMapper mapper) {
+    AddressIndexPartialAddressDTO address;
+    if (record.getDetail() != null) {
+      address = mapper.convertValue(record.getDetail(), AddressIndexPartialAddressDTO.class);
+    } else {
+      address = new AddressIndexPartialAddressDTO();
+      address.setUprn(Long.toString(record.getUprn()));
+      address.setFormattedAddress(record.getFormattedAddress());
+      address.setFormattedAddressNag(record.getFormattedAddress());
+      if ("PAF".equals(record.getBestMatchAddressType())) {
+        address.setFormattedAddressPaf(record.getBestMatchAddress());
+      }
+      address.setCensus(census(record));
+    }
+    if (address.getHighlights() == null) {
+      AddressIndexHighlights highlights = new AddressIndexHighlights();
+      highlights.setBestMatchAddress(record.getBestMatchAddress());
+      highlights.setSource("PAF".equals(record.getBestMatchAddressType()) ? "P" : "L");
+      highlights.setLang("E");
+      address.setHighlights(highlights);
+    }
+    return address;
+  }
+
+  // The tokens of every form of the address, starting with those of the formatted address
+  private static List<String> partialTokens(AddressIndexPartialAddressDTO address) {
+    Set<String> tokens = new LinkedHashSet<>();
+    for (String text :
+        new String[] {
+          address.getFormattedAddress(),
+          address.getFormattedAddressNag(),
+          address.getFormattedAddressPaf(),
+          address.getHighlights().getBestMatchAddress()
+        }) {
+      if (text != null) {
+        tokens.addAll(AddressText.tokens(text));
+      }
+    }
+    return new ArrayList<>(tokens);
+  }
+
+  // AI scores every address in a postcode alike
+  private static AddressIndexPostcodeAddressDTO postcodeAddress(
+      AddressIndexPartialAddressDTO partial, ObjectMapper mapper) {
+    AddressIndexPostcodeAddressDTO address =
+        mapper.convertValue(partial, AddressIndexPostcodeAddressDTO.class);
+    address.setConfidenceScore(100);
+    address.setUnderlyingScore(0);
+    return address;
+  }
+
+  private static AddressIndexRhPostcodeAddressDTO rhPostcodeAddress(AddressRecord record) {
+    if (record.getRh() != null) {
+      return record.getRh();
+    }
+    AddressIndexRhPostcodeAddressDTO address = new AddressIndexRhPostcodeAddressDTO();
+    address.setUprn(Long.toString(record.getUprn()));
+    address.setFormattedAddress(record.getBestMatchAddress());
+    address.setAddressType(record.getBestMatchAddressType());
+    AddressIndexAddressCensusDTO census = census(record);
+    if (census != null) {
+      address.setCensusAddressType(census.getAddressType());
+      address.setCensusEstabType(census.getEstabType());
+      address.setCountryCode(census.getCountryCode());
+    }
+    return address;
+  }
+
+  // The census classification of an address, from whichever captured view has one
+  private static AddressIndexAddressCensusDTO census(AddressRecord record) {
+    if (record.getDetail() != null && record.getDetail().getCensus() != null) {
+      return record.getDetail().getCensus();
+    }
+    AddressIndexAddressCensusDTO census = new AddressIndexAddressCensusDTO();
+    if (record.getUprnAddress() != null) {
+      census.setAddressType(record.getUprnAddress().getCensusAddressType());
+      census.setEstabType(record.getUprnAddress().getCensusEstabType());
+      census.setCountryCode(record.getUprnAddress().getCountryCode());
+    } else if (record.getRh() != null) {
+      census.setAddressType(record.getRh().getCensusAddressType());
+      census.setEstabType(record.getRh().getCensusEstabType());
+      census.setCountryCode(record.getRh().getCountryCode());
+    } else {
+      return null;
+    }
+    return census;
+  }
+
+  /**
+   * Renders an RH postcode address split either side of its confidence score, which is counted
+   * down when a page is rendered.
+   */
+  private static JsonTemplate splitAtConfidence(
+      AddressIndexRhPostcodeAddressDTO address, ObjectMapper mapper)
+      throws JsonProcessingException {
+    ObjectNode tree = mapper.valueToTree(address);
+    tree.put("confidenceScore", JsonTemplate.marker(CONFIDENCE));
+    return JsonTemplate.split(
+        mapper.writeValueAsString(tree), JsonTemplate.placeholder(CONFIDENCE));
+  }
+
+  /**
+   * Renders a partial search address with slots for its confidence score (slot 0) and underlying
+   * score (slot 1), which are filled in for each search.
+   */
+  private static JsonTemplate splitAtScores(
+      AddressIndexPartialAddressDTO address, ObjectMapper mapper) throws JsonProcessingException {
+    ObjectNode tree = mapper.valueToTree(address);
+    tree.put("confidenceScore", JsonTemplate.marker(CONFIDENCE));
+    tree.put("underlyingScore", JsonTemplate.marker(UNDERLYING));
+    return JsonTemplate.split(
+        mapper.writeValueAsString(tree),
+        JsonTemplate.placeholder(CONFIDENCE),
+        JsonTemplate.placeholder(UNDERLYING));
+  }
+
+  /**
+   * Prepares the envelope for a request type from the first of its captured responses which holds
+   * a list of results.
+   *
+   * @return the envelope, or null if no suitable response has been captured.
+   */
+  private static ResponseEnvelope envelope(
+      DataStore store,
+      RequestType requestType,
+      String inputField,
+      String itemsField,
+      ObjectMapperRegistry json)
+      throws JsonProcessingException {
+    JsonNode prototype = prototype(store, requestType, itemsField, json);
+    return prototype == null
+        ? null
+        : ResponseEnvelope.prepare(prototype, json.mapper(), inputField, itemsField);
+  }
+
+  /**
+   * Prepares the envelope for an RH UPRN response, which holds a single address rather than a list.
+   *
+   * @return the envelope, or null if no suitable response has been captured.
+   */
+  private static JsonTemplate uprnEnvelope(DataStore store, ObjectMapperRegistry json)
+      throws JsonProcessingException {
+    JsonNode prototype = prototype(store, RequestType.AI_RH_UPRN, "address", json);
+    if (prototype == null) {
+      return null;
+    }
+    ((ObjectNode) prototype.get("response")).put("address", JsonTemplate.marker("ADDRESS"));
+    JsonTemplate envelope =
+        JsonTemplate.split(
+            json.mapper().writeValueAsString(prototype), JsonTemplate.placeholder("ADDRESS"));
+    return envelope.slotCount() == 1 ? envelope : null;
+  }
+
+  /**
+   * Finds the first captured response of a type (in name order) which holds the given field, and
+   * puts it through the DTO so that it only holds the fields the mock serves.
+   *
+   * @return the response as a tree, or null if no suitable response has been captured.
+   */
+  private static JsonNode prototype(
+      DataStore store, RequestType requestType, String field, ObjectMapperRegistry json)
+      throws JsonProcessingException {
+    List<String> names = new ArrayList<>();
+    store.names(requestType).forEach(names::add);
+    Collections.sort(names);
+
+    ObjectMapper mapper = json.mapper();
+    for (String name : names) {
+      if (name.startsWith(Constants.INTERNAL_FILE_NAME_PREFIX)) {
+        continue;
+      }
+      CapturedResponse captured = store.get(requestType, name);
+      if (!mapper.readTree(captured.getText()).path("response").path(field).isContainerNode()) {
+        continue;
+      }
+      Object dto = json.reader(requestType.getResponseClass()).readValue(captured.getText());
+      return mapper.valueToTree(dto);
+    }
+    return null;
+  }
+
+  private static String emptyIfNull(String s) {
+    return s == null ? "" : s;
+  }
+}
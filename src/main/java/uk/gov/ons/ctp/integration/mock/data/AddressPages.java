@@ -0,0 +1,172 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import static uk.gov.ons.ctp.integration.mock.data.JsonTemplate.marker;
+import static uk.gov.ons.ctp.integration.mock.data.JsonTemplate.placeholder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Holds a captured paged AI response as a pre-rendered envelope plus one pre-rendered fragment per
+ * address, so that an offset/limit page can be built by joining byte arrays.
+ *
+ * <p>The envelope has slots for the address array and the rewritten 'offset' and 'limit' fields.
+ * When the confidence score has to be counted down (as AI does for RH postcode searches) each
+ * address fragment is additionally split at its 'confidenceScore' value.
+ */
+final class AddressPages {
+  private static final int ADDRESSES_SLOT = 0;
+  private static final int LIMIT_SLOT = 1;
+  private static final int OFFSET_SLOT = 2;
+
+  private static final String ADDRESSES = "ADDRESSES";
+  private static final String LIMIT = "LIMIT";
+  private static final String OFFSET = "OFFSET";
+  private static final String CONFIDENCE = "CONFIDENCE";
+
+  // Matches the counting down of the confidence score done by AI
+  static final long BASE_CONFIDENCE = 100000;
+
+  private final JsonTemplate envelope;
+  private final byte[][] heads;
+  private final byte[][] tails;
+
+  private AddressPages(JsonTemplate envelope, byte[][] heads, byte[][] tails) {
+    this.envelope = envelope;
+    this.heads = heads;
+    this.tails = tails;
+  }
+
+  /**
+   * Pre-renders a paged response.
+   *
+   * @param response is the captured response as a tree, which has already been through the DTO
+   *     so that it only holds the fields that the mock serves. This is modified.
+   * @param mapper is used to render the JSON.
+   * @param countDownConfidence is true if each page should have its confidence scores rewritten.
+   * @return the pre-rendered pages.
+   * @throws JsonProcessingException if rendering fails.
+   */
+  static AddressPages prepare(JsonNode response, ObjectMapper mapper, boolean countDownConfidence)
+      throws JsonProcessingException {
+    ObjectNode body = (ObjectNode) response.get("response");
+    ArrayNode addresses = (ArrayNode) body.get("addresses");
+
+    int count = addresses == null ? 0 : addresses.size();
+    byte[][] heads = new byte[count][];
+    byte[][] tails = countDownConfidence ? new byte[count][] : null;
+    for (int i = 0; i < count; i++) {
+      ObjectNode address = (ObjectNode) addresses.get(i);
+      if (countDownConfidence) {
+        address.put("confidenceScore", marker(CONFIDENCE));
+        JsonTemplate fragment =
+            JsonTemplate.split(mapper.writeValueAsString(address), placeholder(CONFIDENCE));
+        heads[i] = fragment.segment(0);
+        tails[i] = fragment.segment(1);
+      } else {
+        heads[i] = mapper.writeValueAsBytes(address);
+      }
+    }
+
+    body.put("addresses", marker(ADDRESSES));
+    body.put("limit", marker(LIMIT));
+    body.put("offset", marker(OFFSET));
+    JsonTemplate envelope =
+        JsonTemplate.split(
+            mapper.writeValueAsString(response),
+            placeholder(ADDRESSES),
+            placeholder(LIMIT),
+            placeholder(OFFSET));
+
+    return new AddressPages(envelope, heads, tails);
+  }
+
+  /** @return the number of addresses held. */
+  int size() {
+    return heads.length;
+  }
+
+  /**
+   * @param offset is the index of the first address to return.
+   * @param limit is the maximum number of addresses to return.
+   * @return the number of addresses in the page.
+   */
+  int pageSize(int offset, int limit) {
+    if (offset < 0 || offset > heads.length) {
+      return 0;
+    }
+    return (int) (Math.min((long) offset + Math.max(limit, 0), heads.length) - offset);
+  }
+
+  /**
+   * Builds the response for a page of addresses.
+   *
+   * @param offset is the index of the first address to return.
+   * @param limit is the maximum number of addresses to return.
+   * @return the UTF-8 response body.
+   */
+  byte[] render(int offset, int limit) {
+    int from = 0;
+    int to = 0;
+    if (offset >= 0 && offset <= heads.length) {
+      from = offset;
+      to = from + pageSize(offset, limit);
+    }
+    byte[] limitText = JsonTemplate.ascii(limit);
+    byte[] offsetText = JsonTemplate.ascii(offset);
+    long confidence = BASE_CONFIDENCE + (to - from);
+
+    // Work out the exact size so that the body is built in a single array
+    int size = envelope.fixedLength() + limitText.length + offsetText.length + 2;
+    for (int i = from; i < to; i++) {
+      size += heads[i].length + (i > from ? 1 : 0);
+      if (tails != null) {
+        size += JsonTemplate.digitCount(confidence - (i - from)) + tails[i].length;
+      }
+    }
+
+    byte[] out = new byte[size];
+    int pos = 0;
+    for (int s = 0; s < envelope.slotCount(); s++) {
+      pos = JsonTemplate.put(out, pos, envelope.segment(s));
+      switch (envelope.slot(s)) {
+        case ADDRESSES_SLOT:
+          out[pos++] = '[';
+          for (int i = from; i < to; i++) {
+            if (i > from) {
+              out[pos++] = ',';
+            }
+            pos = JsonTemplate.put(out, pos, heads[i]);
+            if (tails != null) {
+              pos = JsonTemplate.putDigits(out, pos, confidence--);
+              pos = JsonTemplate.put(out, pos, tails[i]);
+            }
+          }
+          out[pos++] = ']';
+          break;
+        case LIMIT_SLOT:
+          pos = JsonTemplate.put(out, pos, limitText);
+          break;
+        case OFFSET_SLOT:
+          pos = JsonTemplate.put(out, pos, offsetText);
+          break;
+        default:
+          throw new IllegalStateException("Unknown slot: " + envelope.slot(s));
+      }
+    }
+    JsonTemplate.put(out, pos, envelope.segment(envelope.slotCount()));
+    return out;
+  }
+
+  /** @return the approximate number of bytes of heap held. */
+  long heapBytes() {
+    long bytes = envelope.fixedLength();
+    for (int i = 0; i < heads.length; i++) {
+      bytes += 16 + heads[i].length + (tails == null ? 0 : 16 + tails[i].length);
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,99 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import lombok.Getter;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexEqAddressDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexPartialAddressDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexRhPostcodeAddressDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexUprnAddressDTO;
+
+/**
+ * Everything the captured data holds about one address, merged from every AI response it appears
+ * in.
+ *
+ * <p>Each AI endpoint returns its own view of an address, and the first capture of each view is
+ * kept. The fields which the views share are derived once, from the best view available, when the
+ * record is completed.
+ */
+@Getter
+final class AddressRecord {
+  private final long uprn;
+  private AddressIndexPartialAddressDTO detail;
+  private AddressIndexRhPostcodeAddressDTO rh;
+  private AddressIndexUprnAddressDTO uprnAddress;
+  private AddressIndexEqAddressDTO eq;
+
+  // The number of captured responses the address appears in
+  private int captureCount;
+
+  private String formattedAddress;
+  private String bestMatchAddress;
+  private String bestMatchAddressType;
+  private String postcode;
+  private String townName;
+  private String streetName;
+
+  AddressRecord(long uprn) {
+    this.uprn = uprn;
+  }
+
+  void add(AddressIndexPartialAddressDTO view) {
+    captureCount++;
+    detail = detail == null ? view : detail;
+  }
+
+  void add(AddressIndexRhPostcodeAddressDTO view) {
+    captureCount++;
+    rh = rh == null ? view : rh;
+  }
+
+  void add(AddressIndexUprnAddressDTO view) {
+    captureCount++;
+    uprnAddress = uprnAddress == null ? view : uprnAddress;
+  }
+
+  void add(AddressIndexEqAddressDTO view) {
+    captureCount++;
+    eq = eq == null ? view : eq;
+  }
+
+  /** Derives the shared fields once all views have been added. */
+  void complete() {
+    if (detail != null) {
+      formattedAddress = detail.getFormattedAddress();
+    } else if (rh != null) {
+      formattedAddress = rh.getFormattedAddress();
+    } else if (uprnAddress != null) {
+      formattedAddress = uprnAddress.getFormattedAddress();
+    } else {
+      formattedAddress = eq.getBestMatchAddress();
+    }
+
+    // AI's type ahead prefers the PAF form of an address
+    if (eq != null) {
+      bestMatchAddress = eq.getBestMatchAddress();
+      bestMatchAddressType = eq.getBestMatchAddressType();
+    } else if (detail != null && hasText(detail.getFormattedAddressPaf())) {
+      bestMatchAddress = detail.getFormattedAddressPaf();
+      bestMatchAddressType = "PAF";
+    } else if (detail != null && hasText(detail.getFormattedAddressNag())) {
+      bestMatchAddress = detail.getFormattedAddressNag();
+      bestMatchAddressType = "NAG";
+    } else {
+      bestMatchAddress = formattedAddress;
+      bestMatchAddressType = rh != null ? rh.getAddressType() : "NAG";
+    }
+
+    if (uprnAddress != null && hasText(uprnAddress.getPostcode())) {
+      postcode = uprnAddress.getPostcode();
+      townName = uprnAddress.getTownName();
+    } else {
+      postcode = AddressText.postcodeOf(formattedAddress);
+      townName = postcode == null ? null : AddressText.townOf(formattedAddress);
+    }
+    streetName = postcode == null ? null : AddressText.streetOf(formattedAddress);
+  }
+
+  private static boolean hasText(String s) {
+    return s != null && !s.isBlank();
+  }
+}
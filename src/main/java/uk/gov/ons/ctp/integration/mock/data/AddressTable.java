@@ -0,0 +1,158 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.ctp.integration.mock.Constants;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexEqAddressDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexEqPostcodeAddressDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexPartialAddressDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexRhPostcodeAddressDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexUprnAddressDTO;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * The canonical table of every address held in the captured AI responses, with one {@link
+ * AddressRecord} per UPRN.
+ *
+ * <p>Records are held in rank order, and a record's id is its position in the table, so an index
+ * which holds ids in ascending order returns its results best first. Addresses which appear in more
+ * captures rank higher, followed by shorter addresses.
+ */
+@Slf4j
+final class AddressTable {
+  private static final Comparator<AddressRecord> RANK_ORDER =
+      Comparator.comparingInt(AddressRecord::getCaptureCount)
+          .reversed()
+          .thenComparingInt(r -> r.getBestMatchAddress().length())
+          .thenComparingLong(AddressRecord::getUprn);
+
+  private final AddressRecord[] records;
+  private final List<AddressIndexEqPostcodeAddressDTO> capturedPostcodeGroups;
+
+  private AddressTable(
+      AddressRecord[] records, List<AddressIndexEqPostcodeAddressDTO> capturedPostcodeGroups) {
+    this.records = records;
+    this.capturedPostcodeGroups = capturedPostcodeGroups;
+  }
+
+  /**
+   * Builds the table from every captured address response in a snapshot.
+   *
+   * @param store is the snapshot to read.
+   * @param mapper is used to parse the captured text.
+   * @return the table.
+   */
+  static AddressTable build(DataStore store, ObjectMapper mapper) {
+    Map<Long, AddressRecord> byUprn = new HashMap<>();
+    List<AddressIndexEqPostcodeAddressDTO> postcodeGroups = new ArrayList<>();
+
+    // AI_EQ_POSTCODE shares its data directory with AI_EQ, so is read along with it
+    for (RequestType requestType : RequestType.values()) {
+      if (!requestType.isAddressType() || requestType == RequestType.AI_EQ_POSTCODE) {
+        continue;
+      }
+      List<String> names = new ArrayList<>();
+      store.names(requestType).forEach(names::add);
+      Collections.sort(names);
+      for (String name : names) {
+        if (name.startsWith(Constants.INTERNAL_FILE_NAME_PREFIX)) {
+          continue;
+        }
+        try {
+          String text = store.get(requestType, name).getText();
+          JsonNode response = mapper.readTree(text).path("response");
+          addResponse(requestType, response, mapper, byUprn, postcodeGroups);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+          log.warn(
+              "Failed to index captured response",
+              kv("requestType", requestType.name()),
+              kv("name", name),
+              e);
+        }
+      }
+    }
+
+    AddressRecord[] records = byUprn.values().toArray(new AddressRecord[0]);
+    for (AddressRecord record : records) {
+      record.complete();
+    }
+    Arrays.sort(records, RANK_ORDER);
+    return new AddressTable(records, Collections.unmodifiableList(postcodeGroups));
+  }
+
+  /** @return the number of addresses held. */
+  int size() {
+    return records.length;
+  }
+
+  /** @return the address with the given id. */
+  AddressRecord get(int id) {
+    return records[id];
+  }
+
+  /** @return the postcode groups from captured AI_EQ_POSTCODE responses, in capture order. */
+  List<AddressIndexEqPostcodeAddressDTO> capturedPostcodeGroups() {
+    return capturedPostcodeGroups;
+  }
+
+  private static void addResponse(
+      RequestType requestType,
+      JsonNode response,
+      ObjectMapper mapper,
+      Map<Long, AddressRecord> byUprn,
+      List<AddressIndexEqPostcodeAddressDTO> postcodeGroups)
+      throws JsonProcessingException {
+    switch (requestType) {
+      case AI_PARTIAL:
+      case AI_POSTCODE:
+        for (JsonNode address : response.path("addresses")) {
+          AddressIndexPartialAddressDTO view =
+              mapper.treeToValue(address, AddressIndexPartialAddressDTO.class);
+          record(byUprn, view.getUprn()).add(view);
+        }
+        break;
+      case AI_RH_POSTCODE:
+        for (JsonNode address : response.path("addresses")) {
+          AddressIndexRhPostcodeAddressDTO view =
+              mapper.treeToValue(address, AddressIndexRhPostcodeAddressDTO.class);
+          record(byUprn, view.getUprn()).add(view);
+        }
+        break;
+      case AI_RH_UPRN:
+        if (response.has("address")) {
+          AddressIndexUprnAddressDTO view =
+              mapper.treeToValue(response.get("address"), AddressIndexUprnAddressDTO.class);
+          record(byUprn, view.getUprn()).add(view);
+        }
+        break;
+      case AI_EQ:
+        for (JsonNode address : response.path("addresses")) {
+          AddressIndexEqAddressDTO view =
+              mapper.treeToValue(address, AddressIndexEqAddressDTO.class);
+          record(byUprn, view.getUprn()).add(view);
+        }
+        for (JsonNode group : response.path("postcodes")) {
+          postcodeGroups.add(mapper.treeToValue(group, AddressIndexEqPostcodeAddressDTO.class));
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  // Throws IllegalArgumentException if the UPRN isn't a number
+  private static AddressRecord record(Map<Long, AddressRecord> byUprn, String uprn) {
+    return byUprn.computeIfAbsent(Long.parseLong(uprn), AddressRecord::new);
+  }
+}
@@ -0,0 +1,293 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Normalises address text and postcodes for the address indexes.
+ *
+ * <p>Text is split into lower case alphanumeric tokens. Apostrophes are dropped rather than treated
+ * as separators, so that "John's" is indexed as "johns". A postcode is held as a single compact
+ * token (eg, "cf32tw"), which is what AI matches against when a postcode is typed without its
+ * space.
+ */
+final class AddressText {
+
+  private AddressText() {}
+
+  /**
+   * Splits address text into tokens.
+   *
+   * @param text is the address text.
+   * @return the tokens, in the order they appear.
+   */
+  static List<String> tokens(String text) {
+    return tokens(text, false);
+  }
+
+  /**
+   * Splits search input into tokens. This is the same as {@link #tokens(String)}, except that a
+   * trailing outward code and partially typed inward code (eg, "cf3 2t") are also joined.
+   *
+   * @param input is the search input.
+   * @return the tokens, in the order they appear.
+   */
+  static List<String> queryTokens(String input) {
+    return tokens(input, true);
+  }
+
+  /**
+   * Returns a postcode in upper case with all spaces removed.
+   *
+   * @param postcode is the postcode, or part of one.
+   * @return the compact postcode.
+   */
+  static String compactPostcode(String postcode) {
+    StringBuilder compact = new StringBuilder(postcode.length());
+    for (int i = 0; i < postcode.length(); i++) {
+      char c = postcode.charAt(i);
+      if (Character.isLetterOrDigit(c)) {
+        compact.append(Character.toUpperCase(c));
+      }
+    }
+    return compact.toString();
+  }
+
+  /**
+   * Formats a partial postcode as AI echoes it back for a type ahead search. The space is only
+   * inserted once the input has reached a letter of the inward code, eg, "ex24l" becomes "EX2 4L",
+   * but "ex24" is returned as it was given.
+   *
+   * @param input is the partial postcode.
+   * @return the formatted partial postcode.
+   */
+  static String formatPartPostcode(String input) {
+    String compact = compactPostcode(input);
+    int inward = compact.length() - 1;
+    while (inward > 0 && Character.isLetter(compact.charAt(inward))) {
+      inward--;
+    }
+    if (inward < 2
+        || inward == compact.length() - 1
+        || !Character.isDigit(compact.charAt(inward))
+        || !isOutwardCode(compact.substring(0, inward))) {
+      return input;
+    }
+    return compact.substring(0, inward) + " " + compact.substring(inward);
+  }
+
+  /**
+   * Returns the postcode from the end of a formatted address, such as "1 West Grove Road, Exeter,
+   * EX2 4LU".
+   *
+   * @param formattedAddress is the comma separated address.
+   * @return the postcode, or null if the address doesn't end with one.
+   */
+  static String postcodeOf(String formattedAddress) {
+    String[] segments = segments(formattedAddress);
+    String last = segments[segments.length - 1];
+    int space = last.indexOf(' ');
+    if (space < 0
+        || !isOutwardCode(last.substring(0, space))
+        || !isInwardCode(last.substring(space + 1), false)) {
+      return null;
+    }
+    return last.toUpperCase(Locale.UK);
+  }
+
+  /**
+   * Returns the town from a formatted address, which is the segment before the postcode.
+   *
+   * @param formattedAddress is the comma separated address.
+   * @return the town, or null if the address has no town.
+   */
+  static String townOf(String formattedAddress) {
+    String[] segments = segments(formattedAddress);
+    return segments.length < 3 ? null : segments[segments.length - 2];
+  }
+
+  /**
+   * Returns the street from a formatted address. This is the last segment before the town which
+   * starts with a building number (with the number removed). Otherwise it is the segment before the
+   * town, or before the locality if the address is long enough to have one, eg, 'Pentwyn Terrace'
+   * from 'Arnold House, Pentwyn Terrace, Marshfield, Cardiff, CF3 2TW'.
+   *
+   * @param formattedAddress is the comma separated address.
+   * @return the street, or null if the address has no street.
+   */
+  static String streetOf(String formattedAddress) {
+    String[] segments = segments(formattedAddress);
+    for (int i = segments.length - 3; i >= 0; i--) {
+      int space = segments[i].indexOf(' ');
+      if (space > 0 && isBuildingNumber(segments[i].substring(0, space))) {
+        return segments[i].substring(space + 1);
+      }
+    }
+    if (segments.length < 3) {
+      return null;
+    }
+    return segments[segments.length < 5 ? segments.length - 3 : segments.length - 4];
+  }
+
+  /**
+   * Returns the number of the building on the street, which AI uses to order the addresses in a
+   * postcode. This is the leading number of the segment that {@link #streetOf} takes the street
+   * from, eg, 14 for '14A Fairfield Close'.
+   *
+   * @param formattedAddress is the comma separated address.
+   * @return the building number, or -1 if the address has none.
+   */
+  static int buildingNumberOf(String formattedAddress) {
+    String[] segments = segments(formattedAddress);
+    int i = numberedSegment(segments);
+    if (i < 0) {
+      return -1;
+    }
+    int end = leadingDigits(segments[i]);
+    return Integer.parseInt(segments[i].substring(0, end));
+  }
+
+  /**
+   * Returns whatever follows the building number, eg, 'A' for '14A Fairfield Close' or '-43' for
+   * '41-43 Okehampton Road'.
+   *
+   * @param formattedAddress is the comma separated address.
+   * @return the suffix, which is empty if the building number has none or there is no number.
+   */
+  static String buildingSuffixOf(String formattedAddress) {
+    String[] segments = segments(formattedAddress);
+    int i = numberedSegment(segments);
+    if (i < 0) {
+      return "";
+    }
+    return segments[i].substring(leadingDigits(segments[i]), segments[i].indexOf(' '));
+  }
+
+  /**
+   * Returns the name of the building and the part of it an address is for, from the segments
+   * before the building number. The building name, which is the last of these, comes first, so
+   * that a building sorts before its flats, eg, 'Holbeche House Flat 1' from 'Flat 1, Holbeche
+   * House, 14 Okehampton Road, Exeter, EX4 1EH'. This is how AI orders the addresses which share
+   * a building number.
+   *
+   * @param formattedAddress is the comma separated address.
+   * @return the building name, which is empty if there is none or there is no building number.
+   */
+  static String buildingNameOf(String formattedAddress) {
+    String[] segments = segments(formattedAddress);
+    int i = numberedSegment(segments);
+    if (i < 1) {
+      return "";
+    }
+    StringBuilder name = new StringBuilder(segments[i - 1]);
+    for (int j = 0; j < i - 1; j++) {
+      name.append(' ').append(segments[j]);
+    }
+    return name.toString();
+  }
+
+  /**
+   * Splits a formatted address into the three address lines which AI returns for an address. These
+   * exclude the town and postcode, and any further lines are joined onto the third.
+   *
+   * @param formattedAddress is the comma separated address.
+   * @return the three lines, which are empty if the address is too short to fill them.
+   */
+  static String[] addressLines(String formattedAddress) {
+    String[] segments = segments(formattedAddress);
+    int end = postcodeOf(formattedAddress) == null ? segments.length - 1 : segments.length - 2;
+    String[] lines = {"", "", ""};
+    for (int i = 0; i < Math.max(end, 1); i++) {
+      int line = Math.min(i, 2);
+      lines[line] = lines[line].isEmpty() ? segments[i] : lines[line] + ", " + segments[i];
+    }
+    return lines;
+  }
+
+  private static List<String> tokens(String text, boolean partialLast) {
+    List<String> tokens = new ArrayList<>();
+    StringBuilder token = new StringBuilder();
+    for (int i = 0; i <= text.length(); i++) {
+      char c = i < text.length() ? text.charAt(i) : ' ';
+      if (Character.isLetterOrDigit(c)) {
+        token.append(Character.toLowerCase(c));
+      } else if (c != '\'' && token.length() > 0) {
+        tokens.add(token.toString());
+        token.setLength(0);
+      }
+    }
+
+    // Join any outward and inward codes into a single postcode token
+    for (int i = tokens.size() - 2; i >= 0; i--) {
+      boolean partial = partialLast && i == tokens.size() - 2;
+      if (isOutwardCode(tokens.get(i)) && isInwardCode(tokens.get(i + 1), partial)) {
+        tokens.set(i, tokens.get(i) + tokens.remove(i + 1));
+      }
+    }
+    return tokens;
+  }
+
+  // The last segment before the town which starts with a building number, or -1 if there is none
+  private static int numberedSegment(String[] segments) {
+    for (int i = segments.length - 3; i >= 0; i--) {
+      int end = leadingDigits(segments[i]);
+      if (end > 0 && segments[i].indexOf(' ') > 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int leadingDigits(String s) {
+    int end = 0;
+    while (end < s.length() && end < 9 && Character.isDigit(s.charAt(end))) {
+      end++;
+    }
+    return end;
+  }
+
+  private static String[] segments(String formattedAddress) {
+    String[] segments = formattedAddress.split(",");
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = segments[i].trim();
+    }
+    return segments;
+  }
+
+  // One or two letters, a digit, and an optional digit or letter. Eg, 'CF3', 'EX24', 'SW1A'
+  private static boolean isOutwardCode(String s) {
+    int letters = 0;
+    while (letters < s.length() && Character.isLetter(s.charAt(letters))) {
+      letters++;
+    }
+    int rest = s.length() - letters;
+    return letters >= 1
+        && letters <= 2
+        && rest >= 1
+        && rest <= 2
+        && Character.isDigit(s.charAt(letters))
+        && Character.isLetterOrDigit(s.charAt(s.length() - 1));
+  }
+
+  // A digit then two letters, or fewer letters if the code is still being typed
+  private static boolean isInwardCode(String s, boolean partial) {
+    if (s.isEmpty() || s.length() > 3 || (!partial && s.length() != 3)) {
+      return false;
+    }
+    if (!Character.isDigit(s.charAt(0))) {
+      return false;
+    }
+    for (int i = 1; i < s.length(); i++) {
+      if (!Character.isLetter(s.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Eg, '14', '29B', '11-13'
+  private static boolean isBuildingNumber(String s) {
+    return !s.isEmpty() && Character.isDigit(s.charAt(0));
+  }
+}
@@ -0,0 +1,242 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.ctp.common.error.CTPException;
+import uk.gov.ons.ctp.common.error.CTPException.Fault;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * Persists captured responses.
+ *
+ * <p>A captured response is streamed to a temporary file in the source tree, for long term storage,
+ * and then renamed over any existing file of the same name, so that nothing ever sees a half
+ * written file. Once it is in place a copy is written to the compiled target tree (for immediate
+ * use after a restart) by a background thread, in the same way. The caller then adds the response
+ * to the {@link DataRepository}.
+ *
+ * <p>A response which is already being served can instead be saved behind, by the background
+ * thread. Its queue is bounded, and once full a write is dropped and counted rather than made by
+ * the caller, so that a burst of captures never holds up the requests being served. A dropped
+ * response is still served until the mock restarts, and can be captured again.
+ */
+@Slf4j
+public class CaptureFileWriter implements AutoCloseable {
+  private static final String JSON_SUFFIX = ".json";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final long CLOSE_TIMEOUT_SECONDS = 30;
+  private static final int WRITE_BEHIND_CAPACITY = 1000;
+  // How many dropped writes go by between warnings
+  private static final long DROPPED_WARNING_INTERVAL = 100;
+
+  /** Writes a captured response. */
+  @FunctionalInterface
+  public interface ResponseWriter {
+    /**
+     * @param out is where the response is written to as UTF-8 JSON.
+     * @throws CTPException if the response could not be obtained.
+     * @throws IOException if the response could not be written.
+     */
+    void writeTo(OutputStream out) throws CTPException, IOException;
+  }
+
+  private final AtomicLong droppedWrites = new AtomicLong();
+  private final ExecutorService background =
+      new ThreadPoolExecutor(
+          1,
+          1,
+          0,
+          TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<>(WRITE_BEHIND_CAPACITY),
+          runnable -> {
+            Thread thread = new Thread(runnable, "capture-writer");
+            thread.setDaemon(true);
+            return thread;
+          },
+          (runnable, executor) -> dropped());
+
+  /**
+   * Captures a response to file. The caller is responsible for adding the response to the {@link
+   * DataRepository}, which allows a batch of captures to be added at once.
+   *
+   * @param requestType is the type of request the response is for.
+   * @param name is the name the data is held under.
+   * @param writer writes the response. This isn't called if the source tree can't be written to.
+   * @return the captured response text.
+   * @throws CTPException if the source tree can't be written to, or the response couldn't be
+   *     obtained.
+   * @throws IOException if the response could not be written.
+   */
+  public String write(RequestType requestType, String name, ResponseWriter writer)
+      throws CTPException, IOException {
+    File targetDataDir = targetDataDir();
+    String fileName = DataRepository.normaliseFileName(name) + JSON_SUFFIX;
+
+    // Validate the source tree before obtaining the response
+    Path srcCaptureDir = new File(sourceDataDir(targetDataDir), requestType.getPath()).toPath();
+    if (!Files.isDirectory(srcCaptureDir)) {
+      String dir = srcCaptureDir.toAbsolutePath().toString();
+      log.error("Output data directory does not exist", kv("output dir", dir));
+      throw new CTPException(Fault.SYSTEM_ERROR, "Output data directory does not exist: " + dir);
+    }
+
+    // Output json data to file in the source tree (for long term storage)
+    Path srcFile = writeFile(srcCaptureDir, fileName, writer);
+    String json = Files.readString(srcFile);
+
+    // Output json data to file in the compiled target file hierarchy (for immediate use)
+    Path targetCaptureDir = new File(targetDataDir, requestType.getPath()).toPath();
+    background.execute(() -> copy(srcFile, targetCaptureDir, fileName));
+
+    return json;
+  }
+
+  /**
+   * Saves a response in the background, to the source tree and then the target tree. The caller is
+   * responsible for adding the response to the {@link DataRepository}.
+   *
+   * @param requestType is the type of request the response is for.
+   * @param name is the name the data is held under.
+   * @param json is the captured response text.
+   */
+  public void saveBehind(RequestType requestType, String name, String json) {
+    saveBehind(requestType, name, JSON_SUFFIX, json);
+  }
+
+  /**
+   * Saves a file which accompanies a data file in the background, in the same way as {@link
+   * #saveBehind(RequestType, String, String)}. The suffix must not be that of a data file.
+   *
+   * @param requestType is the type of request the data file is for.
+   * @param name is the name the data is held under.
+   * @param suffix is the suffix of the file, in place of that of the data file.
+   * @param content is the file content.
+   */
+  public void saveBehind(RequestType requestType, String name, String suffix, String content) {
+    String fileName = DataRepository.normaliseFileName(name) + suffix;
+    background.execute(() -> save(requestType, fileName, content));
+  }
+
+  /** @return the number of background writes dropped since the mock started. */
+  public long droppedWrites() {
+    return droppedWrites.get();
+  }
+
+  /** Waits for the outstanding background writes to finish. */
+  @Override
+  public void close() {
+    background.shutdown();
+    try {
+      if (!background.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        log.warn("Gave up waiting for captured data to be written");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void dropped() {
+    long dropped = droppedWrites.incrementAndGet();
+    if (dropped % DROPPED_WARNING_INTERVAL == 1) {
+      log.warn("Dropped captured data write as the writer is behind", kv("dropped", dropped));
+    }
+  }
+
+  private static void save(RequestType requestType, String fileName, String content) {
+    File targetDataDir = targetDataDir();
+    Path srcCaptureDir = new File(sourceDataDir(targetDataDir), requestType.getPath()).toPath();
+    if (!Files.isDirectory(srcCaptureDir)) {
+      log.error(
+          "Output data directory does not exist", kv("output dir", srcCaptureDir.toAbsolutePath()));
+      return;
+    }
+    try {
+      Path srcFile =
+          writeFile(
+              srcCaptureDir, fileName, out -> out.write(content.getBytes(StandardCharsets.UTF_8)));
+      copy(srcFile, new File(targetDataDir, requestType.getPath()).toPath(), fileName);
+    } catch (CTPException | IOException e) {
+      log.error(
+          "Failed to save AI data to json file",
+          kv("outputFile", srcCaptureDir.resolve(fileName).toAbsolutePath()),
+          kv("error", e.getMessage()));
+    }
+  }
+
+  // Writes a file by writing a temporary file beside it, and renaming that over it
+  private static Path writeFile(Path dir, String fileName, ResponseWriter writer)
+      throws CTPException, IOException {
+    Path file = dir.resolve(fileName);
+    Path tempFile = Files.createTempFile(dir, "." + fileName, TEMP_SUFFIX);
+    try {
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+        writer.writeTo(out);
+      }
+      moveIntoPlace(tempFile, file);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+    log.info("Saved AI data to json file", kv("outputFile", file.toAbsolutePath()));
+    return file;
+  }
+
+  private static void copy(Path srcFile, Path targetCaptureDir, String fileName) {
+    if (!Files.isDirectory(targetCaptureDir)) {
+      log.warn(
+          "Output data directory does not exist",
+          kv("output dir", targetCaptureDir.toAbsolutePath()));
+      return;
+    }
+    Path targetFile = targetCaptureDir.resolve(fileName);
+    try {
+      Path tempFile = Files.createTempFile(targetCaptureDir, "." + fileName, TEMP_SUFFIX);
+      try {
+        Files.copy(srcFile, tempFile, StandardCopyOption.REPLACE_EXISTING);
+        moveIntoPlace(tempFile, targetFile);
+      } finally {
+        Files.deleteIfExists(tempFile);
+      }
+      log.info("Saved AI data to json file", kv("outputFile", targetFile.toAbsolutePath()));
+    } catch (IOException e) {
+      log.error(
+          "Failed to save AI data to json file",
+          kv("outputFile", targetFile.toAbsolutePath()),
+          kv("error", e.getMessage()));
+    }
+  }
+
+  private static void moveIntoPlace(Path tempFile, Path file) throws IOException {
+    try {
+      Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  // Discover the location of the 'data' resource directory
+  private static File targetDataDir() {
+    URL targetDataUrl = CaptureFileWriter.class.getClassLoader().getResource("data");
+    return new File(targetDataUrl.getFile());
+  }
+
+  private static File sourceDataDir(File targetDataDir) {
+    File mockAiDir = targetDataDir.getParentFile().getParentFile().getParentFile();
+    return new File(mockAiDir, "src/main/resources/data");
+  }
+}
@@ -0,0 +1,173 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.ctp.integration.mock.Constants;
+import uk.gov.ons.ctp.integration.mock.caseapi.model.CaseContainerDTO;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+import uk.gov.ons.ctp.integration.mock.jfr.ParseEvent;
+import uk.gov.ons.ctp.integration.mock.util.ObjectMapperRegistry;
+
+/**
+ * A captured response, along with the response body the mock serves for it.
+ *
+ * <p>The body is rendered once, when the data is loaded, by putting the captured text through the
+ * response DTO exactly as a per-request Jackson round trip would. Paged address responses are held
+ * as {@link AddressPages} so that any offset/limit page can be built without an object graph.
+ */
+@Slf4j
+public final class CapturedResponse {
+  @Getter private final String text;
+  private final byte[] body;
+  private final byte[] bodyWithoutCaseEvents;
+  private final AddressPages pages;
+
+  private CapturedResponse(
+      String text, byte[] body, byte[] bodyWithoutCaseEvents, AddressPages pages) {
+    this.text = text;
+    this.body = body;
+    this.bodyWithoutCaseEvents = bodyWithoutCaseEvents;
+    this.pages = pages;
+  }
+
+  /**
+   * Pre-renders the response body for a captured response.
+   *
+   * <p>If the captured text cannot be parsed then the failure is logged and the response is held
+   * without a body, so that requests for it fail rather than the whole data load.
+   *
+   * @param requestType is the type of request the response is for.
+   * @param name is the normalised name of the data file.
+   * @param text is the captured response text.
+   * @param json holds the readers and writers used to parse and render the response.
+   * @return the prepared response.
+   */
+  static CapturedResponse prepare(
+      RequestType requestType, String name, String text, ObjectMapperRegistry json) {
+    ParseEvent event = new ParseEvent();
+    event.begin();
+    CapturedResponse response = parse(requestType, name, text, json);
+    event.end();
+    if (event.shouldCommit()) {
+      event.setRequest(requestType, name);
+      // The captured text is almost all ASCII, so its length is near enough its size in bytes
+      event.setPayloadBytes(text.length());
+      event.setAddresses(response.addressCount());
+      event.commit();
+    }
+    return response;
+  }
+
+  private static CapturedResponse parse(
+      RequestType requestType, String name, String text, ObjectMapperRegistry json) {
+    if (name.startsWith(Constants.INTERNAL_FILE_NAME_PREFIX)) {
+      return new CapturedResponse(text, null, null, null);
+    }
+    Class<?> responseClass = requestType.getResponseClass();
+    ObjectReader reader = json.reader(responseClass);
+    ObjectWriter writer = json.writer(responseClass);
+    try {
+      switch (requestType) {
+        case AI_RH_POSTCODE:
+        case AI_PARTIAL:
+        case AI_POSTCODE:
+          ObjectMapper mapper = json.mapper();
+          JsonNode tree = mapper.valueToTree(reader.readValue(text));
+          boolean countDownConfidence = requestType == RequestType.AI_RH_POSTCODE;
+          return new CapturedResponse(
+              text, null, null, AddressPages.prepare(tree, mapper, countDownConfidence));
+        case CASE_ID:
+        case CASE_REF:
+          CaseContainerDTO caseDTO = reader.readValue(text);
+          byte[] caseBody = writer.writeValueAsBytes(caseDTO);
+          caseDTO.setCaseEvents(new ArrayList<>());
+          return new CapturedResponse(text, caseBody, writer.writeValueAsBytes(caseDTO), null);
+        default:
+          if (responseClass.equals(String.class)) {
+            // Don't push it through Jackson, as it is already in String format
+            return new CapturedResponse(text, text.getBytes(StandardCharsets.UTF_8), null, null);
+          }
+          byte[] responseBody = writer.writeValueAsBytes(reader.readValue(text));
+          return new CapturedResponse(text, responseBody, null, null);
+      }
+    } catch (IOException e) {
+      log.error(
+          "Failed to parse captured response",
+          kv("requestType", requestType.name()),
+          kv("name", name),
+          e);
+      return new CapturedResponse(text, null, null, null);
+    }
+  }
+
+  /** @return true if a response body could be built from the captured text. */
+  public boolean isPrepared() {
+    return body != null || pages != null;
+  }
+
+  /** @return the response body. Not available for paged responses. */
+  public byte[] body() {
+    return body;
+  }
+
+  /**
+   * Returns the body of a case response.
+   *
+   * @param includeCaseEvents is true if the case events should be included.
+   * @return the response body.
+   */
+  public byte[] caseBody(boolean includeCaseEvents) {
+    return includeCaseEvents ? body : bodyWithoutCaseEvents;
+  }
+
+  /**
+   * Builds the body for one page of a paged address response.
+   *
+   * @param offset is the index of the first address to return.
+   * @param limit is the maximum number of addresses to return.
+   * @return the response body.
+   */
+  public byte[] page(int offset, int limit) {
+    return pages.render(offset, limit);
+  }
+
+  /** @return the number of addresses held by a paged address response, or 0 for other types. */
+  public int addressCount() {
+    return pages == null ? 0 : pages.size();
+  }
+
+  /**
+   * Returns the number of addresses in one page of a paged address response.
+   *
+   * @param offset is the index of the first address to return.
+   * @param limit is the maximum number of addresses to return.
+   * @return the number of addresses in the page.
+   */
+  public int pageSize(int offset, int limit) {
+    return pages.pageSize(offset, limit);
+  }
+
+  /** @return the approximate number of bytes of heap held by the pre-rendered body. */
+  long renderedHeapBytes() {
+    long bytes = 0;
+    if (body != null) {
+      bytes += body.length;
+    }
+    if (bodyWithoutCaseEvents != null) {
+      bytes += bodyWithoutCaseEvents.length;
+    }
+    if (pages != null) {
+      bytes += pages.heapBytes();
+    }
+    return bytes;
+  }
+}
@@ -2,66 +2,187 @@ package uk.gov.ons.ctp.integration.mock.data;
 
 import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.net.URL;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
-import uk.gov.ons.ctp.common.error.CTPException;
-import uk.gov.ons.ctp.integration.mock.Constants;
 import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+import uk.gov.ons.ctp.integration.mock.jfr.LookupEvent;
 
+/**
+ * Provides access to the captured data.
+ *
+ * <p>All data files are loaded into an in-memory {@link DataStore} when the application starts (or
+ * on first use, if {@link #load()} has not been called), so that serving a response does not touch
+ * the classpath. Requests for addresses which weren't captured can be answered from an index
+ * over all of the captured addresses.
+ *
+ * <p>The index is built at load, and rebuilt after a capture by a background thread, while the
+ * previous index goes on answering requests, so that a capture never makes a request wait for the
+ * whole index to be built. Captures made while the index is rebuilt are picked up by a single
+ * further rebuild.
+ */
 @Slf4j
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class DataRepository {
+  private static volatile DataStore store;
+  private static volatile AddressIndex index;
 
-  public static String read(RequestType requestType, String name) throws IOException, CTPException {
+  private static final AtomicBoolean reindexPending = new AtomicBoolean();
+  private static final ExecutorService indexer =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "address-indexer");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * Loads all captured data into memory, and logs how long this took and how much heap it uses.
+   *
+   * @throws IOException if the data could not be read.
+   */
+  public static synchronized void load() throws IOException {
+    if (store != null) {
+      return;
+    }
+    long startTime = System.nanoTime();
+    DataStore loaded = DataStore.load();
+    long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+
+    log.info(
+        "Loaded captured data",
+        kv("files", loaded.fileCount()),
+        kv("heapBytes", loaded.heapBytes()),
+        kv("elapsedMillis", elapsedMillis),
+        kv("parallelism", Runtime.getRuntime().availableProcessors()));
+
+    // Build the address index now, rather than on the first uncaptured request
+    startTime = System.nanoTime();
+    AddressIndex index = loaded.addressIndex();
+    elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+
+    log.info(
+        "Built address index",
+        kv("addresses", index.addressCount()),
+        kv("typeAheadNodes", index.typeAheadNodeCount()),
+        kv("postcodeGroups", index.postcodeGroupCount()),
+        kv("postcodes", index.postcodeCount()),
+        kv("partialTerms", index.partialTermCount()),
+        kv("partialPostingBytes", index.partialPostingBytes()),
+        kv("uprnIndexBytes", index.uprnIndexBytes()),
+        kv("heapBytes", index.heapBytes()),
+        kv("elapsedMillis", elapsedMillis));
+    DataRepository.index = index;
+    store = loaded;
+  }
+
+  /**
+   * Returns the text of a captured response.
+   *
+   * @param requestType is the type of request.
+   * @param name is the name the data is held under.
+   * @return the captured text, or null if no data is held.
+   */
+  public static String read(RequestType requestType, String name) {
+    CapturedResponse response = find(requestType, name);
+    return response == null ? null : response.getText();
+  }
+
+  /**
+   * Returns a captured response along with its pre-rendered body.
+   *
+   * @param requestType is the type of request.
+   * @param name is the name the data is held under.
+   * @return the captured response, or null if no data is held.
+   */
+  public static CapturedResponse find(RequestType requestType, String name) {
+    LookupEvent event = new LookupEvent();
+    event.begin();
     String baseFileName = normaliseFileName(name);
 
-    // Work out where the captured data lives
-    ClassLoader classLoader = DataRepository.class.getClassLoader();
-    String dataFile = "data" + requestType.getPath() + "/" + baseFileName + ".json";
+    // Return nothing if data not held for request. The caller counts and logs the miss.
+    CapturedResponse response = current().get(requestType, baseFileName);
+    event.end();
+    if (event.shouldCommit()) {
+      event.setRequest(requestType, baseFileName);
+      event.setFound(response != null);
+      if (response != null) {
+        event.setPayloadBytes(response.renderedHeapBytes());
+        event.setAddresses(response.addressCount());
+      }
+      event.commit();
+    }
+    return response;
+  }
 
-    // Return nothing if data not held for request
-    URL resource = classLoader.getResource(dataFile);
-    if (resource == null) {
-      log.info(
-          "No captured response for {}",
-          kv("baseFileName", baseFileName),
-          kv("resource", dataFile),
-          kv("requestType", requestType.name()));
+  /**
+   * Builds the not-found response for a request, with the requested name in place of the
+   * placeholder of the captured not-found response.
+   *
+   * @param requestType is the type of request.
+   * @param name is the name that was requested.
+   * @return the response body, or null if no not-found response is held for the request type.
+   */
+  public static byte[] notFound(RequestType requestType, String name) {
+    return current().notFound(requestType, name);
+  }
+
+  /**
+   * Builds a response from the addresses held in all of the captured data, for a request which has
+   * no captured response of its own.
+   *
+   * @param requestType is the type of request.
+   * @param input is the search input, as it was given.
+   * @param offset is the index of the first result to return.
+   * @param limit is the maximum number of results to return.
+   * @return the response body, or null if the request can't be answered from the captured data.
+   */
+  public static byte[] synthesise(RequestType requestType, String input, int offset, int limit) {
+    if (!requestType.isAddressType()) {
       return null;
     }
+    // The index is set before the data is, so it is held once the data is
+    current();
+    return index.respond(requestType, input, offset, limit);
+  }
 
-    // Read AI captured response
-    InputStream targetDataUrl = resource.openStream();
-    StringBuilder responseBuilder = new StringBuilder();
-    try (Reader reader =
-        new BufferedReader(
-            new InputStreamReader(targetDataUrl, Charset.forName(StandardCharsets.UTF_8.name())))) {
-      int c = 0;
-      while ((c = reader.read()) != -1) {
-        responseBuilder.append((char) c);
-      }
-    }
+  /**
+   * Adds a newly captured response to the in-memory data, replacing any existing response of the
+   * same name.
+   *
+   * @param requestType is the type of request the response is for.
+   * @param name is the name the data is held under.
+   * @param content is the captured response text.
+   */
+  public static void save(RequestType requestType, String name, String content) {
+    saveAll(requestType, Map.of(name, content));
+  }
 
-    return responseBuilder.toString();
+  /**
+   * Adds a batch of newly captured responses to the in-memory data at once, replacing any existing
+   * responses of the same names. This is far cheaper than saving each response in turn, as the
+   * data is copied, and the address index rebuilt, once for the whole batch.
+   *
+   * @param requestType is the type of request the responses are for.
+   * @param contents holds each captured response text, by the name the data is held under.
+   */
+  public static synchronized void saveAll(RequestType requestType, Map<String, String> contents) {
+    Map<String, String> normalised = new HashMap<>();
+    for (Map.Entry<String, String> content : contents.entrySet()) {
+      normalised.put(normaliseFileName(content.getKey()), content.getValue());
+    }
+    store = current().with(requestType, normalised);
+    reindex();
   }
 
   /**
@@ -69,80 +190,98 @@ public final class DataRepository {
    *
    * @param requestType is the request to list the names for.
    * @return A List containing the names of the files.
-   * @throws IOException if something went wrong.
    */
-  public static List<String> list(RequestType requestType) throws IOException {
-
-    // Find all data files for the request type
-    PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
-    String resourcePath = "classpath*:data" + requestType.getPath() + "/*.json";
-    Resource[] jsonFiles = resolver.getResources(resourcePath);
-
-    // Build list of file names
-    ArrayList<String> fileNames = new ArrayList<>();
-    for (Resource resource : jsonFiles) {
-      String fileName = resource.getFilename();
-      if (!fileName.startsWith(Constants.INTERNAL_FILE_NAME_PREFIX)) {
-        fileNames.add(denormaliseFileName(fileName));
-      }
+  public static List<String> list(RequestType requestType) {
+    List<String> fileNames = new ArrayList<>();
+    for (DataSummary.Entry entry : summary().entries(requestType)) {
+      fileNames.add(entry.getName());
     }
+    return fileNames;
+  }
 
-    // Sort names so that longer versions appear first. Eg, 'London' would be listed before 'Londo'
-    Collections.sort(
-        fileNames,
-        new Comparator<String>() {
-          public int compare(String name1, String name2) {
-            if (name1.startsWith(name2) || name2.startsWith(name1)) {
-              return name2.length() - name1.length();
-            }
+  /**
+   * Returns the summary of the data currently held. A new summary is returned whenever the data
+   * changes, so anything derived from a summary can be cached until then.
+   *
+   * @return the summary.
+   */
+  public static DataSummary summary() {
+    return current().summary();
+  }
 
-            return name1.compareTo(name2);
-          }
-        });
+  /** @return the number of data files held. */
+  public static int fileCount() {
+    return current().fileCount();
+  }
 
-    return fileNames;
+  /** @return the approximate number of bytes of heap held by the captured responses. */
+  public static long heapBytes() {
+    return current().heapBytes();
   }
 
-  // Work out directory name for requests files
-  private static File folder(RequestType requestType) {
-    String requestDataDir = "data" + requestType.getPath();
-    ClassLoader classLoader = DataRepository.class.getClassLoader();
-    File resourceDir = new File(classLoader.getResource(requestDataDir).getFile());
-    return resourceDir;
+  /**
+   * Returns the number of distinct addresses in the index over the captured data. The count can lag
+   * a capture while the index is rebuilt, but reading it never builds an index.
+   *
+   * @return the number of addresses, or 0 if the data hasn't been loaded.
+   */
+  public static int addressCount() {
+    AddressIndex current = index;
+    return current == null ? 0 : current.addressCount();
   }
 
   /**
    * If the data directory for the specified requestType contains an inventory property file then
-   * this method loads it and returns the contents as properties. The optional inventory file is
-   * used to supply a description for key data files in the generated help text.
+   * this method returns its contents as properties. The optional inventory file is used to supply a
+   * description for key data files in the generated help text.
    *
-   * @param requestType is the type of request to load the inventory for.
+   * @param requestType is the type of request to get the inventory for.
    * @return The Properties specified in the inventory file.
-   * @throws IOException If the was a failure to read the file.
-   * @throws FileNotFoundException Should not happen.
    */
-  public static Properties getInventory(RequestType requestType)
-      throws FileNotFoundException, IOException {
-    // Work out path to inventory file
-    File resourceDir = folder(requestType);
-    File inventoryFile = new File(resourceDir, Constants.INVENTORY_FILE_NAME);
-
-    // Load the inventory data file
+  public static Properties getInventory(RequestType requestType) {
     Properties prop = new Properties();
-    if (inventoryFile.exists()) {
-      prop.load(new FileInputStream(inventoryFile));
-    }
-
+    prop.putAll(current().inventory(requestType));
     return prop;
   }
 
   public static String normaliseFileName(String name) {
     String trimmedName = name.trim();
-    return trimmedName.replaceAll(" ", "-").toLowerCase();
+    return trimmedName.replace(' ', '-').toLowerCase();
+  }
+
+  private static DataStore current() {
+    DataStore current = store;
+    if (current == null) {
+      try {
+        load();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to load captured data", e);
+      }
+      current = store;
+    }
+    return current;
+  }
+
+  // Rebuilds the index in the background, unless a rebuild is already waiting to start
+  private static void reindex() {
+    if (reindexPending.compareAndSet(false, true)) {
+      indexer.execute(DataRepository::rebuildIndex);
+    }
   }
 
-  private static String denormaliseFileName(String name) {
-    String baseName = name.replace(".json", "");
-    return baseName.replaceAll("-", " ");
+  private static void rebuildIndex() {
+    // Cleared before the data is read, so that a capture from now on asks for another rebuild
+    reindexPending.set(false);
+    long startTime = System.nanoTime();
+    try {
+      AddressIndex rebuilt = store.addressIndex();
+      index = rebuilt;
+      log.info(
+          "Rebuilt address index",
+          kv("addresses", rebuilt.addressCount()),
+          kv("elapsedMillis", (System.nanoTime() - startTime) / 1_000_000));
+    } catch (RuntimeException e) {
+      log.error("Failed to rebuild address index", kv("error", e.getMessage()));
+    }
   }
 }
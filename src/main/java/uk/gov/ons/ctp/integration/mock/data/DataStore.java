@@ -0,0 +1,297 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.base.Suppliers;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import uk.gov.ons.ctp.integration.mock.Constants;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+import uk.gov.ons.ctp.integration.mock.util.ObjectMapperRegistry;
+
+/**
+ * Immutable in-memory snapshot of all the captured data held under the 'data' resource directory.
+ *
+ * <p>Responses are keyed by request type and normalised file name, so a lookup is a pair of hash
+ * probes. Each response is held with its pre-rendered body (see {@link CapturedResponse}). Request
+ * types which share a data directory (eg, AI_EQ and AI_EQ_POSTCODE) share the captured text, but
+ * each has its own rendering of it. Captures made at run time produce a new snapshot via {@link
+ * #with}.
+ *
+ * <p>The not-found response of each address type is held split at its placeholder, so that a miss
+ * is answered with a single copy of the request's input.
+ *
+ * <p>Each snapshot holds a {@link DataSummary} of its data, which a capture updates for just the
+ * files it adds. The {@link AddressIndex} over a snapshot's address data is built the first time it
+ * is used.
+ */
+public final class DataStore {
+  private static final String JSON_SUFFIX = ".json";
+
+  private final Map<RequestType, Map<String, CapturedResponse>> responses;
+  private final Map<RequestType, Properties> inventories;
+  private final DataSummary summary;
+  private final Map<RequestType, JsonTemplate> notFoundTemplates;
+  private final Supplier<AddressIndex> addressIndex = Suppliers.memoize(this::buildAddressIndex);
+  private final Supplier<Long> heapBytes = Suppliers.memoize(this::measureHeapBytes);
+
+  private DataStore(
+      Map<RequestType, Map<String, CapturedResponse>> responses,
+      Map<RequestType, Properties> inventories,
+      DataSummary summary) {
+    this.responses = responses;
+    this.inventories = inventories;
+    this.summary = summary;
+    this.notFoundTemplates = notFoundTemplates(responses);
+  }
+
+  /**
+   * Reads every data file from the classpath and pre-renders its response. Files are read and
+   * rendered in parallel across the available cores.
+   *
+   * @return a snapshot holding the content of every data file.
+   * @throws IOException if the data files could not be found or read.
+   */
+  static DataStore load() throws IOException {
+    PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+
+    // Find the files for each distinct data directory. Several request types can share one.
+    List<DataFile> dataFiles = new ArrayList<>();
+    Map<String, Properties> inventoryByPath = new HashMap<>();
+    for (String path : distinctPaths()) {
+      for (Resource resource : resolver.getResources("classpath*:data" + path + "/*.json")) {
+        String fileName = resource.getFilename();
+        String name = fileName.substring(0, fileName.length() - JSON_SUFFIX.length());
+        dataFiles.add(new DataFile(path, DataRepository.normaliseFileName(name), resource));
+      }
+      inventoryByPath.put(path, loadInventory(resolver, path));
+    }
+
+    // Read file content in parallel
+    dataFiles.parallelStream().forEach(f -> f.text = readContent(f.resource));
+
+    // Render the responses for each request type in parallel
+    List<Prepared> prepared =
+        dataFiles.parallelStream()
+            .flatMap(
+                f ->
+                    typesFor(f.path).stream()
+                        .map(t -> new Prepared(t, f.name, prepare(t, f.name, f.text))))
+            .collect(Collectors.toList());
+
+    Map<RequestType, Map<String, CapturedResponse>> responses = new EnumMap<>(RequestType.class);
+    Map<RequestType, Properties> inventories = new EnumMap<>(RequestType.class);
+    for (RequestType requestType : RequestType.values()) {
+      responses.put(requestType, new HashMap<>());
+      inventories.put(requestType, inventoryByPath.get(requestType.getPath()));
+    }
+    for (Prepared p : prepared) {
+      responses.get(p.requestType).put(p.name, p.response);
+    }
+    responses.replaceAll((t, content) -> Collections.unmodifiableMap(content));
+    return new DataStore(responses, inventories, DataSummary.build(responses, inventories));
+  }
+
+  /**
+   * Returns the captured response.
+   *
+   * @param requestType is the type of request.
+   * @param baseFileName is the normalised name of the data file, without its extension.
+   * @return the captured response, or null if nothing is held.
+   */
+  CapturedResponse get(RequestType requestType, String baseFileName) {
+    return responses.get(requestType).get(baseFileName);
+  }
+
+  /** Returns the normalised names of all files held for a request type. */
+  Iterable<String> names(RequestType requestType) {
+    return responses.get(requestType).keySet();
+  }
+
+  Properties inventory(RequestType requestType) {
+    return inventories.get(requestType);
+  }
+
+  /**
+   * Creates a new snapshot which additionally holds (or replaces) a set of responses to one type of
+   * request. The responses are also made available to any other request types which share the same
+   * data directory. Each map is copied once however many responses there are, so a batch of
+   * captures should be added together.
+   *
+   * @param requestType is the type of request the responses are for.
+   * @param contents holds the text of each response, by the normalised name of its data file.
+   * @return a new snapshot. This snapshot is unchanged.
+   */
+  DataStore with(RequestType requestType, Map<String, String> contents) {
+    Map<RequestType, Map<String, CapturedResponse>> newResponses = new EnumMap<>(responses);
+    List<RequestType> types = typesFor(requestType.getPath());
+    for (RequestType type : types) {
+      Map<String, CapturedResponse> updated = new HashMap<>(responses.get(type));
+      for (Map.Entry<String, String> content : contents.entrySet()) {
+        updated.put(content.getKey(), prepare(type, content.getKey(), content.getValue()));
+      }
+      newResponses.put(type, Collections.unmodifiableMap(updated));
+    }
+    return new DataStore(newResponses, inventories, summary.with(types, contents, inventories));
+  }
+
+  /**
+   * Renders the not-found response for a request.
+   *
+   * @param requestType is the type of request.
+   * @param name is the name that was requested, which replaces the placeholder of the response.
+   * @return the response body, or null if no not-found response is held for the request type.
+   */
+  byte[] notFound(RequestType requestType, String name) {
+    JsonTemplate template = notFoundTemplates.get(requestType);
+    return template == null ? null : template.render(name);
+  }
+
+  /** @return the summary of the data in this snapshot. */
+  DataSummary summary() {
+    return summary;
+  }
+
+  /** @return the index over the address data in this snapshot. */
+  AddressIndex addressIndex() {
+    return addressIndex.get();
+  }
+
+  /** @return the number of data files held. */
+  int fileCount() {
+    int count = 0;
+    for (String path : distinctPaths()) {
+      count += responses.get(typesFor(path).get(0)).size();
+    }
+    return count;
+  }
+
+  /**
+   * Estimates the heap retained by the captured text and the pre-rendered responses. Java stores a
+   * String in one byte per character unless it holds characters outside of Latin-1. This is only
+   * worked out the first time it is asked for.
+   *
+   * @return the approximate number of bytes held.
+   */
+  long heapBytes() {
+    return heapBytes.get();
+  }
+
+  private long measureHeapBytes() {
+    long bytes = 0;
+    for (String path : distinctPaths()) {
+      // The captured text is shared by request types with the same path, so only count it once
+      for (Map.Entry<String, CapturedResponse> entry :
+          responses.get(typesFor(path).get(0)).entrySet()) {
+        bytes += stringBytes(entry.getKey()) + stringBytes(entry.getValue().getText());
+      }
+    }
+    for (Map<String, CapturedResponse> content : responses.values()) {
+      for (CapturedResponse response : content.values()) {
+        bytes += response.renderedHeapBytes();
+      }
+    }
+    return bytes;
+  }
+
+  private static Map<RequestType, JsonTemplate> notFoundTemplates(
+      Map<RequestType, Map<String, CapturedResponse>> responses) {
+    Map<RequestType, JsonTemplate> templates = new EnumMap<>(RequestType.class);
+    for (RequestType requestType : RequestType.values()) {
+      CapturedResponse notFound = responses.get(requestType).get(Constants.NO_DATA_FILE_NAME);
+      if (requestType.isAddressType() && notFound != null) {
+        String placeholder = "%" + requestType.getPlaceholderName() + "%";
+        templates.put(requestType, JsonTemplate.split(notFound.getText(), placeholder));
+      }
+    }
+    return templates;
+  }
+
+  private AddressIndex buildAddressIndex() {
+    try {
+      return AddressIndex.build(this);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException("Failed to build address index", e);
+    }
+  }
+
+  private static CapturedResponse prepare(RequestType requestType, String name, String text) {
+    return CapturedResponse.prepare(requestType, name, text, ObjectMapperRegistry.get());
+  }
+
+  private static long stringBytes(String s) {
+    boolean latin1 = s.chars().allMatch(c -> c <= 0xFF);
+    // Object header, hash and coder fields plus the backing array header
+    return 40 + (latin1 ? s.length() : 2L * s.length());
+  }
+
+  private static List<String> distinctPaths() {
+    List<String> paths = new ArrayList<>();
+    for (RequestType requestType : RequestType.values()) {
+      if (!paths.contains(requestType.getPath())) {
+        paths.add(requestType.getPath());
+      }
+    }
+    return paths;
+  }
+
+  private static List<RequestType> typesFor(String path) {
+    List<RequestType> types = new ArrayList<>();
+    for (RequestType requestType : RequestType.values()) {
+      if (requestType.getPath().equals(path)) {
+        types.add(requestType);
+      }
+    }
+    return types;
+  }
+
+  private static Properties loadInventory(PathMatchingResourcePatternResolver resolver, String path)
+      throws IOException {
+    Properties props = new Properties();
+    Resource inventory =
+        resolver.getResource("classpath:data" + path + "/" + Constants.INVENTORY_FILE_NAME);
+    if (inventory.exists()) {
+      try (InputStream in = inventory.getInputStream()) {
+        props.load(in);
+      }
+    }
+    return props;
+  }
+
+  private static String readContent(Resource resource) {
+    try (InputStream in = resource.getInputStream()) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read data file: " + resource.getDescription(), e);
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class DataFile {
+    private final String path;
+    private final String name;
+    private final Resource resource;
+    private String text;
+  }
+
+  @AllArgsConstructor
+  private static class Prepared {
+    private RequestType requestType;
+    private String name;
+    private CapturedResponse response;
+  }
+}
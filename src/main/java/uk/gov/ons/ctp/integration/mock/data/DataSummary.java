@@ -0,0 +1,171 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import uk.gov.ons.ctp.integration.mock.Constants;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * Immutable summary of the data held in a {@link DataStore} snapshot, from which the data help is
+ * rendered without reading any of the captured responses.
+ *
+ * <p>For each request type this holds the data files in the order they are listed, along with the
+ * inventory description of each, and for address types the number of results each holds. The
+ * summary is built once when the data is loaded, and a capture updates just the summary of the
+ * file it writes.
+ */
+public final class DataSummary {
+  private static final String UPRN_KEY = "\"uprn\"";
+  private static final String FIRST_UPRN_KEY = "\"firstUprn\"";
+
+  // Sort names so that longer versions appear first. Eg, 'London' would be listed before 'Londo'
+  private static final Comparator<Entry> LIST_ORDER =
+      (entry1, entry2) -> {
+        String name1 = entry1.getName();
+        String name2 = entry2.getName();
+        if (name1.startsWith(name2) || name2.startsWith(name1)) {
+          return name2.length() - name1.length();
+        }
+        return name1.compareTo(name2);
+      };
+
+  private final Map<RequestType, Map<String, Entry>> entriesByName;
+  private final Map<RequestType, List<Entry>> entries;
+
+  private DataSummary(Map<RequestType, Map<String, Entry>> entriesByName) {
+    this.entriesByName = entriesByName;
+    this.entries = new EnumMap<>(RequestType.class);
+    for (Map.Entry<RequestType, Map<String, Entry>> byName : entriesByName.entrySet()) {
+      List<Entry> sorted = new ArrayList<>(byName.getValue().values());
+      sorted.sort(LIST_ORDER);
+      entries.put(byName.getKey(), Collections.unmodifiableList(sorted));
+    }
+  }
+
+  /**
+   * Summarises the data of a snapshot.
+   *
+   * @param responses holds the captured responses by request type and normalised name.
+   * @param inventories holds the inventory of each request type.
+   * @return the summary.
+   */
+  static DataSummary build(
+      Map<RequestType, Map<String, CapturedResponse>> responses,
+      Map<RequestType, Properties> inventories) {
+    Map<RequestType, Map<String, Entry>> entriesByName = new EnumMap<>(RequestType.class);
+    for (RequestType requestType : RequestType.values()) {
+      Map<String, Entry> byName = new HashMap<>();
+      Properties inventory = inventories.get(requestType);
+      for (Map.Entry<String, CapturedResponse> response :
+          responses.get(requestType).entrySet()) {
+        String name = response.getKey();
+        if (!name.startsWith(Constants.INTERNAL_FILE_NAME_PREFIX)) {
+          byName.put(
+              name, entry(requestType, name, response.getValue().getText(), inventory));
+        }
+      }
+      entriesByName.put(requestType, byName);
+    }
+    return new DataSummary(entriesByName);
+  }
+
+  /**
+   * Creates a new summary which additionally holds (or replaces) a set of data files.
+   *
+   * @param requestTypes are the request types the data files are held for.
+   * @param texts holds the captured response text of each data file, by its normalised name.
+   * @param inventories holds the inventory of each request type.
+   * @return a new summary. This summary is unchanged.
+   */
+  DataSummary with(
+      List<RequestType> requestTypes,
+      Map<String, String> texts,
+      Map<RequestType, Properties> inventories) {
+    Map<RequestType, Map<String, Entry>> newEntries = new EnumMap<>(entriesByName);
+    for (RequestType requestType : requestTypes) {
+      Map<String, Entry> byName = new HashMap<>(entriesByName.get(requestType));
+      Properties inventory = inventories.get(requestType);
+      for (Map.Entry<String, String> text : texts.entrySet()) {
+        String name = text.getKey();
+        if (!name.startsWith(Constants.INTERNAL_FILE_NAME_PREFIX)) {
+          byName.put(name, entry(requestType, name, text.getValue(), inventory));
+        }
+      }
+      newEntries.put(requestType, byName);
+    }
+    return new DataSummary(newEntries);
+  }
+
+  /**
+   * Returns the data files held for a request type, in the order they should be listed.
+   *
+   * @param requestType is the type of request.
+   * @return the data files. This list is unmodifiable.
+   */
+  public List<Entry> entries(RequestType requestType) {
+    return entries.get(requestType);
+  }
+
+  /**
+   * Returns the summary of a data file.
+   *
+   * @param requestType is the type of request.
+   * @param name is the normalised name of the data file.
+   * @return the summary, or null if no data file of that name is held.
+   */
+  public Entry find(RequestType requestType, String name) {
+    return entriesByName.get(requestType).get(name);
+  }
+
+  private static Entry entry(
+      RequestType requestType, String name, String text, Properties inventory) {
+    Integer resultCount = null;
+    if (requestType.isAddressType()) {
+      resultCount = countKey(text, UPRN_KEY) + countKey(text, FIRST_UPRN_KEY);
+    }
+    String description = inventory == null ? null : inventory.getProperty(name, null);
+    return new Entry(name.replace('-', ' '), name, resultCount, description);
+  }
+
+  // Counts the occurrences of a quoted JSON key which is followed by a colon
+  private static int countKey(String text, String quotedKey) {
+    int count = 0;
+    int i = text.indexOf(quotedKey);
+    while (i >= 0) {
+      int j = i + quotedKey.length();
+      while (j < text.length() && Character.isWhitespace(text.charAt(j))) {
+        j++;
+      }
+      if (j < text.length() && text.charAt(j) == ':') {
+        count++;
+      }
+      i = text.indexOf(quotedKey, j);
+    }
+    return count;
+  }
+
+  /** The summary of a single data file. */
+  @Getter
+  @AllArgsConstructor
+  public static final class Entry {
+    /** The name as it is listed, with spaces in place of dashes. */
+    private final String name;
+
+    /** The name the data is held under. */
+    private final String normalisedName;
+
+    /** The number of results held, or null for a request type which isn't an address type. */
+    private final Integer resultCount;
+
+    /** The description from the inventory, or null if there isn't one. */
+    private final String description;
+  }
+}
@@ -0,0 +1,37 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import java.util.Arrays;
+
+/** A growable list of ints, used while building the address indexes, which avoids boxing. */
+final class IntList {
+  private int[] values = new int[4];
+  private int size;
+
+  void add(int value) {
+    if (size == values.length) {
+      values = Arrays.copyOf(values, size * 2);
+    }
+    values[size++] = value;
+  }
+
+  /** Adds a value unless it is the same as the last value added. */
+  void addDistinct(int value) {
+    if (size == 0 || values[size - 1] != value) {
+      add(value);
+    }
+  }
+
+  void addAll(IntList other) {
+    for (int i = 0; i < other.size; i++) {
+      add(other.values[i]);
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  int[] toArray() {
+    return Arrays.copyOf(values, size);
+  }
+}
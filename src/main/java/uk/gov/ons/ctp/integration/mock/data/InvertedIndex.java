@@ -0,0 +1,313 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An inverted index over the tokens of every address, which answers partial address searches.
+ *
+ * <p>Each distinct token is a term, and the terms are held sorted so that a term, or the range of
+ * terms starting with a prefix, is found by binary search. The posting list of a term holds the
+ * ids of the addresses which have the token, in ascending order, delta encoded as variable length
+ * integers in a single byte array.
+ *
+ * <p>An address matches a search if it has every token of the input, except that the last token
+ * need only be the start of one of its tokens, as it may still be being typed. Matches are scored
+ * and ranked as described in {@link #search}.
+ */
+final class InvertedIndex {
+  /** The score for a token which an address has. */
+  static final int EXACT_SCORE = 2;
+
+  /** The score for a last token which is only the start of a token of an address. */
+  static final int PREFIX_SCORE = 1;
+
+  /** The extra score for an address which starts with the first token. */
+  static final int LEADING_SCORE = 1;
+
+  private static final int SCORE_SHIFT = 48;
+  private static final int LENGTH_SHIFT = 32;
+  private static final int MAX_SCORE = 0xFFFF;
+
+  private final String[] terms;
+  private final int[] postingStart;
+  private final byte[] postings;
+  private final int[] firstTerm;
+  private final short[] tokenCount;
+
+  private InvertedIndex(
+      String[] terms, int[] postingStart, byte[] postings, int[] firstTerm, short[] tokenCount) {
+    this.terms = terms;
+    this.postingStart = postingStart;
+    this.postings = postings;
+    this.firstTerm = firstTerm;
+    this.tokenCount = tokenCount;
+  }
+
+  /**
+   * Builds the index.
+   *
+   * @param addressTokens holds the distinct tokens of each address, indexed by address id. The
+   *     first token of each is the one an address starts with.
+   * @return the index.
+   */
+  static InvertedIndex build(List<List<String>> addressTokens) {
+    Map<String, IntList> byTerm = new TreeMap<>();
+    for (int id = 0; id < addressTokens.size(); id++) {
+      for (String token : addressTokens.get(id)) {
+        byTerm.computeIfAbsent(token, k -> new IntList()).addDistinct(id);
+      }
+    }
+
+    String[] terms = byTerm.keySet().toArray(new String[0]);
+    int[] postingStart = new int[terms.length + 1];
+    VarIntWriter postings = new VarIntWriter();
+    for (int t = 0; t < terms.length; t++) {
+      postingStart[t] = postings.size();
+      int previous = 0;
+      for (int id : byTerm.get(terms[t]).toArray()) {
+        postings.write(id - previous);
+        previous = id;
+      }
+    }
+    postingStart[terms.length] = postings.size();
+
+    int[] firstTerm = new int[addressTokens.size()];
+    short[] tokenCount = new short[addressTokens.size()];
+    for (int id = 0; id < addressTokens.size(); id++) {
+      List<String> tokens = addressTokens.get(id);
+      firstTerm[id] = tokens.isEmpty() ? -1 : Arrays.binarySearch(terms, tokens.get(0));
+      tokenCount[id] = (short) Math.min(tokens.size(), Short.MAX_VALUE);
+    }
+    return new InvertedIndex(terms, postingStart, postings.toArray(), firstTerm, tokenCount);
+  }
+
+  /**
+   * Searches for the addresses which match the input, and ranks them.
+   *
+   * <p>An address scores {@value #EXACT_SCORE} for each token it has, {@value #PREFIX_SCORE} if it
+   * only has a token starting with the last, and another {@value #LEADING_SCORE} if it starts with
+   * the first. Matches are ranked by score, then by their number of tokens (so the addresses which
+   * say the least beyond what was searched for come first), and then by id.
+   *
+   * @param tokens are the search tokens.
+   * @return a sort key for each match, in rank order. The address id and score of a match are
+   *     decoded with {@link #idOf} and {@link #scoreOf}.
+   */
+  long[] search(List<String> tokens) {
+    if (tokens.isEmpty()) {
+      return new long[0];
+    }
+    int last = tokens.size() - 1;
+    String prefix = tokens.get(last);
+    int prefixFrom = lowerBound(prefix);
+    int prefixTo = lowerBound(prefix + Character.MAX_VALUE);
+    if (prefixFrom == prefixTo) {
+      return new long[0];
+    }
+
+    // Intersect the lists of the whole tokens, rarest first
+    int[] exact = new int[last];
+    for (int t = 0; t < last; t++) {
+      exact[t] = Arrays.binarySearch(terms, tokens.get(t));
+      if (exact[t] < 0) {
+        return new long[0];
+      }
+    }
+    int[] matches = null;
+    int count = 0;
+    if (last > 0) {
+      int rarest = 0;
+      for (int t = 1; t < last; t++) {
+        if (listBytes(exact[t]) < listBytes(exact[rarest])) {
+          rarest = t;
+        }
+      }
+      matches = decode(exact[rarest]);
+      count = matches.length;
+      for (int t = 0; t < last && count > 0; t++) {
+        if (t != rarest) {
+          count = retain(exact[t], matches, count);
+        }
+      }
+    }
+
+    // Then keep those with a token starting with the last
+    long[] withPrefix = new long[(firstTerm.length + 63) >>> 6];
+    for (int term = prefixFrom; term < prefixTo; term++) {
+      mark(term, withPrefix);
+    }
+    boolean lastIsTerm = terms[prefixFrom].equals(prefix);
+    long[] withWhole = new long[withPrefix.length];
+    if (lastIsTerm) {
+      mark(prefixFrom, withWhole);
+    }
+    if (matches == null) {
+      matches = new int[firstTerm.length];
+      for (int id = 0; id < firstTerm.length; id++) {
+        if (isSet(withPrefix, id)) {
+          matches[count++] = id;
+        }
+      }
+    }
+
+    int first = last > 0 ? exact[0] : (lastIsTerm ? prefixFrom : -1);
+    long[] ranked = new long[count];
+    int n = 0;
+    for (int i = 0; i < count; i++) {
+      int id = matches[i];
+      if (!isSet(withPrefix, id)) {
+        continue;
+      }
+      int score = EXACT_SCORE * last + (isSet(withWhole, id) ? EXACT_SCORE : PREFIX_SCORE);
+      if (first >= 0 && firstTerm[id] == first) {
+        score += LEADING_SCORE;
+      }
+      ranked[n++] =
+          ((long) (MAX_SCORE - Math.min(score, MAX_SCORE)) << SCORE_SHIFT)
+              | ((long) tokenCount[id] << LENGTH_SHIFT)
+              | id;
+    }
+    ranked = n == count ? ranked : Arrays.copyOf(ranked, n);
+    Arrays.sort(ranked);
+    return ranked;
+  }
+
+  /**
+   * @param key is a sort key returned by {@link #search}.
+   * @return the address id.
+   */
+  static int idOf(long key) {
+    return (int) key;
+  }
+
+  /**
+   * @param key is a sort key returned by {@link #search}.
+   * @return the score of the address.
+   */
+  static int scoreOf(long key) {
+    return MAX_SCORE - (int) (key >>> SCORE_SHIFT);
+  }
+
+  /** @return the number of distinct terms. */
+  int termCount() {
+    return terms.length;
+  }
+
+  /** @return the number of bytes of compressed postings. */
+  int postingBytes() {
+    return postings.length;
+  }
+
+  /** @return the approximate number of bytes of heap held. */
+  long heapBytes() {
+    long bytes = postings.length + 4L * postingStart.length + 6L * firstTerm.length;
+    for (String term : terms) {
+      bytes += 8 + 40 + term.length();
+    }
+    return bytes;
+  }
+
+  private int listBytes(int term) {
+    return postingStart[term + 1] - postingStart[term];
+  }
+
+  private int[] decode(int term) {
+    // Every id takes at least one byte, so the list is no longer than its encoding
+    int[] ids = new int[listBytes(term)];
+    int count = 0;
+    int id = 0;
+    int pos = postingStart[term];
+    while (pos < postingStart[term + 1]) {
+      int delta = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = postings[pos++];
+        delta |= (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      id += delta;
+      ids[count++] = id;
+    }
+    return Arrays.copyOf(ids, count);
+  }
+
+  // Keeps the first count ids which are also in the term's list, returning how many are left
+  private int retain(int term, int[] ids, int count) {
+    int[] list = decode(term);
+    int kept = 0;
+    int j = 0;
+    for (int i = 0; i < count && j < list.length; i++) {
+      while (j < list.length && list[j] < ids[i]) {
+        j++;
+      }
+      if (j < list.length && list[j] == ids[i]) {
+        ids[kept++] = ids[i];
+      }
+    }
+    return kept;
+  }
+
+  private void mark(int term, long[] bits) {
+    int id = 0;
+    int pos = postingStart[term];
+    while (pos < postingStart[term + 1]) {
+      int delta = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = postings[pos++];
+        delta |= (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      id += delta;
+      bits[id >>> 6] |= 1L << id;
+    }
+  }
+
+  private static boolean isSet(long[] bits, int id) {
+    return (bits[id >>> 6] & (1L << id)) != 0;
+  }
+
+  private int lowerBound(String key) {
+    int low = 0;
+    int high = terms.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (terms[mid].compareTo(key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /** Writes variable length integers, 7 bits to a byte with the top bit set on all but the last. */
+  private static class VarIntWriter {
+    private byte[] bytes = new byte[1024];
+    private int size;
+
+    private void write(int value) {
+      if (size + 5 > bytes.length) {
+        bytes = Arrays.copyOf(bytes, bytes.length * 2);
+      }
+      while ((value & ~0x7F) != 0) {
+        bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      bytes[size++] = (byte) value;
+    }
+
+    private int size() {
+      return size;
+    }
+
+    private byte[] toArray() {
+      return Arrays.copyOf(bytes, size);
+    }
+  }
+}
@@ -0,0 +1,184 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A JSON document which has been rendered to UTF-8 once, and split at its placeholders so that
+ * values can be substituted without parsing or serialising the document again.
+ *
+ * <p>The template consists of n+1 fixed segments separated by n slots. Each slot records which of
+ * the placeholders it replaces.
+ */
+final class JsonTemplate {
+  private final byte[][] segments;
+  private final int[] slots;
+  private final int fixedLength;
+
+  private JsonTemplate(byte[][] segments, int[] slots) {
+    this.segments = segments;
+    this.slots = slots;
+    int length = 0;
+    for (byte[] segment : segments) {
+      length += segment.length;
+    }
+    this.fixedLength = length;
+  }
+
+  /**
+   * Splits a document at every occurrence of the placeholders.
+   *
+   * @param json is the document text.
+   * @param placeholders are the literal strings to split at. A slot's id is the index of the
+   *     placeholder it replaces.
+   * @return the template.
+   */
+  static JsonTemplate split(String json, String... placeholders) {
+    List<byte[]> segments = new ArrayList<>();
+    List<Integer> slots = new ArrayList<>();
+    int start = 0;
+    while (true) {
+      int nextIndex = -1;
+      int nextSlot = -1;
+      for (int i = 0; i < placeholders.length; i++) {
+        int index = json.indexOf(placeholders[i], start);
+        if (index >= 0 && (nextIndex < 0 || index < nextIndex)) {
+          nextIndex = index;
+          nextSlot = i;
+        }
+      }
+      if (nextIndex < 0) {
+        break;
+      }
+      segments.add(utf8(json.substring(start, nextIndex)));
+      slots.add(nextSlot);
+      start = nextIndex + placeholders[nextSlot].length();
+    }
+    segments.add(utf8(json.substring(start)));
+
+    return new JsonTemplate(
+        segments.toArray(new byte[0][]), slots.stream().mapToInt(Integer::intValue).toArray());
+  }
+
+  /**
+   * Renders the template.
+   *
+   * @param values holds the UTF-8 value for each placeholder, indexed by slot id.
+   * @return the rendered document.
+   */
+  byte[] render(byte[]... values) {
+    int size = fixedLength;
+    for (int slot : slots) {
+      size += values[slot].length;
+    }
+    byte[] out = new byte[size];
+    int pos = 0;
+    for (int i = 0; i < slots.length; i++) {
+      pos = put(out, pos, segments[i]);
+      pos = put(out, pos, values[slots[i]]);
+    }
+    put(out, pos, segments[slots.length]);
+    return out;
+  }
+
+  /**
+   * Renders the template with the same text in every slot. ASCII text, which is all that most
+   * requests hold, is written straight into the output rather than being encoded first.
+   *
+   * @param text is the value for every slot.
+   * @return the rendered document.
+   */
+  byte[] render(String text) {
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) >= 0x80) {
+        byte[] value = utf8(text);
+        byte[][] values = new byte[slots.length == 0 ? 0 : maxSlot() + 1][];
+        Arrays.fill(values, value);
+        return render(values);
+      }
+    }
+    byte[] out = new byte[fixedLength + slots.length * text.length()];
+    int pos = 0;
+    for (int i = 0; i < slots.length; i++) {
+      pos = put(out, pos, segments[i]);
+      for (int c = 0; c < text.length(); c++) {
+        out[pos++] = (byte) text.charAt(c);
+      }
+    }
+    put(out, pos, segments[slots.length]);
+    return out;
+  }
+
+  int slotCount() {
+    return slots.length;
+  }
+
+  /** @return the id of the placeholder which the i'th slot replaces. */
+  int slot(int i) {
+    return slots[i];
+  }
+
+  /** @return the fixed text which precedes the i'th slot, or follows the last slot. */
+  byte[] segment(int i) {
+    return segments[i];
+  }
+
+  /** @return the total length of the fixed segments. */
+  int fixedLength() {
+    return fixedLength;
+  }
+
+  private int maxSlot() {
+    int max = 0;
+    for (int slot : slots) {
+      max = Math.max(max, slot);
+    }
+    return max;
+  }
+
+  static int put(byte[] out, int pos, byte[] bytes) {
+    System.arraycopy(bytes, 0, out, pos, bytes.length);
+    return pos + bytes.length;
+  }
+
+  /** Writes the decimal digits of a non-negative number. */
+  static int putDigits(byte[] out, int pos, long value) {
+    int end = pos + digitCount(value);
+    int i = end;
+    do {
+      out[--i] = (byte) ('0' + value % 10);
+      value /= 10;
+    } while (value != 0);
+    return end;
+  }
+
+  /** @return the number of decimal digits in a non-negative number. */
+  static int digitCount(long value) {
+    int count = 1;
+    while (value >= 10) {
+      value /= 10;
+      count++;
+    }
+    return count;
+  }
+
+  /** @return the string value which is put into a tree to mark the position of a slot. */
+  static String marker(String name) {
+    return "@@" + name + "@@";
+  }
+
+  /** @return how a {@link #marker} appears once the tree has been rendered. */
+  static String placeholder(String name) {
+    return "\"" + marker(name) + "\"";
+  }
+
+  static byte[] ascii(long value) {
+    return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+  }
+
+  static byte[] utf8(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+}
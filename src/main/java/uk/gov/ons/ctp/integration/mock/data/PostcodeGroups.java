@@ -0,0 +1,156 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexEqPostcodeAddressDTO;
+
+/**
+ * The postcode groups which AI returns when a type ahead search is for a postcode. A group is the
+ * addresses which share a postcode, street and town.
+ *
+ * <p>Groups from captured AI_EQ_POSTCODE responses are served as they were captured, and the
+ * remaining groups are derived from the address table. Each group is pre-rendered. Groups are held
+ * in the order AI lists them, and a second array sorts them by compact postcode, so that the groups
+ * for a partial postcode are a contiguous range found by binary search.
+ */
+final class PostcodeGroups {
+  private static final Comparator<AddressIndexEqPostcodeAddressDTO> AI_ORDER =
+      Comparator.comparing(AddressIndexEqPostcodeAddressDTO::getPostcode)
+          .thenComparing(
+              AddressIndexEqPostcodeAddressDTO::getStreetName,
+              Comparator.nullsFirst(Comparator.naturalOrder()));
+
+  private final byte[][] fragments;
+  private final String[] compactPostcodes;
+  private final int[] ordinals;
+
+  private PostcodeGroups(byte[][] fragments, String[] compactPostcodes, int[] ordinals) {
+    this.fragments = fragments;
+    this.compactPostcodes = compactPostcodes;
+    this.ordinals = ordinals;
+  }
+
+  /**
+   * Builds the groups.
+   *
+   * @param table holds the addresses to group, and any captured groups.
+   * @param writer renders a group.
+   * @return the groups.
+   * @throws JsonProcessingException if rendering fails.
+   */
+  static PostcodeGroups build(AddressTable table, ObjectWriter writer)
+      throws JsonProcessingException {
+    Map<String, AddressIndexEqPostcodeAddressDTO> groups = new LinkedHashMap<>();
+    for (AddressIndexEqPostcodeAddressDTO captured : table.capturedPostcodeGroups()) {
+      groups.putIfAbsent(key(captured), captured);
+    }
+
+    Map<String, AddressIndexEqPostcodeAddressDTO> derived = new LinkedHashMap<>();
+    for (int id = 0; id < table.size(); id++) {
+      AddressRecord record = table.get(id);
+      if (record.getPostcode() == null
+          || record.getStreetName() == null
+          || record.getTownName() == null) {
+        continue;
+      }
+      AddressIndexEqPostcodeAddressDTO group = new AddressIndexEqPostcodeAddressDTO();
+      group.setPostcode(record.getPostcode());
+      group.setStreetName(record.getStreetName());
+      group.setTownName(record.getTownName());
+      group.setPostTown(record.getTownName());
+      group.setFirstUprn(record.getUprn());
+      group.setAddressCount(1);
+      derived.merge(key(group), group, PostcodeGroups::combine);
+    }
+    derived.forEach(groups::putIfAbsent);
+
+    List<AddressIndexEqPostcodeAddressDTO> sorted = new ArrayList<>(groups.values());
+    sorted.sort(AI_ORDER);
+    byte[][] fragments = new byte[sorted.size()][];
+    String[] compactPostcodes = new String[sorted.size()];
+    Integer[] byPostcode = new Integer[sorted.size()];
+    for (int i = 0; i < sorted.size(); i++) {
+      fragments[i] = writer.writeValueAsBytes(sorted.get(i));
+      compactPostcodes[i] = AddressText.compactPostcode(sorted.get(i).getPostcode());
+      byPostcode[i] = i;
+    }
+    Arrays.sort(byPostcode, Comparator.comparing((Integer i) -> compactPostcodes[i]));
+
+    String[] sortedPostcodes = new String[sorted.size()];
+    int[] ordinals = new int[sorted.size()];
+    for (int i = 0; i < byPostcode.length; i++) {
+      ordinals[i] = byPostcode[i];
+      sortedPostcodes[i] = compactPostcodes[byPostcode[i]];
+    }
+    return new PostcodeGroups(fragments, sortedPostcodes, ordinals);
+  }
+
+  /**
+   * Finds the groups whose postcode starts with a partial postcode.
+   *
+   * @param compactPrefix is the partial postcode, in upper case without spaces.
+   * @param out receives the ordinals of the first groups, in AI order, up to its length.
+   * @return the total number of matching groups. The number of ordinals written is the smaller of
+   *     this and the length of out.
+   */
+  int search(String compactPrefix, int[] out) {
+    int from = lowerBound(compactPrefix);
+    int to = lowerBound(compactPrefix + Character.MAX_VALUE);
+    int[] matches = Arrays.copyOfRange(ordinals, from, to);
+    Arrays.sort(matches);
+    System.arraycopy(matches, 0, out, 0, Math.min(matches.length, out.length));
+    return matches.length;
+  }
+
+  /** @return the pre-rendered groups, indexed by ordinal. */
+  byte[][] fragments() {
+    return fragments;
+  }
+
+  /** @return the number of groups. */
+  int size() {
+    return fragments.length;
+  }
+
+  /** @return the approximate number of bytes of heap held. */
+  long heapBytes() {
+    long bytes = 8L * ordinals.length;
+    for (int i = 0; i < fragments.length; i++) {
+      bytes += 16 + fragments[i].length + 40 + compactPostcodes[i].length();
+    }
+    return bytes;
+  }
+
+  private int lowerBound(String key) {
+    int low = 0;
+    int high = compactPostcodes.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (compactPostcodes[mid].compareTo(key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private static String key(AddressIndexEqPostcodeAddressDTO group) {
+    return (group.getPostcode() + "|" + group.getStreetName() + "|" + group.getTownName())
+        .toUpperCase(Locale.UK);
+  }
+
+  private static AddressIndexEqPostcodeAddressDTO combine(
+      AddressIndexEqPostcodeAddressDTO group, AddressIndexEqPostcodeAddressDTO address) {
+    group.setAddressCount(group.getAddressCount() + 1);
+    group.setFirstUprn(Math.min(group.getFirstUprn(), address.getFirstUprn()));
+    return group;
+  }
+}
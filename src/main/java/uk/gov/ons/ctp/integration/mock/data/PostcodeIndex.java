@@ -0,0 +1,128 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The addresses of the address table grouped by postcode, which answers postcode searches in the
+ * way AI does: every address in a postcode, ordered by street and then by building number, with
+ * the addresses which have no number after those that do. Addresses with the same number are
+ * ordered by the number's suffix, and then by building name (see {@link
+ * AddressText#buildingNameOf}), so a building is followed by its flats.
+ *
+ * <p>The distinct postcodes are held sorted, in compact form, so a postcode is found by binary
+ * search. The addresses of each postcode are a contiguous range of a single array of ids, already
+ * in the order they are listed, so a page of results is a slice of that range.
+ */
+final class PostcodeIndex {
+  private final String[] postcodes;
+  private final int[] starts;
+  private final int[] ids;
+
+  private PostcodeIndex(String[] postcodes, int[] starts, int[] ids) {
+    this.postcodes = postcodes;
+    this.starts = starts;
+    this.ids = ids;
+  }
+
+  /**
+   * Builds the index. Addresses without a postcode are left out.
+   *
+   * @param table holds the addresses to index.
+   * @return the index.
+   */
+  static PostcodeIndex build(AddressTable table) {
+    String[] compactPostcodes = new String[table.size()];
+    String[] streets = new String[table.size()];
+    int[] buildingNumbers = new int[table.size()];
+    String[] buildingSuffixes = new String[table.size()];
+    String[] buildingNames = new String[table.size()];
+    IntList withPostcode = new IntList();
+    for (int id = 0; id < table.size(); id++) {
+      AddressRecord record = table.get(id);
+      if (record.getPostcode() != null) {
+        compactPostcodes[id] = AddressText.compactPostcode(record.getPostcode());
+        streets[id] = record.getStreetName();
+        int number = AddressText.buildingNumberOf(record.getFormattedAddress());
+        buildingNumbers[id] = number < 0 ? Integer.MAX_VALUE : number;
+        buildingSuffixes[id] = AddressText.buildingSuffixOf(record.getFormattedAddress());
+        buildingNames[id] = AddressText.buildingNameOf(record.getFormattedAddress());
+        withPostcode.add(id);
+      }
+    }
+
+    Integer[] sorted = new Integer[withPostcode.size()];
+    int[] unsorted = withPostcode.toArray();
+    for (int i = 0; i < sorted.length; i++) {
+      sorted[i] = unsorted[i];
+    }
+    Arrays.sort(
+        sorted,
+        Comparator.comparing((Integer id) -> compactPostcodes[id])
+            .thenComparing(id -> streets[id], Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingInt(id -> buildingNumbers[id])
+            .thenComparing(id -> buildingSuffixes[id])
+            .thenComparing(id -> buildingNames[id], String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(id -> table.get(id).getFormattedAddress()));
+
+    String[] postcodes = new String[sorted.length];
+    IntList starts = new IntList();
+    int[] ids = new int[sorted.length];
+    int count = 0;
+    for (int i = 0; i < sorted.length; i++) {
+      ids[i] = sorted[i];
+      if (i == 0 || !compactPostcodes[ids[i]].equals(compactPostcodes[ids[i - 1]])) {
+        postcodes[count++] = compactPostcodes[ids[i]];
+        starts.add(i);
+      }
+    }
+    starts.add(sorted.length);
+    return new PostcodeIndex(Arrays.copyOf(postcodes, count), starts.toArray(), ids);
+  }
+
+  /**
+   * Finds a postcode.
+   *
+   * @param compactPostcode is the postcode, in upper case without spaces.
+   * @return the ordinal of the postcode, or -1 if no address has it.
+   */
+  int find(String compactPostcode) {
+    int ordinal = Arrays.binarySearch(postcodes, compactPostcode);
+    return ordinal < 0 ? -1 : ordinal;
+  }
+
+  /**
+   * @param ordinal identifies a postcode.
+   * @return the position in {@link #ids} of the first address in the postcode.
+   */
+  int from(int ordinal) {
+    return starts[ordinal];
+  }
+
+  /**
+   * @param ordinal identifies a postcode.
+   * @return the position in {@link #ids} after the last address in the postcode.
+   */
+  int to(int ordinal) {
+    return starts[ordinal + 1];
+  }
+
+  /** @return the ids of the addresses, grouped by postcode. This must not be modified. */
+  int[] ids() {
+    return ids;
+  }
+
+  /** @return the number of distinct postcodes. */
+  int size() {
+    return postcodes.length;
+  }
+
+  /** @return the approximate number of bytes of heap held. */
+  long heapBytes() {
+    long bytes = 4L * (starts.length + ids.length);
+    for (String postcode : postcodes) {
+      bytes += 8 + 40 + postcode.length();
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,180 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import static uk.gov.ons.ctp.integration.mock.data.JsonTemplate.marker;
+import static uk.gov.ons.ctp.integration.mock.data.JsonTemplate.placeholder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The envelope of an AI results response, pre-rendered from a captured response of the same type,
+ * which an index fills in with its own results.
+ *
+ * <p>Everything other than the echoed input, the list of results and the paging fields is served
+ * exactly as it was captured. Each result is a pre-rendered JSON fragment, so rendering is a
+ * matter of joining byte arrays.
+ */
+final class ResponseEnvelope {
+  private static final int INPUT_SLOT = 0;
+  private static final int ITEMS_SLOT = 1;
+  private static final int TOTAL_SLOT = 2;
+  private static final int LIMIT_SLOT = 3;
+  private static final int OFFSET_SLOT = 4;
+
+  private static final String[] SLOT_NAMES = {"INPUT", "ITEMS", "TOTAL", "LIMIT", "OFFSET"};
+
+  private final JsonTemplate template;
+  private final int defaultLimit;
+
+  private ResponseEnvelope(JsonTemplate template, int defaultLimit) {
+    this.template = template;
+    this.defaultLimit = defaultLimit;
+  }
+
+  /**
+   * Pre-renders an envelope.
+   *
+   * @param prototype is a captured response as a tree, which has already been through the DTO so
+   *     that it only holds the fields that the mock serves. This is modified.
+   * @param mapper is used to render the JSON.
+   * @param inputField is the name of the field which echoes the input, eg, 'input' or 'postcode'.
+   * @param itemsField is the name of the results field, eg, 'addresses'.
+   * @return the envelope.
+   * @throws JsonProcessingException if rendering fails.
+   */
+  static ResponseEnvelope prepare(
+      JsonNode prototype, ObjectMapper mapper, String inputField, String itemsField)
+      throws JsonProcessingException {
+    ObjectNode body = (ObjectNode) prototype.get("response");
+    int defaultLimit = body.path("limit").asInt();
+
+    String[] fields = {inputField, itemsField, "total", "limit", "offset"};
+    String[] placeholders = new String[fields.length];
+    for (int slot = 0; slot < fields.length; slot++) {
+      if (body.has(fields[slot])) {
+        body.put(fields[slot], marker(SLOT_NAMES[slot]));
+      }
+      placeholders[slot] = placeholder(SLOT_NAMES[slot]);
+    }
+    JsonTemplate template = JsonTemplate.split(mapper.writeValueAsString(prototype), placeholders);
+    return new ResponseEnvelope(template, defaultLimit);
+  }
+
+  /** @return the limit of the captured response, which is the limit AI applies by default. */
+  int defaultLimit() {
+    return defaultLimit;
+  }
+
+  /**
+   * Renders a response.
+   *
+   * @param input is the input to echo back.
+   * @param fragments holds the pre-rendered JSON of every result.
+   * @param ids holds the indexes into fragments of the results.
+   * @param from is the position in ids of the first result to return.
+   * @param to is the position in ids after the last result to return.
+   * @param total is the total number of matches, to report.
+   * @param limit is the limit to report.
+   * @param offset is the offset to report.
+   * @return the UTF-8 response body.
+   */
+  byte[] render(
+      String input,
+      byte[][] fragments,
+      int[] ids,
+      int from,
+      int to,
+      int total,
+      int limit,
+      int offset) {
+    return render(input, fragments, null, ids, from, to, total, limit, offset);
+  }
+
+  /**
+   * Renders a response in which the confidence score of each result is counted down, as AI does
+   * for RH postcode searches. Each result is held as the JSON either side of its confidence score.
+   *
+   * @param input is the input to echo back.
+   * @param heads holds the pre-rendered JSON of every result, up to its confidence score.
+   * @param tails holds the pre-rendered JSON of every result after its confidence score, or is null
+   *     if the results have no confidence score to count down.
+   * @param ids holds the indexes into heads and tails of the results.
+   * @param from is the position in ids of the first result to return.
+   * @param to is the position in ids after the last result to return.
+   * @param total is the total number of matches, to report.
+   * @param limit is the limit to report.
+   * @param offset is the offset to report.
+   * @return the UTF-8 response body.
+   */
+  byte[] render(
+      String input,
+      byte[][] heads,
+      byte[][] tails,
+      int[] ids,
+      int from,
+      int to,
+      int total,
+      int limit,
+      int offset) {
+    long confidence = AddressPages.BASE_CONFIDENCE + (to - from);
+    int itemsLength = 2 + Math.max(to - from - 1, 0);
+    for (int i = from; i < to; i++) {
+      itemsLength += heads[ids[i]].length;
+      if (tails != null) {
+        itemsLength += JsonTemplate.digitCount(confidence - (i - from)) + tails[ids[i]].length;
+      }
+    }
+    byte[] items = new byte[itemsLength];
+    int pos = 0;
+    items[pos++] = '[';
+    for (int i = from; i < to; i++) {
+      if (i > from) {
+        items[pos++] = ',';
+      }
+      pos = JsonTemplate.put(items, pos, heads[ids[i]]);
+      if (tails != null) {
+        pos = JsonTemplate.putDigits(items, pos, confidence--);
+        pos = JsonTemplate.put(items, pos, tails[ids[i]]);
+      }
+    }
+    items[pos] = ']';
+    return render(input, items, total, limit, offset);
+  }
+
+  /**
+   * Renders a response around a list of results which has already been rendered.
+   *
+   * @param input is the input to echo back.
+   * @param items is the JSON array of results.
+   * @param total is the total number of matches, to report.
+   * @param limit is the limit to report.
+   * @param offset is the offset to report.
+   * @return the UTF-8 response body.
+   */
+  byte[] render(String input, byte[] items, int total, int limit, int offset) {
+    byte[][] values = new byte[SLOT_NAMES.length][];
+    values[INPUT_SLOT] = quote(input);
+    values[ITEMS_SLOT] = items;
+    values[TOTAL_SLOT] = JsonTemplate.ascii(total);
+    values[LIMIT_SLOT] = JsonTemplate.ascii(limit);
+    values[OFFSET_SLOT] = JsonTemplate.ascii(offset);
+    return template.render(values);
+  }
+
+  /** @return the approximate number of bytes of heap held. */
+  long heapBytes() {
+    return template.fixedLength();
+  }
+
+  private static byte[] quote(String value) {
+    byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(value);
+    byte[] quoted = new byte[escaped.length + 2];
+    quoted[0] = '"';
+    System.arraycopy(escaped, 0, quoted, 1, escaped.length);
+    quoted[quoted.length - 1] = '"';
+    return quoted;
+  }
+}
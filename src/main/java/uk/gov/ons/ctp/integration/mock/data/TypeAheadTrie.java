@@ -0,0 +1,200 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A prefix trie over the tokens of every address, which answers type ahead searches in the way AI
+ * does: an address matches if each token of the input is the start of one of its tokens.
+ *
+ * <p>Every node holds the ids of the addresses which have a token starting with the node's prefix,
+ * in ascending (ie, rank) order, so the head of a node's list is its top-N. A second list holds the
+ * addresses whose first token starts with the prefix, as addresses which start with what was typed
+ * are listed first. A search for several tokens intersects the lists of their nodes.
+ *
+ * <p>Once built, the trie is held in flat arrays. Nodes are numbered breadth first so that the
+ * children of a node are contiguous, and sorted by label so they can be binary searched.
+ */
+final class TypeAheadTrie {
+  private final char[] labels;
+  private final int[] childStart;
+  private final int[] postingStart;
+  private final int[] postings;
+  private final int[] leadingStart;
+  private final int[] leading;
+
+  private TypeAheadTrie(
+      char[] labels,
+      int[] childStart,
+      int[] postingStart,
+      int[] postings,
+      int[] leadingStart,
+      int[] leading) {
+    this.labels = labels;
+    this.childStart = childStart;
+    this.postingStart = postingStart;
+    this.postings = postings;
+    this.leadingStart = leadingStart;
+    this.leading = leading;
+  }
+
+  /**
+   * Builds the trie.
+   *
+   * @param addressTokens holds the tokens of each address, indexed by address id.
+   * @return the trie.
+   */
+  static TypeAheadTrie build(List<List<String>> addressTokens) {
+    Node root = new Node();
+    for (int id = 0; id < addressTokens.size(); id++) {
+      List<String> tokens = addressTokens.get(id);
+      for (int t = 0; t < tokens.size(); t++) {
+        Node node = root;
+        for (char c : tokens.get(t).toCharArray()) {
+          node = node.children.computeIfAbsent(c, k -> new Node());
+          // An address can have several tokens with the same prefix, but is only listed once
+          node.postings.addDistinct(id);
+          if (t == 0) {
+            node.leading.addDistinct(id);
+          }
+        }
+      }
+    }
+
+    // Number the nodes breadth first
+    Node[] nodes = new Node[root.count()];
+    ArrayDeque<Node> queue = new ArrayDeque<>();
+    queue.add(root);
+    int n = 0;
+    while (!queue.isEmpty()) {
+      Node node = queue.remove();
+      nodes[n++] = node;
+      queue.addAll(node.children.values());
+    }
+
+    char[] labels = new char[n];
+    int[] childStart = new int[n + 1];
+    IntList postings = new IntList();
+    IntList leading = new IntList();
+    int[] postingStart = new int[n + 1];
+    int[] leadingStart = new int[n + 1];
+    int nextChild = 1;
+    for (int i = 0; i < n; i++) {
+      Node node = nodes[i];
+      childStart[i] = nextChild;
+      for (char label : node.children.keySet()) {
+        labels[nextChild++] = label;
+      }
+      postingStart[i] = postings.size();
+      postings.addAll(node.postings);
+      leadingStart[i] = leading.size();
+      leading.addAll(node.leading);
+    }
+    childStart[n] = nextChild;
+    postingStart[n] = postings.size();
+    leadingStart[n] = leading.size();
+
+    return new TypeAheadTrie(
+        labels, childStart, postingStart, postings.toArray(), leadingStart, leading.toArray());
+  }
+
+  /**
+   * Searches for the addresses which match every query token.
+   *
+   * @param tokens are the search tokens.
+   * @param out receives the ids of the best matches, up to its length.
+   * @return the total number of matches. The number of ids written is the smaller of this and the
+   *     length of out.
+   */
+  int search(List<String> tokens, int[] out) {
+    int[] nodes = new int[tokens.size()];
+    int smallest = 0;
+    for (int t = 0; t < tokens.size(); t++) {
+      nodes[t] = find(tokens.get(t));
+      if (nodes[t] < 0) {
+        return 0;
+      }
+      if (postingCount(nodes[t]) < postingCount(nodes[smallest])) {
+        smallest = t;
+      }
+    }
+
+    // Walk the shortest list, keeping the ids found in all the others
+    int[] matches = new int[postingCount(nodes[smallest])];
+    int total = 0;
+    for (int p = postingStart[nodes[smallest]]; p < postingStart[nodes[smallest] + 1]; p++) {
+      int id = postings[p];
+      boolean all = true;
+      for (int t = 0; t < nodes.length && all; t++) {
+        all = t == smallest || contains(postings, postingStart, nodes[t], id);
+      }
+      if (all) {
+        matches[total++] = id;
+      }
+    }
+
+    // List the matches which start with the first token before the rest
+    int written = 0;
+    for (int pass = 0; pass < 2 && written < out.length; pass++) {
+      for (int i = 0; i < total && written < out.length; i++) {
+        boolean leads = contains(leading, leadingStart, nodes[0], matches[i]);
+        if (leads == (pass == 0)) {
+          out[written++] = matches[i];
+        }
+      }
+    }
+    return total;
+  }
+
+  /** @return the number of nodes. */
+  int nodeCount() {
+    return labels.length;
+  }
+
+  /** @return the approximate number of bytes of heap held. */
+  long heapBytes() {
+    return 2L * labels.length
+        + 4L * (childStart.length + postingStart.length + leadingStart.length)
+        + 4L * (postings.length + leading.length);
+  }
+
+  // Returns the node for a prefix, or -1 if no token starts with it
+  private int find(String prefix) {
+    int node = 0;
+    for (int i = 0; i < prefix.length(); i++) {
+      int from = childStart[node];
+      int to = childStart[node + 1];
+      int child = Arrays.binarySearch(labels, from, to, prefix.charAt(i));
+      if (child < 0) {
+        return -1;
+      }
+      node = child;
+    }
+    return node;
+  }
+
+  private int postingCount(int node) {
+    return postingStart[node + 1] - postingStart[node];
+  }
+
+  private static boolean contains(int[] lists, int[] starts, int node, int id) {
+    return Arrays.binarySearch(lists, starts[node], starts[node + 1], id) >= 0;
+  }
+
+  private static class Node {
+    private final Map<Character, Node> children = new TreeMap<>();
+    private final IntList postings = new IntList();
+    private final IntList leading = new IntList();
+
+    private int count() {
+      int count = 1;
+      for (Node child : children.values()) {
+        count += child.count();
+      }
+      return count;
+    }
+  }
+}
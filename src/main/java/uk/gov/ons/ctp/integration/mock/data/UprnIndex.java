@@ -0,0 +1,108 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+/**
+ * An open addressing hash map from UPRN to address id. It is held in a pair of primitive arrays, so
+ * neither building nor probing it boxes, and a lookup doesn't allocate.
+ *
+ * <p>UPRNs are positive, so 0 marks an empty slot. The table is kept at most half full, uses
+ * Fibonacci hashing to spread the (often sequential) UPRNs, and is probed linearly.
+ */
+final class UprnIndex {
+  private static final long EMPTY = 0;
+  private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+  private final long[] keys;
+  private final int[] values;
+  private final int shift;
+  private int size;
+
+  /**
+   * Creates an empty index. Addresses are added with {@link #put} while it is being built, and it
+   * must not be modified once it is in use.
+   *
+   * @param expectedSize is the number of UPRNs which will be added.
+   */
+  UprnIndex(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(2, expectedSize * 2 - 1)) << 1;
+    keys = new long[capacity];
+    values = new int[capacity];
+    shift = 64 - Integer.numberOfTrailingZeros(capacity);
+  }
+
+  /**
+   * Adds a UPRN, replacing any id already held for it.
+   *
+   * @param uprn is the UPRN, which must be positive.
+   * @param id is the address id.
+   */
+  void put(long uprn, int id) {
+    if (uprn <= 0) {
+      throw new IllegalArgumentException("UPRN must be positive: " + uprn);
+    }
+    int slot = slot(uprn);
+    if (keys[slot] == EMPTY) {
+      if (size == keys.length / 2) {
+        throw new IllegalStateException("UPRN index is full");
+      }
+      keys[slot] = uprn;
+      size++;
+    }
+    values[slot] = id;
+  }
+
+  /**
+   * Looks up a UPRN.
+   *
+   * @param uprn is the UPRN.
+   * @return the address id, or -1 if the UPRN isn't held.
+   */
+  int get(long uprn) {
+    if (uprn <= 0) {
+      return -1;
+    }
+    int slot = slot(uprn);
+    return keys[slot] == uprn ? values[slot] : -1;
+  }
+
+  /** @return the number of UPRNs held. */
+  int size() {
+    return size;
+  }
+
+  /** @return the number of bytes of heap held by the table. */
+  long heapBytes() {
+    return 16L + 8L * keys.length + 16L + 4L * values.length;
+  }
+
+  /**
+   * Parses a UPRN without allocating, so that a request for an unknown or invalid UPRN is cheap.
+   *
+   * @param text is the UPRN as given in a request.
+   * @return the UPRN, or -1 if the text isn't a UPRN.
+   */
+  static long parseUprn(String text) {
+    // UPRNs are at most 12 digits, and 18 digits can't overflow a long
+    if (text.isEmpty() || text.length() > 18) {
+      return -1;
+    }
+    long uprn = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      uprn = uprn * 10 + (c - '0');
+    }
+    return uprn;
+  }
+
+  // Returns the slot holding the UPRN, or the empty slot where it belongs
+  private int slot(long uprn) {
+    int mask = keys.length - 1;
+    int slot = (int) ((uprn * GOLDEN_RATIO) >>> shift);
+    while (keys[slot] != EMPTY && keys[slot] != uprn) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+}
@@ -17,6 +17,7 @@ import uk.gov.ons.ctp.integration.mock.ai.model.request.AddressesPartialRequestD
 import uk.gov.ons.ctp.integration.mock.ai.model.request.AddressesPostcodeRequestDTO;
 import uk.gov.ons.ctp.integration.mock.ai.model.request.AddressesRhPostcodeRequestDTO;
 import uk.gov.ons.ctp.integration.mock.ai.model.request.AddressesRhUprnRequestDTO;
+import uk.gov.ons.ctp.integration.mock.logging.RequestLogSampler;
 
 /** Provides mock endpoints for a subset of the AI /addresses endpoints. */
 @Slf4j
@@ -32,7 +33,9 @@ public final class AddressesEndpoint implements CTPEndpoint {
 
     RequestType requestType = RequestType.AI_RH_POSTCODE;
     postcode = postcode.replaceAll("\\s", "");
-    log.info("Request {}/{}", requestType.getPath(), v("postcode", postcode));
+    if (RequestLogSampler.request(requestType)) {
+      log.info("Request {}/{}", requestType.getPath(), v("postcode", postcode));
+    }
 
     return ResponseBuilder.respond(
         requestType, null, postcode, requestParamsDTO.getOffset(), requestParamsDTO.getLimit());
@@ -45,7 +48,9 @@ public final class AddressesEndpoint implements CTPEndpoint {
       throws IOException, CTPException {
 
     RequestType requestType = RequestType.AI_PARTIAL;
-    log.info("Request {}", requestType.getPath() + "?input=" + input);
+    if (RequestLogSampler.request(requestType)) {
+      log.info("Request {}", requestType.getPath() + "?input=" + input);
+    }
 
     return ResponseBuilder.respond(
         requestType, null, input, requestParamsDTO.getOffset(), requestParamsDTO.getLimit());
@@ -59,7 +64,9 @@ public final class AddressesEndpoint implements CTPEndpoint {
 
     RequestType requestType = RequestType.AI_POSTCODE;
     postcode = postcode.replaceAll("\\s", "");
-    log.info("Request {}/{}", requestType.getPath(), v("postcode", postcode));
+    if (RequestLogSampler.request(requestType)) {
+      log.info("Request {}/{}", requestType.getPath(), v("postcode", postcode));
+    }
 
     return ResponseBuilder.respond(
         requestType, null, postcode, requestParamsDTO.getOffset(), requestParamsDTO.getLimit());
@@ -71,7 +78,9 @@ public final class AddressesEndpoint implements CTPEndpoint {
       throws IOException, CTPException {
 
     RequestType requestType = RequestType.AI_RH_UPRN;
-    log.info("Request {}/{}", requestType.getPath(), v("uprn", uprn));
+    if (RequestLogSampler.request(requestType)) {
+      log.info("Request {}/{}", requestType.getPath(), v("uprn", uprn));
+    }
 
     return ResponseBuilder.respond(requestType, null, uprn, 0, 1);
   }
@@ -85,7 +94,9 @@ public final class AddressesEndpoint implements CTPEndpoint {
     RequestType requestType =
         isPostcodeBasedSearch ? RequestType.AI_EQ_POSTCODE : RequestType.AI_EQ;
 
-    log.info("Request {}", requestType.getUrl() + "?input=" + input);
+    if (RequestLogSampler.request(requestType)) {
+      log.info("Request {}", requestType.getUrl() + "?input=" + input);
+    }
 
     return ResponseBuilder.respond(requestType, null, input, 0, 10);
   }
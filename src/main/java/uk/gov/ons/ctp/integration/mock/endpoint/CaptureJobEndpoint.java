@@ -0,0 +1,56 @@
+package uk.gov.ons.ctp.integration.mock.endpoint;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import uk.gov.ons.ctp.common.endpoint.CTPEndpoint;
+import uk.gov.ons.ctp.common.error.CTPException;
+import uk.gov.ons.ctp.common.error.CTPException.Fault;
+import uk.gov.ons.ctp.integration.mock.capture.CaptureJobRequestDTO;
+import uk.gov.ons.ctp.integration.mock.capture.CaptureJobStatusDTO;
+import uk.gov.ons.ctp.integration.mock.capture.CaptureJobs;
+
+/**
+ * These endpoints capture many AI responses in the background, as a job whose progress can be
+ * followed.
+ */
+@Slf4j
+@RestController
+@RequestMapping(value = "/capture/jobs", produces = "application/json")
+public final class CaptureJobEndpoint implements CTPEndpoint {
+  @Autowired private CaptureJobs captureJobs;
+
+  @RequestMapping(value = "", method = RequestMethod.POST)
+  public CaptureJobStatusDTO startJob(@RequestBody CaptureJobRequestDTO request) {
+    log.info("Request to start capture job");
+    return captureJobs.start(request);
+  }
+
+  @RequestMapping(value = "/refresh", method = RequestMethod.POST)
+  public CaptureJobStatusDTO startRefreshJob() {
+    log.info("Request to start capture job to refresh all captured data");
+    return captureJobs.refresh();
+  }
+
+  @RequestMapping(value = "", method = RequestMethod.GET)
+  public List<CaptureJobStatusDTO> getJobs() {
+    return captureJobs.statuses();
+  }
+
+  @RequestMapping(value = "/{id}", method = RequestMethod.GET)
+  public CaptureJobStatusDTO getJob(@PathVariable(value = "id") long id) throws CTPException {
+    CaptureJobStatusDTO status = captureJobs.status(id);
+    if (status == null) {
+      log.info("Capture job not found", kv("job", id));
+      throw new CTPException(Fault.RESOURCE_NOT_FOUND, "Capture job not found: " + id);
+    }
+    return status;
+  }
+}
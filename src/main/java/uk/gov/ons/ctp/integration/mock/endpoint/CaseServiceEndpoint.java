@@ -16,7 +16,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import uk.gov.ons.ctp.common.endpoint.CTPEndpoint;
 import uk.gov.ons.ctp.common.error.CTPException;
-import uk.gov.ons.ctp.integration.mock.FailureSimulator;
+import uk.gov.ons.ctp.integration.mock.logging.RequestLogSampler;
 
 /** Provides mock endpoints for the case service. */
 @Slf4j
@@ -37,8 +37,9 @@ public final class CaseServiceEndpoint implements CTPEndpoint {
       @RequestParam(value = "caseEvents", required = false) boolean includeCaseEvents)
       throws IOException, CTPException {
     RequestType requestType = RequestType.CASE_ID;
-    log.info("Request {}/{}", requestType.getPath(), v("caseId", caseId));
-    FailureSimulator.optionallyTriggerFailure(caseId.toString(), 400, 401, 404, 500);
+    if (RequestLogSampler.request(requestType)) {
+      log.info("Request {}/{}", requestType.getPath(), v("caseId", caseId));
+    }
     Map<String, Object> requestParams = new HashMap<>();
     requestParams.put("caseEvents", includeCaseEvents);
     return ResponseBuilder.respond(requestType, requestParams, caseId.toString(), 0, 1);
@@ -53,10 +54,10 @@ public final class CaseServiceEndpoint implements CTPEndpoint {
   @RequestMapping(value = "/{caseId}/telephone-capture", method = RequestMethod.GET)
   public ResponseEntity<?> newQuestionnaireIdForCase(@PathVariable("caseId") String caseId)
       throws IOException, CTPException {
-    log.info("Entering newQuestionnaireIdForCase {}", kv("case_id", caseId));
-
-    FailureSimulator.optionallyTriggerFailure(caseId, 400, 401, 404, 500);
     RequestType requestType = RequestType.CASE_QID;
+    if (RequestLogSampler.request(requestType)) {
+      log.info("Entering newQuestionnaireIdForCase {}", kv("case_id", caseId));
+    }
     return ResponseBuilder.respond(requestType, null, caseId.toString(), 0, 1);
   }
 
@@ -73,9 +74,10 @@ public final class CaseServiceEndpoint implements CTPEndpoint {
       throws IOException, CTPException {
 
     RequestType requestType = RequestType.CASE_REF;
-    log.info("Request {}/{}", requestType.getPath(), v("ref", ref));
+    if (RequestLogSampler.request(requestType)) {
+      log.info("Request {}/{}", requestType.getPath(), v("ref", ref));
+    }
     String caseRef = Long.toString(ref);
-    FailureSimulator.optionallyTriggerFailure(caseRef, 400, 401, 404, 500);
     Map<String, Object> requestParams = new HashMap<>();
     requestParams.put("caseEvents", includeCaseEvents);
     return ResponseBuilder.respond(requestType, requestParams, caseRef, 0, 1);
@@ -0,0 +1,67 @@
+package uk.gov.ons.ctp.integration.mock.endpoint;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import java.util.Collections;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import uk.gov.ons.ctp.common.endpoint.CTPEndpoint;
+import uk.gov.ons.ctp.common.error.CTPException;
+import uk.gov.ons.ctp.common.error.CTPException.Fault;
+import uk.gov.ons.ctp.integration.mock.fault.FaultInjector;
+import uk.gov.ons.ctp.integration.mock.fault.FaultRule;
+
+/** These endpoints view and change the faults injected into the mock endpoints while it runs. */
+@Slf4j
+@RestController
+@RequestMapping(value = "/mockadmin/faults", produces = "application/json")
+public final class FaultAdminEndpoint implements CTPEndpoint {
+  @Autowired private FaultInjector faultInjector;
+
+  @RequestMapping(value = "", method = RequestMethod.GET)
+  public List<FaultRule> getRules() {
+    return faultInjector.rules().rules();
+  }
+
+  @RequestMapping(value = "", method = RequestMethod.PUT)
+  public List<FaultRule> replaceRules(@RequestBody List<FaultRule> rules) throws CTPException {
+    log.info("Request to replace fault rules", kv("rules", rules.size()));
+    checkEnabled();
+    try {
+      return faultInjector.replace(rules);
+    } catch (IllegalArgumentException e) {
+      throw new CTPException(Fault.BAD_REQUEST, e.getMessage());
+    }
+  }
+
+  @RequestMapping(value = "", method = RequestMethod.POST)
+  public List<FaultRule> addRule(@RequestBody FaultRule rule) throws CTPException {
+    log.info("Request to add fault rule", kv("rule", rule.getName()));
+    checkEnabled();
+    try {
+      return faultInjector.add(rule);
+    } catch (IllegalArgumentException e) {
+      throw new CTPException(Fault.BAD_REQUEST, e.getMessage());
+    }
+  }
+
+  @RequestMapping(value = "", method = RequestMethod.DELETE)
+  public List<FaultRule> clearRules() {
+    log.info("Request to clear fault rules");
+    return faultInjector.replace(Collections.emptyList());
+  }
+
+  // Rules which would never be applied are refused, rather than accepted and silently ignored
+  private void checkEnabled() throws CTPException {
+    if (!faultInjector.isEnabled()) {
+      throw new CTPException(
+          Fault.BAD_REQUEST,
+          "Fault injection is disabled, so rules would not be applied. Set faults.enabled first");
+    }
+  }
+}
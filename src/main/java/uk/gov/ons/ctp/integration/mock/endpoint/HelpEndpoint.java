@@ -2,10 +2,7 @@ package uk.gov.ons.ctp.integration.mock.endpoint;
 
 import com.google.common.annotations.VisibleForTesting;
 import java.io.IOException;
-import java.util.List;
-import java.util.Properties;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -13,6 +10,7 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 import uk.gov.ons.ctp.common.endpoint.CTPEndpoint;
 import uk.gov.ons.ctp.integration.mock.data.DataRepository;
+import uk.gov.ons.ctp.integration.mock.data.DataSummary;
 
 /**
  * This class holds the help endpoint to provide a list of supported endpoints and the available
@@ -20,16 +18,19 @@ import uk.gov.ons.ctp.integration.mock.data.DataRepository;
  *
  * <p>Note that with the current ingress configuration "/help" is taken by RHUI, so using
  * "/mockhelp" instead.
+ *
+ * <p>The data help is rendered from the {@link DataSummary} of the data currently held, and is
+ * cached until the data changes.
  */
 @RestController
 @RequestMapping(value = "/mockhelp", produces = "application/json")
 public final class HelpEndpoint implements CTPEndpoint {
-  private static final Pattern UPRN_PATTERN = Pattern.compile("\"uprn\"\\s*:");
-  private static final Pattern FIRST_UPRN_PATTERN = Pattern.compile("\"firstUprn\"\\s*:");
-
   @Value("${server.port}")
   private String port;
 
+  private volatile CachedHelp addressDataHelp;
+  private volatile CachedHelp caseDataHelp;
+
   @RequestMapping(value = "", method = RequestMethod.GET)
   public ResponseEntity<String> help() throws IOException {
     StringBuilder helpText = new StringBuilder();
@@ -72,6 +73,8 @@ public final class HelpEndpoint implements CTPEndpoint {
         "  If mock-service holds data for a request then the response replies with a\n");
     helpText.append("  previously captured AI response. The mock response should be identical \n");
     helpText.append("  to the genuine AI.\n");
+    helpText.append("  Partial, type ahead, postcode and RH UPRN requests which haven't been\n");
+    helpText.append("  captured are answered from all of the addresses held by the mock.\n");
     helpText.append("  Endpoints which support offset and limit query parameters return a\n");
     helpText.append("  subset of the data, although it should be noted that the mock holds only\n");
     helpText.append("  the first 1000 or so results from AI.\n");
@@ -99,17 +102,14 @@ public final class HelpEndpoint implements CTPEndpoint {
   }
 
   @RequestMapping(value = "/addresses/data", method = RequestMethod.GET)
-  public ResponseEntity<String> addressDataHelp() throws Exception {
-    StringBuilder helpText = new StringBuilder();
-    helpText.append("MOCK AI DATA HELP\n");
-    helpText.append("  The mock endpoints currently hold the following data:\n");
-    helpText.append("  (Number of results returned are in parenthesis)\n");
-    for (var requestType : RequestType.values()) {
-      if (requestType.isAddressType()) {
-        buildDataHelp(helpText, requestType);
-      }
+  public ResponseEntity<String> addressDataHelp() {
+    DataSummary summary = DataRepository.summary();
+    CachedHelp cached = addressDataHelp;
+    if (cached == null || cached.summary != summary) {
+      cached = new CachedHelp(summary, buildAddressDataHelp(summary));
+      addressDataHelp = cached;
     }
-    return ResponseEntity.ok(helpText.toString());
+    return ResponseEntity.ok(cached.text);
   }
 
   @RequestMapping(value = "/capture/addresses", method = RequestMethod.GET)
@@ -130,6 +130,17 @@ public final class HelpEndpoint implements CTPEndpoint {
         describeQueryParams(helpText, requestType);
       }
     }
+
+    helpText.append("\n");
+    helpText.append("CAPTURE JOBS\n");
+    helpText.append("  Many inputs can be captured in the background by posting them as a job.\n");
+    helpText.append("  The job reports its progress, throughput and any failures.\n");
+    helpText.append("    POST /capture/jobs\n");
+    helpText.append("      {\"rhPostcodes\": [...], \"postcodes\": [...], \"partials\": [...],\n");
+    helpText.append("       \"eqs\": [...], \"uprns\": [...]}\n");
+    helpText.append("    POST /capture/jobs/refresh  - recaptures all address data held\n");
+    helpText.append("    GET  /capture/jobs          - status of the recent jobs\n");
+    helpText.append("    GET  /capture/jobs/{id}     - status of a job\n");
     return ResponseEntity.ok(helpText.toString());
   }
 
@@ -170,34 +181,50 @@ public final class HelpEndpoint implements CTPEndpoint {
   }
 
   @RequestMapping(value = "/cases/data", method = RequestMethod.GET)
-  public ResponseEntity<String> caseDataHelp() throws Exception {
+  public ResponseEntity<String> caseDataHelp() {
+    DataSummary summary = DataRepository.summary();
+    CachedHelp cached = caseDataHelp;
+    if (cached == null || cached.summary != summary) {
+      cached = new CachedHelp(summary, buildCaseDataHelp(summary));
+      caseDataHelp = cached;
+    }
+    return ResponseEntity.ok(cached.text);
+  }
+
+  private String buildAddressDataHelp(DataSummary summary) {
+    StringBuilder helpText = new StringBuilder();
+    helpText.append("MOCK AI DATA HELP\n");
+    helpText.append("  The mock endpoints currently hold the following data:\n");
+    helpText.append("  (Number of results returned are in parenthesis)\n");
+    for (var requestType : RequestType.values()) {
+      if (requestType.isAddressType()) {
+        buildDataHelp(helpText, requestType, summary);
+      }
+    }
+    return helpText.toString();
+  }
+
+  private String buildCaseDataHelp(DataSummary summary) {
     StringBuilder helpText = new StringBuilder();
 
     helpText.append("MOCK CASE DATA HELD\n");
     helpText.append("  The mock endpoints currently hold the following data:\n");
     for (var requestType : RequestType.values()) {
       if (requestType.isCaseType()) {
-        buildDataHelp(helpText, requestType);
+        buildDataHelp(helpText, requestType, summary);
       }
     }
-    return ResponseEntity.ok(helpText.toString());
+    return helpText.toString();
   }
 
-  private void buildDataHelp(StringBuilder helpText, RequestType requestType) throws Exception {
+  private void buildDataHelp(
+      StringBuilder helpText, RequestType requestType, DataSummary summary) {
     helpText.append("\n");
     urlHelp(helpText, requestType);
 
-    List<String> dataFiles = DataRepository.list(requestType);
-    Properties props = DataRepository.getInventory(requestType);
-
-    for (String name : dataFiles) {
-      String normalisedName = DataRepository.normaliseFileName(name);
-      String dataDescription = props.getProperty(normalisedName, null);
-      Integer count = null;
-      if (requestType.isAddressType()) {
-        count = count(normalisedName, requestType);
-      }
-      String dataText = describeData(normalisedName, count, dataDescription);
+    for (DataSummary.Entry entry : summary.entries(requestType)) {
+      String dataText =
+          describeData(entry.getNormalisedName(), entry.getResultCount(), entry.getDescription());
       helpText.append("    " + dataText + "\n");
     }
   }
@@ -242,18 +269,21 @@ public final class HelpEndpoint implements CTPEndpoint {
   }
 
   @VisibleForTesting
-  int count(String baseFileName, RequestType requestType) throws Exception {
+  int count(String baseFileName, RequestType requestType) {
     if (requestType.isCaseType()) {
       throw new IllegalArgumentException("count call not for case types!");
     }
-    int resultCount = 0;
-    String json = DataRepository.read(requestType, baseFileName);
-    for (var p : List.of(UPRN_PATTERN, FIRST_UPRN_PATTERN)) {
-      Matcher m = p.matcher(json);
-      while (m.find()) {
-        resultCount++;
-      }
+    DataSummary.Entry entry = DataRepository.summary().find(requestType, baseFileName);
+    if (entry == null) {
+      throw new IllegalArgumentException("No data held for " + baseFileName);
     }
-    return resultCount;
+    return entry.getResultCount();
+  }
+
+  // Help text along with the data summary it was rendered from
+  @AllArgsConstructor
+  private static class CachedHelp {
+    private final DataSummary summary;
+    private final String text;
   }
 }
@@ -0,0 +1,74 @@
+package uk.gov.ons.ctp.integration.mock.endpoint;
+
+import java.util.function.Predicate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import uk.gov.ons.ctp.common.endpoint.CTPEndpoint;
+import uk.gov.ons.ctp.common.error.CTPException;
+import uk.gov.ons.ctp.common.error.CTPException.Fault;
+import uk.gov.ons.ctp.integration.mock.journal.JournalEntryDTO;
+import uk.gov.ons.ctp.integration.mock.journal.JournalPageDTO;
+import uk.gov.ons.ctp.integration.mock.journal.RequestJournal;
+
+/** This endpoint pages through the latest requests to the mock endpoints, newest first. */
+@RestController
+@RequestMapping(value = "/mockadmin/journal", produces = "application/json")
+public final class JournalAdminEndpoint implements CTPEndpoint {
+  private static final int MAX_LIMIT = 1000;
+
+  @Autowired private RequestJournal requestJournal;
+
+  /**
+   * Returns a page of the journal. Each filter is optional.
+   *
+   * @param requestType selects requests of this type.
+   * @param status selects requests answered with this status.
+   * @param key selects requests whose key starts with this, ignoring case.
+   * @param minLatencyMillis selects requests which took at least this long.
+   * @param offset is how many of the selected requests to skip.
+   * @param limit is the most requests to return.
+   * @return the page.
+   * @throws CTPException if the offset or limit is out of range.
+   */
+  @RequestMapping(value = "", method = RequestMethod.GET)
+  public JournalPageDTO getJournal(
+      @RequestParam(required = false) RequestType requestType,
+      @RequestParam(required = false) Integer status,
+      @RequestParam(required = false) String key,
+      @RequestParam(required = false) Double minLatencyMillis,
+      @RequestParam(defaultValue = "0") int offset,
+      @RequestParam(defaultValue = "100") int limit)
+      throws CTPException {
+    if (offset < 0) {
+      throw new CTPException(Fault.BAD_REQUEST, "Offset must not be negative");
+    }
+    if (limit < 1 || limit > MAX_LIMIT) {
+      throw new CTPException(Fault.BAD_REQUEST, "Limit must be from 1 to " + MAX_LIMIT);
+    }
+
+    Predicate<JournalEntryDTO> filter = entry -> true;
+    if (requestType != null) {
+      String name = requestType.name();
+      filter = filter.and(entry -> name.equals(entry.getRequestType()));
+    }
+    if (status != null) {
+      int wanted = status;
+      filter = filter.and(entry -> entry.getStatus() == wanted);
+    }
+    if (key != null) {
+      filter =
+          filter.and(
+              entry ->
+                  entry.getKey() != null
+                      && entry.getKey().regionMatches(true, 0, key, 0, key.length()));
+    }
+    if (minLatencyMillis != null) {
+      double min = minLatencyMillis;
+      filter = filter.and(entry -> entry.getLatencyMillis() >= min);
+    }
+    return requestJournal.page(filter, offset, limit);
+  }
+}
@@ -0,0 +1,118 @@
+package uk.gov.ons.ctp.integration.mock.endpoint;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import uk.gov.ons.ctp.common.endpoint.CTPEndpoint;
+import uk.gov.ons.ctp.common.error.CTPException;
+import uk.gov.ons.ctp.common.error.CTPException.Fault;
+import uk.gov.ons.ctp.integration.mock.capture.CaptureJobRequestDTO;
+import uk.gov.ons.ctp.integration.mock.capture.CaptureJobStatusDTO;
+import uk.gov.ons.ctp.integration.mock.capture.CaptureJobs;
+import uk.gov.ons.ctp.integration.mock.miss.MissDTO;
+import uk.gov.ons.ctp.integration.mock.miss.MissTracker;
+
+/**
+ * These endpoints list the keys most often requested without a captured response, and capture
+ * them from AI so that the gaps in the captured data are closed.
+ */
+@Slf4j
+@RestController
+@RequestMapping(value = "/mockadmin/misses", produces = "application/json")
+public final class MissAdminEndpoint implements CTPEndpoint {
+  @Autowired private MissTracker missTracker;
+  @Autowired private CaptureJobs captureJobs;
+
+  /**
+   * Lists the keys most often requested without a captured response.
+   *
+   * @param requestType is the type of request to list, or null to list every type.
+   * @param limit is the most keys to list for each type of request.
+   * @return the keys, most missed first within each type of request, with about how often each
+   *     was missed.
+   * @throws CTPException if the limit is out of range.
+   */
+  @RequestMapping(value = "", method = RequestMethod.GET)
+  public List<MissDTO> getMisses(
+      @RequestParam(required = false) RequestType requestType,
+      @RequestParam(defaultValue = "20") int limit)
+      throws CTPException {
+    return missTracker.top(requestType, checkLimit(limit));
+  }
+
+  /**
+   * Starts a capture job for the most missed keys of each type of address request. Keys of other
+   * types of request, which the mock can't capture, are left out.
+   *
+   * @param requestType is the type of request to capture, or null to capture every type.
+   * @param limit is the most keys to capture for each type of request.
+   * @param minCount is the fewest misses for a key to be captured.
+   * @return the initial status of the capture job.
+   * @throws CTPException if the limit is out of range.
+   */
+  @RequestMapping(value = "/capture", method = RequestMethod.POST)
+  public CaptureJobStatusDTO captureMisses(
+      @RequestParam(required = false) RequestType requestType,
+      @RequestParam(defaultValue = "20") int limit,
+      @RequestParam(defaultValue = "1") long minCount)
+      throws CTPException {
+    CaptureJobRequestDTO request = new CaptureJobRequestDTO();
+    for (MissDTO miss : missTracker.top(requestType, checkLimit(limit))) {
+      if (miss.getCount() >= minCount) {
+        addInput(request, RequestType.valueOf(miss.getRequestType()), miss.getKey());
+      }
+    }
+    log.info(
+        "Request to capture missed keys",
+        kv("requestType", requestType == null ? "all" : requestType.name()),
+        kv("limit", limit),
+        kv("minCount", minCount));
+    return captureJobs.start(request);
+  }
+
+  /** Forgets every miss, so that the keys are counted afresh from now on. */
+  @RequestMapping(value = "/reset", method = RequestMethod.POST)
+  public void resetMisses() {
+    log.info("Request to reset missed keys");
+    missTracker.reset();
+  }
+
+  private static int checkLimit(int limit) throws CTPException {
+    if (limit < 1) {
+      throw new CTPException(Fault.BAD_REQUEST, "Limit must be at least 1");
+    }
+    return limit;
+  }
+
+  // Adds a key to the list of inputs captured with the same type of AI request
+  private static void addInput(CaptureJobRequestDTO request, RequestType requestType, String key) {
+    switch (requestType) {
+      case AI_RH_POSTCODE:
+        request.getRhPostcodes().add(key);
+        break;
+      case AI_POSTCODE:
+        request.getPostcodes().add(key);
+        break;
+      case AI_PARTIAL:
+        request.getPartials().add(key);
+        break;
+      case AI_EQ:
+      case AI_EQ_POSTCODE:
+        // As for read through capture, the client decides whether the input is a postcode
+        request.getEqs().add(key);
+        break;
+      case AI_RH_UPRN:
+        request.getUprns().add(key);
+        break;
+      default:
+        // Case data is not captured from AI
+        break;
+    }
+  }
+}
@@ -1,30 +1,73 @@
 package uk.gov.ons.ctp.integration.mock.endpoint;
 
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
 import uk.gov.ons.ctp.common.error.CTPException;
-import uk.gov.ons.ctp.integration.mock.Constants;
-import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexPartialAddressDTO;
-import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexPartialResultsDTO;
-import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexPostcodeAddressDTO;
-import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexPostcodeResultsDTO;
-import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexRhPostcodeAddressDTO;
-import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexRhPostcodeResultsDTO;
-import uk.gov.ons.ctp.integration.mock.caseapi.model.CaseContainerDTO;
+import uk.gov.ons.ctp.integration.mock.capture.ReadThroughCapture;
+import uk.gov.ons.ctp.integration.mock.data.CapturedResponse;
 import uk.gov.ons.ctp.integration.mock.data.DataRepository;
-import uk.gov.ons.ctp.integration.mock.util.ObjectMapperFactory;
+import uk.gov.ons.ctp.integration.mock.jfr.NotFoundEvent;
+import uk.gov.ons.ctp.integration.mock.jfr.RenderEvent;
+import uk.gov.ons.ctp.integration.mock.jfr.SynthesiseEvent;
+import uk.gov.ons.ctp.integration.mock.logging.RequestLogSampler;
+import uk.gov.ons.ctp.integration.mock.metrics.MockMetrics;
+import uk.gov.ons.ctp.integration.mock.metrics.RequestOutcome;
+import uk.gov.ons.ctp.integration.mock.miss.MissTracker;
+import uk.gov.ons.ctp.integration.mock.scenario.ScenarioEngine;
 
 /** Build response from JSON data and respond as though the original service had responded. */
+@Slf4j
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class ResponseBuilder {
+  private static volatile ReadThroughCapture readThrough;
+  private static volatile ScenarioEngine scenarios;
+  private static volatile MockMetrics metrics;
+  private static volatile MissTracker misses;
+
+  /**
+   * Sets how requests which have no captured response are captured from AI as they arrive.
+   *
+   * @param readThrough does the capture, or is null if misses aren't captured.
+   */
+  public static void setReadThrough(ReadThroughCapture readThrough) {
+    ResponseBuilder.readThrough = readThrough;
+  }
+
+  /**
+   * Sets the scenarios which can fail a request, depending on the earlier requests for its key.
+   *
+   * @param scenarios plays the scenarios, or is null if there are none.
+   */
+  public static void setScenarios(ScenarioEngine scenarios) {
+    ResponseBuilder.scenarios = scenarios;
+  }
+
+  /**
+   * Sets where the outcome and size of each response is recorded.
+   *
+   * @param metrics records the responses, or is null if they aren't recorded.
+   */
+  public static void setMetrics(MockMetrics metrics) {
+    ResponseBuilder.metrics = metrics;
+  }
+
+  /**
+   * Sets where requests without a captured response are counted.
+   *
+   * @param misses counts the misses, or is null if they aren't counted.
+   */
+  public static void setMisses(MissTracker misses) {
+    ResponseBuilder.misses = misses;
+  }
 
-  @SuppressWarnings("unchecked")
   public static ResponseEntity<Object> respond(
       RequestType requestType,
       Map<String, Object> requestParams,
@@ -33,105 +76,128 @@ public final class ResponseBuilder {
       int limit)
       throws IOException, CTPException {
 
+    MockMetrics currentMetrics = metrics;
+
+    // A scenario may fail this request for its key, before the response is looked up
+    ScenarioEngine currentScenarios = scenarios;
+    if (currentScenarios != null) {
+      HttpStatus scenarioStatus = currentScenarios.next(requestType, name);
+      if (scenarioStatus != null) {
+        if (currentMetrics != null) {
+          RequestOutcome.FAULT.setCurrent();
+        }
+        throw new ResponseStatusException(scenarioStatus);
+      }
+    }
+
     HttpStatus responseStatus = HttpStatus.OK;
     Object response = null;
-    String responseText = DataRepository.read(requestType, name);
-
-    if (responseText != null) {
-      // Convert captured AI response to an object, and return the target subset of data
-      if (requestType.getResponseClass().equals(String.class)) {
-        // Don't push it through Jackson, as it is already in String format
-        response = responseText;
-      } else {
-        response =
-            ObjectMapperFactory.objectMapper()
-                .readerFor(requestType.getResponseClass())
-                .readValue(responseText);
+    RequestOutcome outcome = RequestOutcome.HIT;
+    CapturedResponse captured = DataRepository.find(requestType, name);
+    ReadThroughCapture currentReadThrough = readThrough;
+    if (captured == null
+        && currentReadThrough != null
+        && currentReadThrough.capture(requestType, name)) {
+      captured = DataRepository.find(requestType, name);
+      outcome = RequestOutcome.CAPTURE;
+    }
+
+    if (captured != null) {
+      if (!captured.isPrepared()) {
+        throw new CTPException(
+            CTPException.Fault.SYSTEM_ERROR,
+            "Captured data could not be parsed for " + requestType.name() + ": " + name);
       }
 
+      // The captured AI response has already been rendered, so just select the target data
+      RenderEvent event = new RenderEvent();
+      event.begin();
       switch (requestType) {
         case AI_RH_POSTCODE:
-          AddressIndexRhPostcodeResultsDTO rhPostcodes =
-              (AddressIndexRhPostcodeResultsDTO) response;
-          List<AddressIndexRhPostcodeAddressDTO> rhPostcodeAddresses =
-              (List<AddressIndexRhPostcodeAddressDTO>)
-                  subset(rhPostcodes.getResponse().getAddresses(), offset, limit);
-          rhPostcodes.getResponse().setAddresses(rhPostcodeAddresses);
-          rhPostcodes.getResponse().setOffset(offset);
-          rhPostcodes.getResponse().setLimit(limit);
-          // Replicate the counting down of the confidence score
-          int confidence = 100000 + rhPostcodeAddresses.size();
-          for (AddressIndexRhPostcodeAddressDTO address : rhPostcodeAddresses) {
-            address.setConfidenceScore(confidence--);
-          }
-          break;
         case AI_PARTIAL:
-          AddressIndexPartialResultsDTO partial = (AddressIndexPartialResultsDTO) response;
-          List<AddressIndexPartialAddressDTO> partialAddresses =
-              (List<AddressIndexPartialAddressDTO>)
-                  subset(partial.getResponse().getAddresses(), offset, limit);
-          partial.getResponse().setAddresses(partialAddresses);
-          partial.getResponse().setOffset(offset);
-          partial.getResponse().setLimit(limit);
-          break;
         case AI_POSTCODE:
-          AddressIndexPostcodeResultsDTO postcodes = (AddressIndexPostcodeResultsDTO) response;
-          List<AddressIndexPostcodeAddressDTO> postcodeAddresses =
-              (List<AddressIndexPostcodeAddressDTO>)
-                  subset(postcodes.getResponse().getAddresses(), offset, limit);
-          postcodes.getResponse().setAddresses(postcodeAddresses);
-          postcodes.getResponse().setOffset(offset);
-          postcodes.getResponse().setLimit(limit);
+          // Replicates the rewriting of offset & limit, and the counting down of RH confidence
+          response = captured.page(offset, limit);
+          if (currentMetrics != null) {
+            currentMetrics.recordAddresses(requestType, captured.pageSize(offset, limit));
+          }
           break;
         case CASE_ID:
         case CASE_REF:
           boolean includeCaseEvents = (Boolean) requestParams.get("caseEvents");
-          if (!includeCaseEvents) {
-            CaseContainerDTO rmCaseDTO = (CaseContainerDTO) response;
-            rmCaseDTO.setCaseEvents(new ArrayList<>());
-          }
+          response = captured.caseBody(includeCaseEvents);
+          break;
         case AI_EQ:
         case AI_EQ_POSTCODE:
         case AI_RH_UPRN:
         case CASE_QID:
           // Nothing to do these types
+          response = captured.body();
           break;
         default:
           throw new CTPException(
               CTPException.Fault.SYSTEM_ERROR, "Unrecognised request type: " + requestType.name());
       }
+      event.end();
+      if (event.shouldCommit()) {
+        event.setRequest(requestType, name);
+        event.setPayloadBytes(lengthOf(response));
+        if (captured.addressCount() > 0) {
+          event.setAddresses(captured.pageSize(offset, limit));
+        }
+        event.commit();
+      }
     } else {
-      // 404 - not found
-      responseStatus = requestType.getNotFoundHttpStatus();
-      response = notFound(requestType, name);
+      // Answer from the addresses in other captures, if possible
+      outcome = RequestOutcome.MISS;
+      MissTracker currentMisses = misses;
+      if (currentMisses != null) {
+        currentMisses.record(requestType, name);
+      }
+      // Misses are common, so only log them if asked
+      if (RequestLogSampler.miss(requestType) && log.isDebugEnabled()) {
+        log.debug(
+            "No captured response for {}", kv("name", name), kv("requestType", requestType.name()));
+      }
+      SynthesiseEvent event = new SynthesiseEvent();
+      event.begin();
+      response = DataRepository.synthesise(requestType, name, offset, limit);
+      event.end();
+      if (event.shouldCommit()) {
+        event.setRequest(requestType, name);
+        event.setPayloadBytes(lengthOf(response));
+        event.commit();
+      }
+      if (response == null) {
+        // 404 - not found
+        responseStatus = requestType.getNotFoundHttpStatus();
+        response = notFound(requestType, name);
+      }
+    }
+
+    if (currentMetrics != null) {
+      outcome.setCurrent();
+      currentMetrics.recordBytes(requestType, lengthOf(response));
     }
     return new ResponseEntity<Object>(response, responseStatus);
   }
 
-  private static String notFound(RequestType requestType, String name)
-      throws IOException, CTPException {
-    String responseText;
-    if (requestType.isAddressType()) {
-      responseText = DataRepository.read(requestType, Constants.NO_DATA_FILE_NAME);
-    } else {
-      responseText = null;
-    }
-    if (responseText == null) {
-      responseText = "Data not found";
-    } else {
-      // Customise the not-found response by replacing any place holders with actual values
-      String placeholderName = requestType.getPlaceholderName();
-      String fullPlaceholderName = "%" + placeholderName + "%";
-      responseText = responseText.replace(fullPlaceholderName, name);
+  private static Object notFound(RequestType requestType, String name) {
+    // The not-found response, customised with the actual value in place of its placeholder
+    NotFoundEvent event = new NotFoundEvent();
+    event.begin();
+    byte[] response = DataRepository.notFound(requestType, name);
+    event.end();
+    if (event.shouldCommit()) {
+      event.setRequest(requestType, name);
+      event.setPayloadBytes(lengthOf(response));
+      event.commit();
     }
-    return responseText;
+    return response == null ? "Data not found" : response;
   }
 
-  private static List<?> subset(List<?> addresses, int offset, int limit) {
-    if (offset > addresses.size() || offset < 0) {
-      return new ArrayList<Object>();
-    }
-    int toIndex = Math.min(offset + limit, addresses.size());
-    return addresses.subList(offset, toIndex);
+  // The length of a response body, which is always bytes apart from the fallback not-found text
+  private static int lengthOf(Object response) {
+    return response instanceof byte[] ? ((byte[]) response).length : 0;
   }
 }
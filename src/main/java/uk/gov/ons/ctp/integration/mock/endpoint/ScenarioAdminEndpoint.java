@@ -0,0 +1,68 @@
+package uk.gov.ons.ctp.integration.mock.endpoint;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import uk.gov.ons.ctp.common.endpoint.CTPEndpoint;
+import uk.gov.ons.ctp.common.error.CTPException;
+import uk.gov.ons.ctp.common.error.CTPException.Fault;
+import uk.gov.ons.ctp.integration.mock.scenario.ScenarioDefinition;
+import uk.gov.ons.ctp.integration.mock.scenario.ScenarioEngine;
+import uk.gov.ons.ctp.integration.mock.scenario.ScenarioStatusDTO;
+
+/** These endpoints view, change and reset the per key scenarios while the mock runs. */
+@Slf4j
+@RestController
+@RequestMapping(value = "/mockadmin/scenarios", produces = "application/json")
+public final class ScenarioAdminEndpoint implements CTPEndpoint {
+  @Autowired private ScenarioEngine scenarioEngine;
+
+  @RequestMapping(value = "", method = RequestMethod.GET)
+  public ScenarioStatusDTO getScenarios() {
+    return status();
+  }
+
+  @RequestMapping(value = "", method = RequestMethod.PUT)
+  public ScenarioStatusDTO replaceScenarios(@RequestBody List<ScenarioDefinition> definitions)
+      throws CTPException {
+    log.info("Request to replace scenarios", kv("scenarios", definitions.size()));
+    try {
+      scenarioEngine.replace(definitions);
+    } catch (IllegalArgumentException e) {
+      throw new CTPException(Fault.BAD_REQUEST, e.getMessage());
+    }
+    return status();
+  }
+
+  @RequestMapping(value = "/reset", method = RequestMethod.POST)
+  public ScenarioStatusDTO resetScenarios() {
+    log.info("Request to reset all scenarios");
+    scenarioEngine.reset();
+    return status();
+  }
+
+  @RequestMapping(value = "/reset/{name}", method = RequestMethod.POST)
+  public ScenarioStatusDTO resetScenario(@PathVariable(value = "name") String name)
+      throws CTPException {
+    log.info("Request to reset scenario", kv("scenario", name));
+    if (!scenarioEngine.reset(name)) {
+      throw new CTPException(Fault.RESOURCE_NOT_FOUND, "Scenario not found: " + name);
+    }
+    return status();
+  }
+
+  private ScenarioStatusDTO status() {
+    return new ScenarioStatusDTO(
+        scenarioEngine.definitions(),
+        scenarioEngine.activeKeys(),
+        scenarioEngine.maxKeys(),
+        scenarioEngine.refusedKeys());
+  }
+}
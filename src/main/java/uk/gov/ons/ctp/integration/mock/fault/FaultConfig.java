@@ -0,0 +1,14 @@
+package uk.gov.ons.ctp.integration.mock.fault;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class FaultConfig {
+  /** Whether faults are injected at all. */
+  private boolean enabled = true;
+
+  /** The rules in force at startup, in the order they are tried. */
+  private List<FaultRule> rules = new ArrayList<>();
+}
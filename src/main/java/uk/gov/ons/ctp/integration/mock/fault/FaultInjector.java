@@ -0,0 +1,69 @@
+package uk.gov.ons.ctp.integration.mock.fault;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the fault rules in force, which can be changed while the mock is running.
+ *
+ * <p>The rules are compiled into a new {@link FaultRules} on each change, which replaces the old
+ * one in a single write. Requests read the current rules without locking, and see either the old
+ * or the new rules in full.
+ */
+@Slf4j
+public class FaultInjector {
+  private final boolean enabled;
+  private volatile FaultRules rules;
+
+  /**
+   * Constructor.
+   *
+   * @param enabled is true if the fault filter is installed, so that the rules are applied.
+   * @param rules are the rules in force at startup.
+   * @throws IllegalArgumentException if a rule is invalid.
+   */
+  public FaultInjector(boolean enabled, List<FaultRule> rules) {
+    this.enabled = enabled;
+    this.rules = FaultRules.compile(rules);
+  }
+
+  /** @return true if the rules are applied to requests. */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** @return the rules in force. */
+  public FaultRules rules() {
+    return rules;
+  }
+
+  /**
+   * Replaces all of the rules.
+   *
+   * @param newRules are the new rules, in the order they are to be tried.
+   * @return the rules now in force.
+   * @throws IllegalArgumentException if a rule is invalid, in which case the rules are unchanged.
+   */
+  public synchronized List<FaultRule> replace(List<FaultRule> newRules) {
+    FaultRules compiled = FaultRules.compile(newRules);
+    rules = compiled;
+    log.info("Replaced fault rules", kv("rules", compiled.rules().size()));
+    return compiled.rules();
+  }
+
+  /**
+   * Adds a rule, to be tried after the existing rules.
+   *
+   * @param rule is the rule to add.
+   * @return the rules now in force.
+   * @throws IllegalArgumentException if the rule is invalid, in which case the rules are unchanged.
+   */
+  public synchronized List<FaultRule> add(FaultRule rule) {
+    List<FaultRule> newRules = new ArrayList<>(rules.rules());
+    newRules.add(rule);
+    return replace(newRules);
+  }
+}
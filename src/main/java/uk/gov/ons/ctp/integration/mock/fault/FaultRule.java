@@ -0,0 +1,60 @@
+package uk.gov.ons.ctp.integration.mock.fault;
+
+import java.util.HashSet;
+import java.util.Set;
+import lombok.Data;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * A fault to inject into the responses of the mock endpoints, and the requests it applies to.
+ *
+ * <p>A request is selected by a rule when it is of one of the rule's request types, carries the
+ * rule's header, and has a key matching the rule's pattern. Any of these which isn't set selects
+ * every request. A selected request is then failed with the rule's percentage chance.
+ */
+@Data
+public class FaultRule {
+  /** How a selected request is failed. */
+  public enum Action {
+    /** Responds with an error status, without calling the endpoint. */
+    STATUS,
+    /** Resets the connection without responding, so that the client sees a TCP RST. */
+    RESET,
+    /** Holds the request without responding, and then closes the connection. */
+    HANG,
+    /** Sends part of the endpoint's response, and then closes the connection. */
+    TRUNCATE
+  }
+
+  /** Identifies the rule in logs. */
+  private String name;
+
+  /** The types of request the rule applies to. If empty it applies to all of them. */
+  private Set<RequestType> requestTypes = new HashSet<>();
+
+  /**
+   * A regular expression which the whole key of a request must match, or null for any key. The key
+   * is the request's path variable (such as a postcode or case id), or else its 'input' parameter.
+   */
+  private String keyPattern;
+
+  /** The name of a header which the request must carry, or null. */
+  private String header;
+
+  /** The value the header must have, or null for any value. */
+  private String headerValue;
+
+  /** The chance, from 0 to 100, of failing a selected request. */
+  private double percentage = 100;
+
+  private Action action = Action.STATUS;
+
+  /** The error status of a STATUS fault. */
+  private int status = 500;
+
+  /** How long a HANG fault holds the request for. */
+  private long millis = 60_000;
+
+  /** The fraction of the response body a TRUNCATE fault sends, from 0 up to (but excluding) 1. */
+  private double bodyFraction = 0.5;
+}
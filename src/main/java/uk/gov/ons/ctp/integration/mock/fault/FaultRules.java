@@ -0,0 +1,218 @@
+package uk.gov.ons.ctp.integration.mock.fault;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import javax.servlet.http.HttpServletRequest;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * An immutable set of fault rules, compiled for lookup by request type.
+ *
+ * <p>The rules which apply to each request type are held in an array indexed by the type, so
+ * finding that a request has no rules is a single array read. Rules are tried in the order they
+ * were given, and the cheaper checks of a rule (its header, then its key) are made before the
+ * random draw for its percentage. A key pattern which is a literal prefix, such as '400.*', is
+ * matched as one, and can be matched against the key where it is in the request URI, so that a
+ * request which isn't failed allocates nothing here unless a rule has a full regular expression.
+ */
+public final class FaultRules {
+  // Declared before NONE, which uses it as it is built
+  private static final Rule[] NO_RULES = new Rule[0];
+
+  /** No rules at all. */
+  public static final FaultRules NONE = new FaultRules(Collections.emptyList());
+
+  // A key pattern such as '400.*', which is a literal followed by anything
+  private static final Pattern LITERAL_PREFIX = Pattern.compile("[\\w\\- ]*\\.\\*");
+
+  private final List<FaultRule> rules;
+  private final Rule[][] rulesByType = new Rule[RequestType.values().length][];
+  private final boolean[] keyedByType = new boolean[RequestType.values().length];
+
+  private FaultRules(List<FaultRule> rules) {
+    List<Rule> compiled = new ArrayList<>();
+    for (FaultRule rule : rules) {
+      compiled.add(new Rule(rule));
+    }
+    for (RequestType requestType : RequestType.values()) {
+      List<Rule> applicable = new ArrayList<>();
+      for (Rule rule : compiled) {
+        if (rule.requestTypes.isEmpty() || rule.requestTypes.contains(requestType)) {
+          applicable.add(rule);
+          keyedByType[requestType.ordinal()] |= rule.keyed;
+        }
+      }
+      rulesByType[requestType.ordinal()] =
+          applicable.isEmpty() ? NO_RULES : applicable.toArray(NO_RULES);
+    }
+    this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+  }
+
+  /**
+   * Compiles a list of rules.
+   *
+   * @param rules are the rules, in the order they are to be tried.
+   * @return the compiled rules.
+   * @throws IllegalArgumentException if a rule is invalid.
+   */
+  public static FaultRules compile(List<FaultRule> rules) {
+    return rules.isEmpty() ? NONE : new FaultRules(rules);
+  }
+
+  /** @return the rules, as they were given. This list is unmodifiable. */
+  public List<FaultRule> rules() {
+    return rules;
+  }
+
+  /**
+   * @param requestType is the type of request.
+   * @return true if any rule applies to the type of request.
+   */
+  public boolean hasRules(RequestType requestType) {
+    return rulesByType[requestType.ordinal()].length > 0;
+  }
+
+  /**
+   * @param requestType is the type of request.
+   * @return true if any rule for the type of request selects requests by their key.
+   */
+  public boolean isKeyed(RequestType requestType) {
+    return keyedByType[requestType.ordinal()];
+  }
+
+  /**
+   * Finds the fault to inject into a request.
+   *
+   * @param requestType is the type of request.
+   * @param request is the request, whose headers are checked.
+   * @param key is the key of the request. This is only needed if {@link #isKeyed} is true.
+   * @return the first rule which fails the request, or null if it isn't to fail.
+   */
+  public Rule find(RequestType requestType, HttpServletRequest request, String key) {
+    return find(requestType, request, key, 0, key == null ? 0 : key.length());
+  }
+
+  /**
+   * Finds the fault to inject into a request, whose key is part of a string.
+   *
+   * @param requestType is the type of request.
+   * @param request is the request, whose headers are checked.
+   * @param text holds the key of the request, such as the request URI. This is only needed if
+   *     {@link #isKeyed} is true.
+   * @param keyStart is the index in the text at which the key starts.
+   * @param keyEnd is the index in the text just after the key.
+   * @return the first rule which fails the request, or null if it isn't to fail.
+   */
+  public Rule find(
+      RequestType requestType, HttpServletRequest request, String text, int keyStart, int keyEnd) {
+    for (Rule rule : rulesByType[requestType.ordinal()]) {
+      if (rule.selects(request, text, keyStart, keyEnd) && rule.draw()) {
+        return rule;
+      }
+    }
+    return null;
+  }
+
+  /** A single compiled rule. */
+  public static final class Rule {
+    @Getter private final String name;
+    @Getter private final FaultRule.Action action;
+    @Getter private final int status;
+    @Getter private final long millis;
+    @Getter private final double bodyFraction;
+
+    private final List<RequestType> requestTypes;
+    private final boolean keyed;
+    private final String keyPrefix;
+    private final Pattern keyPattern;
+    private final String header;
+    private final String headerValue;
+    private final double probability;
+
+    private Rule(FaultRule rule) {
+      String label = rule.getName() == null ? "unnamed" : rule.getName();
+      if (rule.getAction() == null) {
+        throw new IllegalArgumentException("Fault rule " + label + " has no action");
+      }
+      if (rule.getPercentage() < 0 || rule.getPercentage() > 100) {
+        throw new IllegalArgumentException(
+            "Fault rule " + label + " needs a percentage from 0 to 100");
+      }
+      switch (rule.getAction()) {
+        case STATUS:
+          HttpStatus status = HttpStatus.resolve(rule.getStatus());
+          if (status == null || !status.isError()) {
+            throw new IllegalArgumentException(
+                "Fault rule " + label + " needs an error status, not " + rule.getStatus());
+          }
+          break;
+        case HANG:
+          if (rule.getMillis() <= 0) {
+            throw new IllegalArgumentException("Fault rule " + label + " needs a positive millis");
+          }
+          break;
+        case TRUNCATE:
+          if (rule.getBodyFraction() < 0 || rule.getBodyFraction() >= 1) {
+            throw new IllegalArgumentException(
+                "Fault rule " + label + " needs a body fraction from 0 up to 1");
+          }
+          break;
+        default:
+          break;
+      }
+
+      this.name = label;
+      this.action = rule.getAction();
+      this.status = rule.getStatus();
+      this.millis = rule.getMillis();
+      this.bodyFraction = rule.getBodyFraction();
+      this.requestTypes =
+          rule.getRequestTypes() == null
+              ? Collections.emptyList()
+              : new ArrayList<>(rule.getRequestTypes());
+      // A pattern which is a literal prefix is matched without a regular expression. Otherwise a
+      // bad pattern throws PatternSyntaxException, which is an IllegalArgumentException.
+      String pattern = rule.getKeyPattern();
+      this.keyed = pattern != null;
+      if (pattern != null && LITERAL_PREFIX.matcher(pattern).matches()) {
+        this.keyPrefix = pattern.substring(0, pattern.length() - 2);
+        this.keyPattern = null;
+      } else {
+        this.keyPrefix = null;
+        this.keyPattern = pattern == null ? null : Pattern.compile(pattern);
+      }
+      this.header = rule.getHeader();
+      this.headerValue = rule.getHeaderValue();
+      this.probability = rule.getPercentage() / 100;
+    }
+
+    private boolean selects(HttpServletRequest request, String text, int keyStart, int keyEnd) {
+      if (header != null) {
+        String value = request.getHeader(header);
+        if (value == null || (headerValue != null && !headerValue.equals(value))) {
+          return false;
+        }
+      }
+      if (!keyed) {
+        return true;
+      }
+      if (text == null) {
+        return false;
+      }
+      if (keyPrefix != null) {
+        return keyEnd - keyStart >= keyPrefix.length() && text.startsWith(keyPrefix, keyStart);
+      }
+      return keyPattern.matcher(text).region(keyStart, keyEnd).matches();
+    }
+
+    private boolean draw() {
+      return probability >= 1
+          || (probability > 0 && ThreadLocalRandom.current().nextDouble() < probability);
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package uk.gov.ons.ctp.integration.mock.filter;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+import uk.gov.ons.ctp.integration.mock.metrics.AllocationRecorder;
+
+/**
+ * Measures the heap allocated by the thread handling each request to a mock endpoint.
+ *
+ * <p>Like the metrics filter, this runs after the latency filter and also handles the asynchronous
+ * dispatch of a delayed request, so the allocation measured is the mock's work on the thread that
+ * answers the request.
+ */
+public class AllocationFilter extends OncePerRequestFilter {
+  private final AllocationRecorder recorder;
+
+  /**
+   * Constructor.
+   *
+   * @param recorder records the allocation, or is null if it isn't measured.
+   */
+  public AllocationFilter(AllocationRecorder recorder) {
+    this.recorder = recorder;
+  }
+
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    RequestType requestType = RequestClassifier.classify(request);
+    long startBytes = requestType == null || recorder == null ? -1 : recorder.allocatedBytes();
+    if (startBytes < 0) {
+      chain.doFilter(request, response);
+      return;
+    }
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      long endBytes = recorder.allocatedBytes();
+      if (endBytes >= startBytes) {
+        recorder.record(requestType, endBytes - startBytes);
+      }
+    }
+  }
+}
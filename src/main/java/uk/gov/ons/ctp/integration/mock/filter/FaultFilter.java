@@ -0,0 +1,176 @@
+package uk.gov.ons.ctp.integration.mock.filter;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import io.undertow.server.ServerConnection;
+import io.undertow.servlet.spec.HttpServletRequestImpl;
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.AsyncContext;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+import org.xnio.Options;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+import uk.gov.ons.ctp.integration.mock.fault.FaultInjector;
+import uk.gov.ons.ctp.integration.mock.fault.FaultRules;
+import uk.gov.ons.ctp.integration.mock.metrics.RequestOutcome;
+
+/**
+ * Injects faults into the responses of the mock endpoints, as selected by the rules of a {@link
+ * FaultInjector}.
+ *
+ * <p>This runs after the latency filter, so that a delayed request fails once its delay is over.
+ * As a delayed request reaches the endpoint through an asynchronous dispatch, this filter also
+ * handles those. A hanging request is held in asynchronous mode, like a delayed one, so it doesn't
+ * hold a worker thread.
+ */
+@Slf4j
+public class FaultFilter extends OncePerRequestFilter {
+  // How long after its hang a request is allowed to complete, before the container times it out
+  private static final long ASYNC_TIMEOUT_GRACE_MILLIS = 60_000;
+
+  private final FaultInjector injector;
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * Constructor.
+   *
+   * @param injector holds the rules in force.
+   * @param scheduler ends hanging requests.
+   */
+  public FaultFilter(FaultInjector injector, ScheduledExecutorService scheduler) {
+    this.injector = injector;
+    this.scheduler = scheduler;
+  }
+
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    RequestType requestType = RequestClassifier.classify(request);
+    FaultRules rules = injector.rules();
+    if (requestType == null || !rules.hasRules(requestType)) {
+      chain.doFilter(request, response);
+      return;
+    }
+    FaultRules.Rule rule = find(rules, requestType, request);
+    if (rule == null) {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    RequestOutcome.FAULT.set(request);
+    log.debug(
+        "Injecting fault",
+        kv("rule", rule.getName()),
+        kv("action", rule.getAction()),
+        kv("requestType", requestType.name()));
+    switch (rule.getAction()) {
+      case STATUS:
+        response.sendError(rule.getStatus());
+        break;
+      case RESET:
+        closeConnection(request, response);
+        break;
+      case HANG:
+        hang(request, response, rule.getMillis());
+        break;
+      case TRUNCATE:
+        truncate(request, response, chain, rule.getBodyFraction());
+        break;
+      default:
+        chain.doFilter(request, response);
+        break;
+    }
+  }
+
+  /**
+   * Finds the fault to inject into a request. A key in the request URI which needn't be decoded is
+   * matched where it is, so that a request which isn't failed allocates nothing here unless a rule
+   * has a full regular expression.
+   *
+   * @param rules are the rules in force.
+   * @param requestType is the type of request, as classified.
+   * @param request is the request.
+   * @return the first rule which fails the request, or null if it isn't to fail.
+   */
+  public static FaultRules.Rule find(
+      FaultRules rules, RequestType requestType, HttpServletRequest request) {
+    if (!rules.isKeyed(requestType)) {
+      return rules.find(requestType, request, null);
+    }
+    int keyStart = RequestClassifier.keyStart(request, requestType);
+    if (keyStart < 0) {
+      return rules.find(requestType, request, RequestClassifier.nameOf(request, requestType));
+    }
+    String uri = request.getRequestURI();
+    return rules.find(requestType, request, uri, keyStart, RequestClassifier.keyEnd(uri, keyStart));
+  }
+
+  private void hang(HttpServletRequest request, HttpServletResponse response, long millis) {
+    AsyncContext async = request.startAsync();
+    async.setTimeout(millis + ASYNC_TIMEOUT_GRACE_MILLIS);
+    scheduler.schedule(
+        () -> {
+          try {
+            closeConnection(request, response);
+          } catch (IOException e) {
+            log.debug("Failed to close hanging connection", kv("error", e.getMessage()));
+          } finally {
+            async.complete();
+          }
+        },
+        millis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  // Sends the start of the endpoint's response, with the length of the whole of it
+  private static void truncate(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      FilterChain chain,
+      double bodyFraction)
+      throws ServletException, IOException {
+    ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+    chain.doFilter(request, wrapper);
+    if (response.isCommitted() || request.isAsyncStarted()) {
+      // There is no body to truncate, as the response is an error or is yet to be written
+      wrapper.copyBodyToResponse();
+      return;
+    }
+    byte[] body = wrapper.getContentAsByteArray();
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body, 0, (int) (body.length * bodyFraction));
+    response.flushBuffer();
+    closeConnection(request, response);
+  }
+
+  private static void closeConnection(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    HttpServletRequestImpl undertowRequest =
+        WebUtils.getNativeRequest(request, HttpServletRequestImpl.class);
+    if (undertowRequest != null) {
+      // Closes with a linger of zero, so that the client sees a reset rather than a clean close
+      ServerConnection connection = undertowRequest.getExchange().getConnection();
+      connection.setOption(Options.CLOSE_ABORT, true);
+      connection.close();
+      return;
+    }
+    // Other containers can't drop a connection, so the client is asked to close it instead
+    response.setHeader(HttpHeaders.CONNECTION, "close");
+    response.flushBuffer();
+  }
+}
@@ -0,0 +1,31 @@
+package uk.gov.ons.ctp.integration.mock.filter;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * The order in which the mock's servlet filters run. Lower values run first.
+ *
+ * <p>These all run after Spring's own filters, including the security filter chain, so a filter
+ * which completes a response asynchronously doesn't stop those from seeing the request.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class FilterOrder {
+  /** Journals each request as its client saw it, including any refusal or delay. */
+  public static final int JOURNAL = 300;
+
+  /** Refuses requests over a rate limit, before they are delayed. */
+  public static final int RATE_LIMIT = 400;
+
+  /** Delays the response, without holding a worker thread. */
+  public static final int LATENCY = 500;
+
+  /** Times the mock's own handling of a request, after any delay. */
+  public static final int METRICS = 550;
+
+  /** Measures the heap allocated by a request, after any delay. */
+  public static final int ALLOCATION = 560;
+
+  /** Injects faults, after any delay. */
+  public static final int FAULTS = 600;
+}
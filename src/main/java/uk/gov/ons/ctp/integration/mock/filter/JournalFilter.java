@@ -0,0 +1,117 @@
+package uk.gov.ons.ctp.integration.mock.filter;
+
+import java.io.IOException;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+import uk.gov.ons.ctp.integration.mock.journal.RequestJournal;
+
+/**
+ * Records each request to a mock endpoint in the {@link RequestJournal}, as its client saw it.
+ *
+ * <p>This runs before the other filters, so the journal includes requests refused by a rate limit,
+ * and the latency of a delayed request includes its delay. A request which goes asynchronous is
+ * recorded when it completes.
+ */
+public class JournalFilter extends OncePerRequestFilter {
+  private final RequestJournal journal;
+
+  public JournalFilter(RequestJournal journal) {
+    this.journal = journal;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    RequestType requestType = RequestClassifier.classify(request);
+    if (requestType == null) {
+      chain.doFilter(request, response);
+      return;
+    }
+    long epochMillis = System.currentTimeMillis();
+    long startTime = System.nanoTime();
+    boolean completed = true;
+    try {
+      chain.doFilter(request, response);
+      if (request.isAsyncStarted()) {
+        completed = false;
+        request
+            .getAsyncContext()
+            .addListener(new Completion(request, response, requestType, epochMillis, startTime));
+      }
+    } finally {
+      if (completed) {
+        record(request, response, requestType, epochMillis, startTime);
+      }
+    }
+  }
+
+  private void record(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      RequestType requestType,
+      long epochMillis,
+      long startTime) {
+    long latencyNanos = System.nanoTime() - startTime;
+    String contentLength = response.getHeader(HttpHeaders.CONTENT_LENGTH);
+    journal.record(
+        epochMillis,
+        request.getMethod(),
+        requestType,
+        RequestClassifier.nameOf(request, requestType),
+        response.getStatus(),
+        latencyNanos,
+        contentLength == null ? -1 : Long.parseLong(contentLength));
+  }
+
+  // Records an asynchronous request once it has completed, however it ended
+  private final class Completion implements AsyncListener {
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final RequestType requestType;
+    private final long epochMillis;
+    private final long startTime;
+
+    private Completion(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        RequestType requestType,
+        long epochMillis,
+        long startTime) {
+      this.request = request;
+      this.response = response;
+      this.requestType = requestType;
+      this.epochMillis = epochMillis;
+      this.startTime = startTime;
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      record(request, response, requestType, epochMillis, startTime);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      // Followed by onComplete
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      // Followed by onComplete
+    }
+
+    // A request which is delayed and then hung goes asynchronous twice, and starting the second
+    // cycle drops the listeners of the first
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      event.getAsyncContext().addListener(this);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package uk.gov.ons.ctp.integration.mock.filter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.AsyncContext;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+import uk.gov.ons.ctp.integration.mock.latency.CapturedLatencies;
+import uk.gov.ons.ctp.integration.mock.latency.CapturedLatency;
+import uk.gov.ons.ctp.integration.mock.latency.LatencyConfig;
+import uk.gov.ons.ctp.integration.mock.latency.LatencyProfile;
+import uk.gov.ons.ctp.integration.mock.latency.LatencySampler;
+
+/**
+ * Delays the responses of the mock endpoints, as configured for each type of request.
+ *
+ * <p>When captured latency is replayed, a request whose response was captured is delayed by as
+ * long as AI took to answer it (or the page it asks for), scaled by the replay factor. Other
+ * requests fall back to the profile of their type.
+ *
+ * <p>A request which is to be delayed is put into asynchronous mode, and its worker thread is
+ * released straight away. A scheduler then dispatches the request to the endpoint once the delay
+ * is over, so any number of requests can be waiting without holding worker threads. As the
+ * request is dispatched asynchronously this filter doesn't see it a second time.
+ */
+public class LatencyFilter extends OncePerRequestFilter {
+  // How long after its delay a request is allowed to complete, before the container times it out
+  private static final long ASYNC_TIMEOUT_GRACE_MILLIS = 60_000;
+
+  private final Map<RequestType, LatencySampler> samplers = new EnumMap<>(RequestType.class);
+  private final boolean replayCaptured;
+  private final double replayScale;
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * Constructor.
+   *
+   * @param config holds the delay of each type of request, and whether captured latency is
+   *     replayed.
+   * @param scheduler dispatches delayed requests.
+   */
+  public LatencyFilter(LatencyConfig config, ScheduledExecutorService scheduler) {
+    for (Map.Entry<RequestType, LatencyProfile> profile : config.getProfiles().entrySet()) {
+      samplers.put(profile.getKey(), LatencySampler.of(profile.getValue()));
+    }
+    this.replayCaptured = config.isReplayCaptured();
+    this.replayScale = config.getReplayScale();
+    this.scheduler = scheduler;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    RequestType requestType = RequestClassifier.classify(request);
+    long delayMillis = requestType == null ? 0 : delayMillis(request, requestType);
+    if (delayMillis <= 0 || !request.isAsyncSupported()) {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    AsyncContext async = request.startAsync();
+    async.setTimeout(delayMillis + ASYNC_TIMEOUT_GRACE_MILLIS);
+    scheduler.schedule(() -> async.dispatch(), delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private long delayMillis(HttpServletRequest request, RequestType requestType) {
+    if (replayCaptured) {
+      String name = RequestClassifier.nameOf(request, requestType);
+      CapturedLatency captured = name == null ? null : CapturedLatencies.find(requestType, name);
+      if (captured != null) {
+        return Math.round(captured.millisAt(offsetOf(request)) * replayScale);
+      }
+    }
+    LatencySampler sampler = samplers.get(requestType);
+    return sampler == null ? 0 : sampler.sampleMillis();
+  }
+
+  private static int offsetOf(HttpServletRequest request) {
+    String offset = request.getParameter("offset");
+    if (offset == null) {
+      return 0;
+    }
+    try {
+      return Integer.parseInt(offset.trim());
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+}
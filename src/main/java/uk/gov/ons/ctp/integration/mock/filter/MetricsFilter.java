@@ -0,0 +1,76 @@
+package uk.gov.ons.ctp.integration.mock.filter;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+import uk.gov.ons.ctp.integration.mock.jfr.RequestEvent;
+import uk.gov.ons.ctp.integration.mock.metrics.MockMetrics;
+import uk.gov.ons.ctp.integration.mock.metrics.RequestOutcome;
+
+/**
+ * Times how long the mock takes to answer each request to a mock endpoint, by the outcome recorded
+ * for the request. Each request is also recorded as a Flight Recorder {@link RequestEvent}, when a
+ * recording is running.
+ *
+ * <p>This runs after the latency filter, and also handles the asynchronous dispatch of a delayed
+ * request, so it times the mock's own work and not the latency it simulates.
+ */
+public class MetricsFilter extends OncePerRequestFilter {
+  private final MockMetrics metrics;
+
+  public MetricsFilter(MockMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    RequestType requestType = RequestClassifier.classify(request);
+    if (requestType == null) {
+      chain.doFilter(request, response);
+      return;
+    }
+    RequestEvent event = new RequestEvent();
+    event.begin();
+    long startTime = System.nanoTime();
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      RequestOutcome outcome = RequestOutcome.of(request);
+      // A request which went async unanswered is timed when it is dispatched again
+      if (outcome != RequestOutcome.NONE || !request.isAsyncStarted()) {
+        metrics.recordRequest(requestType, outcome, System.nanoTime() - startTime);
+        commit(event, request, response, requestType, outcome);
+      }
+    }
+  }
+
+  private static void commit(
+      RequestEvent event,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      RequestType requestType,
+      RequestOutcome outcome) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.setRequest(requestType, RequestClassifier.nameOf(request, requestType));
+      event.setOutcome(outcome);
+      String contentLength = response.getHeader(HttpHeaders.CONTENT_LENGTH);
+      if (contentLength != null) {
+        event.setPayloadBytes(Long.parseLong(contentLength));
+      }
+      event.commit();
+    }
+  }
+}
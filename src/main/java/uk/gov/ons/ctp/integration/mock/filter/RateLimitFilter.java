@@ -0,0 +1,54 @@
+package uk.gov.ons.ctp.integration.mock.filter;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+import uk.gov.ons.ctp.integration.mock.ratelimit.RateLimiter;
+
+/**
+ * Refuses requests to the mock endpoints which are over a rate limit, with a 429 and a Retry-After
+ * header, as AI does for callers which exceed their quota.
+ *
+ * <p>This runs before the latency filter, so a refused request is answered straight away.
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+  private static final long ONE_SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final RateLimiter limiter;
+
+  public RateLimitFilter(RateLimiter limiter) {
+    this.limiter = limiter;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    RequestType requestType = RequestClassifier.classify(request);
+    long waitNanos = requestType == null ? 0 : limiter.acquire(requestType, request);
+    if (waitNanos <= 0) {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    // Retry-After is in whole seconds, so round up to be sure the retry is allowed
+    long retryAfterSeconds = TimeUnit.NANOSECONDS.toSeconds(waitNanos + ONE_SECOND_NANOS - 1);
+    log.debug(
+        "Rate limited request",
+        kv("requestType", requestType.name()),
+        kv("retryAfterSeconds", retryAfterSeconds));
+    response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    response.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+  }
+}
@@ -0,0 +1,170 @@
+package uk.gov.ons.ctp.integration.mock.filter;
+
+import java.nio.charset.StandardCharsets;
+import javax.servlet.http.HttpServletRequest;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.web.util.UriUtils;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * Works out which {@link RequestType} a request to one of the mock endpoints is, before it reaches
+ * the endpoint, so that filters can treat each type of request differently.
+ *
+ * <p>The URL templates of the request types only hold literal text and variables which are a
+ * whole path segment, so a request is matched against them, and its key found, by walking its URI
+ * in place. Classifying a request, and finding a key which needn't be decoded, allocates nothing.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RequestClassifier {
+  private static final String REQUEST_TYPE_ATTRIBUTE =
+      RequestClassifier.class.getName() + ".requestType";
+
+  /**
+   * Classifies a request. The result is held as an attribute of the request, so a request is only
+   * matched once however many filters ask.
+   *
+   * @param request is the request.
+   * @return the type of request, or null if it isn't for one of the mock endpoints.
+   */
+  public static RequestType classify(HttpServletRequest request) {
+    Object held = request.getAttribute(REQUEST_TYPE_ATTRIBUTE);
+    if (held != null) {
+      return held instanceof RequestType ? (RequestType) held : null;
+    }
+    RequestType requestType = match(request);
+    request.setAttribute(REQUEST_TYPE_ATTRIBUTE, requestType == null ? Boolean.FALSE : requestType);
+    return requestType;
+  }
+
+  /**
+   * Returns the input of a request, which is the name its captured response is held under.
+   *
+   * @param request is the request.
+   * @param requestType is the type of request, as classified.
+   * @return the path variable or 'input' parameter of the request, or null if it has neither.
+   */
+  public static String nameOf(HttpServletRequest request, RequestType requestType) {
+    String name;
+    if (requestType.getUrl().indexOf('{') >= 0) {
+      String uri = request.getRequestURI();
+      int start = variableStart(uri, request.getContextPath().length(), requestType.getUrl());
+      name =
+          start < 0
+              ? null
+              : UriUtils.decode(uri.substring(start, keyEnd(uri, start)), StandardCharsets.UTF_8);
+    } else {
+      name = request.getParameter("input");
+    }
+
+    // As AddressesEndpoint, postcodes are held without their spaces
+    if (name != null && isPostcode(requestType)) {
+      name = name.replaceAll("\\s", "");
+    }
+    return name;
+  }
+
+  /**
+   * Finds the key of a request in its URI, so that it can be matched where it is rather than be
+   * copied out by {@link #nameOf}.
+   *
+   * @param request is the request.
+   * @param requestType is the type of request, as classified.
+   * @return the index in the request URI at which the key starts, or -1 if the URI doesn't hold the
+   *     key as it is, because it is a parameter or is encoded.
+   */
+  public static int keyStart(HttpServletRequest request, RequestType requestType) {
+    String uri = request.getRequestURI();
+    int start = variableStart(uri, request.getContextPath().length(), requestType.getUrl());
+    if (start < 0) {
+      return -1;
+    }
+    // An encoded key (which is the only way a postcode can hold a space) has to be decoded
+    int end = keyEnd(uri, start);
+    for (int i = start; i < end; i++) {
+      if (uri.charAt(i) == '%') {
+        return -1;
+      }
+    }
+    return start;
+  }
+
+  /**
+   * @param uri is the request URI.
+   * @param keyStart is the index at which the key starts, from {@link #keyStart}.
+   * @return the index in the request URI just after the key.
+   */
+  public static int keyEnd(String uri, int keyStart) {
+    int slash = uri.indexOf('/', keyStart);
+    return slash < 0 ? uri.length() : slash;
+  }
+
+  private static RequestType match(HttpServletRequest request) {
+    String uri = request.getRequestURI();
+    int from = request.getContextPath().length();
+    for (RequestType requestType : RequestType.values()) {
+      if (requestType != RequestType.AI_EQ_POSTCODE && matches(requestType.getUrl(), uri, from)) {
+        if (requestType == RequestType.AI_EQ && isPostcodeInput(request.getParameter("input"))) {
+          return RequestType.AI_EQ_POSTCODE;
+        }
+        return requestType;
+      }
+    }
+    return null;
+  }
+
+  // Matches the path of a URI, from an index, against a URL template
+  private static boolean matches(String url, String uri, int from) {
+    int u = 0;
+    int p = from;
+    while (u < url.length()) {
+      char c = url.charAt(u);
+      if (c == '{') {
+        // A variable is a whole, non-empty, path segment
+        int end = keyEnd(uri, p);
+        if (end == p) {
+          return false;
+        }
+        p = end;
+        u = url.indexOf('}', u) + 1;
+      } else if (p < uri.length() && uri.charAt(p) == c) {
+        u++;
+        p++;
+      } else {
+        return false;
+      }
+    }
+    return p == uri.length();
+  }
+
+  // The index of the first variable of a URL template in a URI which matches it, or -1
+  private static int variableStart(String uri, int from, String url) {
+    int variable = url.indexOf('{');
+    return variable >= 0 && uri.regionMatches(from, url, 0, variable) ? from + variable : -1;
+  }
+
+  private static boolean isPostcode(RequestType requestType) {
+    return requestType == RequestType.AI_RH_POSTCODE || requestType == RequestType.AI_POSTCODE;
+  }
+
+  // As AddressesEndpoint, AI answers type ahead searches for a postcode differently. The input is
+  // one or two letters and then a digit.
+  private static boolean isPostcodeInput(String input) {
+    if (input == null) {
+      return false;
+    }
+    int letters = 0;
+    while (letters < input.length() && letters < 3 && isAsciiLetter(input.charAt(letters))) {
+      letters++;
+    }
+    return letters >= 1
+        && letters <= 2
+        && letters < input.length()
+        && input.charAt(letters) >= '0'
+        && input.charAt(letters) <= '9';
+  }
+
+  private static boolean isAsciiLetter(char c) {
+    return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+  }
+}
@@ -0,0 +1,11 @@
+package uk.gov.ons.ctp.integration.mock.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** The capture of a response from AI, while the mock waits for it. */
+@Name("uk.gov.ons.ctp.mock.Capture")
+@Label("Capture From AI")
+@Description("Capture of a response from AI")
+public class CaptureEvent extends MockEvent {}
@@ -0,0 +1,19 @@
+package uk.gov.ons.ctp.integration.mock.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** The lookup of a captured response in the data held in memory. */
+@Name("uk.gov.ons.ctp.mock.Lookup")
+@Label("Look Up Captured Response")
+@Description("Lookup of a captured response in the data held in memory")
+public class LookupEvent extends MockEvent {
+  @Label("Found")
+  private boolean found;
+
+  /** @param found is true if a captured response was found. */
+  public void setFound(boolean found) {
+    this.found = found;
+  }
+}
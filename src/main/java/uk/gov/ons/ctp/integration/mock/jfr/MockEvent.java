@@ -0,0 +1,54 @@
+package uk.gov.ons.ctp.integration.mock.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * The fields shared by the Flight Recorder events of each stage of the mock's pipeline, so that a
+ * recording can be broken down by stage and by request type.
+ *
+ * <p>An event is used as Flight Recorder intends: it is begun and ended around the stage, and its
+ * fields are only worked out if {@link #shouldCommit} says the event is being recorded. When no
+ * recording is running that check is a constant, and the JIT removes the event altogether.
+ */
+@Category("ONS Mock")
+@StackTrace(false)
+public abstract class MockEvent extends Event {
+  @Label("Request Type")
+  protected String requestType;
+
+  @Label("Key")
+  protected String key;
+
+  @Label("Payload")
+  @DataAmount
+  protected long payloadBytes;
+
+  @Label("Addresses")
+  protected int addresses;
+
+  /**
+   * Sets the request the event is for.
+   *
+   * @param requestType is the type of request.
+   * @param key is the name of the response, such as a postcode or case id.
+   */
+  public void setRequest(RequestType requestType, String key) {
+    this.requestType = requestType == null ? null : requestType.name();
+    this.key = key;
+  }
+
+  /** @param payloadBytes is the size of the data handled by the stage. */
+  public void setPayloadBytes(long payloadBytes) {
+    this.payloadBytes = payloadBytes;
+  }
+
+  /** @param addresses is the number of addresses handled by the stage. */
+  public void setAddresses(int addresses) {
+    this.addresses = addresses;
+  }
+}
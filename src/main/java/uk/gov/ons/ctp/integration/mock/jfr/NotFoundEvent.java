@@ -0,0 +1,11 @@
+package uk.gov.ons.ctp.integration.mock.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** The building of the not-found response for a request. */
+@Name("uk.gov.ons.ctp.mock.NotFound")
+@Label("Not Found Response")
+@Description("Building of the not-found response")
+public class NotFoundEvent extends MockEvent {}
@@ -0,0 +1,11 @@
+package uk.gov.ons.ctp.integration.mock.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** The parsing and rendering of a captured response, as it is loaded or captured. */
+@Name("uk.gov.ons.ctp.mock.Parse")
+@Label("Parse Captured Response")
+@Description("Jackson parsing and pre-rendering of a captured response")
+public class ParseEvent extends MockEvent {}
@@ -0,0 +1,14 @@
+package uk.gov.ons.ctp.integration.mock.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The selection of a response body from a captured response, such as slicing a page of addresses or
+ * leaving out the case events.
+ */
+@Name("uk.gov.ons.ctp.mock.Render")
+@Label("Render Response")
+@Description("Selection of the response body from a captured response")
+public class RenderEvent extends MockEvent {}
@@ -0,0 +1,24 @@
+package uk.gov.ons.ctp.integration.mock.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import uk.gov.ons.ctp.integration.mock.metrics.RequestOutcome;
+
+/**
+ * The whole of the mock's handling of a request, after any simulated latency. This includes the
+ * writing of the response, so the time not taken by the events of the other stages is mostly
+ * Spring's dispatch and the writing of the response.
+ */
+@Name("uk.gov.ons.ctp.mock.Request")
+@Label("Mock Request")
+@Description("Handling of a request by the mock, including writing the response")
+public class RequestEvent extends MockEvent {
+  @Label("Outcome")
+  private String outcome;
+
+  /** @param outcome is how the request was answered. */
+  public void setOutcome(RequestOutcome outcome) {
+    this.outcome = outcome.tag();
+  }
+}
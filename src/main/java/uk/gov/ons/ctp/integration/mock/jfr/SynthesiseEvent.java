@@ -0,0 +1,11 @@
+package uk.gov.ons.ctp.integration.mock.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** The building of a response from the address index, for a request with no captured response. */
+@Name("uk.gov.ons.ctp.mock.Synthesise")
+@Label("Synthesise Response")
+@Description("Building of a response from the address index")
+public class SynthesiseEvent extends MockEvent {}
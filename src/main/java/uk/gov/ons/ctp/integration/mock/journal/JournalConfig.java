@@ -0,0 +1,12 @@
+package uk.gov.ons.ctp.integration.mock.journal;
+
+import lombok.Data;
+
+@Data
+public class JournalConfig {
+  /** Whether requests to the mock endpoints are journalled. */
+  private boolean enabled = true;
+
+  /** How many of the latest requests are held. This is rounded up to a power of two. */
+  private int capacity = 4096;
+}
@@ -0,0 +1,20 @@
+package uk.gov.ons.ctp.integration.mock.journal;
+
+import lombok.Data;
+
+/** A request held in the journal. */
+@Data
+public class JournalEntryDTO {
+  /** The position of the request in the journal, counting from when the mock started. */
+  private long sequence;
+
+  private String time;
+  private String method;
+  private String requestType;
+  private String key;
+  private int status;
+  private double latencyMillis;
+
+  /** The length of the response body, or null if this wasn't given. */
+  private Long bytes;
+}
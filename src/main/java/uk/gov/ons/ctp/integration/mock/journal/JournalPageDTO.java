@@ -0,0 +1,23 @@
+package uk.gov.ons.ctp.integration.mock.journal;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** A page of the requests held in the journal, newest first. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalPageDTO {
+  /** The number of requests the journal can hold. */
+  private int capacity;
+
+  /** The number of requests journalled since the mock started. */
+  private long recorded;
+
+  /** The number of requests which couldn't be journalled, as their slot was being written. */
+  private long dropped;
+
+  private List<JournalEntryDTO> entries;
+}
@@ -0,0 +1,184 @@
+package uk.gov.ons.ctp.integration.mock.journal;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * Holds the latest requests to the mock endpoints, in a ring buffer which is allocated up front,
+ * so that the journal takes the same memory however many requests there are.
+ *
+ * <p>Recording a request doesn't lock. A writer takes the next sequence number from an {@link
+ * AtomicLong}, and writes the slot it maps to as a sequence lock: the slot's sequence is claimed
+ * with a compare and set, the fields are written, and the sequence is published. If another writer
+ * still holds the slot, which takes a whole lap of the buffer while it writes, the request is
+ * dropped and counted rather than waited for. A reader copies a slot and then checks its sequence
+ * is unchanged, skipping any slot which was rewritten as it was read.
+ */
+public class RequestJournal {
+  // The sequences of a slot which has never been written, and of one which is being written
+  private static final long EMPTY = -2;
+  private static final long WRITING = -1;
+
+  // Longer keys are cut short, so that an entry holds a bounded amount of memory
+  private static final int MAX_KEY_LENGTH = 200;
+
+  private static final VarHandle SEQUENCE;
+
+  static {
+    try {
+      SEQUENCE = MethodHandles.lookup().findVarHandle(Entry.class, "sequence", long.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private final Entry[] entries;
+  private final int mask;
+  private final AtomicLong next = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+
+  /**
+   * Constructor.
+   *
+   * @param capacity is how many requests are held, which is rounded up to a power of two.
+   * @throws IllegalArgumentException if the capacity isn't positive.
+   */
+  public RequestJournal(int capacity) {
+    if (capacity < 1 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("Journal capacity must be from 1 to 2^30: " + capacity);
+    }
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) {
+      size <<= 1;
+    }
+    entries = new Entry[size];
+    for (int i = 0; i < size; i++) {
+      entries[i] = new Entry();
+    }
+    mask = size - 1;
+  }
+
+  /**
+   * Records a request, overwriting the oldest one held once the journal is full.
+   *
+   * @param epochMillis is when the request arrived.
+   * @param method is the HTTP method.
+   * @param requestType is the type of request.
+   * @param key is the name of the response, such as a postcode or case id, or null if none.
+   * @param status is the response status.
+   * @param latencyNanos is how long the request took.
+   * @param bytes is the length of the response body, or -1 if this wasn't given.
+   */
+  public void record(
+      long epochMillis,
+      String method,
+      RequestType requestType,
+      String key,
+      int status,
+      long latencyNanos,
+      long bytes) {
+    long sequence = next.getAndIncrement();
+    Entry entry = entries[(int) sequence & mask];
+    long previous = (long) SEQUENCE.getVolatile(entry);
+    // A slot being written, or already written by a later request, is left to its writer
+    if (previous == WRITING
+        || previous > sequence
+        || !SEQUENCE.compareAndSet(entry, previous, WRITING)) {
+      dropped.incrementAndGet();
+      return;
+    }
+    entry.epochMillis = epochMillis;
+    entry.method = method;
+    entry.requestType = requestType;
+    entry.key =
+        key != null && key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    entry.status = status;
+    entry.latencyNanos = latencyNanos;
+    entry.bytes = bytes;
+    SEQUENCE.setRelease(entry, sequence);
+  }
+
+  /**
+   * Returns a page of the requests held, newest first.
+   *
+   * @param filter selects the requests to return.
+   * @param offset is how many of the selected requests to skip.
+   * @param limit is the most requests to return.
+   * @return the page.
+   */
+  public JournalPageDTO page(Predicate<JournalEntryDTO> filter, int offset, int limit) {
+    long last = next.get() - 1;
+    long first = Math.max(0, last - mask);
+    List<JournalEntryDTO> page = new ArrayList<>();
+    int skipped = 0;
+    for (long sequence = last; sequence >= first && page.size() < limit; sequence--) {
+      JournalEntryDTO copy = read(sequence);
+      if (copy != null && filter.test(copy)) {
+        if (skipped < offset) {
+          skipped++;
+        } else {
+          page.add(copy);
+        }
+      }
+    }
+    return new JournalPageDTO(entries.length, next.get(), dropped.get(), page);
+  }
+
+  /** @return the number of requests the journal holds. */
+  public int capacity() {
+    return entries.length;
+  }
+
+  // Copies an entry, or returns null if it has been rewritten or is being written
+  private JournalEntryDTO read(long sequence) {
+    Entry entry = entries[(int) sequence & mask];
+    if ((long) SEQUENCE.getAcquire(entry) != sequence) {
+      return null;
+    }
+    long epochMillis = entry.epochMillis;
+    String method = entry.method;
+    RequestType requestType = entry.requestType;
+    String key = entry.key;
+    int status = entry.status;
+    long latencyNanos = entry.latencyNanos;
+    long bytes = entry.bytes;
+    // Make sure the fields are read before the sequence is checked again
+    VarHandle.acquireFence();
+    if ((long) SEQUENCE.getVolatile(entry) != sequence) {
+      return null;
+    }
+
+    JournalEntryDTO copy = new JournalEntryDTO();
+    copy.setSequence(sequence);
+    copy.setTime(Instant.ofEpochMilli(epochMillis).toString());
+    copy.setMethod(method);
+    copy.setRequestType(requestType == null ? null : requestType.name());
+    copy.setKey(key);
+    copy.setStatus(status);
+    copy.setLatencyMillis(latencyNanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    copy.setBytes(bytes < 0 ? null : bytes);
+    return copy;
+  }
+
+  // A slot of the ring buffer, which is reused for every request mapped to it
+  private static final class Entry {
+    // Set with the SEQUENCE handle, so that every access to it can be ordered as needed
+    @SuppressWarnings("unused")
+    private long sequence = EMPTY;
+
+    private long epochMillis;
+    private String method;
+    private RequestType requestType;
+    private String key;
+    private int status;
+    private long latencyNanos;
+    private long bytes;
+  }
+}
@@ -0,0 +1,92 @@
+package uk.gov.ons.ctp.integration.mock.latency;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import uk.gov.ons.ctp.integration.mock.data.DataRepository;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+import uk.gov.ons.ctp.integration.mock.util.ObjectMapperRegistry;
+
+/**
+ * Holds the latency recorded for each captured response, by data directory and normalised name.
+ *
+ * <p>The latency files beside the data files are all loaded when the application starts, so that
+ * replay doesn't touch the classpath, and a capture adds the latency it records.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CapturedLatencies {
+  private static final Map<String, CapturedLatency> latencies = new ConcurrentHashMap<>();
+  private static boolean loaded;
+
+  /**
+   * Loads the latency files of all captured data.
+   *
+   * @throws IOException if a latency file could not be found or read.
+   */
+  public static synchronized void load() throws IOException {
+    if (loaded) {
+      return;
+    }
+    PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+    ObjectReader reader = ObjectMapperRegistry.get().reader(CapturedLatency.class);
+    Set<String> paths = new LinkedHashSet<>();
+    for (RequestType requestType : RequestType.values()) {
+      paths.add(requestType.getPath());
+    }
+
+    int suffixLength = CapturedLatency.FILE_SUFFIX.length();
+    int files = 0;
+    for (String path : paths) {
+      String pattern = "classpath*:data" + path + "/*" + CapturedLatency.FILE_SUFFIX;
+      for (Resource resource : resolver.getResources(pattern)) {
+        String fileName = resource.getFilename();
+        String name = fileName.substring(0, fileName.length() - suffixLength);
+        try (InputStream in = resource.getInputStream()) {
+          // Don't replace a latency captured while loading
+          latencies.putIfAbsent(key(path, name), reader.readValue(in));
+        }
+        files++;
+      }
+    }
+    loaded = true;
+    log.info("Loaded captured latency", kv("files", files));
+  }
+
+  /**
+   * Returns the latency recorded when a response was captured.
+   *
+   * @param requestType is the type of request.
+   * @param name is the name the data is held under.
+   * @return the latency, or null if none was recorded.
+   */
+  public static CapturedLatency find(RequestType requestType, String name) {
+    return latencies.get(key(requestType.getPath(), name));
+  }
+
+  /**
+   * Holds (or replaces) the latency of a captured response.
+   *
+   * @param requestType is the type of request the response is for.
+   * @param name is the name the data is held under.
+   * @param latency is the completed latency.
+   */
+  public static void put(RequestType requestType, String name, CapturedLatency latency) {
+    latencies.put(key(requestType.getPath(), name), latency);
+  }
+
+  private static String key(String path, String name) {
+    return path + "/" + DataRepository.normaliseFileName(name);
+  }
+}
@@ -0,0 +1,75 @@
+package uk.gov.ons.ctp.integration.mock.latency;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * How long AI took to answer while a response was being captured. This is saved beside the data
+ * file, so that replay can reproduce the timing of each query.
+ *
+ * <p>Each request made to AI is recorded as a page, by its offset. A response which AI returned in
+ * a single request has a single page, at offset 0. Pages may be recorded concurrently, and are put
+ * into offset order when the capture completes.
+ */
+@Data
+public class CapturedLatency {
+  /** The suffix of the file a latency is saved in, beside the data file. */
+  public static final String FILE_SUFFIX = ".latency";
+
+  /** How long the whole capture took, including any concurrent fetching of pages. */
+  private long totalMillis;
+
+  /** How long AI took to answer each request, in offset order. */
+  private List<Page> pages = new ArrayList<>();
+
+  /**
+   * Records how long AI took to answer a request.
+   *
+   * @param offset is the offset of the first result requested. A negative offset is recorded as 0.
+   * @param millis is how long AI took to answer.
+   */
+  public synchronized void recordPage(int offset, long millis) {
+    pages.add(new Page(Math.max(offset, 0), millis));
+  }
+
+  /**
+   * Records the end of the capture.
+   *
+   * @param totalMillis is how long the whole capture took.
+   */
+  public synchronized void complete(long totalMillis) {
+    this.totalMillis = totalMillis;
+    pages.sort(Comparator.comparingInt(Page::getOffset));
+  }
+
+  /**
+   * Returns how long AI took to answer a request for a page.
+   *
+   * @param offset is the offset of the first result requested.
+   * @return the latency of the page holding the offset, or the total if no pages were recorded.
+   *     This is only called once the capture is complete.
+   */
+  public long millisAt(int offset) {
+    long millis = totalMillis;
+    for (Page page : pages) {
+      if (page.getOffset() > offset) {
+        break;
+      }
+      millis = page.getMillis();
+    }
+    return millis;
+  }
+
+  /** The latency of a single request to AI. */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Page {
+    private int offset;
+    private long millis;
+  }
+}
@@ -0,0 +1,24 @@
+package uk.gov.ons.ctp.integration.mock.latency;
+
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+@Data
+public class LatencyConfig {
+  /** Whether responses are delayed at all. */
+  private boolean enabled;
+
+  /** The delay of each type of request. Types without a profile aren't delayed. */
+  private Map<RequestType, LatencyProfile> profiles = new HashMap<>();
+
+  /**
+   * Whether a request whose response was captured is delayed by as long as AI took to answer it
+   * during capture, in place of its profile.
+   */
+  private boolean replayCaptured;
+
+  /** The factor the captured latency is scaled by when it is replayed. */
+  private double replayScale = 1.0;
+}
@@ -0,0 +1,44 @@
+package uk.gov.ons.ctp.integration.mock.latency;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * Describes how long responses to a type of request are delayed. Which of the fields are used
+ * depends on the distribution.
+ */
+@Data
+public class LatencyProfile {
+  public enum Distribution {
+    /** Always {@code millis}. */
+    FIXED,
+    /** Evenly spread between {@code minMillis} and {@code maxMillis}. */
+    UNIFORM,
+    /**
+     * Log-normal around {@code medianMillis}, with the spread given by {@code sigma}, and capped at
+     * {@code maxMillis} if that is set.
+     */
+    LOG_NORMAL,
+    /**
+     * Interpolated from a table of {@code percentiles}, such as one measured from the real service.
+     * The highest percentile given is taken to be the longest delay.
+     */
+    EMPIRICAL
+  }
+
+  private Distribution distribution = Distribution.FIXED;
+  private long millis;
+  private long minMillis;
+  private long maxMillis;
+  private long medianMillis;
+  private double sigma;
+  private List<Percentile> percentiles = new ArrayList<>();
+
+  /** A point of an empirical distribution: the given percentage of delays are no longer. */
+  @Data
+  public static class Percentile {
+    private double percentile;
+    private long millis;
+  }
+}
@@ -0,0 +1,115 @@
+package uk.gov.ons.ctp.integration.mock.latency;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws delays from the distribution of a {@link LatencyProfile}. The profile is validated and
+ * compiled when the sampler is built, so sampling is just arithmetic on a random number.
+ */
+public abstract class LatencySampler {
+  /** @return a delay, in milliseconds. */
+  public abstract long sampleMillis();
+
+  /**
+   * Builds a sampler.
+   *
+   * @param profile describes the distribution.
+   * @return the sampler.
+   * @throws IllegalArgumentException if the profile doesn't describe a distribution.
+   */
+  public static LatencySampler of(LatencyProfile profile) {
+    switch (profile.getDistribution()) {
+      case FIXED:
+        return fixed(profile);
+      case UNIFORM:
+        return uniform(profile);
+      case LOG_NORMAL:
+        return logNormal(profile);
+      case EMPIRICAL:
+        return empirical(profile);
+      default:
+        throw new IllegalArgumentException(
+            "Unsupported latency distribution: " + profile.getDistribution());
+    }
+  }
+
+  private static LatencySampler fixed(LatencyProfile profile) {
+    long millis = profile.getMillis();
+    require(millis >= 0, "millis must not be negative");
+    return new LatencySampler() {
+      @Override
+      public long sampleMillis() {
+        return millis;
+      }
+    };
+  }
+
+  private static LatencySampler uniform(LatencyProfile profile) {
+    long min = profile.getMinMillis();
+    long max = profile.getMaxMillis();
+    require(min >= 0 && max >= min, "minMillis must not be negative, nor more than maxMillis");
+    return new LatencySampler() {
+      @Override
+      public long sampleMillis() {
+        return ThreadLocalRandom.current().nextLong(min, max + 1);
+      }
+    };
+  }
+
+  private static LatencySampler logNormal(LatencyProfile profile) {
+    long median = profile.getMedianMillis();
+    double sigma = profile.getSigma();
+    long max = profile.getMaxMillis() > 0 ? profile.getMaxMillis() : Long.MAX_VALUE;
+    require(median > 0, "medianMillis must be positive");
+    require(sigma >= 0, "sigma must not be negative");
+    return new LatencySampler() {
+      @Override
+      public long sampleMillis() {
+        double millis = median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian());
+        return Math.min(Math.round(millis), max);
+      }
+    };
+  }
+
+  private static LatencySampler empirical(LatencyProfile profile) {
+    List<LatencyProfile.Percentile> points = new ArrayList<>(profile.getPercentiles());
+    require(!points.isEmpty(), "percentiles must be given");
+    points.sort(Comparator.comparingDouble(LatencyProfile.Percentile::getPercentile));
+
+    // Delays below the lowest percentile given are all taken to be its delay
+    int n = points.size() + 1;
+    double[] percentiles = new double[n];
+    long[] millis = new long[n];
+    millis[0] = points.get(0).getMillis();
+    for (int i = 1; i < n; i++) {
+      LatencyProfile.Percentile point = points.get(i - 1);
+      require(
+          point.getPercentile() > percentiles[i - 1] && point.getPercentile() <= 100,
+          "percentiles must be distinct, and between 0 and 100");
+      require(point.getMillis() >= millis[i - 1], "millis must not fall as percentiles rise");
+      percentiles[i] = point.getPercentile();
+      millis[i] = point.getMillis();
+    }
+    return new LatencySampler() {
+      @Override
+      public long sampleMillis() {
+        double p = ThreadLocalRandom.current().nextDouble(percentiles[n - 1]);
+        int i = 1;
+        while (percentiles[i] < p) {
+          i++;
+        }
+        double fraction = (p - percentiles[i - 1]) / (percentiles[i] - percentiles[i - 1]);
+        return Math.round(millis[i - 1] + fraction * (millis[i] - millis[i - 1]));
+      }
+    };
+  }
+
+  private static void require(boolean valid, String message) {
+    if (!valid) {
+      throw new IllegalArgumentException("Invalid latency profile: " + message);
+    }
+  }
+}
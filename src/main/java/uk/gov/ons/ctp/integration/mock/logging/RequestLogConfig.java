@@ -0,0 +1,18 @@
+package uk.gov.ons.ctp.integration.mock.logging;
+
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+@Data
+public class RequestLogConfig {
+  /** The fraction of requests which are logged, from 0 to 1, for types without their own rate. */
+  private double sampleRate = 1.0;
+
+  /** The fraction of requests of a type which are logged, in place of the sample rate. */
+  private Map<RequestType, Double> sampleRates = new HashMap<>();
+
+  /** How often a summary of the requests and misses of each type is logged, or 0 for never. */
+  private long summarySeconds = 60;
+}
@@ -0,0 +1,133 @@
+package uk.gov.ons.ctp.integration.mock.logging;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * Decides which requests to the mock endpoints are logged, and counts them all, so that the logs
+ * keep a view of the traffic without a line for every request.
+ *
+ * <p>Each request and each miss is counted, and is only logged if it is sampled, at the rate set
+ * for its type. The counts are logged as a single summary line at intervals (see {@link
+ * #scheduleSummaries}), on a thread of the sampler's own, so that a slow appender can't hold up
+ * the scheduler of the rate limit and fault filters. The counters are {@link LongAdder}s, and the
+ * sampling is a thread local random number, so neither is contended.
+ *
+ * <p>Like {@link uk.gov.ons.ctp.integration.mock.endpoint.ResponseBuilder}, this is reached
+ * statically, so that the endpoints can use it. Until one is set, every request is logged.
+ */
+@Slf4j
+public class RequestLogSampler implements AutoCloseable {
+  private static volatile RequestLogSampler current = new RequestLogSampler(new RequestLogConfig());
+
+  private final double[] sampleRates = new double[RequestType.values().length];
+  private final LongAdder[] requests = new LongAdder[RequestType.values().length];
+  private final LongAdder[] misses = new LongAdder[RequestType.values().length];
+  // Its thread isn't started until a summary is scheduled
+  private final ScheduledExecutorService summaries =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "request-log-summary");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * Constructor.
+   *
+   * @param config sets the sample rate of each type of request.
+   * @throws IllegalArgumentException if a rate isn't from 0 to 1.
+   */
+  public RequestLogSampler(RequestLogConfig config) {
+    for (RequestType requestType : RequestType.values()) {
+      double rate = config.getSampleRates().getOrDefault(requestType, config.getSampleRate());
+      if (!(rate >= 0 && rate <= 1)) {
+        throw new IllegalArgumentException(
+            "Sample rate of " + requestType.name() + " must be from 0 to 1: " + rate);
+      }
+      sampleRates[requestType.ordinal()] = rate;
+      requests[requestType.ordinal()] = new LongAdder();
+      misses[requestType.ordinal()] = new LongAdder();
+    }
+  }
+
+  /**
+   * Sets the sampler used from then on.
+   *
+   * @param sampler is the sampler.
+   */
+  public static void setCurrent(RequestLogSampler sampler) {
+    current = sampler;
+  }
+
+  /**
+   * Counts a request to a mock endpoint.
+   *
+   * @param requestType is the type of request.
+   * @return true if the request should be logged.
+   */
+  public static boolean request(RequestType requestType) {
+    RequestLogSampler sampler = current;
+    sampler.requests[requestType.ordinal()].increment();
+    return sampler.sample(requestType);
+  }
+
+  /**
+   * Counts a request which has no captured response.
+   *
+   * @param requestType is the type of request.
+   * @return true if the miss should be logged.
+   */
+  public static boolean miss(RequestType requestType) {
+    RequestLogSampler sampler = current;
+    sampler.misses[requestType.ordinal()].increment();
+    return sampler.sample(requestType);
+  }
+
+  /**
+   * Logs a summary at intervals from now on.
+   *
+   * @param seconds is the interval between summaries.
+   */
+  public void scheduleSummaries(long seconds) {
+    summaries.scheduleAtFixedRate(this::logSummary, seconds, seconds, TimeUnit.SECONDS);
+  }
+
+  /** Logs the number of requests and misses of each type since the last summary, if any. */
+  public void logSummary() {
+    Map<String, Long> requestCounts = new TreeMap<>();
+    Map<String, Long> missCounts = new TreeMap<>();
+    for (RequestType requestType : RequestType.values()) {
+      long requestCount = requests[requestType.ordinal()].sumThenReset();
+      if (requestCount > 0) {
+        requestCounts.put(requestType.name(), requestCount);
+      }
+      long missCount = misses[requestType.ordinal()].sumThenReset();
+      if (missCount > 0) {
+        missCounts.put(requestType.name(), missCount);
+      }
+    }
+    if (!requestCounts.isEmpty() || !missCounts.isEmpty()) {
+      log.info("Request summary", kv("requests", requestCounts), kv("misses", missCounts));
+    }
+  }
+
+  @Override
+  public void close() {
+    summaries.shutdownNow();
+  }
+
+  private boolean sample(RequestType requestType) {
+    double rate = sampleRates[requestType.ordinal()];
+    return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+  }
+}
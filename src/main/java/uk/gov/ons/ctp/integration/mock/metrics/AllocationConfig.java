@@ -0,0 +1,12 @@
+package uk.gov.ons.ctp.integration.mock.metrics;
+
+import lombok.Data;
+
+@Data
+public class AllocationConfig {
+  /**
+   * Whether the heap allocated while handling each request is measured. This is only done if the
+   * JVM can count the bytes allocated by a thread.
+   */
+  private boolean enabled = true;
+}
@@ -0,0 +1,73 @@
+package uk.gov.ons.ctp.integration.mock.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.management.ManagementFactory;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * Records the heap allocated while handling requests, as the summary mock.requests.allocated, with
+ * a percentile histogram for each type of request.
+ *
+ * <p>The allocation is measured with the JVM's count of the bytes allocated by each thread, so it
+ * only covers the work done on the thread handling the request, and includes any garbage made by
+ * Spring and the container on the way.
+ */
+public class AllocationRecorder {
+  private static final double MIN_EXPECTED_BYTES = 1024;
+  private static final double MAX_EXPECTED_BYTES = 1L << 30;
+
+  private final com.sun.management.ThreadMXBean threads;
+  private final DistributionSummary[] allocated;
+
+  /**
+   * Constructor.
+   *
+   * @param registry is where the summaries are registered.
+   * @throws IllegalStateException if the JVM can't count the bytes allocated by a thread.
+   */
+  public AllocationRecorder(MeterRegistry registry) {
+    if (!isSupported()) {
+      throw new IllegalStateException("Thread allocation counting isn't supported by this JVM");
+    }
+    threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if (!threads.isThreadAllocatedMemoryEnabled()) {
+      threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    allocated = new DistributionSummary[RequestType.values().length];
+    for (RequestType requestType : RequestType.values()) {
+      allocated[requestType.ordinal()] =
+          DistributionSummary.builder("mock.requests.allocated")
+              .description("Heap allocated by the thread handling a request")
+              .baseUnit("bytes")
+              .tag("requestType", requestType.name())
+              .publishPercentileHistogram()
+              .minimumExpectedValue(MIN_EXPECTED_BYTES)
+              .maximumExpectedValue(MAX_EXPECTED_BYTES)
+              .register(registry);
+    }
+  }
+
+  /** @return true if the JVM can count the bytes allocated by a thread. */
+  public static boolean isSupported() {
+    java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    return threads instanceof com.sun.management.ThreadMXBean
+        && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported();
+  }
+
+  /** @return the bytes allocated so far by the current thread, or -1 if this isn't counted. */
+  public long allocatedBytes() {
+    return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * Records the heap allocated while handling a request.
+   *
+   * @param requestType is the type of request.
+   * @param bytes is the number of bytes allocated.
+   */
+  public void record(RequestType requestType, long bytes) {
+    allocated[requestType.ordinal()].record(bytes);
+  }
+}
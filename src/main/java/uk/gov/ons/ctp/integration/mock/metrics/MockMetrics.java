@@ -0,0 +1,109 @@
+package uk.gov.ons.ctp.integration.mock.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import uk.gov.ons.ctp.integration.mock.data.DataRepository;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * Records the metrics of the mock endpoints.
+ *
+ * <p>Every meter is registered up front and held in arrays indexed by request type and outcome, so
+ * recording a request is a couple of array reads and meter updates, without any tag lookups.
+ *
+ * <ul>
+ *   <li>mock.requests: a timer, with a percentile histogram, of the time the mock takes to answer
+ *       each type of request (not counting any simulated latency), by outcome.
+ *   <li>mock.response.bytes: a counter of the response bytes served for each type of request.
+ *   <li>mock.response.addresses: a summary of the addresses in each page served from a capture.
+ *   <li>mock.data.files, mock.data.heap.bytes and mock.data.addresses: gauges of the size of the
+ *       loaded data.
+ * </ul>
+ */
+public class MockMetrics {
+  private final Timer[][] timers;
+  private final Counter[] bytesServed;
+  private final DistributionSummary[] addressesServed;
+
+  /**
+   * Constructor.
+   *
+   * @param registry is where the meters are registered.
+   */
+  public MockMetrics(MeterRegistry registry) {
+    RequestType[] requestTypes = RequestType.values();
+    RequestOutcome[] outcomes = RequestOutcome.values();
+    timers = new Timer[requestTypes.length][outcomes.length];
+    bytesServed = new Counter[requestTypes.length];
+    addressesServed = new DistributionSummary[requestTypes.length];
+
+    for (RequestType requestType : requestTypes) {
+      for (RequestOutcome outcome : outcomes) {
+        timers[requestType.ordinal()][outcome.ordinal()] =
+            Timer.builder("mock.requests")
+                .description("Time taken by the mock to answer a request")
+                .tag("requestType", requestType.name())
+                .tag("outcome", outcome.tag())
+                .publishPercentileHistogram()
+                .register(registry);
+      }
+      bytesServed[requestType.ordinal()] =
+          Counter.builder("mock.response.bytes")
+              .description("Response body bytes served")
+              .baseUnit("bytes")
+              .tag("requestType", requestType.name())
+              .register(registry);
+      addressesServed[requestType.ordinal()] =
+          DistributionSummary.builder("mock.response.addresses")
+              .description("Addresses in each page served from a capture")
+              .tag("requestType", requestType.name())
+              .register(registry);
+    }
+
+    Gauge.builder("mock.data.files", DataRepository::fileCount)
+        .description("Captured data files loaded")
+        .register(registry);
+    Gauge.builder("mock.data.heap.bytes", DataRepository::heapBytes)
+        .description("Approximate heap held by the captured data")
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder("mock.data.addresses", DataRepository::addressCount)
+        .description("Distinct addresses in the captured data")
+        .register(registry);
+  }
+
+  /**
+   * Records how long the mock took to answer a request.
+   *
+   * @param requestType is the type of request.
+   * @param outcome is how the request was answered.
+   * @param nanos is how long it took.
+   */
+  public void recordRequest(RequestType requestType, RequestOutcome outcome, long nanos) {
+    timers[requestType.ordinal()][outcome.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records a response body served.
+   *
+   * @param requestType is the type of request.
+   * @param bytes is the length of the body.
+   */
+  public void recordBytes(RequestType requestType, int bytes) {
+    bytesServed[requestType.ordinal()].increment(bytes);
+  }
+
+  /**
+   * Records a page of addresses served from a capture.
+   *
+   * @param requestType is the type of request.
+   * @param addresses is the number of addresses in the page.
+   */
+  public void recordAddresses(RequestType requestType, int addresses) {
+    addressesServed[requestType.ordinal()].record(addresses);
+  }
+}
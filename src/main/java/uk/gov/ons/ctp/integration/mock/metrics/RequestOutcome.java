@@ -0,0 +1,58 @@
+package uk.gov.ons.ctp.integration.mock.metrics;
+
+import java.util.Locale;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * How a request to a mock endpoint was answered. This is held as an attribute of the request by
+ * whatever decides it, so that the request's metrics can be split by it.
+ */
+public enum RequestOutcome {
+  /** Answered from a captured response. */
+  HIT,
+  /** Answered without a captured response, from other captures or with a not-found response. */
+  MISS,
+  /** Answered from a response captured from AI on the fly. */
+  CAPTURE,
+  /** Failed by an injected fault or a scenario. */
+  FAULT,
+  /** Not answered by the mock, such as a request which failed validation. */
+  NONE;
+
+  private static final String ATTRIBUTE = RequestOutcome.class.getName();
+
+  private final String tag = name().toLowerCase(Locale.ROOT);
+
+  /** @return the value of the outcome's metrics tag. */
+  public String tag() {
+    return tag;
+  }
+
+  /**
+   * Records this as the outcome of a request.
+   *
+   * @param request is the request.
+   */
+  public void set(HttpServletRequest request) {
+    request.setAttribute(ATTRIBUTE, this);
+  }
+
+  /** Records this as the outcome of the request being handled by the current thread, if any. */
+  public void setCurrent() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes != null) {
+      attributes.setAttribute(ATTRIBUTE, this, RequestAttributes.SCOPE_REQUEST);
+    }
+  }
+
+  /**
+   * @param request is the request.
+   * @return the outcome recorded for the request, or NONE if none was.
+   */
+  public static RequestOutcome of(HttpServletRequest request) {
+    Object outcome = request.getAttribute(ATTRIBUTE);
+    return outcome instanceof RequestOutcome ? (RequestOutcome) outcome : NONE;
+  }
+}
@@ -0,0 +1,18 @@
+package uk.gov.ons.ctp.integration.mock.miss;
+
+import lombok.Data;
+
+@Data
+public class MissConfig {
+  /** Whether the keys of requests without a captured response are tracked. */
+  private boolean enabled = true;
+
+  /** How many of the most missed keys are held for each type of request. */
+  private int topKeys = 64;
+
+  /**
+   * The number of counters in each row of the count-min sketch of each type of request, which is
+   * rounded up to a power of two. More counters make the counts more accurate.
+   */
+  private int sketchWidth = 4096;
+}
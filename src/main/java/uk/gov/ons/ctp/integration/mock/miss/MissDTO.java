@@ -0,0 +1,17 @@
+package uk.gov.ons.ctp.integration.mock.miss;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** A key which was requested without a captured response, and about how often it was. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MissDTO {
+  private String requestType;
+  private String key;
+
+  /** The number of misses, which may be overestimated but is never underestimated. */
+  private long count;
+}
@@ -0,0 +1,200 @@
+package uk.gov.ons.ctp.integration.mock.miss;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * Tracks the keys most often requested without a captured response, for each type of request, in a
+ * fixed amount of memory, so that the mock can be told what to capture next.
+ *
+ * <p>Each miss is counted in a count-min sketch: a few rows of counters, with the key hashed to
+ * one counter in each row. The rows are indexed by two hashes of the key, as h1 + row * h2, which
+ * are taken from a 64 bit hash of its characters rather than from {@link String#hashCode}, so that
+ * keys with the same hash code don't share a counter in every row. The smallest of a key's
+ * counters is its count, which can be too high where keys share counters, but is never too low.
+ * Beside the sketch is a small table of the most missed keys: a key which is missed more than the
+ * least missed key in the table takes its place.
+ *
+ * <p>Nothing is locked. The counters are atomic, and a key takes its place in the table with a
+ * compare and set, which is simply given up if another miss changed the table first. So under
+ * contention the table may briefly miss a key, or hold one twice, which only matters for keys
+ * that are close to the bottom of it.
+ */
+public class MissTracker {
+  private static final int SKETCH_DEPTH = 4;
+
+  private final Tracked[] tracked = new Tracked[RequestType.values().length];
+
+  /**
+   * Constructor.
+   *
+   * @param config sets how many keys are held and how large the sketches are.
+   * @throws IllegalArgumentException if the sizes are out of range.
+   */
+  public MissTracker(MissConfig config) {
+    if (config.getTopKeys() < 1 || config.getTopKeys() > 10_000) {
+      throw new IllegalArgumentException("Top keys must be from 1 to 10000");
+    }
+    if (config.getSketchWidth() < 1 || config.getSketchWidth() > 1 << 24) {
+      throw new IllegalArgumentException("Sketch width must be from 1 to 2^24");
+    }
+    for (RequestType requestType : RequestType.values()) {
+      tracked[requestType.ordinal()] = new Tracked(config.getTopKeys(), config.getSketchWidth());
+    }
+  }
+
+  /**
+   * Counts a request which had no captured response.
+   *
+   * @param requestType is the type of request.
+   * @param key is the name the response would be held under.
+   */
+  public void record(RequestType requestType, String key) {
+    if (key != null) {
+      tracked[requestType.ordinal()].record(key);
+    }
+  }
+
+  /**
+   * Returns the most missed keys, most missed first.
+   *
+   * @param requestType is the type of request to list, or null to list every type.
+   * @param limit is the most keys to return for each type of request.
+   * @return the keys, with their counts.
+   */
+  public List<MissDTO> top(RequestType requestType, int limit) {
+    List<MissDTO> misses = new ArrayList<>();
+    for (RequestType type : RequestType.values()) {
+      if (requestType == null || requestType == type) {
+        misses.addAll(tracked[type.ordinal()].top(type, limit));
+      }
+    }
+    return misses;
+  }
+
+  /** Forgets every miss. */
+  public void reset() {
+    for (Tracked t : tracked) {
+      t.reset();
+    }
+  }
+
+  // The sketch and table of most missed keys of one type of request
+  private static final class Tracked {
+    private final AtomicLongArray counters;
+    private final int widthMask;
+    private final AtomicReferenceArray<Candidate> candidates;
+
+    private Tracked(int topKeys, int sketchWidth) {
+      int width = Integer.highestOneBit(sketchWidth);
+      if (width < sketchWidth) {
+        width <<= 1;
+      }
+      this.counters = new AtomicLongArray(SKETCH_DEPTH * width);
+      this.widthMask = width - 1;
+      this.candidates = new AtomicReferenceArray<>(topKeys);
+    }
+
+    private void record(String key) {
+      long hash = hash(key);
+      long count = Long.MAX_VALUE;
+      for (int row = 0; row < SKETCH_DEPTH; row++) {
+        count = Math.min(count, counters.incrementAndGet(index(hash, row)));
+      }
+
+      // Find the key in the table, or else the slot of the least missed key
+      int leastSlot = -1;
+      Candidate least = null;
+      for (int slot = 0; slot < candidates.length(); slot++) {
+        Candidate candidate = candidates.get(slot);
+        if (candidate == null) {
+          leastSlot = slot;
+          least = null;
+          break;
+        }
+        if (candidate.hash == hash && candidate.key.equals(key)) {
+          candidate.count = count;
+          return;
+        }
+        if (least == null || candidate.count < least.count) {
+          leastSlot = slot;
+          least = candidate;
+        }
+      }
+      if (least == null || count > least.count) {
+        candidates.compareAndSet(leastSlot, least, new Candidate(key, hash, count));
+      }
+    }
+
+    private List<MissDTO> top(RequestType requestType, int limit) {
+      // Count each key again, as its count in the table may be out of date
+      Map<String, Long> counts = new HashMap<>();
+      for (int slot = 0; slot < candidates.length(); slot++) {
+        Candidate candidate = candidates.get(slot);
+        if (candidate != null) {
+          counts.put(candidate.key, count(candidate.hash));
+        }
+      }
+      List<MissDTO> misses = new ArrayList<>();
+      counts.forEach((key, count) -> misses.add(new MissDTO(requestType.name(), key, count)));
+      misses.sort(Comparator.comparingLong(MissDTO::getCount).reversed());
+      return misses.size() > limit ? new ArrayList<>(misses.subList(0, limit)) : misses;
+    }
+
+    private void reset() {
+      for (int slot = 0; slot < candidates.length(); slot++) {
+        candidates.set(slot, null);
+      }
+      for (int i = 0; i < counters.length(); i++) {
+        counters.set(i, 0);
+      }
+    }
+
+    private long count(long hash) {
+      long count = Long.MAX_VALUE;
+      for (int row = 0; row < SKETCH_DEPTH; row++) {
+        count = Math.min(count, counters.get(index(hash, row)));
+      }
+      return count;
+    }
+
+    // Finds a key's counter in a row from the two halves of its hash. The second is made odd, so
+    // that two keys which share a counter in one row are unlikely to share one in the next.
+    private int index(long hash, int row) {
+      int h1 = (int) hash;
+      int h2 = (int) (hash >>> 32) | 1;
+      return row * (widthMask + 1) + ((h1 + row * h2) & widthMask);
+    }
+  }
+
+  // Hashes the characters of a key with FNV-1a, finished with the mix of SplitMix64 so that every
+  // character affects both halves of the hash
+  static long hash(String key) {
+    long h = 0xCBF29CE484222325L;
+    for (int i = 0; i < key.length(); i++) {
+      h = (h ^ key.charAt(i)) * 0x100000001B3L;
+    }
+    h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+    h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+    return h ^ (h >>> 31);
+  }
+
+  // A key in the table, with its count when it was last missed
+  private static final class Candidate {
+    private final String key;
+    private final long hash;
+    private volatile long count;
+
+    private Candidate(String key, long hash, long count) {
+      this.key = key;
+      this.hash = hash;
+      this.count = count;
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package uk.gov.ons.ctp.integration.mock.ratelimit;
+
+import java.util.HashSet;
+import java.util.Set;
+import lombok.Data;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * A token bucket limit on the rate of requests to the mock endpoints. A request over the limit is
+ * answered with a 429, and a Retry-After header saying when the next request would be allowed.
+ */
+@Data
+public class RateLimit {
+  /** What a limit applies to. */
+  public enum Scope {
+    /** Each type of request has its own bucket, shared by all clients. */
+    ENDPOINT,
+    /** Each client has its own bucket, shared by all of the limit's types of request. */
+    CLIENT
+  }
+
+  /** Identifies the limit in logs. */
+  private String name;
+
+  /** The types of request the limit applies to. If empty it applies to all of them. */
+  private Set<RequestType> requestTypes = new HashSet<>();
+
+  private Scope scope = Scope.ENDPOINT;
+
+  /**
+   * The header which identifies a client, for a CLIENT limit. Requests without it, or when it
+   * isn't set, are identified by their remote address.
+   */
+  private String clientHeader;
+
+  /** The rate at which the bucket refills. */
+  private double requestsPerSecond = 10;
+
+  /** The size of the bucket, which is the number of requests allowed at once after idling. */
+  private int burst = 10;
+}
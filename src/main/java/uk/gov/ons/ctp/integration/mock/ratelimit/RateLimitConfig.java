@@ -0,0 +1,14 @@
+package uk.gov.ons.ctp.integration.mock.ratelimit;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class RateLimitConfig {
+  /** Whether requests are rate limited at all. */
+  private boolean enabled;
+
+  /** The limits. A request must be within all of the limits which apply to it. */
+  private List<RateLimit> limits = new ArrayList<>();
+}
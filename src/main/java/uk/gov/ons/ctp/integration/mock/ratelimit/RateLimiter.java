@@ -0,0 +1,180 @@
+package uk.gov.ons.ctp.integration.mock.ratelimit;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.servlet.http.HttpServletRequest;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * Applies token bucket rate limits to requests, without locking.
+ *
+ * <p>Each bucket is held as the single time at which it will next be full (the generic cell rate
+ * algorithm), in an {@link AtomicLong}. A request moves that time on by one interval with a
+ * compare and set, unless doing so would put it more than a burst ahead of now, in which case the
+ * request is refused and the excess is how long the client should wait. So a bucket costs one
+ * atomic update per request, and buckets are never locked.
+ *
+ * <p>A request must be allowed by every limit which applies to it. If one limit refuses it, the
+ * tokens already taken from the other limits are given back, so that refused requests don't use
+ * up the buckets they passed, and the wait is the longest of all of the limits.
+ *
+ * <p>Client buckets are held in a concurrent map. A bucket which has refilled is no different from
+ * a new one, so {@link #expireFull} drops these, which bounds the memory used however many clients
+ * there are.
+ */
+public class RateLimiter {
+  private static final Limit[] NO_LIMITS = new Limit[0];
+
+  private final List<Limit> limits = new ArrayList<>();
+  private final Limit[][] limitsByType = new Limit[RequestType.values().length][];
+
+  /**
+   * Constructor.
+   *
+   * @param limits are the limits to apply.
+   * @throws IllegalArgumentException if a limit is invalid.
+   */
+  public RateLimiter(List<RateLimit> limits) {
+    for (RateLimit limit : limits) {
+      this.limits.add(new Limit(limit));
+    }
+    for (RequestType requestType : RequestType.values()) {
+      List<Limit> applicable = new ArrayList<>();
+      for (Limit limit : this.limits) {
+        if (limit.requestTypes.isEmpty() || limit.requestTypes.contains(requestType)) {
+          applicable.add(limit);
+        }
+      }
+      limitsByType[requestType.ordinal()] = applicable.toArray(NO_LIMITS);
+    }
+  }
+
+  /**
+   * Takes a token for a request from each bucket which applies to it.
+   *
+   * @param requestType is the type of request.
+   * @param request is the request, which identifies its client.
+   * @return zero if the request is allowed, or else how many nanoseconds until it would be.
+   */
+  public long acquire(RequestType requestType, HttpServletRequest request) {
+    Limit[] limits = limitsByType[requestType.ordinal()];
+    if (limits.length == 0) {
+      return 0;
+    }
+    long now = System.nanoTime();
+    for (int i = 0; i < limits.length; i++) {
+      long waitNanos = limits[i].acquire(limits[i].bucket(requestType, request, now), now);
+      if (waitNanos > 0) {
+        // Give back the tokens taken from the limits which allowed the request
+        for (int j = 0; j < i; j++) {
+          limits[j].release(limits[j].bucket(requestType, request, now));
+        }
+        // The request can only be retried once every limit would allow it
+        for (int j = i + 1; j < limits.length; j++) {
+          AtomicLong bucket = limits[j].bucket(requestType, request, now);
+          waitNanos = Math.max(waitNanos, limits[j].waitNanos(bucket, now));
+        }
+        return waitNanos;
+      }
+    }
+    return 0;
+  }
+
+  /** Drops the client buckets which have refilled. */
+  public void expireFull() {
+    long now = System.nanoTime();
+    for (Limit limit : limits) {
+      limit.clientBuckets.values().removeIf(fullAt -> fullAt.get() - now <= 0);
+    }
+  }
+
+  // A single limit, with its buckets
+  private static final class Limit {
+    private final List<RequestType> requestTypes;
+    private final boolean perClient;
+    private final String clientHeader;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Map<RequestType, AtomicLong> endpointBuckets = new EnumMap<>(RequestType.class);
+    private final ConcurrentHashMap<String, AtomicLong> clientBuckets = new ConcurrentHashMap<>();
+
+    private Limit(RateLimit limit) {
+      String label = limit.getName() == null ? "unnamed" : limit.getName();
+      if (limit.getRequestsPerSecond() <= 0) {
+        throw new IllegalArgumentException(
+            "Rate limit " + label + " needs a positive requests per second");
+      }
+      if (limit.getBurst() < 1) {
+        throw new IllegalArgumentException("Rate limit " + label + " needs a burst of at least 1");
+      }
+      this.requestTypes =
+          limit.getRequestTypes() == null
+              ? new ArrayList<>()
+              : new ArrayList<>(limit.getRequestTypes());
+      this.perClient = limit.getScope() == RateLimit.Scope.CLIENT;
+      this.clientHeader = limit.getClientHeader();
+      this.intervalNanos =
+          Math.max((long) (TimeUnit.SECONDS.toNanos(1) / limit.getRequestsPerSecond()), 1);
+      this.burstNanos = intervalNanos * limit.getBurst();
+
+      // Endpoint buckets are made up front, so that they are only ever read concurrently
+      long now = System.nanoTime();
+      for (RequestType requestType : RequestType.values()) {
+        endpointBuckets.put(requestType, new AtomicLong(now));
+      }
+    }
+
+    private AtomicLong bucket(RequestType requestType, HttpServletRequest request, long now) {
+      if (!perClient) {
+        return endpointBuckets.get(requestType);
+      }
+      String client = clientHeader == null ? null : request.getHeader(clientHeader);
+      if (client == null) {
+        client = request.getRemoteAddr();
+      }
+      AtomicLong bucket = clientBuckets.get(client);
+      if (bucket == null) {
+        bucket = clientBuckets.computeIfAbsent(client, c -> new AtomicLong(now));
+      }
+      return bucket;
+    }
+
+    private long acquire(AtomicLong bucket, long now) {
+      while (true) {
+        long fullAt = bucket.get();
+        long newFullAt = nextFullAt(fullAt, now);
+        long waitNanos = newFullAt - now - burstNanos;
+        if (waitNanos > 0) {
+          return waitNanos;
+        }
+        if (bucket.compareAndSet(fullAt, newFullAt)) {
+          return 0;
+        }
+      }
+    }
+
+    // Gives back a token taken by acquire
+    private void release(AtomicLong bucket) {
+      while (true) {
+        long fullAt = bucket.get();
+        if (bucket.compareAndSet(fullAt, fullAt - intervalNanos)) {
+          return;
+        }
+      }
+    }
+
+    // How long until a request would be allowed, without taking a token
+    private long waitNanos(AtomicLong bucket, long now) {
+      return Math.max(nextFullAt(bucket.get(), now) - now - burstNanos, 0);
+    }
+
+    private long nextFullAt(long fullAt, long now) {
+      return (fullAt - now > 0 ? fullAt : now) + intervalNanos;
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package uk.gov.ons.ctp.integration.mock.scenario;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class ScenarioConfig {
+  /** How long the state of a key is kept after its last request. */
+  private long idleExpirySeconds = 600;
+
+  /** The most keys whose state is held. A new key beyond this gets its normal responses. */
+  private int maxKeys = 100_000;
+
+  /** The scenarios in force at startup, in the order they are tried. */
+  private List<ScenarioDefinition> definitions = new ArrayList<>();
+}
@@ -0,0 +1,45 @@
+package uk.gov.ons.ctp.integration.mock.scenario;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.Data;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * A sequence of responses which is played out separately for each key, such as failing twice with
+ * a 503 and then responding normally. Each request for a key moves its scenario on a step.
+ */
+@Data
+public class ScenarioDefinition {
+  /** Identifies the scenario, so that its state can be reset. */
+  private String name;
+
+  /** The types of request the scenario applies to. If empty it applies to all of them. */
+  private Set<RequestType> requestTypes = new HashSet<>();
+
+  /**
+   * A regular expression which the whole key of a request must match, or null for any key. The key
+   * is the postcode, UPRN, case id, case ref or search input of the request.
+   */
+  private String keyPattern;
+
+  /** The steps, in the order they are played. */
+  private List<Step> steps = new ArrayList<>();
+
+  /**
+   * Whether a key starts the steps again after the last one. Otherwise it stays on the last step.
+   */
+  private boolean repeat;
+
+  /** A status which is responded with for a number of consecutive requests. */
+  @Data
+  public static class Step {
+    /** The status to respond with. A success status gives the normal response. */
+    private int status = 200;
+
+    /** The number of requests this step lasts for. */
+    private int times = 1;
+  }
+}
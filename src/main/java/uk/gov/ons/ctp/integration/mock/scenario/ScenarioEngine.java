@@ -0,0 +1,263 @@
+package uk.gov.ons.ctp.integration.mock.scenario;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import uk.gov.ons.ctp.integration.mock.data.DataRepository;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * Plays out scenarios for each key, so that the responses for a key can change from one request to
+ * the next.
+ *
+ * <p>The state of a key is just the number of requests made for it, held in a concurrent map, so
+ * concurrent requests for the same key each move it on a step without locking, and requests for
+ * different keys don't contend. A key's state is dropped once it has been idle for the expiry
+ * time, and a new key is refused a scenario while the most keys are held, which bounds the memory
+ * used however many distinct keys are requested in that time. A refused key gets its normal
+ * responses, and a key which comes back after it has expired starts its scenario again.
+ *
+ * <p>Scenarios can be replaced while the mock is running, which restarts every key.
+ */
+@Slf4j
+public class ScenarioEngine implements AutoCloseable {
+  private static final Scenario[] NO_SCENARIOS = new Scenario[0];
+
+  private final long idleExpiryNanos;
+  private final int maxKeys;
+  private final AtomicLong refusedKeys = new AtomicLong();
+  private final ConcurrentHashMap<String, KeyState> states = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService expiry =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "scenario-expiry");
+            thread.setDaemon(true);
+            return thread;
+          });
+  private volatile Scenario[] scenarios = NO_SCENARIOS;
+
+  /**
+   * Constructor.
+   *
+   * @param config holds the scenarios in force at startup, how long idle keys are kept and how
+   *     many.
+   * @throws IllegalArgumentException if a scenario is invalid.
+   */
+  public ScenarioEngine(ScenarioConfig config) {
+    long idleExpirySeconds = Math.max(config.getIdleExpirySeconds(), 1);
+    this.idleExpiryNanos = TimeUnit.SECONDS.toNanos(idleExpirySeconds);
+    this.maxKeys = Math.max(config.getMaxKeys(), 1);
+    replace(config.getDefinitions());
+
+    long sweepSeconds = Math.max(idleExpirySeconds / 4, 1);
+    expiry.scheduleWithFixedDelay(this::expireIdle, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Moves the scenario of a request's key on a step.
+   *
+   * @param requestType is the type of request.
+   * @param name is the key of the request, which is the name its response is held under.
+   * @return the status to fail the request with, or null if it is to get its normal response.
+   */
+  public HttpStatus next(RequestType requestType, String name) {
+    for (Scenario scenario : scenarios) {
+      if (scenario.appliesTo(requestType, name)) {
+        String key = scenario.name + "/" + DataRepository.normaliseFileName(name);
+        KeyState state = states.get(key);
+        if (state == null) {
+          // Concurrent new keys can each pass this check, so the cap can be overshot by a few
+          if (states.size() >= maxKeys) {
+            refusedKeys.incrementAndGet();
+            return null;
+          }
+          state = states.computeIfAbsent(key, k -> new KeyState());
+        }
+        return scenario.outcomeAt(state.next());
+      }
+    }
+    return null;
+  }
+
+  /** @return the scenarios in force, in the order they are tried. */
+  public List<ScenarioDefinition> definitions() {
+    List<ScenarioDefinition> definitions = new ArrayList<>();
+    for (Scenario scenario : scenarios) {
+      definitions.add(scenario.definition);
+    }
+    return definitions;
+  }
+
+  /** @return the number of keys whose state is held. */
+  public int activeKeys() {
+    return states.size();
+  }
+
+  /** @return the most keys whose state is held. */
+  public int maxKeys() {
+    return maxKeys;
+  }
+
+  /** @return the number of requests for new keys refused a scenario as the most keys were held. */
+  public long refusedKeys() {
+    return refusedKeys.get();
+  }
+
+  /**
+   * Replaces all of the scenarios, and restarts every key.
+   *
+   * @param definitions are the new scenarios, in the order they are tried.
+   * @return the scenarios now in force.
+   * @throws IllegalArgumentException if a scenario is invalid, in which case nothing is changed.
+   */
+  public synchronized List<ScenarioDefinition> replace(List<ScenarioDefinition> definitions) {
+    Set<String> names = new HashSet<>();
+    List<Scenario> compiled = new ArrayList<>();
+    for (ScenarioDefinition definition : definitions) {
+      Scenario scenario = new Scenario(definition);
+      if (!names.add(scenario.name)) {
+        throw new IllegalArgumentException("Duplicate scenario name: " + scenario.name);
+      }
+      compiled.add(scenario);
+    }
+    scenarios = compiled.toArray(NO_SCENARIOS);
+    states.clear();
+    log.info("Replaced scenarios", kv("scenarios", names));
+    return definitions();
+  }
+
+  /** Restarts every key of every scenario. */
+  public void reset() {
+    states.clear();
+    log.info("Reset all scenarios");
+  }
+
+  /**
+   * Restarts every key of a scenario.
+   *
+   * @param scenarioName is the name of the scenario.
+   * @return false if there is no such scenario.
+   */
+  public boolean reset(String scenarioName) {
+    for (Scenario scenario : scenarios) {
+      if (scenario.name.equals(scenarioName)) {
+        String prefix = scenarioName + "/";
+        states.keySet().removeIf(key -> key.startsWith(prefix));
+        log.info("Reset scenario", kv("scenario", scenarioName));
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void close() {
+    expiry.shutdownNow();
+  }
+
+  // A request racing with the removal of its key's state may move on the old state, which just
+  // means that the key restarts one request later than it would have
+  private void expireIdle() {
+    expireIdle(System.nanoTime());
+  }
+
+  // Drops the keys idle for the expiry time at a given time, which tests can move on
+  void expireIdle(long now) {
+    int before = states.size();
+    states.values().removeIf(state -> now - state.lastUsedNanos > idleExpiryNanos);
+    int expired = before - states.size();
+    if (expired > 0) {
+      log.debug("Expired idle scenario keys", kv("expired", expired), kv("kept", states.size()));
+    }
+  }
+
+  private static final class KeyState {
+    private final AtomicLong requests = new AtomicLong();
+    private volatile long lastUsedNanos = System.nanoTime();
+
+    private long next() {
+      lastUsedNanos = System.nanoTime();
+      return requests.getAndIncrement();
+    }
+  }
+
+  // A scenario, compiled for playing
+  private static final class Scenario {
+    private final ScenarioDefinition definition;
+    private final String name;
+    private final Set<RequestType> requestTypes;
+    private final Pattern keyPattern;
+    private final boolean repeat;
+
+    // The number of requests up to the end of each step, and the outcome of each step
+    private final long[] stepEnds;
+    private final HttpStatus[] outcomes;
+
+    private Scenario(ScenarioDefinition definition) {
+      this.definition = definition;
+      this.name = definition.getName();
+      if (name == null || name.isEmpty()) {
+        throw new IllegalArgumentException("A scenario needs a name");
+      }
+      List<ScenarioDefinition.Step> steps = definition.getSteps();
+      if (steps == null || steps.isEmpty()) {
+        throw new IllegalArgumentException("Scenario " + name + " has no steps");
+      }
+
+      this.stepEnds = new long[steps.size()];
+      this.outcomes = new HttpStatus[steps.size()];
+      long end = 0;
+      for (int i = 0; i < steps.size(); i++) {
+        ScenarioDefinition.Step step = steps.get(i);
+        HttpStatus status = HttpStatus.resolve(step.getStatus());
+        if (status == null) {
+          throw new IllegalArgumentException(
+              "Scenario " + name + " has an unknown status: " + step.getStatus());
+        }
+        if (step.getTimes() < 1) {
+          throw new IllegalArgumentException("Scenario " + name + " has a step of no requests");
+        }
+        end += step.getTimes();
+        stepEnds[i] = end;
+        outcomes[i] = status.is2xxSuccessful() ? null : status;
+      }
+
+      this.requestTypes =
+          definition.getRequestTypes() == null || definition.getRequestTypes().isEmpty()
+              ? EnumSet.allOf(RequestType.class)
+              : EnumSet.copyOf(definition.getRequestTypes());
+      this.keyPattern =
+          definition.getKeyPattern() == null ? null : Pattern.compile(definition.getKeyPattern());
+      this.repeat = definition.isRepeat();
+    }
+
+    private boolean appliesTo(RequestType requestType, String key) {
+      return requestTypes.contains(requestType)
+          && (keyPattern == null || keyPattern.matcher(key).matches());
+    }
+
+    private HttpStatus outcomeAt(long request) {
+      long total = stepEnds[stepEnds.length - 1];
+      if (request >= total) {
+        request = repeat ? request % total : total - 1;
+      }
+      int step = 0;
+      while (request >= stepEnds[step]) {
+        step++;
+      }
+      return outcomes[step];
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package uk.gov.ons.ctp.integration.mock.scenario;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The scenarios in force, how many keys are part way through them, and how many new keys were
+ * refused a scenario as the most keys were already held.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScenarioStatusDTO {
+  private List<ScenarioDefinition> definitions;
+  private int activeKeys;
+  private int maxKeys;
+  private long refusedKeys;
+}
@@ -0,0 +1,82 @@
+package uk.gov.ons.ctp.integration.mock.util;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * Holds the single ObjectMapper used by the mock, along with immutable readers and writers for the
+ * response class of each {@link RequestType}.
+ *
+ * <p>Readers and writers are thread safe and keep their root (de)serialiser, so sharing them avoids
+ * rebuilding Jackson's caches on every request. They are built for every response class when the
+ * registry is created.
+ *
+ * <p>Jackson's Blackbird module, which generates bytecode for property access in place of
+ * reflection, is registered unless the system property {@value #BLACKBIRD_PROPERTY} is set to
+ * 'false'.
+ */
+@Slf4j
+public final class ObjectMapperRegistry {
+  public static final String BLACKBIRD_PROPERTY = "mock.jackson.blackbird";
+
+  private static final ObjectMapperRegistry INSTANCE =
+      new ObjectMapperRegistry(
+          Boolean.parseBoolean(System.getProperty(BLACKBIRD_PROPERTY, "true")));
+
+  private final ObjectMapper mapper;
+  private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+  private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+  private final Map<Class<?>, ObjectWriter> prettyWriters = new ConcurrentHashMap<>();
+
+  ObjectMapperRegistry(boolean useBlackbird) {
+    mapper = ObjectMapperFactory.objectMapper();
+    if (useBlackbird) {
+      mapper.registerModule(new BlackbirdModule());
+    }
+    for (RequestType requestType : RequestType.values()) {
+      Class<?> responseClass = requestType.getResponseClass();
+      reader(responseClass);
+      writer(responseClass);
+      prettyWriter(responseClass);
+    }
+    log.info("Built JSON readers and writers", kv("blackbird", useBlackbird));
+  }
+
+  /** @return the shared registry. */
+  public static ObjectMapperRegistry get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the shared mapper. This must not be reconfigured, as the readers and writers have
+   * already been built from it.
+   *
+   * @return the mapper.
+   */
+  public ObjectMapper mapper() {
+    return mapper;
+  }
+
+  public ObjectReader reader(Class<?> valueClass) {
+    return readers.computeIfAbsent(valueClass, mapper::readerFor);
+  }
+
+  public ObjectWriter writer(Class<?> valueClass) {
+    return writers.computeIfAbsent(valueClass, mapper::writerFor);
+  }
+
+  /** Returns a writer which indents its output, as used for captured data files. */
+  public ObjectWriter prettyWriter(Class<?> valueClass) {
+    return prettyWriters.computeIfAbsent(
+        valueClass, c -> mapper.writerFor(c).with(SerializationFeature.INDENT_OUTPUT));
+  }
+}
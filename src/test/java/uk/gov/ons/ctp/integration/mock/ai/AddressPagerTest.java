@@ -0,0 +1,128 @@
+package uk.gov.ons.ctp.integration.mock.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class AddressPagerTest {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @AfterEach
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void shouldFetchEveryPage() throws Exception {
+    assertSameAsSequential(new Search(250, 250, 100), 1000);
+    assertSameAsSequential(new Search(300, 300, 100), 1000);
+  }
+
+  @Test
+  public void shouldFetchSinglePage() throws Exception {
+    assertSameAsSequential(new Search(0, 0, 100), 1000);
+    assertSameAsSequential(new Search(1, 1, 100), 1000);
+  }
+
+  @Test
+  public void shouldCarryOnAfterPageWhichIsNotFull() throws Exception {
+    // AI answers with fewer addresses than are asked for
+    assertSameAsSequential(new Search(250, 250, 40), 1000);
+  }
+
+  @Test
+  public void shouldCarryOnPastWrongTotal() throws Exception {
+    assertSameAsSequential(new Search(80, 250, 100), 1000);
+    assertSameAsSequential(new Search(0, 250, 100), 1000);
+    assertSameAsSequential(new Search(400, 250, 100), 1000);
+  }
+
+  @Test
+  public void shouldStopAtMaximumResults() throws Exception {
+    assertSameAsSequential(new Search(1000, 1000, 100), 300);
+    assertSameAsSequential(new Search(1000, 1000, 70), 300);
+  }
+
+  private void assertSameAsSequential(Search search, int maximumResults) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    AddressPager pager = new AddressPager(executor, MAPPER, 3, maximumResults);
+    int count = pager.capture(search, MAPPER.writer(), out);
+
+    String expected = sequential(search, maximumResults);
+    assertEquals(expected, out.toString("UTF-8"));
+    assertEquals(MAPPER.readTree(expected).path("response").path("addresses").size(), count);
+  }
+
+  // How the pages were fetched and merged before they were fetched concurrently
+  @SuppressWarnings("unchecked")
+  private static String sequential(Search search, int maximumResults) throws Exception {
+    List<Map<String, Object>> results = new ArrayList<>();
+    int offset = 0;
+    while (offset < maximumResults) {
+      Map<String, Object> page = search.fetch(offset, AddressPager.PAGE_SIZE);
+      results.add(page);
+      int numFound = addresses(page).size();
+      if (numFound == 0) {
+        break;
+      }
+      offset += numFound;
+    }
+    List<Object> all = new ArrayList<>();
+    for (Map<String, Object> page : results) {
+      all.addAll(addresses(page));
+    }
+    Map<String, Object> result = results.get(0);
+    Map<String, Object> response = (Map<String, Object>) result.get("response");
+    response.put("addresses", all);
+    response.put("limit", -1);
+    return MAPPER.writeValueAsString(result);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Object> addresses(Map<String, Object> page) {
+    return (List<Object>) ((Map<String, Object>) page.get("response")).get("addresses");
+  }
+
+  // A search which has a number of addresses, but may claim a different total
+  private static final class Search implements AddressPager.PageFetcher {
+    private final int total;
+    private final int addresses;
+    private final int pageSize;
+
+    private Search(int total, int addresses, int pageSize) {
+      this.total = total;
+      this.addresses = addresses;
+      this.pageSize = pageSize;
+    }
+
+    @Override
+    public Map<String, Object> fetch(int offset, int limit) {
+      List<Object> page = new ArrayList<>();
+      int pageEnd = Math.min(offset + Math.min(limit, pageSize), addresses);
+      for (int i = offset; i < pageEnd; i++) {
+        page.add(Map.of("uprn", String.valueOf(100000 + i)));
+      }
+      Map<String, Object> response = new LinkedHashMap<>();
+      response.put("addresses", page);
+      response.put("offset", offset);
+      response.put("limit", limit);
+      response.put("total", total);
+      Map<String, Object> result = new LinkedHashMap<>();
+      result.put("apiVersion", "1");
+      result.put("response", response);
+      result.put("status", Map.of("code", 200));
+      return result;
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+/**
+ * Checks that the address index answers a request in the same way as AI did for each of the
+ * captured responses, which are held in the index along with every other captured address.
+ */
+public class AddressIndexTest {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static DataStore store;
+  private static AddressIndex index;
+
+  @BeforeAll
+  public static void load() throws Exception {
+    store = DataStore.load();
+    index = store.addressIndex();
+  }
+
+  @Test
+  public void shouldAnswerTypeAheadAsCaptured() throws Exception {
+    for (String input :
+        new String[] {"29 cf32tw", "8 fair cf51", "8 fair cf51a", "8 fair cf51ad"}) {
+      assertEquals(captured(RequestType.AI_EQ, input), synthesised(RequestType.AI_EQ, input));
+    }
+  }
+
+  @Test
+  public void shouldFindTheCapturedTypeAheadAddresses() throws Exception {
+    assertEquals(
+        new HashSet<>(uprns(captured(RequestType.AI_EQ, "29 cf32t"))),
+        new HashSet<>(uprns(synthesised(RequestType.AI_EQ, "29 cf32t"))));
+  }
+
+  @Test
+  public void shouldNotAnswerUnknownTypeAhead() {
+    assertNull(index.respond(RequestType.AI_EQ, "zzzz", 0, 0));
+  }
+
+  @Test
+  public void shouldAnswerUprnAsCaptured() throws Exception {
+    for (String uprn :
+        new String[] {"100040239948", "100040226442", "100100645811", "10013745617"}) {
+      assertEquals(
+          captured(RequestType.AI_RH_UPRN, uprn), synthesised(RequestType.AI_RH_UPRN, uprn));
+    }
+  }
+
+  @Test
+  public void shouldNotAnswerUnknownUprn() {
+    assertNull(index.respond(RequestType.AI_RH_UPRN, "99999999999", 0, 0));
+    assertNull(index.respond(RequestType.AI_RH_UPRN, "not-a-uprn", 0, 0));
+  }
+
+  @Test
+  public void shouldAnswerPostcodeAsCaptured() throws Exception {
+    for (String postcode : new String[] {"cf32tw", "ex24lu", "ex41eh"}) {
+      assertEquals(
+          captured(RequestType.AI_POSTCODE, postcode, 0, 100),
+          synthesised(RequestType.AI_POSTCODE, postcode, 0, 100));
+      assertEquals(
+          captured(RequestType.AI_POSTCODE, postcode, 10, 5),
+          synthesised(RequestType.AI_POSTCODE, postcode, 10, 5));
+    }
+  }
+
+  @Test
+  public void shouldAnswerRhPostcodeAsCaptured() throws Exception {
+    for (String postcode : new String[] {"cf32tw", "ex24lu"}) {
+      assertEquals(
+          captured(RequestType.AI_RH_POSTCODE, postcode, 0, 100),
+          synthesised(RequestType.AI_RH_POSTCODE, postcode, 0, 100));
+      assertEquals(
+          captured(RequestType.AI_RH_POSTCODE, postcode, 10, 5),
+          synthesised(RequestType.AI_RH_POSTCODE, postcode, 10, 5));
+    }
+  }
+
+  @Test
+  public void shouldNotAnswerUnknownPostcode() {
+    assertNull(index.respond(RequestType.AI_POSTCODE, "zz99zz", 0, 100));
+    assertNull(index.respond(RequestType.AI_RH_POSTCODE, "zz99zz", 0, 100));
+  }
+
+  // AI lists 14A Fairfield Close before 14, but 1 West Grove Road before 1A, so the index can't
+  // follow both. It lists the number without a suffix first.
+  @Test
+  public void shouldOrderBuildingSuffixesAfterTheNumber() throws Exception {
+    for (RequestType requestType :
+        new RequestType[] {RequestType.AI_POSTCODE, RequestType.AI_RH_POSTCODE}) {
+      List<String> expected = uprns(captured(requestType, "cf51ad", 0, 100));
+      List<String> actual = uprns(synthesised(requestType, "cf51ad", 0, 100));
+      assertNotEquals(expected, actual);
+      int fourteenA = expected.indexOf("10023542143");
+      assertEquals("100100072237", expected.get(fourteenA + 1));
+      expected.add(fourteenA, expected.remove(fourteenA + 1));
+      assertEquals(expected, actual);
+    }
+  }
+
+  // The captured RH response for EX4 1EH lists Cedar Lodge, 41-43 Okehampton Road first, but the
+  // captured postcode response lists it by its number
+  @Test
+  public void shouldOrderRhPostcodeAsThePostcodeResponse() throws Exception {
+    List<String> expected = uprns(captured(RequestType.AI_RH_POSTCODE, "ex41eh", 0, 100));
+    List<String> actual = uprns(synthesised(RequestType.AI_RH_POSTCODE, "ex41eh", 0, 100));
+    assertEquals("100040226442", expected.get(0));
+    expected.add(expected.indexOf("10091473294") - 1, expected.remove(0));
+    assertEquals(expected, actual);
+    assertEquals(uprns(captured(RequestType.AI_POSTCODE, "ex41eh", 0, 100)), actual);
+  }
+
+  @Test
+  public void shouldFindTheCapturedPartialAddresses() throws Exception {
+    for (String input : new String[] {"cf32tw", "cf51ad", "ex24lu", "ex41eh"}) {
+      JsonNode synthesised = synthesised(RequestType.AI_PARTIAL, input, 0, 100);
+      assertEquals(
+          new HashSet<>(uprns(captured(RequestType.AI_PARTIAL, input, 0, 100))),
+          new HashSet<>(uprns(synthesised)));
+      for (JsonNode address : synthesised.path("response").path("addresses")) {
+        assertEquals(
+            5 * address.get("underlyingScore").asInt(), address.get("confidenceScore").asInt());
+      }
+    }
+  }
+
+  @Test
+  public void shouldPagePartialResults() throws Exception {
+    List<String> all = uprns(synthesised(RequestType.AI_PARTIAL, "okehampton road", 0, 100));
+    List<String> page = uprns(synthesised(RequestType.AI_PARTIAL, "okehampton road", 10, 5));
+    assertEquals(all.subList(10, 15), page);
+  }
+
+  @Test
+  public void shouldNotAnswerUnknownPartialInput() {
+    assertNull(index.respond(RequestType.AI_PARTIAL, "zzzz", 0, 100));
+  }
+
+  private static JsonNode captured(RequestType requestType, String name) throws Exception {
+    return MAPPER.readTree(store.get(requestType, DataRepository.normaliseFileName(name)).body());
+  }
+
+  private static JsonNode captured(RequestType requestType, String name, int offset, int limit)
+      throws Exception {
+    CapturedResponse captured = store.get(requestType, DataRepository.normaliseFileName(name));
+    return MAPPER.readTree(captured.page(offset, limit));
+  }
+
+  private static JsonNode synthesised(RequestType requestType, String input) throws Exception {
+    return MAPPER.readTree(index.respond(requestType, input, 0, 0));
+  }
+
+  private static JsonNode synthesised(RequestType requestType, String input, int offset, int limit)
+      throws Exception {
+    return MAPPER.readTree(index.respond(requestType, input, offset, limit));
+  }
+
+  private static List<String> uprns(JsonNode response) {
+    JsonNode body = response.path("response");
+    if (body.has("address")) {
+      return List.of(body.get("address").get("uprn").asText());
+    }
+    List<String> uprns = new ArrayList<>();
+    for (JsonNode address : body.path("addresses")) {
+      uprns.add(address.get("uprn").asText());
+    }
+    return uprns;
+  }
+}
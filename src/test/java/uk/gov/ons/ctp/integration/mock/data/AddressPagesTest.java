@@ -0,0 +1,152 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.mock.Constants;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexPartialAddressDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexPartialResultsDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexPostcodeAddressDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexPostcodeResultsDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexRhPostcodeAddressDTO;
+import uk.gov.ons.ctp.integration.mock.ai.model.AddressIndexRhPostcodeResultsDTO;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+import uk.gov.ons.ctp.integration.mock.util.ObjectMapperFactory;
+
+public class AddressPagesTest {
+  private static final RequestType[] PAGED_TYPES = {
+    RequestType.AI_RH_POSTCODE, RequestType.AI_PARTIAL, RequestType.AI_POSTCODE
+  };
+
+  private static DataStore store;
+
+  @BeforeAll
+  public static void load() throws Exception {
+    store = DataStore.load();
+  }
+
+  @Test
+  public void shouldRenderPagesAsJacksonDid() throws Exception {
+    int pages = 0;
+    for (RequestType requestType : PAGED_TYPES) {
+      for (String name : store.names(requestType)) {
+        if (name.startsWith(Constants.INTERNAL_FILE_NAME_PREFIX)) {
+          continue;
+        }
+        CapturedResponse response = store.get(requestType, name);
+        int size = response.addressCount();
+        int[][] pageRequests = {
+          {0, 0}, {0, 1}, {0, 10}, {0, 100}, {1, 1}, {2, 3}, {size - 1, 10}, {size, 10},
+          {size + 1, 10}, {size + 100, 10}, {-1, 10}
+        };
+        for (int[] pageRequest : pageRequests) {
+          int offset = pageRequest[0];
+          int limit = pageRequest[1];
+          String expected = baseline(requestType, response.getText(), offset, limit);
+          String actual = new String(response.page(offset, limit), StandardCharsets.UTF_8);
+          assertEquals(expected, actual, requestType + " " + name + " " + offset + "/" + limit);
+          pages++;
+        }
+      }
+    }
+    assertTrue(pages > 0);
+  }
+
+  @Test
+  public void shouldCountAddressesInPage() {
+    for (String name : store.names(RequestType.AI_POSTCODE)) {
+      CapturedResponse response = store.get(RequestType.AI_POSTCODE, name);
+      if (response.isPrepared()) {
+        int size = response.addressCount();
+        assertEquals(Math.min(size, 10), response.pageSize(0, 10));
+        assertEquals(size > 0 ? 1 : 0, response.pageSize(size - 1, 10));
+        assertEquals(0, response.pageSize(size, 10));
+        assertEquals(0, response.pageSize(size + 1, 10));
+        assertEquals(0, response.pageSize(-1, 10));
+      }
+    }
+  }
+
+  @Test
+  public void shouldRenderEnvelopeAsJacksonWould() throws Exception {
+    ObjectMapper mapper = ObjectMapperFactory.objectMapper();
+    String text = store.get(RequestType.AI_POSTCODE, "ex24lu").getText();
+    Object captured = mapper.readerFor(RequestType.AI_POSTCODE.getResponseClass()).readValue(text);
+    JsonNode tree = mapper.valueToTree(captured);
+    ResponseEnvelope envelope =
+        ResponseEnvelope.prepare(tree.deepCopy(), mapper, "postcode", "addresses");
+
+    ArrayNode addresses = (ArrayNode) tree.path("response").path("addresses");
+    byte[][] fragments = new byte[addresses.size()][];
+    for (int i = 0; i < fragments.length; i++) {
+      fragments[i] = mapper.writeValueAsBytes(addresses.get(i));
+    }
+    int[] ids = {5, 3, 1, 0};
+    String input = "EX2 \"4LU\" \u00e9";
+    byte[] rendered = envelope.render(input, fragments, ids, 1, 3, 42, 2, 1);
+
+    ObjectNode body = (ObjectNode) tree.path("response");
+    ArrayNode page = mapper.createArrayNode().add(addresses.get(3)).add(addresses.get(1));
+    body.put("postcode", input);
+    body.set("addresses", page);
+    body.put("total", 42);
+    body.put("limit", 2);
+    body.put("offset", 1);
+    assertEquals(mapper.writeValueAsString(tree), new String(rendered, StandardCharsets.UTF_8));
+  }
+
+  // How a page was rendered by the mock before the pages were pre-rendered
+  private static String baseline(RequestType requestType, String text, int offset, int limit)
+      throws Exception {
+    ObjectMapper mapper = ObjectMapperFactory.objectMapper();
+    Object response = mapper.readerFor(requestType.getResponseClass()).readValue(text);
+    switch (requestType) {
+      case AI_RH_POSTCODE:
+        AddressIndexRhPostcodeResultsDTO rhPostcodes = (AddressIndexRhPostcodeResultsDTO) response;
+        List<AddressIndexRhPostcodeAddressDTO> rhPostcodeAddresses =
+            subset(rhPostcodes.getResponse().getAddresses(), offset, limit);
+        rhPostcodes.getResponse().setAddresses(rhPostcodeAddresses);
+        rhPostcodes.getResponse().setOffset(offset);
+        rhPostcodes.getResponse().setLimit(limit);
+        int confidence = 100000 + rhPostcodeAddresses.size();
+        for (AddressIndexRhPostcodeAddressDTO address : rhPostcodeAddresses) {
+          address.setConfidenceScore(confidence--);
+        }
+        break;
+      case AI_PARTIAL:
+        AddressIndexPartialResultsDTO partial = (AddressIndexPartialResultsDTO) response;
+        List<AddressIndexPartialAddressDTO> partialAddresses =
+            subset(partial.getResponse().getAddresses(), offset, limit);
+        partial.getResponse().setAddresses(partialAddresses);
+        partial.getResponse().setOffset(offset);
+        partial.getResponse().setLimit(limit);
+        break;
+      default:
+        AddressIndexPostcodeResultsDTO postcodes = (AddressIndexPostcodeResultsDTO) response;
+        List<AddressIndexPostcodeAddressDTO> postcodeAddresses =
+            subset(postcodes.getResponse().getAddresses(), offset, limit);
+        postcodes.getResponse().setAddresses(postcodeAddresses);
+        postcodes.getResponse().setOffset(offset);
+        postcodes.getResponse().setLimit(limit);
+        break;
+    }
+    return mapper.writerFor(requestType.getResponseClass()).writeValueAsString(response);
+  }
+
+  private static <T> List<T> subset(List<T> addresses, int offset, int limit) {
+    if (offset > addresses.size() || offset < 0) {
+      return new ArrayList<>();
+    }
+    int toIndex = Math.min(offset + limit, addresses.size());
+    return new ArrayList<>(addresses.subList(offset, toIndex));
+  }
+}
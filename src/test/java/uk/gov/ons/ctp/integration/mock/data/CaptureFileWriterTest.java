@@ -0,0 +1,111 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.common.error.CTPException;
+import uk.gov.ons.ctp.common.error.CTPException.Fault;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+public class CaptureFileWriterTest {
+  private static final RequestType REQUEST_TYPE = RequestType.AI_RH_UPRN;
+  private static final Path SOURCE_DIR = Paths.get("src/main/resources/data/addresses/rh/uprn");
+  private static final String CAPTURED_UPRN = "100040239948";
+  private static final String NEW_NAME = "capture-file-writer-test";
+
+  private final CaptureFileWriter writer = new CaptureFileWriter();
+
+  @AfterEach
+  public void cleanUp() throws IOException {
+    writer.close();
+    Files.deleteIfExists(SOURCE_DIR.resolve(NEW_NAME + ".json"));
+    File targetDir = new File(getClass().getClassLoader().getResource("data").getFile());
+    Files.deleteIfExists(targetDir.toPath().resolve("addresses/rh/uprn/" + NEW_NAME + ".json"));
+  }
+
+  @Test
+  public void shouldKeepExistingFileWhenWriteFails() throws Exception {
+    Path file = SOURCE_DIR.resolve(CAPTURED_UPRN + ".json");
+    byte[] captured = Files.readAllBytes(file);
+    List<Exception> failures =
+        List.of(
+            new IOException("disk full"),
+            new CTPException(Fault.SYSTEM_ERROR, "AI failed"),
+            new IllegalStateException("bad response"));
+
+    for (Exception failure : failures) {
+      Exception thrown =
+          assertThrows(
+              failure.getClass(),
+              () ->
+                  writer.write(
+                      REQUEST_TYPE,
+                      CAPTURED_UPRN,
+                      out -> {
+                        out.write("{\"partial\"".getBytes(StandardCharsets.UTF_8));
+                        throwUnchecked(failure);
+                      }));
+      assertSame(failure, thrown);
+      assertEquals(new String(captured, StandardCharsets.UTF_8), Files.readString(file));
+      assertEquals(List.of(), tempFiles());
+    }
+  }
+
+  @Test
+  public void shouldNotCreateFileWhenWriteFails() throws Exception {
+    assertThrows(
+        IOException.class,
+        () ->
+            writer.write(
+                REQUEST_TYPE,
+                NEW_NAME,
+                out -> {
+                  out.write('{');
+                  throw new IOException("connection reset");
+                }));
+    assertFalse(Files.exists(SOURCE_DIR.resolve(NEW_NAME + ".json")));
+    assertEquals(List.of(), tempFiles());
+  }
+
+  @Test
+  public void shouldWriteWholeFile() throws Exception {
+    String json = "{\"uprn\" : \"1\"}";
+    String written =
+        writer.write(
+            REQUEST_TYPE, NEW_NAME, out -> out.write(json.getBytes(StandardCharsets.UTF_8)));
+    assertEquals(json, written);
+    assertEquals(json, Files.readString(SOURCE_DIR.resolve(NEW_NAME + ".json")));
+    assertEquals(List.of(), tempFiles());
+  }
+
+  private static List<Path> tempFiles() throws IOException {
+    List<Path> tempFiles = new ArrayList<>();
+    try (DirectoryStream<Path> dir = Files.newDirectoryStream(SOURCE_DIR, ".*.tmp")) {
+      dir.forEach(tempFiles::add);
+    }
+    return tempFiles;
+  }
+
+  private static void throwUnchecked(Exception e) throws CTPException, IOException {
+    if (e instanceof CTPException) {
+      throw (CTPException) e;
+    }
+    if (e instanceof IOException) {
+      throw (IOException) e;
+    }
+    throw (RuntimeException) e;
+  }
+}
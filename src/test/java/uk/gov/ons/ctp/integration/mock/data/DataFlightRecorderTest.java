@@ -0,0 +1,115 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+public class DataFlightRecorderTest {
+  private static final String LOOKUP_EVENT = "uk.gov.ons.ctp.mock.Lookup";
+  private static final String PARSE_EVENT = "uk.gov.ons.ctp.mock.Parse";
+  private static final String MOCK_EVENT_PREFIX = "uk.gov.ons.ctp.mock.";
+
+  @BeforeAll
+  public static void load() throws Exception {
+    DataRepository.load();
+  }
+
+  @Test
+  public void shouldRecordLookups() throws Exception {
+    List<RecordedEvent> events =
+        record(
+            LOOKUP_EVENT,
+            () -> {
+              DataRepository.find(RequestType.AI_POSTCODE, "EX24LU");
+              DataRepository.find(RequestType.AI_POSTCODE, "ZZ99ZZ");
+            });
+    CapturedResponse response = DataRepository.find(RequestType.AI_POSTCODE, "ex24lu");
+
+    RecordedEvent found = find(events, "ex24lu");
+    assertEquals("AI_POSTCODE", found.getString("requestType"));
+    assertTrue(found.getBoolean("found"));
+    assertEquals(response.addressCount(), found.getInt("addresses"));
+    assertEquals(response.renderedHeapBytes(), found.getLong("payloadBytes"));
+
+    RecordedEvent missed = find(events, "zz99zz");
+    assertFalse(missed.getBoolean("found"));
+    assertEquals(0, missed.getInt("addresses"));
+    assertEquals(2, events.size());
+  }
+
+  @Test
+  public void shouldRecordParses() throws Exception {
+    DataStore[] loaded = new DataStore[1];
+    List<RecordedEvent> events = record(PARSE_EVENT, () -> loaded[0] = DataStore.load());
+    CapturedResponse response = loaded[0].get(RequestType.AI_POSTCODE, "ex24lu");
+
+    RecordedEvent parsed = null;
+    for (RecordedEvent event : events) {
+      if ("AI_POSTCODE".equals(event.getString("requestType"))
+          && "ex24lu".equals(event.getString("key"))) {
+        parsed = event;
+      }
+    }
+    assertNotNull(parsed);
+    assertEquals(response.getText().length(), parsed.getLong("payloadBytes"));
+    assertEquals(response.addressCount(), parsed.getInt("addresses"));
+    assertTrue(events.size() >= loaded[0].fileCount());
+  }
+
+  @Test
+  public void shouldNotRecordDisabledEvents() throws Exception {
+    List<RecordedEvent> events =
+        record(PARSE_EVENT, () -> DataRepository.find(RequestType.AI_POSTCODE, "EX24LU"));
+    assertEquals(List.of(), events);
+  }
+
+  private interface Stage {
+    void run() throws Exception;
+  }
+
+  // The mock's events recorded while the stage runs, with only the named one of these enabled
+  private static List<RecordedEvent> record(String eventName, Stage stage) throws Exception {
+    Path file = Files.createTempFile("mock", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.disable(LOOKUP_EVENT);
+      recording.disable(PARSE_EVENT);
+      recording.enable(eventName).withThreshold(Duration.ZERO);
+      recording.start();
+      stage.run();
+      recording.stop();
+      recording.dump(file);
+
+      List<RecordedEvent> events = new ArrayList<>();
+      for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+        if (event.getEventType().getName().startsWith(MOCK_EVENT_PREFIX)) {
+          events.add(event);
+        }
+      }
+      return events;
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private static RecordedEvent find(List<RecordedEvent> events, String key) {
+    for (RecordedEvent event : events) {
+      if (key.equals(event.getString("key"))) {
+        return event;
+      }
+    }
+    throw new AssertionError("No event for " + key);
+  }
+}
@@ -0,0 +1,67 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+public class DataRepositoryTest {
+  private static final String CAPTURED_UPRN = "100040239948";
+
+  @BeforeAll
+  public static void load() throws Exception {
+    DataRepository.load();
+  }
+
+  @Test
+  public void shouldNotSynthesiseCaseResponses() {
+    for (RequestType requestType : RequestType.values()) {
+      if (requestType.isCaseType()) {
+        assertNull(DataRepository.synthesise(requestType, "77346443", 0, 10));
+      }
+    }
+  }
+
+  @Test
+  public void shouldIndexCapturedAddressInBackground() throws Exception {
+    int addresses = DataRepository.addressCount();
+    String uprn = "999999999901";
+    String captured = DataRepository.read(RequestType.AI_RH_UPRN, CAPTURED_UPRN);
+    DataRepository.save(RequestType.AI_RH_UPRN, uprn, captured.replace(CAPTURED_UPRN, uprn));
+
+    // The capture is served straight away, and from the index once it has been rebuilt
+    assertNotNull(DataRepository.find(RequestType.AI_RH_UPRN, uprn));
+    long deadline = System.nanoTime() + 10_000_000_000L;
+    while (DataRepository.synthesise(RequestType.AI_RH_UPRN, uprn, 0, 10) == null
+        && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertNotNull(DataRepository.synthesise(RequestType.AI_RH_UPRN, uprn, 0, 10));
+    assertEquals(addresses + 1, DataRepository.addressCount());
+  }
+
+  @Test
+  public void shouldSaveBatchAtOnce() {
+    String captured = DataRepository.read(RequestType.AI_RH_UPRN, CAPTURED_UPRN);
+    Map<String, String> batch = new HashMap<>();
+    for (String uprn : new String[] {"999999999902", "999999999903"}) {
+      batch.put(uprn, captured.replace(CAPTURED_UPRN, uprn));
+    }
+    DataSummary before = DataRepository.summary();
+    DataRepository.saveAll(RequestType.AI_RH_UPRN, batch);
+
+    DataSummary after = DataRepository.summary();
+    assertNotSame(before, after);
+    for (String uprn : batch.keySet()) {
+      assertNotNull(DataRepository.find(RequestType.AI_RH_UPRN, uprn));
+      assertNotNull(after.find(RequestType.AI_RH_UPRN, uprn));
+      assertNull(before.find(RequestType.AI_RH_UPRN, uprn));
+    }
+  }
+}
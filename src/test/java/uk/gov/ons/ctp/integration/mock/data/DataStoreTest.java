@@ -0,0 +1,103 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.mock.Constants;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+public class DataStoreTest {
+  private static final Path DATA_DIR = Paths.get("src/main/resources/data");
+
+  private static DataStore store;
+
+  @BeforeAll
+  public static void load() throws Exception {
+    store = DataStore.load();
+  }
+
+  @Test
+  public void shouldHoldEveryFileAsRead() throws Exception {
+    Set<String> paths = new HashSet<>();
+    int files = 0;
+    for (RequestType requestType : RequestType.values()) {
+      boolean firstOfPath = paths.add(requestType.getPath());
+      Path typeDir = DATA_DIR.resolve(requestType.getPath().substring(1));
+      try (DirectoryStream<Path> dir = Files.newDirectoryStream(typeDir, "*.json")) {
+        for (Path file : dir) {
+          String fileName = file.getFileName().toString();
+          String name = fileName.substring(0, fileName.length() - ".json".length());
+          CapturedResponse response = store.get(requestType, name);
+          assertNotNull(response, requestType + " " + name);
+          assertEquals(read(file), response.getText());
+          files += firstOfPath ? 1 : 0;
+        }
+      }
+    }
+    assertEquals(files, store.fileCount());
+  }
+
+  @Test
+  public void shouldShareTextOfTypesWithSameDirectory() {
+    assertSame(
+        store.get(RequestType.AI_EQ, "29-cf").getText(),
+        store.get(RequestType.AI_EQ_POSTCODE, "29-cf").getText());
+  }
+
+  @Test
+  public void shouldNormaliseNames() {
+    assertEquals("1,-west-grove-road", DataRepository.normaliseFileName(" 1, West Grove Road "));
+    assertEquals("ex24lu", DataRepository.normaliseFileName("EX24LU"));
+  }
+
+  @Test
+  public void shouldFindByNameAsRequested() throws Exception {
+    DataRepository.load();
+    CapturedResponse partial =
+        DataRepository.find(RequestType.AI_PARTIAL, "1, West Grove Road, Exeter, EX2 4LU");
+    assertNotNull(partial);
+    String normalised = "1,-west-grove-road,-exeter,-ex2-4lu";
+    assertSame(partial, DataRepository.find(RequestType.AI_PARTIAL, normalised));
+    assertNotNull(DataRepository.find(RequestType.AI_POSTCODE, "EX24LU"));
+    assertNull(DataRepository.find(RequestType.AI_POSTCODE, "ZZ99ZZ"));
+    assertNull(DataRepository.read(RequestType.CASE_ID, "no-such-case"));
+  }
+
+  @Test
+  public void shouldRenderNotFoundAsReplacingPlaceholderDid() {
+    String[] names = {"EX2 4LU", "", "a\"b", "\u00e9t\u00e9", "%postcode%%input%"};
+    int rendered = 0;
+    for (RequestType requestType : RequestType.values()) {
+      CapturedResponse notFound = store.get(requestType, Constants.NO_DATA_FILE_NAME);
+      for (String name : names) {
+        byte[] body = store.notFound(requestType, name);
+        if (!requestType.isAddressType() || notFound == null) {
+          assertNull(body);
+          continue;
+        }
+        String placeholder = "%" + requestType.getPlaceholderName() + "%";
+        String expected = notFound.getText().replace(placeholder, name);
+        assertEquals(expected, new String(body, StandardCharsets.UTF_8));
+        rendered++;
+      }
+    }
+    assertTrue(rendered > 0);
+  }
+
+  private static String read(Path file) throws IOException {
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,123 @@
+package uk.gov.ons.ctp.integration.mock.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.mock.Constants;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+public class DataSummaryTest {
+  private static final Path DATA_DIR = Paths.get("src/main/resources/data");
+  private static final Pattern UPRN_PATTERN = Pattern.compile("\"uprn\"\\s*:");
+  private static final Pattern FIRST_UPRN_PATTERN = Pattern.compile("\"firstUprn\"\\s*:");
+
+  private static DataStore store;
+
+  @BeforeAll
+  public static void load() throws Exception {
+    store = DataStore.load();
+  }
+
+  @Test
+  public void shouldListFilesAsTheDataDirectoryDid() throws Exception {
+    for (RequestType requestType : RequestType.values()) {
+      List<String> expected = new ArrayList<>();
+      Path typeDir = DATA_DIR.resolve(requestType.getPath().substring(1));
+      try (DirectoryStream<Path> dir = Files.newDirectoryStream(typeDir, "*.json")) {
+        for (Path file : dir) {
+          String fileName = file.getFileName().toString();
+          if (!fileName.startsWith(Constants.INTERNAL_FILE_NAME_PREFIX)) {
+            expected.add(fileName.replace(".json", "").replaceAll("-", " "));
+          }
+        }
+      }
+      Collections.sort(
+          expected,
+          (name1, name2) -> {
+            if (name1.startsWith(name2) || name2.startsWith(name1)) {
+              return name2.length() - name1.length();
+            }
+            return name1.compareTo(name2);
+          });
+
+      List<String> listed = new ArrayList<>();
+      for (DataSummary.Entry entry : store.summary().entries(requestType)) {
+        listed.add(entry.getName());
+      }
+      assertEquals(expected, listed, requestType.name());
+    }
+  }
+
+  @Test
+  public void shouldCountResultsAsThePatternsDid() {
+    for (RequestType requestType : RequestType.values()) {
+      for (DataSummary.Entry entry : store.summary().entries(requestType)) {
+        String text = store.get(requestType, entry.getNormalisedName()).getText();
+        if (requestType.isAddressType()) {
+          int expected = count(UPRN_PATTERN, text) + count(FIRST_UPRN_PATTERN, text);
+          assertEquals(expected, (int) entry.getResultCount(), entry.getNormalisedName());
+        } else {
+          assertNull(entry.getResultCount());
+        }
+      }
+    }
+    assertEquals(40, (int) find(store.summary(), RequestType.AI_RH_POSTCODE, "cf32tw"));
+    assertEquals(1000, (int) find(store.summary(), RequestType.AI_PARTIAL, "okehampton-road"));
+  }
+
+  @Test
+  public void shouldDescribeFromInventory() {
+    DataSummary.Entry entry = store.summary().find(RequestType.AI_EQ, "ex24lu");
+    assertEquals("Search by postcode in England", entry.getDescription());
+    assertNull(store.summary().find(RequestType.AI_EQ, "29-cf").getDescription());
+  }
+
+  @Test
+  public void shouldAddFilesToNewSummary() {
+    DataSummary before = store.summary();
+    List<RequestType> types = List.of(RequestType.AI_EQ, RequestType.AI_EQ_POSTCODE);
+    Map<RequestType, Properties> inventories = Map.of();
+    String text = "{\"uprn\": \"1\", \"addresses\": [{\"uprn\" : \"2\"}]}";
+    DataSummary after =
+        before.with(
+            types,
+            Map.of("new-input", text, "ex24lu", "{}", Constants.NO_DATA_FILE_NAME, text),
+            inventories);
+
+    for (RequestType requestType : types) {
+      assertEquals(2, (int) find(after, requestType, "new-input"));
+      assertEquals(0, (int) find(after, requestType, "ex24lu"));
+      assertNull(after.find(requestType, Constants.NO_DATA_FILE_NAME));
+      assertEquals(before.entries(requestType).size() + 1, after.entries(requestType).size());
+      assertNull(before.find(requestType, "new-input"));
+    }
+    assertEquals("new input", after.find(RequestType.AI_EQ, "new-input").getName());
+    assertEquals(before.entries(RequestType.AI_POSTCODE), after.entries(RequestType.AI_POSTCODE));
+  }
+
+  private static Integer find(DataSummary summary, RequestType requestType, String name) {
+    return summary.find(requestType, name).getResultCount();
+  }
+
+  private static int count(Pattern pattern, String text) {
+    int count = 0;
+    Matcher m = pattern.matcher(text);
+    while (m.find()) {
+      count++;
+    }
+    return count;
+  }
+}
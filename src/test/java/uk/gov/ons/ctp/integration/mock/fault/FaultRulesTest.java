@@ -0,0 +1,164 @@
+package uk.gov.ons.ctp.integration.mock.fault;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+public class FaultRulesTest {
+  private static final HttpServletRequest NO_HEADERS = request(Map.of());
+
+  @Test
+  public void shouldCompileNoRulesToNone() {
+    FaultRules rules = FaultRules.compile(List.of());
+    assertSame(FaultRules.NONE, rules);
+    for (RequestType requestType : RequestType.values()) {
+      assertFalse(rules.hasRules(requestType));
+    }
+  }
+
+  @Test
+  public void shouldOnlyApplyRulesToTheirTypes() {
+    FaultRule caseRule = rule("case", FaultRule.Action.STATUS);
+    caseRule.setRequestTypes(Set.of(RequestType.CASE_ID, RequestType.CASE_REF));
+    caseRule.setKeyPattern("500.*");
+    FaultRules rules = FaultRules.compile(List.of(caseRule, rule("all", FaultRule.Action.RESET)));
+
+    assertTrue(rules.isKeyed(RequestType.CASE_ID));
+    assertFalse(rules.isKeyed(RequestType.AI_EQ));
+    assertTrue(rules.hasRules(RequestType.AI_EQ));
+    assertEquals("case", rules.find(RequestType.CASE_ID, NO_HEADERS, "500abc").getName());
+    assertEquals("all", rules.find(RequestType.CASE_ID, NO_HEADERS, "400abc").getName());
+    assertEquals("all", rules.find(RequestType.AI_EQ, NO_HEADERS, "500abc").getName());
+  }
+
+  @Test
+  public void shouldMatchLiteralPrefix() {
+    FaultRules rules = keyed("400.*");
+    assertEquals("keyed", rules.find(RequestType.CASE_ID, NO_HEADERS, "400").getName());
+    assertEquals("keyed", rules.find(RequestType.CASE_ID, NO_HEADERS, "400-abc").getName());
+    assertNull(rules.find(RequestType.CASE_ID, NO_HEADERS, "40"));
+    assertNull(rules.find(RequestType.CASE_ID, NO_HEADERS, "1400"));
+    assertNull(rules.find(RequestType.CASE_ID, NO_HEADERS, null));
+  }
+
+  @Test
+  public void shouldMatchWholeKeyAgainstRegularExpression() {
+    FaultRules rules = keyed("[0-9]{3}|abc");
+    assertEquals("keyed", rules.find(RequestType.CASE_ID, NO_HEADERS, "123").getName());
+    assertEquals("keyed", rules.find(RequestType.CASE_ID, NO_HEADERS, "abc").getName());
+    assertNull(rules.find(RequestType.CASE_ID, NO_HEADERS, "1234"));
+  }
+
+  @Test
+  public void shouldMatchKeyWithinText() {
+    String uri = "/cases/500-abc/telephone-capture";
+    for (String pattern : new String[] {"500.*", "500-[a-z]+"}) {
+      FaultRules rules = keyed(pattern);
+      assertEquals("keyed", rules.find(RequestType.CASE_ID, NO_HEADERS, uri, 7, 14).getName());
+      // The key ends before the prefix does
+      assertNull(rules.find(RequestType.CASE_ID, NO_HEADERS, uri, 7, 9));
+      assertNull(rules.find(RequestType.CASE_ID, NO_HEADERS, uri, 0, 14));
+    }
+  }
+
+  @Test
+  public void shouldSelectByHeader() {
+    FaultRule anyValue = rule("any", FaultRule.Action.STATUS);
+    anyValue.setHeader("X-Fail");
+    FaultRule oneValue = rule("one", FaultRule.Action.STATUS);
+    oneValue.setHeader("X-Fault");
+    oneValue.setHeaderValue("yes");
+    FaultRules rules = FaultRules.compile(List.of(oneValue, anyValue));
+
+    assertNull(rules.find(RequestType.AI_EQ, NO_HEADERS, null));
+    assertNull(rules.find(RequestType.AI_EQ, request(Map.of("X-Fault", "no")), null));
+    assertEquals(
+        "one", rules.find(RequestType.AI_EQ, request(Map.of("X-Fault", "yes")), null).getName());
+    assertEquals(
+        "any", rules.find(RequestType.AI_EQ, request(Map.of("X-Fail", "")), null).getName());
+  }
+
+  @Test
+  public void shouldNeverFailAtZeroPercent() {
+    FaultRule rule = rule("never", FaultRule.Action.STATUS);
+    rule.setPercentage(0);
+    FaultRules rules = FaultRules.compile(List.of(rule));
+    for (int i = 0; i < 1000; i++) {
+      assertNull(rules.find(RequestType.AI_EQ, NO_HEADERS, null));
+    }
+  }
+
+  @Test
+  public void shouldKeepRulesAsGiven() {
+    FaultRule hang = rule("hang", FaultRule.Action.HANG);
+    hang.setMillis(10);
+    FaultRules rules = FaultRules.compile(List.of(hang));
+    assertEquals(List.of(hang), rules.rules());
+    FaultRules.Rule found = rules.find(RequestType.AI_EQ, NO_HEADERS, null);
+    assertEquals(FaultRule.Action.HANG, found.getAction());
+    assertEquals(10, found.getMillis());
+  }
+
+  @Test
+  public void shouldRejectInvalidRules() {
+    FaultRule noAction = rule("no-action", null);
+    FaultRule percentage = rule("percentage", FaultRule.Action.STATUS);
+    percentage.setPercentage(101);
+    FaultRule success = rule("success", FaultRule.Action.STATUS);
+    success.setStatus(200);
+    FaultRule unknown = rule("unknown", FaultRule.Action.STATUS);
+    unknown.setStatus(999);
+    FaultRule hang = rule("hang", FaultRule.Action.HANG);
+    hang.setMillis(0);
+    FaultRule truncate = rule("truncate", FaultRule.Action.TRUNCATE);
+    truncate.setBodyFraction(1);
+    FaultRule pattern = rule("pattern", FaultRule.Action.STATUS);
+    pattern.setKeyPattern("[");
+
+    List<FaultRule> invalid =
+        List.of(noAction, percentage, success, unknown, hang, truncate, pattern);
+    for (FaultRule rule : invalid) {
+      IllegalArgumentException e =
+          assertThrows(IllegalArgumentException.class, () -> FaultRules.compile(List.of(rule)));
+      assertTrue(rule == pattern || e.getMessage().contains(rule.getName()), e.getMessage());
+    }
+  }
+
+  private static FaultRules keyed(String keyPattern) {
+    FaultRule rule = rule("keyed", FaultRule.Action.STATUS);
+    rule.setKeyPattern(keyPattern);
+    return FaultRules.compile(List.of(rule));
+  }
+
+  private static FaultRule rule(String name, FaultRule.Action action) {
+    FaultRule rule = new FaultRule();
+    rule.setName(name);
+    rule.setAction(action);
+    return rule;
+  }
+
+  // A request which only has headers
+  private static HttpServletRequest request(Map<String, String> headers) {
+    return (HttpServletRequest)
+        Proxy.newProxyInstance(
+            FaultRulesTest.class.getClassLoader(),
+            new Class<?>[] {HttpServletRequest.class},
+            (proxy, method, args) -> {
+              if (method.getName().equals("getHeader")) {
+                return headers.get(args[0]);
+              }
+              throw new UnsupportedOperationException(method.getName());
+            });
+  }
+}
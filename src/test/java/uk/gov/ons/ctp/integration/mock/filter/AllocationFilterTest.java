@@ -0,0 +1,136 @@
+package uk.gov.ons.ctp.integration.mock.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+import uk.gov.ons.ctp.integration.mock.metrics.AllocationRecorder;
+
+public class AllocationFilterTest {
+  private static final int ALLOCATED_BYTES = 1 << 20;
+
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+  private AllocationRecorder recorder;
+  private byte[] allocated;
+  private int passedOn;
+
+  @BeforeEach
+  public void setUp() {
+    assumeTrue(AllocationRecorder.isSupported());
+    recorder = new AllocationRecorder(registry);
+  }
+
+  @Test
+  public void shouldRecordAllocationOfRequest() throws Exception {
+    new AllocationFilter(recorder).doFilterInternal(request("/cases/abc"), response(), allocate());
+
+    DistributionSummary summary = summary(RequestType.CASE_ID);
+    assertEquals(1, summary.count());
+    assertTrue(summary.totalAmount() >= ALLOCATED_BYTES);
+    assertEquals(1, passedOn);
+  }
+
+  @Test
+  public void shouldRecordAllocationOfFailedRequest() {
+    FilterChain chain =
+        (q, r) -> {
+          allocated = new byte[ALLOCATED_BYTES];
+          throw new IOException("broken pipe");
+        };
+    AllocationFilter filter = new AllocationFilter(recorder);
+    assertThrows(
+        IOException.class, () -> filter.doFilterInternal(request("/cases/abc"), response(), chain));
+
+    DistributionSummary summary = summary(RequestType.CASE_ID);
+    assertEquals(1, summary.count());
+    assertTrue(summary.totalAmount() >= ALLOCATED_BYTES);
+  }
+
+  @Test
+  public void shouldNotRecordOtherRequests() throws Exception {
+    new AllocationFilter(recorder).doFilterInternal(request("/mockhelp"), response(), allocate());
+
+    for (RequestType requestType : RequestType.values()) {
+      assertEquals(0, summary(requestType).count());
+    }
+    assertEquals(1, passedOn);
+  }
+
+  @Test
+  public void shouldPassOnWhenNotMeasured() throws Exception {
+    new AllocationFilter(null).doFilterInternal(request("/cases/abc"), response(), allocate());
+
+    assertEquals(0, summary(RequestType.CASE_ID).count());
+    assertEquals(1, passedOn);
+  }
+
+  @Test
+  public void shouldMeasureAsynchronousDispatch() {
+    // A delayed request is answered on the thread it is dispatched to
+    assertFalse(new AllocationFilter(recorder).shouldNotFilterAsyncDispatch());
+  }
+
+  private DistributionSummary summary(RequestType requestType) {
+    return registry
+        .get("mock.requests.allocated")
+        .tag("requestType", requestType.name())
+        .summary();
+  }
+
+  private FilterChain allocate() {
+    return (q, r) -> {
+      allocated = new byte[ALLOCATED_BYTES];
+      passedOn++;
+    };
+  }
+
+  private static HttpServletRequest request(String uri) {
+    Map<String, Object> attributes = new HashMap<>();
+    return proxy(
+        HttpServletRequest.class,
+        Map.of(
+            "getRequestURI", args -> uri,
+            "getContextPath", args -> "",
+            "getMethod", args -> "GET",
+            "getParameter", args -> null,
+            "getAttribute", args -> attributes.get(args[0]),
+            "setAttribute", args -> attributes.put((String) args[0], args[1])));
+  }
+
+  private static HttpServletResponse response() {
+    return proxy(HttpServletResponse.class, Map.of());
+  }
+
+  private interface Answer {
+    Object answer(Object[] args);
+  }
+
+  private static <T> T proxy(Class<T> type, Map<String, Answer> answers) {
+    return type.cast(
+        Proxy.newProxyInstance(
+            AllocationFilterTest.class.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+              Answer answer = answers.get(method.getName());
+              if (answer == null) {
+                throw new UnsupportedOperationException(method.getName());
+              }
+              return answer.answer(args);
+            }));
+  }
+}
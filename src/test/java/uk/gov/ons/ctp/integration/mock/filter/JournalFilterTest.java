@@ -0,0 +1,147 @@
+package uk.gov.ons.ctp.integration.mock.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.mock.journal.JournalEntryDTO;
+import uk.gov.ons.ctp.integration.mock.journal.JournalPageDTO;
+import uk.gov.ons.ctp.integration.mock.journal.RequestJournal;
+
+public class JournalFilterTest {
+
+  @Test
+  public void shouldRecordSynchronousRequest() throws Exception {
+    RequestJournal journal = new RequestJournal(8);
+    Exchange exchange = new Exchange("/cases/abc");
+    new JournalFilter(journal).doFilterInternal(exchange.request, exchange.response, (q, r) -> {});
+
+    List<JournalEntryDTO> entries = entries(journal);
+    assertEquals(1, entries.size());
+    assertEquals("CASE_ID", entries.get(0).getRequestType());
+    assertEquals("abc", entries.get(0).getKey());
+  }
+
+  @Test
+  public void shouldNotRecordOtherRequests() throws Exception {
+    RequestJournal journal = new RequestJournal(8);
+    Exchange exchange = new Exchange("/mockhelp");
+    new JournalFilter(journal).doFilterInternal(exchange.request, exchange.response, (q, r) -> {});
+    assertEquals(0, entries(journal).size());
+  }
+
+  @Test
+  public void shouldRecordDelayedRequestOnceCompleted() throws Exception {
+    RequestJournal journal = new RequestJournal(8);
+    Exchange exchange = new Exchange("/cases/abc");
+    // Delayed
+    new JournalFilter(journal)
+        .doFilterInternal(exchange.request, exchange.response, (q, r) -> exchange.startAsync());
+    assertEquals(0, entries(journal).size());
+
+    exchange.complete();
+    assertEquals(1, entries(journal).size());
+  }
+
+  @Test
+  public void shouldRecordDelayedRequestWhichIsThenHung() throws Exception {
+    RequestJournal journal = new RequestJournal(8);
+    Exchange exchange = new Exchange("/cases/abc");
+    new JournalFilter(journal)
+        .doFilterInternal(exchange.request, exchange.response, (q, r) -> exchange.startAsync());
+
+    // Dispatched once the delay is over, and then hung
+    exchange.startAsync();
+    assertEquals(0, entries(journal).size());
+
+    exchange.complete();
+    List<JournalEntryDTO> entries = entries(journal);
+    assertEquals(1, entries.size());
+    assertEquals("CASE_ID", entries.get(0).getRequestType());
+  }
+
+  private static List<JournalEntryDTO> entries(RequestJournal journal) {
+    JournalPageDTO page = journal.page(entry -> true, 0, 10);
+    return page.getEntries();
+  }
+
+  // A request and response going through the asynchronous cycles of a servlet container
+  private static final class Exchange {
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final List<AsyncListener> listeners = new ArrayList<>();
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final AsyncContext async;
+    private boolean asyncStarted;
+
+    private Exchange(String uri) {
+      async =
+          proxy(
+              AsyncContext.class,
+              Map.of("addListener", args -> listeners.add((AsyncListener) args[0])));
+      request =
+          proxy(
+              HttpServletRequest.class,
+              Map.of(
+                  "getRequestURI", args -> uri,
+                  "getContextPath", args -> "",
+                  "getMethod", args -> "GET",
+                  "getParameter", args -> null,
+                  "getAttribute", args -> attributes.get(args[0]),
+                  "setAttribute", args -> attributes.put((String) args[0], args[1]),
+                  "isAsyncStarted", args -> asyncStarted,
+                  "getAsyncContext", args -> async));
+      response =
+          proxy(
+              HttpServletResponse.class,
+              Map.of("getStatus", args -> 200, "getHeader", args -> null));
+    }
+
+    // Starting a new cycle drops the listeners, after telling them so they can add themselves
+    private void startAsync() {
+      List<AsyncListener> started = new ArrayList<>(listeners);
+      listeners.clear();
+      asyncStarted = true;
+      for (AsyncListener listener : started) {
+        try {
+          listener.onStartAsync(new AsyncEvent(async));
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    }
+
+    private void complete() throws Exception {
+      for (AsyncListener listener : new ArrayList<>(listeners)) {
+        listener.onComplete(new AsyncEvent(async));
+      }
+    }
+  }
+
+  private interface Answer {
+    Object answer(Object[] args);
+  }
+
+  private static <T> T proxy(Class<T> type, Map<String, Answer> answers) {
+    return type.cast(
+        Proxy.newProxyInstance(
+            JournalFilterTest.class.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+              Answer answer = answers.get(method.getName());
+              if (answer == null) {
+                throw new UnsupportedOperationException(method.getName());
+              }
+              return answer.answer(args);
+            }));
+  }
+}
@@ -0,0 +1,147 @@
+package uk.gov.ons.ctp.integration.mock.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+import uk.gov.ons.ctp.integration.mock.latency.CapturedLatencies;
+import uk.gov.ons.ctp.integration.mock.latency.CapturedLatency;
+import uk.gov.ons.ctp.integration.mock.latency.LatencyConfig;
+import uk.gov.ons.ctp.integration.mock.latency.LatencyProfile;
+
+public class LatencyFilterTest {
+  private static final String CAPTURED_POSTCODE = "ZZ991LF";
+  private static final String OTHER_POSTCODE = "ZZ992LF";
+
+  static {
+    CapturedLatency latency = new CapturedLatency();
+    latency.recordPage(0, 100);
+    latency.recordPage(100, 300);
+    latency.recordPage(200, 50);
+    latency.complete(900);
+    CapturedLatencies.put(RequestType.AI_RH_POSTCODE, CAPTURED_POSTCODE, latency);
+  }
+
+  private final List<Long> scheduled = new ArrayList<>();
+  private int passedOn;
+
+  @Test
+  public void shouldReplayLatencyOfPageAtOffset() throws Exception {
+    LatencyFilter filter = new LatencyFilter(config(true, 1.0), scheduler());
+    filter(filter, CAPTURED_POSTCODE, null);
+    filter(filter, CAPTURED_POSTCODE, "0");
+    filter(filter, CAPTURED_POSTCODE, "150");
+    filter(filter, CAPTURED_POSTCODE, " 250 ");
+    filter(filter, CAPTURED_POSTCODE, "first");
+    assertEquals(List.of(100L, 100L, 300L, 50L, 100L), scheduled);
+    assertEquals(0, passedOn);
+  }
+
+  @Test
+  public void shouldScaleReplayedLatency() throws Exception {
+    filter(new LatencyFilter(config(true, 0.5), scheduler()), CAPTURED_POSTCODE, "150");
+    filter(new LatencyFilter(config(true, 2.0), scheduler()), CAPTURED_POSTCODE, "150");
+    filter(new LatencyFilter(config(true, 0.25), scheduler()), CAPTURED_POSTCODE, "250");
+    assertEquals(List.of(150L, 600L, 13L), scheduled);
+  }
+
+  @Test
+  public void shouldMatchCapturedNameAsHeld() throws Exception {
+    LatencyFilter filter = new LatencyFilter(config(true, 1.0), scheduler());
+    filter(filter, "zz99%201lf", "100");
+    assertEquals(List.of(300L), scheduled);
+  }
+
+  @Test
+  public void shouldDelayByProfileWhenNotCaptured() throws Exception {
+    LatencyFilter filter = new LatencyFilter(config(true, 2.0), scheduler());
+    filter(filter, OTHER_POSTCODE, "100");
+    assertEquals(List.of(70L), scheduled);
+  }
+
+  @Test
+  public void shouldDelayByProfileWhenNotReplaying() throws Exception {
+    LatencyFilter filter = new LatencyFilter(config(false, 2.0), scheduler());
+    filter(filter, CAPTURED_POSTCODE, "100");
+    assertEquals(List.of(70L), scheduled);
+  }
+
+  @Test
+  public void shouldPassOnWithoutDelay() throws Exception {
+    LatencyFilter filter = new LatencyFilter(config(true, 0.0), scheduler());
+    filter(filter, CAPTURED_POSTCODE, "100");
+    assertTrue(scheduled.isEmpty());
+    assertEquals(1, passedOn);
+  }
+
+  private static LatencyConfig config(boolean replayCaptured, double replayScale) {
+    LatencyProfile profile = new LatencyProfile();
+    profile.setMillis(70);
+    LatencyConfig config = new LatencyConfig();
+    config.setEnabled(true);
+    config.getProfiles().put(RequestType.AI_RH_POSTCODE, profile);
+    config.setReplayCaptured(replayCaptured);
+    config.setReplayScale(replayScale);
+    return config;
+  }
+
+  private void filter(LatencyFilter filter, String postcode, String offset) throws Exception {
+    Map<String, Object> attributes = new HashMap<>();
+    AsyncContext async = proxy(AsyncContext.class, Map.of("setTimeout", args -> null));
+    HttpServletRequest request =
+        proxy(
+            HttpServletRequest.class,
+            Map.of(
+                "getRequestURI", args -> "/addresses/rh/postcode/" + postcode,
+                "getContextPath", args -> "",
+                "getMethod", args -> "GET",
+                "getParameter", args -> "offset".equals(args[0]) ? offset : null,
+                "getAttribute", args -> attributes.get(args[0]),
+                "setAttribute", args -> attributes.put((String) args[0], args[1]),
+                "isAsyncSupported", args -> true,
+                "startAsync", args -> async));
+    HttpServletResponse response = proxy(HttpServletResponse.class, Map.of());
+    filter.doFilterInternal(request, response, (q, r) -> passedOn++);
+  }
+
+  // Records the delay of each request, rather than dispatching it
+  private ScheduledExecutorService scheduler() {
+    return proxy(
+        ScheduledExecutorService.class,
+        Map.of(
+            "schedule",
+            args -> {
+              scheduled.add(((TimeUnit) args[2]).toMillis((Long) args[1]));
+              return null;
+            }));
+  }
+
+  private interface Answer {
+    Object answer(Object[] args);
+  }
+
+  private static <T> T proxy(Class<T> type, Map<String, Answer> answers) {
+    return type.cast(
+        Proxy.newProxyInstance(
+            LatencyFilterTest.class.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+              Answer answer = answers.get(method.getName());
+              if (answer == null) {
+                throw new UnsupportedOperationException(method.getName());
+              }
+              return answer.answer(args);
+            }));
+  }
+}
@@ -0,0 +1,129 @@
+package uk.gov.ons.ctp.integration.mock.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+public class RequestClassifierTest {
+
+  @Test
+  public void shouldClassifyPathRequests() {
+    assertEquals(RequestType.AI_RH_POSTCODE, classify("/addresses/rh/postcode/CF32TW"));
+    assertEquals(RequestType.AI_POSTCODE, classify("/addresses/postcode/CF3%202TW"));
+    assertEquals(RequestType.AI_RH_UPRN, classify("/addresses/rh/uprn/100040239948"));
+    assertEquals(RequestType.CASE_REF, classify("/cases/ref/1000000000000001"));
+    assertEquals(RequestType.CASE_QID, classify("/cases/abc/telephone-capture"));
+    assertEquals(RequestType.CASE_ID, classify("/cases/abc"));
+  }
+
+  @Test
+  public void shouldClassifyInputRequests() {
+    assertEquals(RequestType.AI_PARTIAL, classify("/addresses/partial", "okehampton road"));
+    assertEquals(RequestType.AI_EQ, classify("/addresses/eq", "8 fair"));
+    assertEquals(RequestType.AI_EQ, classify("/addresses/eq", "holbe"));
+    assertEquals(RequestType.AI_EQ, classify("/addresses/eq", "abc1"));
+    assertEquals(RequestType.AI_EQ_POSTCODE, classify("/addresses/eq", "ex24l"));
+    assertEquals(RequestType.AI_EQ_POSTCODE, classify("/addresses/eq", "E1"));
+  }
+
+  @Test
+  public void shouldNotClassifyOtherRequests() {
+    assertNull(classify("/mockhelp"));
+    assertNull(classify("/addresses/rh/postcode/"));
+    assertNull(classify("/addresses/rh/postcode/CF32TW/"));
+    assertNull(classify("/cases/abc/def"));
+    assertNull(classify("/addresses/eqs"));
+  }
+
+  @Test
+  public void shouldOnlyClassifyOnce() {
+    HttpServletRequest request = request("/cases/abc", null);
+    assertEquals(RequestType.CASE_ID, RequestClassifier.classify(request));
+    assertEquals(RequestType.CASE_ID, RequestClassifier.classify(request));
+    HttpServletRequest other = request("/other", null);
+    assertNull(RequestClassifier.classify(other));
+    assertNull(RequestClassifier.classify(other));
+  }
+
+  @Test
+  public void shouldFindNameOfRequest() {
+    assertEquals("CF32TW", nameOf("/addresses/rh/postcode/CF3%202TW", RequestType.AI_RH_POSTCODE));
+    assertEquals("abc", nameOf("/cases/abc/telephone-capture", RequestType.CASE_QID));
+    assertEquals("a b", nameOf("/cases/a%20b", RequestType.CASE_ID));
+    HttpServletRequest partial = request("/addresses/partial", "okehampton road");
+    assertEquals("okehampton road", RequestClassifier.nameOf(partial, RequestType.AI_PARTIAL));
+  }
+
+  @Test
+  public void shouldFindKeyInUri() {
+    HttpServletRequest request = request("/mock/cases/500-abc/telephone-capture", null, "/mock");
+    int start = RequestClassifier.keyStart(request, RequestType.CASE_QID);
+    assertEquals(12, start);
+    assertEquals(19, RequestClassifier.keyEnd(request.getRequestURI(), start));
+
+    request = request("/addresses/rh/postcode/CF32TW", null);
+    start = RequestClassifier.keyStart(request, RequestType.AI_RH_POSTCODE);
+    assertEquals("CF32TW", request.getRequestURI().substring(start));
+    assertEquals(29, RequestClassifier.keyEnd(request.getRequestURI(), start));
+  }
+
+  @Test
+  public void shouldNotFindKeyWhichIsNotInUriAsItIs() {
+    assertEquals(
+        -1,
+        RequestClassifier.keyStart(
+            request("/addresses/rh/postcode/CF3%202TW", null), RequestType.AI_RH_POSTCODE));
+    assertEquals(
+        -1,
+        RequestClassifier.keyStart(
+            request("/addresses/partial", "treganna"), RequestType.AI_PARTIAL));
+  }
+
+  private static RequestType classify(String uri) {
+    return classify(uri, null);
+  }
+
+  private static RequestType classify(String uri, String input) {
+    return RequestClassifier.classify(request(uri, input));
+  }
+
+  private static String nameOf(String uri, RequestType requestType) {
+    return RequestClassifier.nameOf(request(uri, null), requestType);
+  }
+
+  private static HttpServletRequest request(String uri, String input) {
+    return request(uri, input, "");
+  }
+
+  // A request which only has a URI, an input parameter and attributes
+  private static HttpServletRequest request(String uri, String input, String contextPath) {
+    Map<String, Object> attributes = new HashMap<>();
+    return (HttpServletRequest)
+        Proxy.newProxyInstance(
+            RequestClassifierTest.class.getClassLoader(),
+            new Class<?>[] {HttpServletRequest.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "getRequestURI":
+                  return uri;
+                case "getContextPath":
+                  return contextPath;
+                case "getParameter":
+                  return "input".equals(args[0]) ? input : null;
+                case "getAttribute":
+                  return attributes.get(args[0]);
+                case "setAttribute":
+                  attributes.put((String) args[0], args[1]);
+                  return null;
+                default:
+                  throw new UnsupportedOperationException(method.getName());
+              }
+            });
+  }
+}
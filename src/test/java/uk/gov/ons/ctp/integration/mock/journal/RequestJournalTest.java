@@ -0,0 +1,121 @@
+package uk.gov.ons.ctp.integration.mock.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+public class RequestJournalTest {
+
+  @Test
+  public void shouldRoundCapacityUpToPowerOfTwo() {
+    assertEquals(1, new RequestJournal(1).capacity());
+    assertEquals(8, new RequestJournal(5).capacity());
+    assertEquals(8, new RequestJournal(8).capacity());
+    assertThrows(IllegalArgumentException.class, () -> new RequestJournal(0));
+  }
+
+  @Test
+  public void shouldReturnRequestsNewestFirst() {
+    RequestJournal journal = new RequestJournal(8);
+    journal.record(0, "GET", RequestType.AI_RH_POSTCODE, "EX24LU", 200, 2_500_000, 1234);
+    journal.record(1000, "GET", RequestType.CASE_ID, null, 404, 1_000_000, -1);
+
+    JournalPageDTO page = journal.page(entry -> true, 0, 10);
+    assertEquals(8, page.getCapacity());
+    assertEquals(2, page.getRecorded());
+    assertEquals(0, page.getDropped());
+    assertEquals(List.of(1L, 0L), sequences(page));
+
+    JournalEntryDTO newest = page.getEntries().get(0);
+    assertEquals("1970-01-01T00:00:01Z", newest.getTime());
+    assertEquals("CASE_ID", newest.getRequestType());
+    assertNull(newest.getKey());
+    assertEquals(404, newest.getStatus());
+    assertNull(newest.getBytes());
+
+    JournalEntryDTO oldest = page.getEntries().get(1);
+    assertEquals("GET", oldest.getMethod());
+    assertEquals("EX24LU", oldest.getKey());
+    assertEquals(2.5, oldest.getLatencyMillis());
+    assertEquals(1234, (long) oldest.getBytes());
+  }
+
+  @Test
+  public void shouldOverwriteOldestOnceFull() {
+    RequestJournal journal = new RequestJournal(4);
+    record(journal, 10);
+
+    JournalPageDTO page = journal.page(entry -> true, 0, 10);
+    assertEquals(10, page.getRecorded());
+    assertEquals(List.of(9L, 8L, 7L, 6L), sequences(page));
+    assertEquals("key-6", page.getEntries().get(3).getKey());
+  }
+
+  @Test
+  public void shouldSkipSlotBeingWritten() throws Exception {
+    RequestJournal journal = new RequestJournal(4);
+    record(journal, 10);
+    // A writer which took sequence 12 still holds the slot of sequence 8
+    tear(journal, 8);
+
+    assertEquals(List.of(9L, 7L, 6L), sequences(journal.page(entry -> true, 0, 10)));
+
+    // The writers of sequences 10 and 11 go ahead, but that of 12 finds its slot still held
+    record(journal, 3);
+    JournalPageDTO page = journal.page(entry -> true, 0, 10);
+    assertEquals(13, page.getRecorded());
+    assertEquals(1, page.getDropped());
+    assertEquals(List.of(11L, 10L, 9L), sequences(page));
+  }
+
+  @Test
+  public void shouldPageThroughSelectedRequests() {
+    RequestJournal journal = new RequestJournal(16);
+    record(journal, 10);
+
+    JournalPageDTO page = journal.page(entry -> entry.getStatus() == 200, 1, 2);
+    assertEquals(List.of(6L, 4L), sequences(page));
+    assertEquals(List.of(), sequences(journal.page(entry -> entry.getStatus() == 200, 5, 2)));
+  }
+
+  @Test
+  public void shouldCutLongKeysShort() {
+    RequestJournal journal = new RequestJournal(1);
+    journal.record(0, "GET", RequestType.AI_PARTIAL, "x".repeat(500), 200, 0, 0);
+    assertEquals(200, journal.page(entry -> true, 0, 1).getEntries().get(0).getKey().length());
+  }
+
+  // Records requests whose status alternates between 200 and 404, starting with 200
+  private static void record(RequestJournal journal, int requests) {
+    for (int i = 0; i < requests; i++) {
+      long sequence = journal.page(entry -> true, 0, 0).getRecorded();
+      journal.record(
+          0, "GET", RequestType.CASE_ID, "key-" + sequence, sequence % 2 == 0 ? 200 : 404, 0, 0);
+    }
+  }
+
+  // Marks the slot of a sequence as being written, as a writer does while it fills it in
+  private static void tear(RequestJournal journal, long sequence) throws Exception {
+    Field entriesField = RequestJournal.class.getDeclaredField("entries");
+    entriesField.setAccessible(true);
+    Object[] entries = (Object[]) entriesField.get(journal);
+    Object entry = entries[(int) sequence & (entries.length - 1)];
+    Field sequenceField = entry.getClass().getDeclaredField("sequence");
+    sequenceField.setAccessible(true);
+    sequenceField.setLong(entry, -1);
+  }
+
+  private static List<Long> sequences(JournalPageDTO page) {
+    List<Long> sequences = new ArrayList<>();
+    for (JournalEntryDTO entry : page.getEntries()) {
+      sequences.add(entry.getSequence());
+    }
+    return sequences;
+  }
+}
@@ -0,0 +1,56 @@
+package uk.gov.ons.ctp.integration.mock.latency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class CapturedLatencyTest {
+
+  @Test
+  public void shouldFindLatencyOfPageHoldingOffset() {
+    CapturedLatency latency = new CapturedLatency();
+    // Pages fetched concurrently finish in any order
+    latency.recordPage(200, 50);
+    latency.recordPage(0, 100);
+    latency.recordPage(100, 300);
+    latency.complete(900);
+
+    assertEquals(100, latency.millisAt(0));
+    assertEquals(100, latency.millisAt(99));
+    assertEquals(300, latency.millisAt(100));
+    assertEquals(300, latency.millisAt(150));
+    assertEquals(50, latency.millisAt(200));
+    assertEquals(50, latency.millisAt(5000));
+    assertEquals(900, latency.getTotalMillis());
+  }
+
+  @Test
+  public void shouldSortPagesByOffset() {
+    CapturedLatency latency = new CapturedLatency();
+    latency.recordPage(100, 300);
+    latency.recordPage(-1, 100);
+    latency.complete(400);
+
+    List<CapturedLatency.Page> expected =
+        List.of(new CapturedLatency.Page(0, 100), new CapturedLatency.Page(100, 300));
+    assertEquals(expected, latency.getPages());
+  }
+
+  @Test
+  public void shouldUseTotalWithoutPages() {
+    CapturedLatency latency = new CapturedLatency();
+    latency.complete(250);
+    assertEquals(250, latency.millisAt(0));
+    assertEquals(250, latency.millisAt(100));
+  }
+
+  @Test
+  public void shouldUseTotalBeforeFirstPage() {
+    CapturedLatency latency = new CapturedLatency();
+    latency.recordPage(100, 300);
+    latency.complete(500);
+    assertEquals(500, latency.millisAt(0));
+    assertEquals(300, latency.millisAt(100));
+  }
+}
@@ -0,0 +1,142 @@
+package uk.gov.ons.ctp.integration.mock.latency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.mock.latency.LatencyProfile.Distribution;
+
+public class LatencySamplerTest {
+  private static final int SAMPLES = 50_000;
+
+  @Test
+  public void shouldSampleFixedDelay() {
+    LatencyProfile profile = profile(Distribution.FIXED);
+    profile.setMillis(250);
+    long[] samples = sample(profile);
+    assertEquals(250, samples[0]);
+    assertEquals(250, samples[SAMPLES - 1]);
+  }
+
+  @Test
+  public void shouldSampleUniformDelay() {
+    LatencyProfile profile = profile(Distribution.UNIFORM);
+    profile.setMinMillis(100);
+    profile.setMaxMillis(200);
+    long[] samples = sample(profile);
+    assertEquals(100, samples[0]);
+    assertEquals(200, samples[SAMPLES - 1]);
+    assertEquals(125, percentile(samples, 25), 3);
+    assertEquals(150, percentile(samples, 50), 3);
+    assertEquals(175, percentile(samples, 75), 3);
+  }
+
+  @Test
+  public void shouldSampleLogNormalDelay() {
+    LatencyProfile profile = profile(Distribution.LOG_NORMAL);
+    profile.setMedianMillis(100);
+    profile.setSigma(0.5);
+    long[] samples = sample(profile);
+    assertEquals(100, percentile(samples, 50), 3);
+    // One standard deviation either side of the median
+    assertEquals(100 * Math.exp(-0.5), percentile(samples, 15.87), 3);
+    assertEquals(100 * Math.exp(0.5), percentile(samples, 84.13), 5);
+    assertEquals(100 * Math.exp(0.5 * 2.326), percentile(samples, 99), 15);
+  }
+
+  @Test
+  public void shouldCapLogNormalDelay() {
+    LatencyProfile profile = profile(Distribution.LOG_NORMAL);
+    profile.setMedianMillis(100);
+    profile.setSigma(1);
+    profile.setMaxMillis(300);
+    long[] samples = sample(profile);
+    assertEquals(100, percentile(samples, 50), 5);
+    assertEquals(300, samples[SAMPLES - 1]);
+    // Capped from where the distribution passes the maximum, e^1.0986 being 3
+    assertEquals(300, percentile(samples, 87));
+  }
+
+  @Test
+  public void shouldSampleLogNormalWithoutSpreadAsMedian() {
+    LatencyProfile profile = profile(Distribution.LOG_NORMAL);
+    profile.setMedianMillis(100);
+    long[] samples = sample(profile);
+    assertEquals(100, samples[0]);
+    assertEquals(100, samples[SAMPLES - 1]);
+  }
+
+  @Test
+  public void shouldInterpolateEmpiricalPercentiles() {
+    LatencyProfile profile = profile(Distribution.EMPIRICAL);
+    profile.setPercentiles(List.of(point(100, 1000), point(50, 100), point(90, 300)));
+    long[] samples = sample(profile);
+    assertEquals(100, samples[0]);
+    assertEquals(100, percentile(samples, 30));
+    assertEquals(200, percentile(samples, 70), 5);
+    assertEquals(650, percentile(samples, 95), 25);
+    assertEquals(1000, samples[SAMPLES - 1], 10);
+  }
+
+  @Test
+  public void shouldTakeHighestEmpiricalPercentileAsLongestDelay() {
+    LatencyProfile profile = profile(Distribution.EMPIRICAL);
+    profile.setPercentiles(List.of(point(50, 100), point(90, 500)));
+    long[] samples = sample(profile);
+    assertEquals(100, percentile(samples, 50), 5);
+    assertEquals(300, percentile(samples, 77.5), 10);
+    assertEquals(500, samples[SAMPLES - 1], 5);
+  }
+
+  @Test
+  public void shouldRejectInvalidProfiles() {
+    LatencyProfile negative = profile(Distribution.FIXED);
+    negative.setMillis(-1);
+    LatencyProfile inverted = profile(Distribution.UNIFORM);
+    inverted.setMinMillis(200);
+    inverted.setMaxMillis(100);
+    LatencyProfile noMedian = profile(Distribution.LOG_NORMAL);
+    LatencyProfile noPercentiles = profile(Distribution.EMPIRICAL);
+    LatencyProfile duplicated = profile(Distribution.EMPIRICAL);
+    duplicated.setPercentiles(List.of(point(50, 100), point(50, 200)));
+    LatencyProfile falling = profile(Distribution.EMPIRICAL);
+    falling.setPercentiles(List.of(point(50, 200), point(90, 100)));
+    LatencyProfile overHundred = profile(Distribution.EMPIRICAL);
+    overHundred.setPercentiles(List.of(point(101, 100)));
+
+    for (LatencyProfile profile :
+        List.of(negative, inverted, noMedian, noPercentiles, duplicated, falling, overHundred)) {
+      assertThrows(IllegalArgumentException.class, () -> LatencySampler.of(profile));
+    }
+  }
+
+  private static LatencyProfile profile(Distribution distribution) {
+    LatencyProfile profile = new LatencyProfile();
+    profile.setDistribution(distribution);
+    return profile;
+  }
+
+  private static LatencyProfile.Percentile point(double percentile, long millis) {
+    LatencyProfile.Percentile point = new LatencyProfile.Percentile();
+    point.setPercentile(percentile);
+    point.setMillis(millis);
+    return point;
+  }
+
+  // Sorted samples of the profile's distribution
+  private static long[] sample(LatencyProfile profile) {
+    LatencySampler sampler = LatencySampler.of(profile);
+    long[] samples = new long[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      samples[i] = sampler.sampleMillis();
+    }
+    Arrays.sort(samples);
+    return samples;
+  }
+
+  private static long percentile(long[] samples, double percentile) {
+    return samples[(int) (samples.length * percentile / 100)];
+  }
+}
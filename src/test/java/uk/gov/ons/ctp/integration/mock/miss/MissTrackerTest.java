@@ -0,0 +1,100 @@
+package uk.gov.ons.ctp.integration.mock.miss;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+public class MissTrackerTest {
+
+  @Test
+  public void shouldListMostMissedKeysFirst() {
+    MissTracker tracker = tracker(3);
+    record(tracker, RequestType.AI_RH_POSTCODE, "CF32TW", 5);
+    record(tracker, RequestType.AI_RH_POSTCODE, "EX24LU", 3);
+    record(tracker, RequestType.AI_RH_POSTCODE, "EX41EH", 1);
+    record(tracker, RequestType.AI_RH_POSTCODE, "CF51AD", 4);
+
+    List<MissDTO> misses = tracker.top(RequestType.AI_RH_POSTCODE, 10);
+    assertEquals(List.of("CF32TW", "CF51AD", "EX24LU"), keys(misses));
+    assertEquals(List.of(5L, 4L, 3L), counts(misses));
+    assertEquals(List.of("CF32TW", "CF51AD"), keys(tracker.top(RequestType.AI_RH_POSTCODE, 2)));
+  }
+
+  @Test
+  public void shouldListEachTypeOfRequest() {
+    MissTracker tracker = tracker(3);
+    record(tracker, RequestType.AI_RH_POSTCODE, "CF32TW", 2);
+    record(tracker, RequestType.AI_RH_UPRN, "100040239948", 1);
+    tracker.record(RequestType.AI_RH_UPRN, null);
+
+    assertEquals(List.of("100040239948"), keys(tracker.top(RequestType.AI_RH_UPRN, 10)));
+    assertEquals(List.of("CF32TW", "100040239948"), keys(tracker.top(null, 10)));
+    assertEquals("AI_RH_UPRN", tracker.top(null, 10).get(1).getRequestType());
+  }
+
+  @Test
+  public void shouldCountKeysWithSameHashCodeApart() {
+    assertEquals("Aa".hashCode(), "BB".hashCode());
+    assertNotEquals(MissTracker.hash("Aa"), MissTracker.hash("BB"));
+
+    MissTracker tracker = tracker(3);
+    record(tracker, RequestType.AI_EQ, "Aa", 5);
+    record(tracker, RequestType.AI_EQ, "BB", 1);
+    List<MissDTO> misses = tracker.top(RequestType.AI_EQ, 10);
+    assertEquals(List.of("Aa", "BB"), keys(misses));
+    assertEquals(List.of(5L, 1L), counts(misses));
+  }
+
+  @Test
+  public void shouldForgetMissesOnReset() {
+    MissTracker tracker = tracker(3);
+    record(tracker, RequestType.AI_EQ, "holbe", 2);
+    tracker.reset();
+    assertTrue(tracker.top(null, 10).isEmpty());
+
+    record(tracker, RequestType.AI_EQ, "holbe", 1);
+    assertEquals(List.of(1L), counts(tracker.top(RequestType.AI_EQ, 10)));
+  }
+
+  @Test
+  public void shouldRejectSizesOutOfRange() {
+    assertThrows(IllegalArgumentException.class, () -> tracker(0));
+    MissConfig config = new MissConfig();
+    config.setSketchWidth(0);
+    assertThrows(IllegalArgumentException.class, () -> new MissTracker(config));
+  }
+
+  private static MissTracker tracker(int topKeys) {
+    MissConfig config = new MissConfig();
+    config.setTopKeys(topKeys);
+    return new MissTracker(config);
+  }
+
+  private static void record(MissTracker tracker, RequestType requestType, String key, int times) {
+    for (int i = 0; i < times; i++) {
+      tracker.record(requestType, key);
+    }
+  }
+
+  private static List<String> keys(List<MissDTO> misses) {
+    List<String> keys = new ArrayList<>();
+    for (MissDTO miss : misses) {
+      keys.add(miss.getKey());
+    }
+    return keys;
+  }
+
+  private static List<Long> counts(List<MissDTO> misses) {
+    List<Long> counts = new ArrayList<>();
+    for (MissDTO miss : misses) {
+      counts.add(miss.getCount());
+    }
+    return counts;
+  }
+}
@@ -0,0 +1,126 @@
+package uk.gov.ons.ctp.integration.mock.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+public class RateLimiterTest {
+  private static final long ONE_SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  @Test
+  public void shouldAllowBurstThenRefuse() {
+    RateLimiter limiter = new RateLimiter(List.of(endpointLimit(1, 2)));
+    assertEquals(0, limiter.acquire(RequestType.AI_PARTIAL, client("a")));
+    assertEquals(0, limiter.acquire(RequestType.AI_PARTIAL, client("a")));
+
+    long waitNanos = limiter.acquire(RequestType.AI_PARTIAL, client("a"));
+    assertTrue(waitNanos > 0 && waitNanos <= ONE_SECOND_NANOS, "wait " + waitNanos);
+  }
+
+  @Test
+  public void shouldKeepEndpointBucketsSeparate() {
+    RateLimiter limiter = new RateLimiter(List.of(endpointLimit(1, 1)));
+    assertEquals(0, limiter.acquire(RequestType.AI_PARTIAL, client("a")));
+    assertEquals(0, limiter.acquire(RequestType.AI_POSTCODE, client("a")));
+    assertTrue(limiter.acquire(RequestType.AI_PARTIAL, client("a")) > 0);
+  }
+
+  @Test
+  public void shouldOnlyLimitListedTypes() {
+    RateLimit limit = endpointLimit(1, 1);
+    limit.setRequestTypes(Set.of(RequestType.CASE_ID));
+    RateLimiter limiter = new RateLimiter(List.of(limit));
+    for (int i = 0; i < 5; i++) {
+      assertEquals(0, limiter.acquire(RequestType.AI_PARTIAL, client("a")));
+    }
+  }
+
+  @Test
+  public void shouldNotTakeTokensForRefusedRequests() {
+    // Five requests a second in all, but only one at once for each client
+    RateLimiter limiter = new RateLimiter(List.of(endpointLimit(1, 5), clientLimit(1, 1)));
+    assertEquals(0, limiter.acquire(RequestType.AI_PARTIAL, client("a")));
+    for (int i = 0; i < 10; i++) {
+      assertTrue(limiter.acquire(RequestType.AI_PARTIAL, client("a")) > 0);
+    }
+
+    // The refused requests gave back their endpoint tokens, so four more clients get in
+    for (String client : Arrays.asList("b", "c", "d", "e")) {
+      assertEquals(0, limiter.acquire(RequestType.AI_PARTIAL, client(client)), client);
+    }
+    assertTrue(limiter.acquire(RequestType.AI_PARTIAL, client("f")) > 0);
+  }
+
+  @Test
+  public void shouldWaitForTheSlowestLimit() {
+    // The first limit refills in a second, the second in four
+    RateLimiter limiter = new RateLimiter(List.of(endpointLimit(1, 1), endpointLimit(0.25, 1)));
+    assertEquals(0, limiter.acquire(RequestType.AI_PARTIAL, client("a")));
+
+    long waitNanos = limiter.acquire(RequestType.AI_PARTIAL, client("a"));
+    assertTrue(waitNanos > 3 * ONE_SECOND_NANOS, "wait " + waitNanos);
+    assertTrue(waitNanos <= 4 * ONE_SECOND_NANOS, "wait " + waitNanos);
+  }
+
+  @Test
+  public void shouldIdentifyClientsByHeader() {
+    RateLimit limit = clientLimit(1, 1);
+    limit.setClientHeader("X-Client-Id");
+    RateLimiter limiter = new RateLimiter(List.of(limit));
+    assertEquals(0, limiter.acquire(RequestType.AI_PARTIAL, client("a", "one")));
+    assertEquals(0, limiter.acquire(RequestType.AI_PARTIAL, client("a", "two")));
+    assertTrue(limiter.acquire(RequestType.AI_PARTIAL, client("b", "one")) > 0);
+  }
+
+  @Test
+  public void shouldRejectInvalidLimits() {
+    List<RateLimit> noRate = List.of(endpointLimit(0, 1));
+    assertThrows(IllegalArgumentException.class, () -> new RateLimiter(noRate));
+    List<RateLimit> noBurst = List.of(endpointLimit(1, 0));
+    assertThrows(IllegalArgumentException.class, () -> new RateLimiter(noBurst));
+  }
+
+  private static RateLimit endpointLimit(double requestsPerSecond, int burst) {
+    RateLimit limit = new RateLimit();
+    limit.setRequestsPerSecond(requestsPerSecond);
+    limit.setBurst(burst);
+    return limit;
+  }
+
+  private static RateLimit clientLimit(double requestsPerSecond, int burst) {
+    RateLimit limit = endpointLimit(requestsPerSecond, burst);
+    limit.setScope(RateLimit.Scope.CLIENT);
+    return limit;
+  }
+
+  private static HttpServletRequest client(String remoteAddr) {
+    return client(remoteAddr, null);
+  }
+
+  // A request which only knows its remote address and client header
+  private static HttpServletRequest client(String remoteAddr, String clientId) {
+    return (HttpServletRequest)
+        Proxy.newProxyInstance(
+            RateLimiterTest.class.getClassLoader(),
+            new Class<?>[] {HttpServletRequest.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "getRemoteAddr":
+                  return remoteAddr;
+                case "getHeader":
+                  return clientId;
+                default:
+                  throw new UnsupportedOperationException(method.getName());
+              }
+            });
+  }
+}
@@ -0,0 +1,139 @@
+package uk.gov.ons.ctp.integration.mock.scenario;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+public class ScenarioEngineTest {
+  private ScenarioEngine engine;
+
+  @AfterEach
+  public void tearDown() {
+    if (engine != null) {
+      engine.close();
+    }
+  }
+
+  @Test
+  public void shouldFailThenSucceedThenRestartOnceExpired() {
+    engine = engine(100, retry(false));
+
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, engine.next(RequestType.CASE_ID, "503-a"));
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, engine.next(RequestType.CASE_ID, "503-a"));
+    assertNull(engine.next(RequestType.CASE_ID, "503-a"));
+    assertNull(engine.next(RequestType.CASE_ID, "503-a"));
+    assertEquals(1, engine.activeKeys());
+
+    engine.expireIdle(System.nanoTime() + TimeUnit.SECONDS.toNanos(30));
+    assertEquals(0, engine.activeKeys());
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, engine.next(RequestType.CASE_ID, "503-a"));
+  }
+
+  @Test
+  public void shouldKeepKeysUsedWithinExpiry() {
+    engine = engine(100, retry(false));
+    engine.next(RequestType.CASE_ID, "503-a");
+
+    engine.expireIdle(System.nanoTime() + TimeUnit.SECONDS.toNanos(5));
+    assertEquals(1, engine.activeKeys());
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, engine.next(RequestType.CASE_ID, "503-a"));
+    assertNull(engine.next(RequestType.CASE_ID, "503-a"));
+  }
+
+  @Test
+  public void shouldRepeatScenario() {
+    engine = engine(100, retry(true));
+    for (int round = 0; round < 3; round++) {
+      assertEquals(HttpStatus.SERVICE_UNAVAILABLE, engine.next(RequestType.CASE_ID, "503-a"));
+      assertEquals(HttpStatus.SERVICE_UNAVAILABLE, engine.next(RequestType.CASE_ID, "503-a"));
+      assertNull(engine.next(RequestType.CASE_ID, "503-a"));
+    }
+  }
+
+  @Test
+  public void shouldPlayEachKeySeparately() {
+    engine = engine(100, retry(false));
+    engine.next(RequestType.CASE_ID, "503-a");
+    engine.next(RequestType.CASE_ID, "503-a");
+
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, engine.next(RequestType.CASE_ID, "503-b"));
+    assertNull(engine.next(RequestType.CASE_ID, "503-a"));
+    assertNull(engine.next(RequestType.CASE_ID, "404-a"));
+    assertNull(engine.next(RequestType.CASE_REF, "503-a"));
+    assertEquals(2, engine.activeKeys());
+  }
+
+  @Test
+  public void shouldRefuseNewKeysBeyondMaximum() {
+    engine = engine(2, retry(false));
+    engine.next(RequestType.CASE_ID, "503-a");
+    engine.next(RequestType.CASE_ID, "503-b");
+
+    assertNull(engine.next(RequestType.CASE_ID, "503-c"));
+    assertNull(engine.next(RequestType.CASE_ID, "503-c"));
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, engine.next(RequestType.CASE_ID, "503-a"));
+    assertEquals(2, engine.activeKeys());
+    assertEquals(2, engine.maxKeys());
+    assertEquals(2, engine.refusedKeys());
+
+    engine.reset();
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, engine.next(RequestType.CASE_ID, "503-c"));
+  }
+
+  @Test
+  public void shouldRestartKeysOfResetScenario() {
+    engine = engine(100, retry(false));
+    engine.next(RequestType.CASE_ID, "503-a");
+    engine.next(RequestType.CASE_ID, "503-a");
+
+    assertEquals(false, engine.reset("other"));
+    assertEquals(true, engine.reset("retry"));
+    assertEquals(0, engine.activeKeys());
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, engine.next(RequestType.CASE_ID, "503-a"));
+  }
+
+  @Test
+  public void shouldRejectInvalidScenarios() {
+    engine = engine(100, retry(false));
+    ScenarioDefinition noSteps = new ScenarioDefinition();
+    noSteps.setName("no-steps");
+    ScenarioDefinition unknownStatus = retry(false);
+    unknownStatus.getSteps().get(0).setStatus(999);
+
+    assertThrows(IllegalArgumentException.class, () -> engine.replace(List.of(noSteps)));
+    assertThrows(IllegalArgumentException.class, () -> engine.replace(List.of(unknownStatus)));
+    assertThrows(
+        IllegalArgumentException.class, () -> engine.replace(List.of(retry(false), retry(true))));
+    assertEquals(1, engine.definitions().size());
+  }
+
+  private static ScenarioEngine engine(int maxKeys, ScenarioDefinition definition) {
+    ScenarioConfig config = new ScenarioConfig();
+    config.setIdleExpirySeconds(10);
+    config.setMaxKeys(maxKeys);
+    config.setDefinitions(List.of(definition));
+    return new ScenarioEngine(config);
+  }
+
+  // Fails case id requests for keys starting 503 twice, and then gives the normal response
+  private static ScenarioDefinition retry(boolean repeat) {
+    ScenarioDefinition.Step unavailable = new ScenarioDefinition.Step();
+    unavailable.setStatus(503);
+    unavailable.setTimes(2);
+    ScenarioDefinition definition = new ScenarioDefinition();
+    definition.setName("retry");
+    definition.setRequestTypes(Set.of(RequestType.CASE_ID));
+    definition.setKeyPattern("503.*");
+    definition.setSteps(List.of(unavailable, new ScenarioDefinition.Step()));
+    definition.setRepeat(repeat);
+    return definition;
+  }
+}
@@ -0,0 +1,45 @@
+package uk.gov.ons.ctp.integration.mock.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.mock.endpoint.RequestType;
+
+public class ObjectMapperRegistryTest {
+
+  @Test
+  public void shouldShareReadersAndWriters() {
+    ObjectMapperRegistry json = ObjectMapperRegistry.get();
+    for (RequestType requestType : RequestType.values()) {
+      Class<?> responseClass = requestType.getResponseClass();
+      assertSame(json.reader(responseClass), json.reader(responseClass));
+      assertSame(json.writer(responseClass), json.writer(responseClass));
+      assertSame(json.prettyWriter(responseClass), json.prettyWriter(responseClass));
+    }
+  }
+
+  @Test
+  public void shouldRenderAsUnsharedMapperDoes() throws Exception {
+    RequestType requestType = RequestType.AI_RH_POSTCODE;
+    Class<?> responseClass = requestType.getResponseClass();
+    Path file = Paths.get("src/main/resources/data/addresses/rh/postcode/ex24lu.json");
+    String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    ObjectMapper unshared = ObjectMapperFactory.objectMapper();
+    Object unsharedResponse = unshared.readerFor(responseClass).readValue(text);
+    String expected = unshared.writerFor(responseClass).writeValueAsString(unsharedResponse);
+
+    for (boolean useBlackbird : new boolean[] {true, false}) {
+      ObjectMapperRegistry json = new ObjectMapperRegistry(useBlackbird);
+      Object response = json.reader(responseClass).readValue(text);
+      assertEquals(expected, json.writer(responseClass).writeValueAsString(response));
+      assertTrue(json.prettyWriter(responseClass).writeValueAsString(response).contains("\n"));
+    }
+  }
+}